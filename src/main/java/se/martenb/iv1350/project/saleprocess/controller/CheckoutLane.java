@@ -0,0 +1,71 @@
+package se.martenb.iv1350.project.saleprocess.controller;
+
+import se.martenb.iv1350.project.saleprocess.model.Discount;
+import se.martenb.iv1350.project.saleprocess.model.Payment;
+import se.martenb.iv1350.project.saleprocess.model.Sale;
+
+/**
+ * The state of a single checkout lane or self-checkout kiosk: its ongoing
+ * sale, payment and discount handling. A lane is used by one thread at a
+ * time, while everything shared by all lanes is kept by the
+ * {@link Controller}.
+ */
+class CheckoutLane {
+    private final int laneID;
+    private final Payment payment;
+    private final Discount discount;
+    private volatile Sale sale;
+
+    /**
+     * Creates a new instance of a checkout lane without an ongoing sale.
+     *
+     * @param laneID The ID of the lane.
+     * @param payment The payment handler of the lane.
+     * @param discount The discount handler of the lane.
+     */
+    CheckoutLane(int laneID, Payment payment, Discount discount) {
+        this.laneID = laneID;
+        this.payment = payment;
+        this.discount = discount;
+    }
+
+    /**
+     * Start a new sale on the lane, replacing any ongoing sale.
+     */
+    void startSale() {
+        sale = new Sale();
+    }
+
+    /**
+     * Get the ongoing sale of the lane.
+     *
+     * @return The ongoing sale.
+     * @throws IllegalStateException If no sale has been started on the lane.
+     */
+    Sale getSale() {
+        Sale ongoingSale = sale;
+        if (ongoingSale == null)
+            throw new IllegalStateException("No sale has been started on " +
+                    "lane " + laneID + ".");
+        return ongoingSale;
+    }
+
+    /**
+     * Get the payment handler of the lane.
+     *
+     * @return The payment handler.
+     */
+    Payment getPayment() {
+        return payment;
+    }
+
+    /**
+     * Get the discount handler of the lane.
+     *
+     * @return The discount handler.
+     */
+    Discount getDiscount() {
+        return discount;
+    }
+
+}
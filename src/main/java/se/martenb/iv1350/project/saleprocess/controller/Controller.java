@@ -1,9 +1,18 @@
 package se.martenb.iv1350.project.saleprocess.controller;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import se.martenb.iv1350.project.saleprocess.model.UnknownItemException;
 import se.martenb.iv1350.project.saleprocess.model.ItemRegistrationException;
 import se.martenb.iv1350.project.saleprocess.util.ErrorLogger;
 import se.martenb.iv1350.project.saleprocess.integration.AccountingRegistry;
+import se.martenb.iv1350.project.saleprocess.integration.AsyncItemRegistry;
 import se.martenb.iv1350.project.saleprocess.integration.discount.DiscountRegistry;
 import se.martenb.iv1350.project.saleprocess.util.Amount;
 import se.martenb.iv1350.project.saleprocess.integration.dto.ItemDTO;
@@ -12,6 +21,7 @@ import se.martenb.iv1350.project.saleprocess.integration.ItemRegistryException;
 import se.martenb.iv1350.project.saleprocess.integration.Printer;
 import se.martenb.iv1350.project.saleprocess.integration.dto.PurchaseDTO;
 import se.martenb.iv1350.project.saleprocess.integration.dto.ReceiptDTO;
+import se.martenb.iv1350.project.saleprocess.integration.dto.RegisterBalanceDTO;
 import se.martenb.iv1350.project.saleprocess.integration.RegistryCreator;
 import se.martenb.iv1350.project.saleprocess.integration.dto.SaleDTO;
 import se.martenb.iv1350.project.saleprocess.integration.StoreRegistry;
@@ -21,14 +31,28 @@ import se.martenb.iv1350.project.saleprocess.model.Discount;
 import se.martenb.iv1350.project.saleprocess.model.Payment;
 import se.martenb.iv1350.project.saleprocess.model.Register;
 import se.martenb.iv1350.project.saleprocess.model.Sale;
+import se.martenb.iv1350.project.saleprocess.model.BackpressurePolicy;
+import se.martenb.iv1350.project.saleprocess.model.PurchaseEventDispatcher;
 import se.martenb.iv1350.project.saleprocess.model.PurchaseObserver;
 import se.martenb.iv1350.project.saleprocess.util.Quantity;
 
 /**
  * Controller responsible for communications between the user and the model and
  * integration.
+ * 
+ * One controller serves any number of checkout lanes or self-checkout kiosks, 
+ * each identified by a lane ID and having its own ongoing sale. Different 
+ * lanes may be used by different threads at the same time, while each lane 
+ * is used by one thread at a time. The registries, the register and the 
+ * purchase observers are shared by all lanes. The methods without a lane ID 
+ * use the default lane, {@link #DEFAULT_LANE_ID}.
  */
 public class Controller {
+    /**
+     * The ID of the lane used by the methods without a lane ID.
+     */
+    public static final int DEFAULT_LANE_ID = 0;
+    
     private Printer printer;
     private Register register;
     private RegistryCreator registryCreator;
@@ -36,9 +60,11 @@ public class Controller {
     private AccountingRegistry accountingRegistry;
     private StoreRegistry storeRegistry;
     private DiscountRegistry discountRegistry;
-    private Discount discount;
-    private Payment payment;
-    private Sale sale;
+    private final ConcurrentMap<Integer, CheckoutLane> lanes = 
+            new ConcurrentHashMap<>();
+    private PurchaseEventDispatcher purchaseEventDispatcher;
+    private PostPaymentPipeline postPaymentPipeline;
+    private volatile boolean isShutDown;
     ErrorLogger errorLogger;
     
     /**
@@ -47,13 +73,65 @@ public class Controller {
      * @param printer The printer later responsible for printing receipts.
      */
     public Controller(Printer printer) {
+        this(printer, new ErrorLogger());
+    }
+    
+    /**
+     * Creates a new instance of a {@link Controller} logging errors with 
+     * the specified logger. 
+     * 
+     * @param printer The printer later responsible for printing receipts.
+     * @param errorLogger The logger of errors that are not shown to the 
+     *                    user.
+     */
+    public Controller(Printer printer, ErrorLogger errorLogger) {
         this.printer = printer;
         register = new Register();
         registryCreator = new RegistryCreator();
         importExternalRegistries();
-        discount = new Discount(discountRegistry.getCompositeDiscountRule());
-        payment = new Payment(storeRegistry, register);
-        errorLogger = new ErrorLogger();
+        this.errorLogger = errorLogger;
+        purchaseEventDispatcher = new PurchaseEventDispatcher(errorLogger);
+        postPaymentPipeline = new PostPaymentPipeline(accountingRegistry, 
+                itemRegistry, printer, errorLogger);
+        openLane(DEFAULT_LANE_ID);
+    }
+    
+    /**
+     * Creates a new instance of a {@link Controller} keeping every 
+     * bookkept sale in the sales ledger in the specified directory. The 
+     * ledger is closed when the controller is shut down.
+     * 
+     * @param printer The printer later responsible for printing receipts.
+     * @param salesLedgerDirectory The directory of the sales ledger.
+     * @throws IOException If the sales ledger could not be opened.
+     */
+    public Controller(Printer printer, Path salesLedgerDirectory) 
+            throws IOException {
+        this(printer, salesLedgerDirectory, new ErrorLogger());
+    }
+    
+    /**
+     * Creates a new instance of a {@link Controller} keeping every 
+     * bookkept sale in the sales ledger in the specified directory, and 
+     * logging errors with the specified logger. The ledger is closed when 
+     * the controller is shut down.
+     * 
+     * @param printer The printer later responsible for printing receipts.
+     * @param salesLedgerDirectory The directory of the sales ledger.
+     * @param errorLogger The logger of errors that are not shown to the 
+     *                    user.
+     * @throws IOException If the sales ledger could not be opened.
+     */
+    public Controller(Printer printer, Path salesLedgerDirectory, 
+            ErrorLogger errorLogger) throws IOException {
+        this(printer, errorLogger);
+        try {
+            registryCreator.openSalesLedger(salesLedgerDirectory, 
+                    errorLogger);
+        } catch (IOException exc) {
+            shutdown();
+            throw exc;
+        }
     }
     
     /**
@@ -64,13 +142,67 @@ public class Controller {
         accountingRegistry = registryCreator.getAccountingRegistry();
         storeRegistry = registryCreator.getStoreRegistry();
         discountRegistry = DiscountRegistry.getDiscountRegistry();
+        discountRegistry.materializeItemDiscounts(
+                itemRegistry.getCatalogSnapshot());
+    }
+    
+    /**
+     * Open the specified lane if it is not already open. Every lane gets its 
+     * own payment and discount handler, all sharing the purchase observers 
+     * of the controller, and puts its payments into its own drawer of the 
+     * register.
+     * 
+     * @param laneID The ID of the lane to open.
+     * @return The open lane.
+     */
+    private CheckoutLane openLane(int laneID) {
+        return lanes.computeIfAbsent(laneID, newLaneID -> new CheckoutLane(
+                newLaneID, 
+                new Payment(storeRegistry, register.openDrawer(newLaneID), 
+                        purchaseEventDispatcher), 
+                new Discount(discountRegistry.getCompositeDiscountRule())));
+    }
+    
+    /**
+     * Get the specified open lane.
+     * 
+     * @param laneID The ID of the lane.
+     * @return The lane.
+     * @throws IllegalStateException If the lane is not open.
+     */
+    private CheckoutLane getLane(int laneID) {
+        CheckoutLane lane = lanes.get(laneID);
+        if (lane == null)
+            throw new IllegalStateException("Lane " + laneID + 
+                    " is not open.");
+        return lane;
+    }
+    
+    /**
+     * Close the specified lane, discarding its ongoing sale. The lane is 
+     * opened again when a new sale is started on it.
+     * 
+     * @param laneID The ID of the lane to close.
+     */
+    public void closeLane(int laneID) {
+        lanes.remove(laneID);
     }
     
     /**
      * Start a new sale and create a new {@link Sale} instance.
      */
     public void startSale() {
-        sale = new Sale();
+        startSale(DEFAULT_LANE_ID);
+    }
+    
+    /**
+     * Start a new sale on the specified lane, opening the lane if it is not 
+     * already open. Any ongoing sale on the lane is discarded.
+     * 
+     * @param laneID The ID of the lane to start the sale on.
+     */
+    public void startSale(int laneID) {
+        openLane(laneID).startSale();
     }
     
     /**
@@ -84,15 +216,38 @@ public class Controller {
      * @throws OperationFailedException If the item could not be registered 
      *                                  because of an error not caused by the 
      *                                  user.
+     * @throws IllegalStateException If no sale has been started.
      */
     public SaleDTO registerItem(int itemID, Quantity quantity) 
             throws ItemRegistrationException, OperationFailedException {
+        return registerItem(DEFAULT_LANE_ID, itemID, quantity);
+    }
+    
+    /**
+     * Register an item to the ongoing sale on the specified lane.
+     * 
+     * @param laneID The lane of the sale.
+     * @param itemID Item to add onto the sale.
+     * @param quantity How many of the item to add onto the sale.
+     * @return The state of the sale information after adding the item(s).
+     * @throws ItemRegistrationException If the item could not be registered 
+     *                                   because of a user error.
+     * @throws OperationFailedException If the item could not be registered 
+     *                                  because of an error not caused by the 
+     *                                  user.
+     * @throws IllegalStateException If no sale has been started on the 
+     *                               lane.
+     */
+    public SaleDTO registerItem(int laneID, int itemID, Quantity quantity) 
+            throws ItemRegistrationException, OperationFailedException {
+        Sale sale = getLane(laneID).getSale();
         SaleDTO stateOfSale = null;
         try {
-            boolean isItemInRegistry = itemRegistry.isItemInDB(itemID);
-            if (!isItemInRegistry)
+            Optional<ItemDTO> foundItemInfo = 
+                    itemRegistry.findItemInfo(itemID);
+            if (foundItemInfo.isEmpty())
                 throw new UnknownItemException(itemID);
-            ItemDTO itemInfo = itemRegistry.getItemInfo(itemID);
+            ItemDTO itemInfo = foundItemInfo.get();
             stateOfSale = sale.addItemToSale(itemInfo, quantity);
         } catch (ItemRegistryException exc) {
             errorLogger.logException(exc);
@@ -102,6 +257,158 @@ public class Controller {
         return stateOfSale;
     }
     
+    /**
+     * Register an item to the sale without blocking while the item is 
+     * searched for, for when the item registry is a remote system. The item 
+     * is added to the sale when the search completes, so no other item 
+     * should be registered to the sale until the returned future is 
+     * complete.
+     * 
+     * @param itemID Item to add onto the sale.
+     * @param quantity How many of the item to add onto the sale.
+     * @return A future completed with the state of the sale information 
+     * after adding the item(s). It is completed exceptionally with an 
+     * {@link ItemRegistrationException} if the item could not be registered 
+     * because of a user error, or with an {@link OperationFailedException} 
+     * if the search failed or timed out. Any other exception thrown while 
+     * adding the item also completes the future exceptionally.
+     * @throws IllegalStateException If no sale has been started.
+     */
+    public CompletableFuture<SaleDTO> registerItemAsync(int itemID, 
+            Quantity quantity) {
+        return registerItemAsync(DEFAULT_LANE_ID, itemID, quantity);
+    }
+    
+    /**
+     * Register an item to the sale on the specified lane without blocking 
+     * while the item is searched for. No other item should be registered to 
+     * the sale on the lane until the returned future is complete.
+     * 
+     * @param laneID The lane of the sale.
+     * @param itemID Item to add onto the sale.
+     * @param quantity How many of the item to add onto the sale.
+     * @return A future completed with the state of the sale information 
+     * after adding the item(s), or completed exceptionally as described for 
+     * {@link #registerItemAsync(int, Quantity)}.
+     * @throws IllegalStateException If no sale has been started on the 
+     *                               lane.
+     */
+    public CompletableFuture<SaleDTO> registerItemAsync(int laneID, 
+            int itemID, Quantity quantity) {
+        Sale saleToRegisterTo = getLane(laneID).getSale();
+        AsyncItemRegistry asyncItemRegistry = 
+                registryCreator.getAsyncItemRegistry();
+        CompletableFuture<SaleDTO> stateOfSale = new CompletableFuture<>();
+        asyncItemRegistry.findItemInfo(itemID).whenComplete(
+                (foundItemInfo, failure) -> {
+            if (failure != null) {
+                logSearchFailure(failure);
+                stateOfSale.completeExceptionally(
+                        new OperationFailedException("Failed to register " + 
+                                "the specified item."));
+                return;
+            }
+            try {
+                if (foundItemInfo.isEmpty())
+                    throw new UnknownItemException(itemID);
+                stateOfSale.complete(saleToRegisterTo.addItemToSale(
+                        foundItemInfo.get(), quantity));
+            } catch (Throwable exc) {
+                stateOfSale.completeExceptionally(exc);
+            }
+        });
+        return stateOfSale;
+    }
+    
+    /**
+     * Log the reason an asynchronous item search failed.
+     * 
+     * @param failure The reason the search failed.
+     */
+    private void logSearchFailure(Throwable failure) {
+        Throwable cause = failure;
+        if (cause instanceof CompletionException && cause.getCause() != null)
+            cause = cause.getCause();
+        errorLogger.logException(cause);
+    }
+    
+    /**
+     * Register a whole basket of items to the sale in one call, for example 
+     * from a self-checkout or an imported order. All items are looked up 
+     * at once and checked before any of them is added, so either the whole 
+     * basket is registered or nothing is.
+     * 
+     * @param itemIDs Items to add onto the sale.
+     * @param quantities How many of each item to add onto the sale.
+     * @return The state of the sale information after adding the items.
+     * @throws ItemRegistrationException If the basket could not be 
+     *                                   registered because of a user error, 
+     *                                   such as an unknown item.
+     * @throws OperationFailedException If the basket could not be 
+     *                                  registered because of an error not 
+     *                                  caused by the user.
+     * @throws IllegalStateException If no sale has been started.
+     */
+    public SaleDTO registerItems(int[] itemIDs, Quantity[] quantities) 
+            throws ItemRegistrationException, OperationFailedException {
+        return registerItems(DEFAULT_LANE_ID, itemIDs, quantities);
+    }
+    
+    /**
+     * Register a whole basket of items to the sale on the specified lane in 
+     * one call. Either the whole basket is registered or nothing is.
+     * 
+     * @param laneID The lane of the sale.
+     * @param itemIDs Items to add onto the sale.
+     * @param quantities How many of each item to add onto the sale.
+     * @return The state of the sale information after adding the items.
+     * @throws ItemRegistrationException If the basket could not be 
+     *                                   registered because of a user error, 
+     *                                   such as an unknown item.
+     * @throws OperationFailedException If the basket could not be 
+     *                                  registered because of an error not 
+     *                                  caused by the user.
+     * @throws IllegalStateException If no sale has been started on the 
+     *                               lane.
+     */
+    public SaleDTO registerItems(int laneID, int[] itemIDs, 
+            Quantity[] quantities) 
+            throws ItemRegistrationException, OperationFailedException {
+        Sale sale = getLane(laneID).getSale();
+        if (itemIDs.length != quantities.length)
+            throw new IllegalArgumentException("Every item in the basket " + 
+                    "must have a quantity.");
+        SaleDTO stateOfSale = null;
+        try {
+            ItemDTO[] foundItemInfos = itemRegistry.findItemInfos(itemIDs);
+            for (int i = 0; i < foundItemInfos.length; i++)
+                if (foundItemInfos[i] == null)
+                    throw new UnknownItemException(itemIDs[i]);
+            stateOfSale = sale.addItemsToSale(foundItemInfos, quantities);
+        } catch (ItemRegistryException exc) {
+            errorLogger.logException(exc);
+            throw new OperationFailedException("Failed to register the " + 
+                    "specified items.");
+        }
+        return stateOfSale;
+    }
+    
+    /**
+     * Search for items by name, for items without a barcode such as loose 
+     * fruit. Items with names starting with the text are found first.
+     * 
+     * @param nameText The text the names of the items must contain.
+     * @param maximumResults The maximum number of items to find.
+     * @return The found items, best match first.
+     */
+    public List<ItemDTO> findItemsByName(String nameText, 
+            int maximumResults) {
+        List<ItemDTO> foundItems = 
+                itemRegistry.findItemsByNameContaining(nameText, 
+                        maximumResults);
+        return foundItems;
+    }
+    
     /**
      * Try discounts on sale using the specified customer information.
      * 
@@ -111,6 +418,23 @@ public class Controller {
      */
     public DiscountDTO tryDiscountOnSale(
             SaleDTO saleState, CustomerDTO customerInformaton) {
+        return tryDiscountOnSale(DEFAULT_LANE_ID, saleState, 
+                customerInformaton);
+    }
+    
+    /**
+     * Try discounts on sale on the specified lane using the specified 
+     * customer information.
+     * 
+     * @param laneID The lane of the sale.
+     * @param saleState Sale to try discounts on.
+     * @param customerInformaton The customer to try discounts with.
+     * @return Information about the possible discount.
+     * @throws IllegalStateException If the lane is not open.
+     */
+    public DiscountDTO tryDiscountOnSale(int laneID, 
+            SaleDTO saleState, CustomerDTO customerInformaton) {
+        Discount discount = getLane(laneID).getDiscount();
         discount.startDiscount(saleState);
         DiscountDTO discountInformation = 
                 discount.tryDiscountOnSale(customerInformaton);
@@ -125,21 +449,102 @@ public class Controller {
      * @return Information about the purchase
      */
     public PurchaseDTO registerPayment(SaleDTO saleState, Amount amountPaid) {
-        payment.startPayment(saleState);
-        ReceiptDTO receipt = payment.pay(amountPaid);
-        accountingRegistry.bookkeep(receipt.getSaleInfo());
-        itemRegistry.stocktacke(receipt.getSaleInfo());
-        printer.print(receipt);
+        return registerPayment(DEFAULT_LANE_ID, saleState, amountPaid);
+    }
+    
+    /**
+     * Register payment and end the sale on the specified lane. The paid 
+     * amount is put into the register shared by all lanes. Returns as soon 
+     * as the receipt is final, the sale is then bookkept, the stock is 
+     * adjusted and the receipt is printed in the background, in the order 
+     * the sales of the lane were paid. A shutdown waits for payments in 
+     * progress, so no sale is paid without being bookkept.
+     * 
+     * @param laneID The lane of the sale.
+     * @param saleState Sale to register payment to.
+     * @param amountPaid The paid amount.
+     * @return Information about the purchase
+     * @throws IllegalStateException If the lane is not open, or the 
+     *                               controller is shut down.
+     */
+    public PurchaseDTO registerPayment(int laneID, SaleDTO saleState, 
+            Amount amountPaid) {
+        if (isShutDown)
+            throw new IllegalStateException("The controller is shut down.");
+        Payment payment = getLane(laneID).getPayment();
+        ReceiptDTO receipt = postPaymentPipeline.payAndSubmit(laneID, () -> {
+            payment.startPayment(saleState);
+            return payment.pay(amountPaid);
+        });
         
         return receipt.getPurchaseInfo();
     }
     
+    /**
+     * Get the balance of the register shared by all lanes, with the amount 
+     * in the drawer of each lane and the total of all drawers as they were 
+     * at one point in time.
+     * 
+     * @return The balance of the register.
+     */
+    public RegisterBalanceDTO getRegisterBalance() {
+        return register.snapshot();
+    }
+    
+    /**
+     * Wait until every sale paid so far has been bookkept, its stock has 
+     * been adjusted and its receipt has been printed, or the failure to do 
+     * so has been logged, and until the purchase observers have been 
+     * notified about it.
+     */
+    public void awaitPostPaymentStages() {
+        postPaymentPipeline.awaitSubmittedStages();
+        purchaseEventDispatcher.awaitNotifiedObservers();
+    }
+    
+    /**
+     * Shut the controller down when the application ends. Waits until every 
+     * sale paid so far has been bookkept, its stock has been adjusted and 
+     * its receipt has been printed, or the failure to do so has been 
+     * logged, and until the purchase observers have been notified about 
+     * it. Then stops the background threads doing this work and closes the 
+     * sales ledger, if any. No payments can be registered once the 
+     * controller is shut down.
+     */
+    public void shutdown() {
+        isShutDown = true;
+        postPaymentPipeline.close();
+        purchaseEventDispatcher.close();
+        try {
+            accountingRegistry.closeLedger();
+        } catch (IOException exc) {
+            errorLogger.logException(exc);
+        }
+    }
+    
    /**
-     * Add a {@link PurchaseObserver} to a payment handler. 
+     * Add a {@link PurchaseObserver} to the payment handlers of all lanes. 
+     * The observer is notified on a thread of its own, and payments wait 
+     * for it if it falls too far behind.
      * 
      * @param purchaseObserver The observer to add.
      */
     public void addPurchaseObserver(PurchaseObserver purchaseObserver) {
-        payment.addPurchaseObserver(purchaseObserver);
+        addPurchaseObserver(purchaseObserver, BackpressurePolicy.BLOCK);
+    }
+    
+    /**
+     * Add a {@link PurchaseObserver} to the payment handlers of all lanes, 
+     * handling an observer that falls behind according to the specified 
+     * policy. The observer is notified on a thread of its own.
+     * 
+     * @param purchaseObserver The observer to add.
+     * @param backpressurePolicy What to do when the observer has not kept 
+     *                           up with the purchases.
+     */
+    public void addPurchaseObserver(PurchaseObserver purchaseObserver, 
+            BackpressurePolicy backpressurePolicy) {
+        purchaseEventDispatcher.subscribe(purchaseObserver, 
+                backpressurePolicy);
     }
 }
\ No newline at end of file
@@ -0,0 +1,260 @@
+package se.martenb.iv1350.project.saleprocess.controller;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import se.martenb.iv1350.project.saleprocess.integration.AccountingRegistry;
+import se.martenb.iv1350.project.saleprocess.integration.ItemRegistry;
+import se.martenb.iv1350.project.saleprocess.integration.Printer;
+import se.martenb.iv1350.project.saleprocess.integration.dto.ReceiptDTO;
+import se.martenb.iv1350.project.saleprocess.util.ErrorLogger;
+
+/**
+ * Runs the work that follows a payment, bookkeeping, stock adjustment and
+ * printing of the receipt, in the background so that the cashier does not
+ * have to wait for it.
+ *
+ * The three stages of a receipt run independently of each other. Each stage
+ * handles the receipts of a lane in the order they were paid, so a receipt
+ * is never printed before an earlier receipt of the same lane. A failed
+ * stage is logged and not retried, since none of the stages can safely run
+ * twice for the same receipt: the stock of the lines adjusted before the
+ * failure would be adjusted again, and the receipt would be printed or
+ * bookkept twice. A failed stage never stops other stages or later
+ * receipts.
+ *
+ * The pipeline must be closed when the application ends, which waits for
+ * every submitted stage before the background threads are stopped.
+ */
+class PostPaymentPipeline {
+    private static final CompletableFuture<Void> COMPLETED_STAGE =
+            CompletableFuture.completedFuture(null);
+    private final AccountingRegistry accountingRegistry;
+    private final ItemRegistry itemRegistry;
+    private final Printer printer;
+    private final ErrorLogger errorLogger;
+    private final Executor stageExecutor;
+    private final ExecutorService ownedExecutor;
+    private final ConcurrentMap<Integer, LaneStages> laneStages =
+            new ConcurrentHashMap<>();
+    private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+    private boolean isClosed;
+
+    /**
+     * The last submitted stages of a lane, which the stages of the next
+     * receipt of the lane must wait for.
+     */
+    private static final class LaneStages {
+        private final CompletableFuture<Void> bookkeeping;
+        private final CompletableFuture<Void> stocktaking;
+        private final CompletableFuture<Void> printing;
+
+        private LaneStages(CompletableFuture<Void> bookkeeping,
+                CompletableFuture<Void> stocktaking,
+                CompletableFuture<Void> printing) {
+            this.bookkeeping = bookkeeping;
+            this.stocktaking = stocktaking;
+            this.printing = printing;
+        }
+    }
+
+    /**
+     * Creates a new pipeline running its stages on its own background
+     * threads, which are stopped when the pipeline is closed.
+     *
+     * @param accountingRegistry The registry to bookkeep sales in.
+     * @param itemRegistry The registry to adjust the stock of.
+     * @param printer The printer to print receipts with.
+     * @param errorLogger The logger of failed stages.
+     */
+    PostPaymentPipeline(AccountingRegistry accountingRegistry,
+            ItemRegistry itemRegistry, Printer printer,
+            ErrorLogger errorLogger) {
+        this(accountingRegistry, itemRegistry, printer, errorLogger,
+                createDaemonExecutor(), true);
+    }
+
+    /**
+     * Creates a new pipeline running its stages on threads of the
+     * specified executor. The executor is not shut down when the pipeline
+     * is closed.
+     *
+     * @param accountingRegistry The registry to bookkeep sales in.
+     * @param itemRegistry The registry to adjust the stock of.
+     * @param printer The printer to print receipts with.
+     * @param errorLogger The logger of failed stages.
+     * @param stageExecutor The executor running the stages.
+     */
+    PostPaymentPipeline(AccountingRegistry accountingRegistry,
+            ItemRegistry itemRegistry, Printer printer,
+            ErrorLogger errorLogger, Executor stageExecutor) {
+        this(accountingRegistry, itemRegistry, printer, errorLogger,
+                stageExecutor, false);
+    }
+
+    private PostPaymentPipeline(AccountingRegistry accountingRegistry,
+            ItemRegistry itemRegistry, Printer printer,
+            ErrorLogger errorLogger, Executor stageExecutor,
+            boolean isExecutorOwned) {
+        this.accountingRegistry = accountingRegistry;
+        this.itemRegistry = itemRegistry;
+        this.printer = printer;
+        this.errorLogger = errorLogger;
+        this.stageExecutor = stageExecutor;
+        this.ownedExecutor = isExecutorOwned ?
+                (ExecutorService) stageExecutor : null;
+    }
+
+    /**
+     * Create an executor with one daemon thread per processor. The threads
+     * are daemons so that a pipeline that was never closed does not keep
+     * the application alive, but stages are only guaranteed to complete if
+     * the pipeline is closed.
+     *
+     * @return The executor.
+     */
+    private static ExecutorService createDaemonExecutor() {
+        return Executors.newFixedThreadPool(
+                Runtime.getRuntime().availableProcessors(), stageTask -> {
+            Thread stageThread = new Thread(stageTask, "post-payment-stage");
+            stageThread.setDaemon(true);
+            return stageThread;
+        });
+    }
+
+    /**
+     * Start the stages following the payment of the specified receipt. The
+     * stages run after the same stages of earlier receipts of the lane.
+     *
+     * @param laneID The lane the receipt was paid on.
+     * @param receipt The final receipt of the sale.
+     * @throws IllegalStateException If the pipeline is closed.
+     */
+    void submit(int laneID, ReceiptDTO receipt) {
+        payAndSubmit(laneID, () -> receipt);
+    }
+
+    /**
+     * Make a payment and start the stages following it. The pipeline is
+     * not closed while the payment is made, so every payment that is made
+     * has its stages started, and no payment is made once the pipeline is
+     * closed.
+     *
+     * @param laneID The lane the payment is made on.
+     * @param payment Makes the payment and returns the final receipt.
+     * @return The final receipt of the sale.
+     * @throws IllegalStateException If the pipeline is closed.
+     */
+    ReceiptDTO payAndSubmit(int laneID, Supplier<ReceiptDTO> payment) {
+        closeLock.readLock().lock();
+        try {
+            if (isClosed)
+                throw new IllegalStateException("The post-payment pipeline " +
+                        "is closed.");
+            ReceiptDTO receipt = payment.get();
+            submitStages(laneID, receipt);
+            return receipt;
+        } finally {
+            closeLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Start the stages of the specified receipt after the same stages of
+     * earlier receipts of the lane.
+     *
+     * @param laneID The lane the receipt was paid on.
+     * @param receipt The final receipt of the sale.
+     */
+    private void submitStages(int laneID, ReceiptDTO receipt) {
+        laneStages.compute(laneID, (lane, previousStages) -> {
+            CompletableFuture<Void> previousBookkeeping = COMPLETED_STAGE;
+            CompletableFuture<Void> previousStocktaking = COMPLETED_STAGE;
+            CompletableFuture<Void> previousPrinting = COMPLETED_STAGE;
+            if (previousStages != null) {
+                previousBookkeeping = previousStages.bookkeeping;
+                previousStocktaking = previousStages.stocktaking;
+                previousPrinting = previousStages.printing;
+            }
+            return new LaneStages(
+                    runAfter(previousBookkeeping, () ->
+                            accountingRegistry.bookkeep(
+                                    receipt.getSaleInfo(),
+                                    receipt.getTotalDiscount())),
+                    runAfter(previousStocktaking, () ->
+                            itemRegistry.stocktacke(receipt.getSaleInfo())),
+                    runAfter(previousPrinting, () ->
+                            printer.print(receipt)));
+        });
+    }
+
+    /**
+     * Wait until all stages submitted so far have completed or failed.
+     */
+    void awaitSubmittedStages() {
+        for (LaneStages stages : laneStages.values()) {
+            stages.bookkeeping.join();
+            stages.stocktaking.join();
+            stages.printing.join();
+        }
+    }
+
+    /**
+     * Wait for payments in progress and every submitted stage to complete
+     * or fail, then stop the background threads of the pipeline. No
+     * receipts can be submitted once the pipeline is closed. Closing a
+     * closed pipeline has no effect.
+     */
+    void close() {
+        closeLock.writeLock().lock();
+        try {
+            if (isClosed)
+                return;
+            isClosed = true;
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+        awaitSubmittedStages();
+        if (ownedExecutor != null)
+            ownedExecutor.shutdown();
+    }
+
+    /**
+     * Run a stage when the previous stage of the lane has completed.
+     *
+     * @param previousStage The previous stage of the lane.
+     * @param stage The stage to run.
+     * @return A future completed when the stage has completed or failed. It
+     * is never completed exceptionally.
+     */
+    private CompletableFuture<Void> runAfter(
+            CompletableFuture<Void> previousStage, Runnable stage) {
+        return previousStage.thenCompose(previousResult ->
+                CompletableFuture.runAsync(stage, stageExecutor).handle(
+                        (result, failure) -> {
+                    if (failure != null)
+                        logStageFailure(failure);
+                    return null;
+                }));
+    }
+
+    /**
+     * Log the reason a stage failed.
+     *
+     * @param failure The reason the stage failed.
+     */
+    private void logStageFailure(Throwable failure) {
+        Throwable cause = failure;
+        if (cause instanceof CompletionException && cause.getCause() != null)
+            cause = cause.getCause();
+        errorLogger.logException(cause);
+    }
+
+}
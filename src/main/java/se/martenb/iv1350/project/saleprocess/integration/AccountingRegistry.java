@@ -1,12 +1,23 @@
 package se.martenb.iv1350.project.saleprocess.integration;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
 import se.martenb.iv1350.project.saleprocess.integration.dto.SaleDTO;
+import se.martenb.iv1350.project.saleprocess.integration.dto.ZReportDTO;
+import se.martenb.iv1350.project.saleprocess.integration.ledger.SalesLedger;
+import se.martenb.iv1350.project.saleprocess.integration.ledger.SalesReportEngine;
+import se.martenb.iv1350.project.saleprocess.util.Amount;
 
 /**
  * {@link AccountingRegistry} handles communications with an external 
- * accounting registry/system.
+ * accounting registry/system. If a {@link SalesLedger} is attached, every 
+ * bookkept sale is also appended to the ledger.
  */
 public class AccountingRegistry {
+    private volatile SalesLedger ledger;
+    private volatile SalesReportEngine reportEngine;
+    
     /**
      * Constructs a new {@link AccountingRegistry} instance for 
      * communications with an external system.
@@ -14,6 +25,53 @@ public class AccountingRegistry {
     public AccountingRegistry() {
     }
     
+    /**
+     * Attach a ledger that all sales bookkept from now on are appended to.
+     * Should be called at startup, before any sales are bookkept.
+     * 
+     * @param ledgerToAttach The ledger to append sales to.
+     */
+    public void attachLedger(SalesLedger ledgerToAttach) {
+        if (ledger != null)
+            throw new IllegalStateException("A ledger is already attached " +
+                    "to the accounting registry.");
+        reportEngine = new SalesReportEngine(ledgerToAttach);
+        ledger = ledgerToAttach;
+    }
+    
+    /**
+     * Close the attached ledger, if any, once every sale bookkept so far 
+     * has been written to it. No sales can be bookkept and no reports can 
+     * be created afterwards.
+     * 
+     * @throws IOException If a sale could not be written to the ledger.
+     */
+    public void closeLedger() throws IOException {
+        SalesLedger attachedLedger = ledger;
+        if (attachedLedger == null)
+            return;
+        reportEngine.close();
+        attachedLedger.close();
+    }
+    
+    /**
+     * Create the Z-report of the specified business day from the sales in 
+     * the attached ledger.
+     * 
+     * @param businessDay The day to report.
+     * @return The report.
+     * @throws IOException If the ledger could not be read.
+     * @throws IllegalStateException If no ledger is attached.
+     */
+    public ZReportDTO createZReport(LocalDate businessDay) 
+            throws IOException {
+        SalesReportEngine attachedReportEngine = reportEngine;
+        if (attachedReportEngine == null)
+            throw new IllegalStateException("No ledger is attached to the " +
+                    "accounting registry.");
+        return attachedReportEngine.createZReport(businessDay);
+    }
+    
     /**
      * Dirty dummy for sending sale information to the external 
      * accounting system.
@@ -21,8 +79,31 @@ public class AccountingRegistry {
      * @param saleInformation Information to send to the external system.
      */
     public void bookkeep(SaleDTO saleInformation) {
-        /*
-        Code does nothing for now.
-        */
+        bookkeep(saleInformation, Amount.ZERO);
+    }
+    
+    /**
+     * Dirty dummy for sending sale information to the external 
+     * accounting system. The sale is appended to the attached ledger, if 
+     * any, and is on disk when this method returns. 
+     * 
+     * @param saleInformation Information to send to the external system.
+     * @param totalDiscount The discount given on the whole sale, beyond 
+     *                      the discounts included in the prices of its 
+     *                      items.
+     * @throws UncheckedIOException If the sale could not be written to the 
+     *                              ledger.
+     * @throws IllegalStateException If the ledger is closed.
+     */
+    public void bookkeep(SaleDTO saleInformation, Amount totalDiscount) {
+        SalesLedger attachedLedger = ledger;
+        if (attachedLedger == null)
+            return;
+        try {
+            attachedLedger.write(saleInformation, totalDiscount);
+        } catch (IOException exc) {
+            throw new UncheckedIOException("Sale could not be bookkept.", 
+                    exc);
+        }
     }
 }
@@ -0,0 +1,317 @@
+package se.martenb.iv1350.project.saleprocess.integration;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import se.martenb.iv1350.project.saleprocess.integration.dto.ItemDTO;
+
+/**
+ * {@link AsyncItemRegistry} searches an {@link ItemRegistry} without
+ * blocking the calling thread, for when the item registry is backed by a
+ * slow or remote system.
+ *
+ * At most a configured number of searches are made at the same time, and
+ * further searches fail at once instead of queueing up. Concurrent searches
+ * for the same item share a single search. Each caller waits at most the
+ * configured timeout for its result. A search that is not done within the
+ * timeout is cancelled, interrupting the thread searching the registry,
+ * and is no longer shared, so later callers start a new search instead of
+ * joining it. The cancelled search still counts towards the maximum until
+ * the thread returns from the registry, so a registry that ignores
+ * interrupts can not make the searches use more threads than that.
+ *
+ * All failures complete the returned future exceptionally with an
+ * {@link ItemRegistryException}.
+ */
+public class AsyncItemRegistry {
+    private final ItemRegistry itemRegistry;
+    private final Executor searchExecutor;
+    private final Semaphore searchPermits;
+    private final long timeoutNanos;
+    private final ConcurrentMap<Integer, CompletableFuture<Optional<ItemDTO>>>
+            searchesInProgress = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new instance searching the specified registry on its own
+     * background threads.
+     *
+     * @param itemRegistry The registry to search.
+     * @param maximumSearchesInProgress The maximum number of searches made
+     *                                  at the same time.
+     * @param timeout The maximum time to wait for a search.
+     */
+    public AsyncItemRegistry(ItemRegistry itemRegistry,
+            int maximumSearchesInProgress, Duration timeout) {
+        this(itemRegistry, createDaemonExecutor(), maximumSearchesInProgress,
+                timeout);
+    }
+
+    /**
+     * Creates a new instance searching the specified registry on threads of
+     * the specified executor.
+     *
+     * @param itemRegistry The registry to search.
+     * @param searchExecutor The executor running the searches.
+     * @param maximumSearchesInProgress The maximum number of searches made
+     *                                  at the same time.
+     * @param timeout The maximum time to wait for a search.
+     */
+    public AsyncItemRegistry(ItemRegistry itemRegistry, Executor searchExecutor,
+            int maximumSearchesInProgress, Duration timeout) {
+        if (maximumSearchesInProgress < 1)
+            throw new IllegalArgumentException("At least one search must be " +
+                    "allowed at a time.");
+        if (timeout.isNegative() || timeout.isZero())
+            throw new IllegalArgumentException("Timeout must be positive.");
+        this.itemRegistry = itemRegistry;
+        this.searchExecutor = searchExecutor;
+        this.searchPermits = new Semaphore(maximumSearchesInProgress);
+        this.timeoutNanos = timeout.toNanos();
+    }
+
+    /**
+     * Create an executor with a new daemon thread for every search that
+     * can not use an idle thread. The number of threads is limited by the
+     * number of searches allowed at the same time.
+     *
+     * @return The executor.
+     */
+    private static ExecutorService createDaemonExecutor() {
+        return Executors.newCachedThreadPool(searchTask -> {
+            Thread searchThread = new Thread(searchTask,
+                    "async-item-registry-search");
+            searchThread.setDaemon(true);
+            return searchThread;
+        });
+    }
+
+    /**
+     * Search for an item without blocking.
+     *
+     * @param itemID Item to search for.
+     * @return A future completed with the found item, or an empty
+     * <code>Optional</code> if there is no item with the specified ID. The
+     * future is completed exceptionally with an
+     * {@link ItemRegistryException} if the registry could not be searched
+     * in time.
+     */
+    public CompletableFuture<Optional<ItemDTO>> findItemInfo(int itemID) {
+        CompletableFuture<Optional<ItemDTO>> sharedSearch =
+                findOrStartSearch(itemID);
+        CompletableFuture<Optional<ItemDTO>> callerResult =
+                new CompletableFuture<>();
+        sharedSearch.whenComplete((foundItem, failure) -> {
+            if (failure == null)
+                callerResult.complete(foundItem);
+            else
+                callerResult.completeExceptionally(failure);
+        });
+        callerResult.orTimeout(timeoutNanos, TimeUnit.NANOSECONDS);
+        return callerResult.handle((foundItem, failure) -> {
+            if (failure != null)
+                throw new CompletionException(toItemRegistryException(itemID,
+                        failure));
+            return foundItem;
+        });
+    }
+
+    /**
+     * Get information about an item without blocking.
+     *
+     * @param itemID Item to get information about.
+     * @return A future completed with the item. The future is completed
+     * exceptionally with an {@link ItemRegistryException} if there is no
+     * such item or if the registry could not be searched in time.
+     */
+    public CompletableFuture<ItemDTO> getItemInfo(int itemID) {
+        return findItemInfo(itemID).thenApply(foundItem -> foundItem
+                .orElseThrow(() -> new ItemRegistryException("Item not in " +
+                        "database: " + itemID)));
+    }
+
+    /**
+     * Join a search for the item already in progress, or start a new one.
+     *
+     * @param itemID Item to search for.
+     * @return The search shared by all callers searching for the item.
+     */
+    private CompletableFuture<Optional<ItemDTO>> findOrStartSearch(
+            int itemID) {
+        CompletableFuture<Optional<ItemDTO>> newSearch =
+                new CompletableFuture<>();
+        CompletableFuture<Optional<ItemDTO>> searchInProgress =
+                searchesInProgress.putIfAbsent(itemID, newSearch);
+        if (searchInProgress != null)
+            return searchInProgress;
+        startSearch(itemID, newSearch);
+        return newSearch;
+    }
+
+    /**
+     * Start searching the registry, if not too many searches are already
+     * in progress. The search stops counting as in progress, and is no 
+     * longer shared, before its future is completed, so callers continuing 
+     * from the future can start new searches right away.
+     *
+     * @param itemID Item to search for.
+     * @param search The future to complete with the result.
+     */
+    private void startSearch(int itemID,
+            CompletableFuture<Optional<ItemDTO>> search) {
+        if (!searchPermits.tryAcquire()) {
+            searchesInProgress.remove(itemID, search);
+            search.completeExceptionally(new ItemRegistryException("Too " +
+                    "many item searches in progress."));
+            return;
+        }
+        RegistrySearch registrySearch = new RegistrySearch(itemID, search);
+        try {
+            searchExecutor.execute(registrySearch);
+        } catch (RejectedExecutionException exc) {
+            searchPermits.release();
+            registrySearch.finish(null, new ItemRegistryException("Item " +
+                    "search could not be started."));
+            return;
+        }
+        CompletableFuture.delayedExecutor(timeoutNanos, TimeUnit.NANOSECONDS,
+                Runnable::run).execute(registrySearch::timeOut);
+    }
+
+    /**
+     * A search of the registry holding one of the search permits. The 
+     * search is finished exactly once, either by the registry answering 
+     * or by timing out, whichever happens first. Finishing stops sharing 
+     * the search before completing its future, so a caller retrying after 
+     * a failure starts a new search. The permit is only released when the 
+     * thread making the search leaves it, or when the search is skipped 
+     * because it timed out before it started.
+     */
+    private final class RegistrySearch implements Runnable {
+        private final int itemID;
+        private final CompletableFuture<Optional<ItemDTO>> search;
+        private final AtomicBoolean isFinished = new AtomicBoolean();
+        private Thread searchThread;
+
+        private RegistrySearch(int itemID,
+                CompletableFuture<Optional<ItemDTO>> search) {
+            this.itemID = itemID;
+            this.search = search;
+        }
+
+        @Override
+        public void run() {
+            if (!enterSearchThread()) {
+                searchPermits.release();
+                return;
+            }
+            Optional<ItemDTO> foundItem = null;
+            Throwable failure = null;
+            try {
+                foundItem = itemRegistry.findItemInfo(itemID);
+            } catch (RuntimeException exc) {
+                failure = exc;
+            } catch (Error exc) {
+                failure = exc;
+                throw exc;
+            } finally {
+                leaveSearchThread();
+                searchPermits.release();
+                finish(foundItem, failure);
+            }
+        }
+
+        /**
+         * Cancel the search if it is not already finished, interrupting 
+         * the thread searching the registry. The permit is kept until that 
+         * thread leaves the search.
+         */
+        private void timeOut() {
+            if (!finish(null, new TimeoutException()))
+                return;
+            synchronized (this) {
+                if (searchThread != null)
+                    searchThread.interrupt();
+            }
+        }
+
+        /**
+         * Finish the search, unless it is already finished.
+         *
+         * @param foundItem The result of the search, if it did not fail.
+         * @param failure The reason the search failed, or 
+         *                <code>null</code> if it did not fail.
+         * @return <code>true</code> if the search was finished by this 
+         * call.
+         */
+        private boolean finish(Optional<ItemDTO> foundItem,
+                Throwable failure) {
+            if (!isFinished.compareAndSet(false, true))
+                return false;
+            searchesInProgress.remove(itemID, search);
+            if (failure == null)
+                search.complete(foundItem);
+            else
+                search.completeExceptionally(failure);
+            return true;
+        }
+
+        /**
+         * Let the current thread make the search, unless the search has 
+         * already timed out.
+         *
+         * @return <code>true</code> if the search should be made.
+         */
+        private synchronized boolean enterSearchThread() {
+            if (isFinished.get())
+                return false;
+            searchThread = Thread.currentThread();
+            return true;
+        }
+
+        /**
+         * Stop the search from interrupting the current thread, and clear 
+         * an interrupt made by a timeout, since the thread may be reused 
+         * by the executor.
+         */
+        private void leaveSearchThread() {
+            synchronized (this) {
+                searchThread = null;
+            }
+            Thread.interrupted();
+        }
+    }
+
+    /**
+     * Convert the reason a search failed to the exception the caller
+     * receives.
+     *
+     * @param itemID The searched item.
+     * @param failure The reason the search failed.
+     * @return The exception to fail the caller's future with.
+     */
+    private static ItemRegistryException toItemRegistryException(int itemID,
+            Throwable failure) {
+        Throwable cause = failure;
+        if (cause instanceof CompletionException && cause.getCause() != null)
+            cause = cause.getCause();
+        if (cause instanceof ItemRegistryException)
+            return (ItemRegistryException) cause;
+        if (cause instanceof TimeoutException)
+            return new ItemRegistryException("Search for item " + itemID +
+                    " timed out.");
+        return new ItemRegistryException("Search for item " + itemID +
+                " failed: " + cause);
+    }
+
+}
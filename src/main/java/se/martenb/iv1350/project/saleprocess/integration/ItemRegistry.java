@@ -2,25 +2,73 @@ package se.martenb.iv1350.project.saleprocess.integration;
 
 import se.martenb.iv1350.project.saleprocess.integration.dto.SaleDTO;
 import se.martenb.iv1350.project.saleprocess.integration.dto.ItemDTO;
+import se.martenb.iv1350.project.saleprocess.integration.dto.ItemInSaleDTO;
+import se.martenb.iv1350.project.saleprocess.integration.dto.PriceUpdateDTO;
+import se.martenb.iv1350.project.saleprocess.integration.catalog.CatalogSnapshot;
+import se.martenb.iv1350.project.saleprocess.integration.catalog.HashedItemCatalog;
+import se.martenb.iv1350.project.saleprocess.integration.catalog.ItemCatalog;
+import se.martenb.iv1350.project.saleprocess.integration.inventory.Inventory;
 import se.martenb.iv1350.project.saleprocess.util.Amount;
 import se.martenb.iv1350.project.saleprocess.util.Price;
+import se.martenb.iv1350.project.saleprocess.util.Quantity;
+import se.martenb.iv1350.project.saleprocess.util.Unit;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * {@link ItemRegistry} handles communications with an external item 
  * inventory/system.
+ * 
+ * Items are searched for in the current {@link CatalogSnapshot}. Price 
+ * updates replace the whole snapshot in a single atomic step, so searches 
+ * never wait for an update and never see an update that is only partly 
+ * applied.
  */
 public class ItemRegistry {
-    private List<ItemDTO> dummyItemDB = new ArrayList<>();
+    private final AtomicReference<CatalogSnapshot> currentCatalogSnapshot;
+    private final Inventory inventory;
     
     /**
      * Initializes the {@link ItemRegistry} instance for communications 
      * with the external system. Adds 100 dummy items to a fake database for 
-     * testing.
+     * testing, each with a dummy stock level in the inventory.
      */
     public ItemRegistry() {
-        dummyMakeAndAdd100ItemsToDB();
+        HashedItemCatalog dummyItemDB = new HashedItemCatalog();
+        dummyMakeAndAdd100ItemsToDB(dummyItemDB);
+        this.currentCatalogSnapshot = 
+                new AtomicReference<>(new CatalogSnapshot(dummyItemDB));
+        this.inventory = new Inventory();
+        dummySetStockLevelsInInventory(dummyItemDB);
+    }
+    
+    /**
+     * Initializes the {@link ItemRegistry} instance using the specified 
+     * {@link ItemCatalog} as its database, for example a catalog file 
+     * opened as a <code>MappedItemCatalog</code>. The inventory starts 
+     * without any stock levels.
+     * 
+     * @param itemCatalog The catalog to search for items in.
+     */
+    public ItemRegistry(ItemCatalog itemCatalog) {
+        this(itemCatalog, new Inventory());
+    }
+    
+    /**
+     * Initializes the {@link ItemRegistry} instance using the specified 
+     * {@link ItemCatalog} as its database and the specified 
+     * {@link Inventory} for stock levels.
+     * 
+     * @param itemCatalog The catalog to search for items in.
+     * @param inventory The inventory to update when items are sold.
+     */
+    public ItemRegistry(ItemCatalog itemCatalog, Inventory inventory) {
+        this.currentCatalogSnapshot = 
+                new AtomicReference<>(new CatalogSnapshot(itemCatalog));
+        this.inventory = inventory;
     }
     
     /**
@@ -35,7 +83,7 @@ public class ItemRegistry {
     private Price dummyGeneratePriceForItem(double priceOfItem, 
             double vatTaxRateOfItem) {
         Amount priceBeforeTaxes = new Amount(priceOfItem);
-        return new Price(priceBeforeTaxes, vatTaxRateOfItem);
+        return Price.of(priceBeforeTaxes, vatTaxRateOfItem);
     }
     
     /**
@@ -63,10 +111,12 @@ public class ItemRegistry {
      * 
      * Add a dummy item to the fake database.
      * 
+     * @param dummyItemDB The fake database to add the item to.
      * @param itemToAdd The dummy item to be added.
      */
-    private void dummyAddItemToDB(ItemDTO itemToAdd) {
-        dummyItemDB.add(itemToAdd);
+    private void dummyAddItemToDB(HashedItemCatalog dummyItemDB, 
+            ItemDTO itemToAdd) {
+        dummyItemDB.addItem(itemToAdd);
     }
     
     /**
@@ -74,8 +124,10 @@ public class ItemRegistry {
      * 
      * Create and add 100 dummy items to the fake database, all items have 
      * different IDs, names, prices and tax rates.
+     * 
+     * @param dummyItemDB The fake database to add the items to.
      */
-    private void dummyMakeAndAdd100ItemsToDB() {
+    private void dummyMakeAndAdd100ItemsToDB(HashedItemCatalog dummyItemDB) {
         double dummyStartBasePrice = 1.07;
         double[] dummyStartVATTaxRateOfItem = new double[] {6.00, 12.00, 25.00};
         String[] dummyItemNamesPart1Array = new String[] {"Tasty","Luxury",
@@ -91,32 +143,33 @@ public class ItemRegistry {
                             dummyItemNamesPart3Array[i%4], 
                     dummyStartBasePrice * (i+1), 
                     dummyStartVATTaxRateOfItem[i%3]);
-            dummyAddItemToDB(dummyItem);
+            dummyAddItemToDB(dummyItemDB, dummyItem);
         }
     }
     
     /**
      * NOT FOR PRODUCTION
      * 
-     * Dummy for matching an item id to an item row in a database. 
+     * Give every item in the fake database a dummy stock level of 100 
+     * units, with a low stock threshold of 10 units.
      * 
-     * @param itemID Item ID to match.
-     * @param itemDTO ItemDTO to match item ID with.
-     * @return If the item id matched the ItemDTO or not.
+     * @param dummyItemDB The fake database with the items to stock.
      */
-    private boolean dummyDoesItemIDMatchItemInDB(int itemID, ItemDTO itemDTO) {
-        int idOfItemDTO = itemDTO.getItemID();
-        boolean doesItemIDMatchItemDTO = 
-                itemID == idOfItemDTO;
-        return doesItemIDMatchItemDTO;
+    private void dummySetStockLevelsInInventory(
+            HashedItemCatalog dummyItemDB) {
+        long dummyUnitsInStock = 100;
+        long dummyLowStockThreshold = 10;
+        dummyItemDB.forEachItem(dummyItem -> 
+                inventory.setStockLevel(dummyItem.getItemID(), 
+                        dummyUnitsInStock, dummyLowStockThreshold));
     }
     
     /**
      * NOT FOR PRODUCTION
      * 
-     * Dummy search in item database looking through all items until an item
-     * matches the specified ID. If a match is found, row data will be returned
-     * in an {@link ItemDTO} object. If there's no match, a null value is
+     * Dummy search in item database using the item ID index of the 
+     * current {@link CatalogSnapshot}. If a match is found, row data will be returned 
+     * in an {@link ItemDTO} object. If there's no match, a null value is 
      * returned.
      * 
      * Contains hard coded error that causes database connection failure
@@ -126,17 +179,49 @@ public class ItemRegistry {
      * @return {@link ItemDTO} object containing information about found
      * item or null if no item was found.
      */
-    private ItemDTO dummySequentialIDSearchInDB(int itemID) {
+    private ItemDTO dummyIndexedIDSearchInDB(int itemID) {
+        return dummyIndexedIDSearchInDB(currentCatalogSnapshot.get(), itemID);
+    }
+    
+    /**
+     * NOT FOR PRODUCTION
+     * 
+     * Dummy search in item database using the item ID index of the 
+     * specified {@link CatalogSnapshot}, so that several searches can be 
+     * made in the same version of the catalog.
+     * 
+     * Contains hard coded error that causes database connection failure
+     * when searching for id 999999999.
+     * 
+     * @param catalogSnapshot The snapshot to search in.
+     * @param itemID The item id to search for.
+     * @return {@link ItemDTO} object containing information about found
+     * item or null if no item was found.
+     */
+    private ItemDTO dummyIndexedIDSearchInDB(CatalogSnapshot catalogSnapshot, 
+            int itemID) {
         int hardcodedFailureID = 999999999;
         if (itemID == hardcodedFailureID)
             throw new ItemRegistryException("Database connection failed.");
-        ItemDTO foundItem = null;
-        for (ItemDTO itemInDB : dummyItemDB)
-            if(dummyDoesItemIDMatchItemInDB(itemID, itemInDB))
-                foundItem = itemInDB;
+        ItemDTO foundItem = catalogSnapshot.findItem(itemID);
         return foundItem;
     }
     
+    /**
+     * Look up an item in the database using a single search. This is the
+     * preferred way of fetching items, since checking if an item exists and 
+     * then fetching it would search the database twice.
+     * 
+     * @param itemID Item to search for.
+     * @return The found item, or an empty <code>Optional</code> if there is 
+     * no item with the specified ID.
+     * @throws ItemRegistryException If the database could not be searched.
+     */
+    public Optional<ItemDTO> findItemInfo(int itemID) {
+        ItemDTO gottenItem = dummyIndexedIDSearchInDB(itemID);
+        return Optional.ofNullable(gottenItem);
+    }
+    
     /**
      * Check if an item exists in the database.
      * 
@@ -145,8 +230,7 @@ public class ItemRegistry {
      * otherwise <code>false</code>.
      */
     public boolean isItemInDB(int itemID) {
-        ItemDTO gottenItem = dummySequentialIDSearchInDB(itemID);
-        boolean isItemInDB = gottenItem != null;
+        boolean isItemInDB = findItemInfo(itemID).isPresent();
         return isItemInDB;
     }
     
@@ -158,22 +242,186 @@ public class ItemRegistry {
      * @return The item containing the item ID.
      */
     public ItemDTO getItemInfo(int itemID) {
-        ItemDTO gottenItem = dummySequentialIDSearchInDB(itemID);
-        if (gottenItem == null)
-            throw new ItemRegistryException("Item not in database, " + 
-                    "use isItemInDB(itemID) before getItemInfo(itemID).");
+        ItemDTO gottenItem = findItemInfo(itemID).orElseThrow(() -> 
+                new ItemRegistryException("Item not in database, " + 
+                        "use findItemInfo(itemID) to search for items " + 
+                        "that might not exist."));
         return gottenItem;
     } 
     
     /**
-     * Dirty dummy for sending sale information to the external 
-     * item inventory/registry system.
+     * Look up several items in the database at once, for example all items 
+     * in a self-checkout basket. All items are searched for in the same 
+     * version of the catalog. The IDs are searched for in ascending order 
+     * and each distinct ID is searched for only once, however many times 
+     * it occurs.
+     * 
+     * @param itemIDs Items to search for, may contain the same ID several 
+     *                times.
+     * @return The found items, in the same order as the IDs. An element is 
+     * <code>null</code> if there is no item with that ID.
+     * @throws ItemRegistryException If the database could not be searched.
+     */
+    public ItemDTO[] findItemInfos(int[] itemIDs) {
+        CatalogSnapshot catalogSnapshot = currentCatalogSnapshot.get();
+        long[] itemIDsWithPositions = new long[itemIDs.length];
+        for (int position = 0; position < itemIDs.length; position++)
+            itemIDsWithPositions[position] = 
+                    ((long) itemIDs[position] << Integer.SIZE) | position;
+        Arrays.sort(itemIDsWithPositions);
+        ItemDTO[] foundItems = new ItemDTO[itemIDs.length];
+        ItemDTO previousFoundItem = null;
+        for (int i = 0; i < itemIDsWithPositions.length; i++) {
+            int itemID = (int) (itemIDsWithPositions[i] >> Integer.SIZE);
+            int position = (int) itemIDsWithPositions[i];
+            boolean isSameIDAsPrevious = i > 0 && 
+                    itemID == (int) (itemIDsWithPositions[i - 1] >> 
+                            Integer.SIZE);
+            if (!isSameIDAsPrevious)
+                previousFoundItem = 
+                        dummyIndexedIDSearchInDB(catalogSnapshot, itemID);
+            foundItems[position] = previousFoundItem;
+        }
+        return foundItems;
+    }
+    
+    /**
+     * Get information about several items from the database at once. 
+     * Works like {@link #findItemInfos(int[])}, but all items must exist.
+     * 
+     * @param itemIDs Items to get information about.
+     * @return The items, in the same order as the IDs.
+     * @throws ItemRegistryException If any of the items is not in the 
+     *                               database, or if the database could not 
+     *                               be searched.
+     */
+    public ItemDTO[] getItemInfos(int[] itemIDs) {
+        ItemDTO[] gottenItems = findItemInfos(itemIDs);
+        for (int position = 0; position < gottenItems.length; position++)
+            if (gottenItems[position] == null)
+                throw new ItemRegistryException("Item not in database: " + 
+                        itemIDs[position] + ", use findItemInfos(itemIDs) " + 
+                        "to search for items that might not exist.");
+        return gottenItems;
+    }
+    
+    /**
+     * Search for items by the start of their names, for example when an 
+     * item has no barcode. Case is ignored.
+     * 
+     * @param namePrefix The start of the names to search for.
+     * @param maximumResults The maximum number of items to return.
+     * @return The found items, sorted by name.
+     */
+    public List<ItemDTO> findItemsByNamePrefix(String namePrefix, 
+            int maximumResults) {
+        return currentCatalogSnapshot.get().findItemsByNamePrefix(namePrefix, 
+                maximumResults);
+    }
+    
+    /**
+     * Search for items with names containing the specified text, for 
+     * example when an item has no barcode. Case is ignored.
+     * 
+     * @param nameText The text to search for.
+     * @param maximumResults The maximum number of items to return.
+     * @return The found items, best match first.
+     */
+    public List<ItemDTO> findItemsByNameContaining(String nameText, 
+            int maximumResults) {
+        return currentCatalogSnapshot.get().findItemsByNameContaining(
+                nameText, maximumResults);
+    }
+    
+    /**
+     * Get the current snapshot of the item catalog. All searches in the 
+     * returned snapshot see the same version of the catalog, even if prices 
+     * are updated while it is being read.
+     * 
+     * @return The current catalog snapshot.
+     */
+    public CatalogSnapshot getCatalogSnapshot() {
+        return currentCatalogSnapshot.get();
+    }
+    
+    /**
+     * Update the prices of several items at once. Either all updates are 
+     * applied, as one new version of the catalog, or none of them are. 
+     * Searches made while the updates are applied see either the old or the 
+     * new prices of all items, never a mix.
      * 
-     * @param saleInformation Information to send to the external system.
+     * @param priceUpdates The new prices of the items.
+     * @return The version of the catalog containing the new prices.
+     * @throws ItemRegistryException If any of the items is not in the 
+     *                               database.
+     */
+    public long applyPriceUpdates(List<PriceUpdateDTO> priceUpdates) {
+        CatalogSnapshot updatedSnapshot = currentCatalogSnapshot.updateAndGet(
+                catalogSnapshot -> 
+                        catalogSnapshot.withUpdatedItems(
+                                createUpdatedItems(catalogSnapshot, 
+                                        priceUpdates)));
+        return updatedSnapshot.getVersion();
+    }
+    
+    /**
+     * Create the updated information of every item with a new price. Since 
+     * this may be called again if another update was applied at the same 
+     * time, nothing outside the returned list is changed.
+     * 
+     * @param catalogSnapshot The snapshot to update the items of.
+     * @param priceUpdates The new prices of the items.
+     * @return The items with their new prices.
+     */
+    private List<ItemDTO> createUpdatedItems(CatalogSnapshot catalogSnapshot, 
+            List<PriceUpdateDTO> priceUpdates) {
+        List<ItemDTO> updatedItems = new ArrayList<>(priceUpdates.size());
+        for (PriceUpdateDTO priceUpdate : priceUpdates) {
+            int itemID = priceUpdate.getItemID();
+            ItemDTO currentItem = catalogSnapshot.findItem(itemID);
+            if (currentItem == null)
+                throw new ItemRegistryException("Can not update price of " + 
+                        "item not in database: " + itemID);
+            updatedItems.add(new ItemDTO(itemID, currentItem.getItemName(), 
+                    priceUpdate.getNewPrice()));
+        }
+        return updatedItems;
+    }
+    
+    /**
+     * Get the inventory holding the stock levels of the items.
+     * 
+     * @return The inventory.
+     */
+    public Inventory getInventory() {
+        return inventory;
+    }
+    
+    /**
+     * Remove the items of a finished sale from the stock levels in the 
+     * inventory.
+     * 
+     * @param saleInformation The sale with the items that were sold.
      */
     public void stocktacke(SaleDTO saleInformation) {
-        /*
-        Code does nothing for now.
-        */
+        for (ItemInSaleDTO soldItem : saleInformation.getItemsInSale()) {
+            long soldUnits = stockUnitsOf(soldItem.getItemQuantity());
+            inventory.adjustStockLevel(soldItem.getItemInfo().getItemID(), 
+                    -soldUnits);
+        }
+    }
+    
+    /**
+     * Get the number of stock units in a sold quantity. Items sold in pieces 
+     * are stocked per piece, while items sold by weight or volume are 
+     * stocked as one package for every time they are sold.
+     * 
+     * @param soldQuantity The sold quantity of an item.
+     * @return The number of stock units.
+     */
+    private long stockUnitsOf(Quantity soldQuantity) {
+        if (soldQuantity.getUnitType() == Unit.PIECE)
+            return Math.round(soldQuantity.getNumericalValue());
+        return 1;
     }
 }
@@ -3,10 +3,10 @@ package se.martenb.iv1350.project.saleprocess.integration;
 import se.martenb.iv1350.project.saleprocess.integration.dto.ReceiptDTO;
 
 /**
- * Representing communications with a real printer.
+ * Representing communications with a real printer. The printer can be 
+ * shared by several checkout lanes.
  */
 public class Printer {
-    PrinterReceiptHandler receiptHandler = null;
     
     /**
      * Creates a new instance of a {@link Printer}
@@ -22,7 +22,8 @@ public class Printer {
      * @param receiptDTO The receipt to print.
      */
     public void print(ReceiptDTO receiptDTO) {
-        receiptHandler = new PrinterReceiptHandler(receiptDTO);
+        PrinterReceiptHandler receiptHandler = 
+                new PrinterReceiptHandler(receiptDTO);
         System.out.println(receiptHandler.createReceiptString());
     }
     
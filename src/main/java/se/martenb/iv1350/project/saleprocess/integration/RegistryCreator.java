@@ -1,5 +1,14 @@
 package se.martenb.iv1350.project.saleprocess.integration;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import se.martenb.iv1350.project.saleprocess.integration.catalog.CachingItemCatalog;
+import se.martenb.iv1350.project.saleprocess.integration.catalog.EvictionPolicy;
+import se.martenb.iv1350.project.saleprocess.integration.catalog.MappedItemCatalog;
+import se.martenb.iv1350.project.saleprocess.integration.ledger.SalesLedger;
+import se.martenb.iv1350.project.saleprocess.util.ErrorLogger;
+
 /**
  * {@link RegistryCreator} handles initiation of external registries such as
  * {@link ItemRegistry}, {@link AccountingRegistry} and {@link StoreRegistry}.
@@ -7,9 +16,21 @@ package se.martenb.iv1350.project.saleprocess.integration;
  * TODO Add implementation of DiscountRegistry
  */
 public class RegistryCreator {
+    private static final int MAXIMUM_ASYNC_ITEM_SEARCHES = 16;
+    private static final Duration ASYNC_ITEM_SEARCH_TIMEOUT = 
+            Duration.ofSeconds(2);
+    private static final int MAXIMUM_LEDGER_BATCH_SALES = 64;
+    private static final Duration MAXIMUM_LEDGER_BATCH_DELAY = 
+            Duration.ofMillis(5);
+    private static final int LEDGER_SEGMENT_SIZE = 1 << 20;
+    private static final int ITEM_CACHE_SIZE = 10000;
+    private static final Duration ITEM_CACHE_TIME_TO_LIVE = 
+            Duration.ofMinutes(10);
     StoreRegistry storeRegistry;
     AccountingRegistry accountingRegistry;
     ItemRegistry itemRegistry;
+    AsyncItemRegistry asyncItemRegistry;
+    CachingItemCatalog itemCatalogCache;
     
     /**
      * Initiates the {@link RegistryCreator} which initiates all 
@@ -20,6 +41,24 @@ public class RegistryCreator {
         this.accountingRegistry = new AccountingRegistry();
         this.itemRegistry = new ItemRegistry();
     }
+    
+    /**
+     * Initiates the {@link RegistryCreator} with an {@link ItemRegistry} 
+     * searching the specified catalog file. The file is memory-mapped, and 
+     * found items are cached, so that frequently sold items are not read 
+     * from the file every time they are scanned.
+     * @param itemCatalogFile The catalog file written by 
+     *                        <code>ItemCatalogWriter</code>.
+     * @throws IOException If the catalog file could not be opened.
+     */
+    public RegistryCreator(Path itemCatalogFile) throws IOException {
+        this.storeRegistry = new StoreRegistry();
+        this.accountingRegistry = new AccountingRegistry();
+        this.itemCatalogCache = new CachingItemCatalog(
+                new MappedItemCatalog(itemCatalogFile), ITEM_CACHE_SIZE, 
+                EvictionPolicy.TINY_LFU, ITEM_CACHE_TIME_TO_LIVE);
+        this.itemRegistry = new ItemRegistry(itemCatalogCache);
+    }
 
     /**
      * Get the {@link StoreRegistry} object.
@@ -44,5 +83,50 @@ public class RegistryCreator {
     public ItemRegistry getItemRegistry() {
         return this.itemRegistry;
     }
+
+    /**
+     * Get the cache in front of the item catalog file, for example to read 
+     * its statistics or invalidate items changed in the file.
+     * @return The cache, or <code>null</code> if the {@link ItemRegistry} 
+     * does not search a catalog file.
+     */
+    public CachingItemCatalog getItemCatalogCache() {
+        return this.itemCatalogCache;
+    }
+
+    /**
+     * Get the {@link AsyncItemRegistry} object searching the 
+     * {@link ItemRegistry}. It is created the first time it is requested, 
+     * so no search threads are started unless it is used.
+     * @return The {@link AsyncItemRegistry} object.
+     */
+    public synchronized AsyncItemRegistry getAsyncItemRegistry() {
+        if (this.asyncItemRegistry == null)
+            this.asyncItemRegistry = new AsyncItemRegistry(itemRegistry, 
+                    MAXIMUM_ASYNC_ITEM_SEARCHES, ASYNC_ITEM_SEARCH_TIMEOUT);
+        return this.asyncItemRegistry;
+    }
+    
+    /**
+     * Open the sales ledger in the specified directory and attach it to 
+     * the {@link AccountingRegistry}, so that every sale bookkept from now 
+     * on is kept in the ledger. The ledger is closed with 
+     * {@link AccountingRegistry#closeLedger()}.
+     * @param ledgerDirectory The directory of the ledger.
+     * @param errorLogger The logger of sales that could not be written.
+     * @throws IOException If the ledger could not be opened.
+     */
+    public void openSalesLedger(Path ledgerDirectory, 
+            ErrorLogger errorLogger) throws IOException {
+        SalesLedger salesLedger = new SalesLedger(ledgerDirectory, 
+                MAXIMUM_LEDGER_BATCH_SALES, MAXIMUM_LEDGER_BATCH_DELAY, 
+                LEDGER_SEGMENT_SIZE, errorLogger);
+        try {
+            this.accountingRegistry.attachLedger(salesLedger);
+        } catch (IllegalStateException exc) {
+            salesLedger.close();
+            throw exc;
+        }
+    }
     
 }
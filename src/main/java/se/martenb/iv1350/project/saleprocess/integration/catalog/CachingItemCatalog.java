@@ -0,0 +1,359 @@
+package se.martenb.iv1350.project.saleprocess.integration.catalog;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import se.martenb.iv1350.project.saleprocess.integration.dto.CacheStatisticsDTO;
+import se.martenb.iv1350.project.saleprocess.integration.dto.ItemDTO;
+import se.martenb.iv1350.project.saleprocess.util.IntKeyMap;
+
+/**
+ * A read-through cache in front of a slower {@link ItemCatalog}. Found items
+ * are kept until they expire or are evicted to make room for other items.
+ * Unknown item IDs are cached as well, so repeated lookups of an unknown
+ * item do not reach the backing catalog. Instances are thread-safe.
+ *
+ * The backing catalog is searched without holding the lock of the cache.
+ * Every invalidation starts a new generation of the cache, and a search
+ * result is only cached if no invalidation was made while it was searched
+ * for, so an invalidated item is never cached again from an older search.
+ */
+public class CachingItemCatalog implements ItemCatalog {
+    private static final int WINDOW_PERCENT_OF_CACHE = 1;
+    private final ItemCatalog backingCatalog;
+    private final int maximumSize;
+    private final long timeToLiveNanos;
+    private final LongSupplier nanoClock;
+    private final IntKeyMap<CacheEntry> entriesByID = new IntKeyMap<>();
+    private final CacheEntryList windowEntries = new CacheEntryList();
+    private final CacheEntryList mainEntries = new CacheEntryList();
+    private final int windowMaximumSize;
+    private final FrequencySketch frequencySketch;
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder negativeHitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private long invalidationGeneration;
+
+    /**
+     * Creates a new cache in front of the specified catalog.
+     *
+     * @param backingCatalog The catalog to search when an item is not cached.
+     * @param maximumSize The maximum number of cached item IDs.
+     * @param evictionPolicy How to choose which item to remove when full.
+     * @param timeToLive How long an item is cached before it is searched
+     *                   for again, so that price changes become visible.
+     */
+    public CachingItemCatalog(ItemCatalog backingCatalog, int maximumSize,
+            EvictionPolicy evictionPolicy, Duration timeToLive) {
+        this(backingCatalog, maximumSize, evictionPolicy, timeToLive,
+                System::nanoTime);
+    }
+
+    /**
+     * Creates a new cache in front of the specified catalog, reading the
+     * current time from the specified clock.
+     *
+     * @param backingCatalog The catalog to search when an item is not cached.
+     * @param maximumSize The maximum number of cached item IDs.
+     * @param evictionPolicy How to choose which item to remove when full.
+     * @param timeToLive How long an item is cached.
+     * @param nanoClock Clock returning the current time in nanoseconds.
+     */
+    CachingItemCatalog(ItemCatalog backingCatalog, int maximumSize,
+            EvictionPolicy evictionPolicy, Duration timeToLive,
+            LongSupplier nanoClock) {
+        if (maximumSize < 1)
+            throw new IllegalArgumentException("Cache must be able to hold " +
+                    "at least one item.");
+        if (timeToLive.isNegative() || timeToLive.isZero())
+            throw new IllegalArgumentException("Time to live must be " +
+                    "positive.");
+        this.backingCatalog = backingCatalog;
+        this.maximumSize = maximumSize;
+        this.timeToLiveNanos = saturatedNanos(timeToLive);
+        this.nanoClock = nanoClock;
+        if (evictionPolicy == EvictionPolicy.TINY_LFU) {
+            int windowSize = Math.max(1,
+                    maximumSize * WINDOW_PERCENT_OF_CACHE / 100);
+            this.windowMaximumSize = Math.min(windowSize, maximumSize - 1);
+            this.frequencySketch = new FrequencySketch(maximumSize);
+        } else {
+            this.windowMaximumSize = 0;
+            this.frequencySketch = null;
+        }
+    }
+
+    /**
+     * Convert a duration to nanoseconds, using the largest possible value
+     * for durations too long to be represented.
+     *
+     * @param duration The duration to convert.
+     * @return The duration in nanoseconds.
+     */
+    private static long saturatedNanos(Duration duration) {
+        try {
+            return duration.toNanos();
+        } catch (ArithmeticException exc) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Find the item with the specified ID, searching the backing catalog
+     * only if the ID is not cached or its cached entry has expired.
+     *
+     * @param itemID The ID of the item to find.
+     * @return The found item or <code>null</code>.
+     */
+    @Override
+    public ItemDTO findItem(int itemID) {
+        long searchGeneration;
+        synchronized (this) {
+            CacheEntry cachedEntry = lookupCachedEntry(itemID);
+            if (cachedEntry != null) {
+                if (cachedEntry.item == null)
+                    negativeHitCount.increment();
+                else
+                    hitCount.increment();
+                return cachedEntry.item;
+            }
+            searchGeneration = invalidationGeneration;
+        }
+        missCount.increment();
+        ItemDTO foundItem = backingCatalog.findItem(itemID);
+        synchronized (this) {
+            if (searchGeneration == invalidationGeneration)
+                cacheItem(itemID, foundItem);
+        }
+        return foundItem;
+    }
+
+    /**
+     * Look up a valid cached entry and mark it as recently used. Expired
+     * entries are removed.
+     *
+     * @param itemID The ID to look up.
+     * @return The cached entry or <code>null</code> if there was none.
+     */
+    private CacheEntry lookupCachedEntry(int itemID) {
+        if (frequencySketch != null)
+            frequencySketch.increment(itemID);
+        CacheEntry cachedEntry = entriesByID.get(itemID);
+        if (cachedEntry == null)
+            return null;
+        long cachedForNanos = 
+                nanoClock.getAsLong() - cachedEntry.cachedAtNanos;
+        if (cachedForNanos >= timeToLiveNanos) {
+            removeEntry(cachedEntry);
+            return null;
+        }
+        cachedEntry.owningList.moveToFront(cachedEntry);
+        return cachedEntry;
+    }
+
+    /**
+     * Store the result of a search in the backing catalog, evicting other
+     * entries if the cache becomes too large.
+     *
+     * @param itemID The searched ID.
+     * @param foundItem The found item, or <code>null</code> for an
+     *                  unknown item.
+     */
+    private void cacheItem(int itemID, ItemDTO foundItem) {
+        CacheEntry previousEntry = entriesByID.get(itemID);
+        if (previousEntry != null)
+            removeEntry(previousEntry);
+        CacheEntry newEntry = 
+                new CacheEntry(itemID, foundItem, nanoClock.getAsLong());
+        entriesByID.put(itemID, newEntry);
+        if (frequencySketch == null) {
+            mainEntries.addFirst(newEntry);
+            if (mainEntries.size > maximumSize)
+                evictEntry(mainEntries.last());
+        } else {
+            windowEntries.addFirst(newEntry);
+            if (windowEntries.size > windowMaximumSize)
+                admitFromWindow(windowEntries.last());
+        }
+    }
+
+    /**
+     * Move an entry leaving the window into the main cache if there is
+     * room, or if it has been looked up more often than the entry it would
+     * replace. Otherwise the entry leaving the window is evicted.
+     *
+     * @param candidate The entry leaving the window.
+     */
+    private void admitFromWindow(CacheEntry candidate) {
+        windowEntries.remove(candidate);
+        int mainMaximumSize = maximumSize - windowMaximumSize;
+        if (mainEntries.size < mainMaximumSize) {
+            mainEntries.addFirst(candidate);
+            return;
+        }
+        CacheEntry victim = mainEntries.last();
+        boolean isCandidateMoreFrequent =
+                frequencySketch.frequency(candidate.itemID) >
+                frequencySketch.frequency(victim.itemID);
+        if (isCandidateMoreFrequent) {
+            evictEntry(victim);
+            mainEntries.addFirst(candidate);
+        } else {
+            entriesByID.remove(candidate.itemID);
+            evictionCount.increment();
+        }
+    }
+
+    /**
+     * Remove an entry to make room for another entry.
+     *
+     * @param entryToEvict The entry to remove.
+     */
+    private void evictEntry(CacheEntry entryToEvict) {
+        removeEntry(entryToEvict);
+        evictionCount.increment();
+    }
+
+    /**
+     * Remove an entry from the cache.
+     *
+     * @param entryToRemove The entry to remove.
+     */
+    private void removeEntry(CacheEntry entryToRemove) {
+        entryToRemove.owningList.remove(entryToRemove);
+        entriesByID.remove(entryToRemove.itemID);
+    }
+
+    /**
+     * Remove the specified item ID from the cache, for example because the
+     * price of the item has changed.
+     *
+     * @param itemID The ID to remove.
+     */
+    public synchronized void invalidate(int itemID) {
+        invalidationGeneration++;
+        CacheEntry cachedEntry = entriesByID.get(itemID);
+        if (cachedEntry != null)
+            removeEntry(cachedEntry);
+    }
+
+    /**
+     * Remove all items from the cache.
+     */
+    public synchronized void invalidateAll() {
+        invalidationGeneration++;
+        entriesByID.clear();
+        windowEntries.clear();
+        mainEntries.clear();
+    }
+
+    /**
+     * Get counters describing how well the cache has performed.
+     *
+     * @return The cache statistics.
+     */
+    public CacheStatisticsDTO getStatistics() {
+        int cachedEntries;
+        synchronized (this) {
+            cachedEntries = entriesByID.size();
+        }
+        return new CacheStatisticsDTO(hitCount.sum(), negativeHitCount.sum(),
+                missCount.sum(), evictionCount.sum(), cachedEntries);
+    }
+
+    /**
+     * Get the number of items in the backing catalog.
+     *
+     * @return The number of items.
+     */
+    @Override
+    public int size() {
+        return backingCatalog.size();
+    }
+
+    /**
+     * Perform the specified action for every item in the backing catalog.
+     * Items visited this way are not cached.
+     *
+     * @param action The action to perform on each item.
+     */
+    @Override
+    public void forEachItem(Consumer<ItemDTO> action) {
+        backingCatalog.forEachItem(action);
+    }
+
+    /**
+     * A cached search result, linked into the recency list it belongs to.
+     */
+    private static class CacheEntry {
+        private final int itemID;
+        private final ItemDTO item;
+        private final long cachedAtNanos;
+        private CacheEntryList owningList;
+        private CacheEntry previous;
+        private CacheEntry next;
+
+        private CacheEntry(int itemID, ItemDTO item, long cachedAtNanos) {
+            this.itemID = itemID;
+            this.item = item;
+            this.cachedAtNanos = cachedAtNanos;
+        }
+    }
+
+    /**
+     * A doubly linked list of entries, ordered from most to least recently
+     * used.
+     */
+    private static class CacheEntryList {
+        private CacheEntry first;
+        private CacheEntry last;
+        private int size;
+
+        private void addFirst(CacheEntry entry) {
+            entry.owningList = this;
+            entry.previous = null;
+            entry.next = first;
+            if (first != null)
+                first.previous = entry;
+            first = entry;
+            if (last == null)
+                last = entry;
+            size++;
+        }
+
+        private void remove(CacheEntry entry) {
+            if (entry.previous != null)
+                entry.previous.next = entry.next;
+            else
+                first = entry.next;
+            if (entry.next != null)
+                entry.next.previous = entry.previous;
+            else
+                last = entry.previous;
+            entry.previous = null;
+            entry.next = null;
+            entry.owningList = null;
+            size--;
+        }
+
+        private void moveToFront(CacheEntry entry) {
+            if (entry != first) {
+                remove(entry);
+                addFirst(entry);
+            }
+        }
+
+        private CacheEntry last() {
+            return last;
+        }
+
+        private void clear() {
+            first = null;
+            last = null;
+            size = 0;
+        }
+    }
+
+}
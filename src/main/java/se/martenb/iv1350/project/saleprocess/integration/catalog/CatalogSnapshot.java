@@ -0,0 +1,321 @@
+package se.martenb.iv1350.project.saleprocess.integration.catalog;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import se.martenb.iv1350.project.saleprocess.integration.dto.ItemDTO;
+import se.martenb.iv1350.project.saleprocess.util.PersistentIntMap;
+
+/**
+ * An immutable, versioned view of the item catalog. A snapshot consists of 
+ * a base catalog and the items that have been updated since the base 
+ * catalog was loaded. Updating items creates a new snapshot and never 
+ * changes an existing one, so a snapshot can be read by any number of 
+ * threads without locking. The updated items are kept in a persistent map, 
+ * so an update only copies the few nodes on the paths to its items, 
+ * however many items have been updated before.
+ * 
+ * Every snapshot has an index of the item names, so items can be searched 
+ * for by name. The index is only built when items are first searched for 
+ * by name, so a large catalog is not read into memory unless it is needed. 
+ * Updates made before that are collected and applied to the index when it 
+ * is built. Updates that change no names share the index of the snapshot 
+ * they were made to.
+ * 
+ * Every snapshot also has a version of its item names, which only changes 
+ * when an update adds an item or renames one. Snapshots with the same 
+ * version of their item names have the same items with the same names, so 
+ * anything computed from the names alone can be kept across price updates.
+ */
+public class CatalogSnapshot implements ItemCatalog {
+    private static final AtomicLong ITEM_NAMES_VERSIONS = new AtomicLong();
+    private final long version;
+    private final long itemNamesVersion;
+    private final ItemCatalog baseCatalog;
+    private final PersistentIntMap<ItemDTO> updatedItems;
+    private final int size;
+    private final LazyItemNameIndex itemNameIndex;
+    
+    /**
+     * Creates the first snapshot of the specified catalog, with version 0 
+     * and no updated items.
+     * 
+     * @param baseCatalog The catalog the snapshot is based on.
+     */
+    public CatalogSnapshot(ItemCatalog baseCatalog) {
+        this(0, ITEM_NAMES_VERSIONS.incrementAndGet(), baseCatalog, 
+                PersistentIntMap.empty(), baseCatalog.size(), 
+                new LazyItemNameIndex(baseCatalog));
+    }
+    
+    /**
+     * Creates a snapshot from its parts.
+     * 
+     * @param version The version of the snapshot.
+     * @param itemNamesVersion The version of the item names of the snapshot.
+     * @param baseCatalog The catalog the snapshot is based on.
+     * @param updatedItems Items replacing or adding to the base catalog.
+     * @param size The number of items in the snapshot.
+     * @param itemNameIndex The index of the names of all items.
+     */
+    private CatalogSnapshot(long version, long itemNamesVersion, 
+            ItemCatalog baseCatalog, PersistentIntMap<ItemDTO> updatedItems, 
+            int size, LazyItemNameIndex itemNameIndex) {
+        this.version = version;
+        this.itemNamesVersion = itemNamesVersion;
+        this.baseCatalog = baseCatalog;
+        this.updatedItems = updatedItems;
+        this.size = size;
+        this.itemNameIndex = itemNameIndex;
+    }
+    
+    /**
+     * Create the next version of this snapshot, where the specified items 
+     * replace the items with the same IDs. Items with new IDs are added.
+     * This snapshot is not changed.
+     * 
+     * @param itemsToUpdate The new item information.
+     * @return The new snapshot.
+     */
+    public CatalogSnapshot withUpdatedItems(
+            Collection<ItemDTO> itemsToUpdate) {
+        PersistentIntMap<ItemDTO> nextUpdatedItems = updatedItems;
+        int nextSize = size;
+        boolean areNamesChanged = false;
+        for (ItemDTO itemToUpdate : itemsToUpdate) {
+            int itemID = itemToUpdate.getItemID();
+            ItemDTO previousItem = nextUpdatedItems.get(itemID);
+            if (previousItem == null)
+                previousItem = baseCatalog.findItem(itemID);
+            if (previousItem == null)
+                nextSize++;
+            areNamesChanged |= previousItem == null || 
+                    !previousItem.getItemName().equals(
+                            itemToUpdate.getItemName());
+            nextUpdatedItems = nextUpdatedItems.plus(itemID, itemToUpdate);
+        }
+        if (!areNamesChanged)
+            return new CatalogSnapshot(version + 1, itemNamesVersion, 
+                    baseCatalog, nextUpdatedItems, nextSize, itemNameIndex);
+        return new CatalogSnapshot(version + 1, 
+                ITEM_NAMES_VERSIONS.incrementAndGet(), baseCatalog, 
+                nextUpdatedItems, nextSize, 
+                itemNameIndex.withUpdatedItems(itemsToUpdate));
+    }
+    
+    /**
+     * Get the version of this snapshot. Every update increases the version 
+     * by one.
+     * 
+     * @return The version.
+     */
+    public long getVersion() {
+        return version;
+    }
+    
+    /**
+     * Get the version of the item names of this snapshot. It is the same as 
+     * the version of the item names of the snapshot this snapshot was 
+     * updated from, unless the update added or renamed an item. Versions 
+     * are unique across all catalogs.
+     * 
+     * @return The version of the item names.
+     */
+    public long getItemNamesVersion() {
+        return itemNamesVersion;
+    }
+    
+    /**
+     * Find the item with the specified ID as it was in this snapshot.
+     * 
+     * @param itemID The ID of the item to find.
+     * @return The found item or <code>null</code>.
+     */
+    @Override
+    public ItemDTO findItem(int itemID) {
+        ItemDTO updatedItem = updatedItems.get(itemID);
+        if (updatedItem != null)
+            return updatedItem;
+        return baseCatalog.findItem(itemID);
+    }
+    
+    /**
+     * Find the items whose names start with the specified text, ignoring 
+     * case. The items are sorted by name.
+     * 
+     * @param namePrefix The start of the names to find.
+     * @param maximumResults The maximum number of items to find.
+     * @return The found items.
+     */
+    public List<ItemDTO> findItemsByNamePrefix(String namePrefix, 
+            int maximumResults) {
+        checkMaximumResults(maximumResults);
+        int[] foundItemIDs = 
+                itemNameIndex.get().findItemIDsByNamePrefix(namePrefix, 
+                        maximumResults);
+        return findItems(foundItemIDs);
+    }
+    
+    /**
+     * Find the items whose names contain the specified text, ignoring case. 
+     * Names starting with the text come first, then names with a word 
+     * starting with the text, and then other names. Shorter names come 
+     * before longer names.
+     * 
+     * @param nameText The text the names must contain.
+     * @param maximumResults The maximum number of items to find.
+     * @return The found items, best match first.
+     */
+    public List<ItemDTO> findItemsByNameContaining(String nameText, 
+            int maximumResults) {
+        checkMaximumResults(maximumResults);
+        if (nameText.isEmpty())
+            return List.of();
+        int[] foundItemIDs = 
+                itemNameIndex.get().findItemIDsByNameContaining(nameText, 
+                        maximumResults);
+        return findItems(foundItemIDs);
+    }
+    
+    /**
+     * Check that a search may find at least one item.
+     * 
+     * @param maximumResults The maximum number of items to find.
+     */
+    private void checkMaximumResults(int maximumResults) {
+        if (maximumResults < 1)
+            throw new IllegalArgumentException("A search must be allowed " + 
+                    "to find at least one item.");
+    }
+    
+    /**
+     * Find the items with the specified IDs, in the same order.
+     * 
+     * @param itemIDs The IDs of the items.
+     * @return The items.
+     */
+    private List<ItemDTO> findItems(int[] itemIDs) {
+        List<ItemDTO> foundItems = new ArrayList<>(itemIDs.length);
+        for (int itemID : itemIDs)
+            foundItems.add(findItem(itemID));
+        return foundItems;
+    }
+    
+    /**
+     * Get the number of items in this snapshot.
+     * 
+     * @return The number of items.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Perform the specified action for every item in this snapshot. Items 
+     * of the base catalog are visited first, followed by added items.
+     * 
+     * @param action The action to perform on each item.
+     */
+    @Override
+    public void forEachItem(Consumer<ItemDTO> action) {
+        baseCatalog.forEachItem(baseItem -> {
+            ItemDTO updatedItem = updatedItems.get(baseItem.getItemID());
+            action.accept(updatedItem != null ? updatedItem : baseItem);
+        });
+        updatedItems.forEachValue(updatedItem -> {
+            if (baseCatalog.findItem(updatedItem.getItemID()) == null)
+                action.accept(updatedItem);
+        });
+    }
+    
+    /**
+     * An {@link ItemNameIndex} that is built the first time it is used. 
+     * The index of the first snapshot is built from the base catalog. The 
+     * index of a later snapshot is built from the last built index it was 
+     * updated from, or from the base catalog, with all updates made since 
+     * then collected in a single persistent map. However many updates are 
+     * made before the first search, each index refers to at most one other 
+     * index and keeps at most one item per updated item ID. Once built, 
+     * nothing is kept of where it was built from, so older indexes can be 
+     * garbage collected.
+     */
+    private static final class LazyItemNameIndex {
+        private volatile ItemNameIndex builtIndex;
+        private ItemCatalog catalogToIndex;
+        private LazyItemNameIndex builtFrom;
+        private PersistentIntMap<ItemDTO> pendingItems;
+        
+        private LazyItemNameIndex(ItemCatalog catalogToIndex) {
+            this.catalogToIndex = catalogToIndex;
+        }
+        
+        private LazyItemNameIndex(LazyItemNameIndex builtFrom, 
+                PersistentIntMap<ItemDTO> pendingItems) {
+            this.builtFrom = builtFrom;
+            this.pendingItems = pendingItems;
+        }
+        
+        /**
+         * Create the index of a snapshot with the specified items updated. 
+         * If this index is not built yet, the updates are added to the 
+         * updates it is waiting to apply, instead of referring to this 
+         * index.
+         * 
+         * @param itemsToUpdate The updated items.
+         * @return The index of the updated snapshot.
+         */
+        private synchronized LazyItemNameIndex withUpdatedItems(
+                Collection<ItemDTO> itemsToUpdate) {
+            boolean isWaitingForUpdates = 
+                    builtIndex == null && catalogToIndex == null;
+            LazyItemNameIndex nextBuiltFrom = 
+                    isWaitingForUpdates ? builtFrom : this;
+            PersistentIntMap<ItemDTO> nextPendingItems = 
+                    isWaitingForUpdates ? pendingItems : 
+                            PersistentIntMap.empty();
+            for (ItemDTO itemToUpdate : itemsToUpdate)
+                nextPendingItems = nextPendingItems.plus(
+                        itemToUpdate.getItemID(), itemToUpdate);
+            return new LazyItemNameIndex(nextBuiltFrom, nextPendingItems);
+        }
+        
+        /**
+         * Get the index, building it and the index it is built from if they 
+         * have not been built yet.
+         * 
+         * @return The index.
+         */
+        private ItemNameIndex get() {
+            ItemNameIndex index = builtIndex;
+            if (index != null)
+                return index;
+            return build();
+        }
+        
+        /**
+         * Build this index unless it is already built.
+         * 
+         * @return The built index.
+         */
+        private synchronized ItemNameIndex build() {
+            if (builtIndex == null) {
+                if (catalogToIndex != null) {
+                    builtIndex = ItemNameIndex.build(catalogToIndex);
+                } else {
+                    List<ItemDTO> updatedItems = new ArrayList<>();
+                    pendingItems.forEachValue(updatedItems::add);
+                    builtIndex = builtFrom.get().withUpdatedItems(
+                            updatedItems);
+                }
+                catalogToIndex = null;
+                builtFrom = null;
+                pendingItems = null;
+            }
+            return builtIndex;
+        }
+    }
+    
+}
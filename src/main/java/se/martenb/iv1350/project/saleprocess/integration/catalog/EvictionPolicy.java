@@ -0,0 +1,21 @@
+package se.martenb.iv1350.project.saleprocess.integration.catalog;
+
+/**
+ * Defines how a {@link CachingItemCatalog} chooses which item to remove 
+ * when it is full.
+ */
+public enum EvictionPolicy {
+
+    /**
+     * Removes the least recently used item.
+     */
+    LRU,
+
+    /**
+     * Window TinyLFU. New items enter a small LRU window, and an item 
+     * leaving the window only replaces an item in the main cache if it has 
+     * been looked up more often recently. This keeps frequently scanned 
+     * items cached even when many items are only scanned once.
+     */
+    TINY_LFU
+}
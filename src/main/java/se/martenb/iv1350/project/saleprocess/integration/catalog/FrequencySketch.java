@@ -0,0 +1,80 @@
+package se.martenb.iv1350.project.saleprocess.integration.catalog;
+
+/**
+ * A count-min sketch estimating how often item IDs have been looked up 
+ * recently. All counters are halved periodically, so old popularity fades.
+ * Instances are not thread-safe.
+ */
+class FrequencySketch {
+    private static final int ROWS = 4;
+    private static final int MAXIMUM_COUNT = 15;
+    private static final int[] ROW_SEEDS = new int[] {
+        0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+    private final int[] counters;
+    private final int rowMask;
+    private final int resetSampleSize;
+    private int samplesSinceReset;
+    
+    /**
+     * Creates a sketch sized for a cache of the specified size.
+     * 
+     * @param cacheSize The maximum number of entries in the cache.
+     */
+    FrequencySketch(int cacheSize) {
+        int rowWidth = Integer.highestOneBit(Math.max(cacheSize, 8) * 2 - 1);
+        this.counters = new int[ROWS * rowWidth];
+        this.rowMask = rowWidth - 1;
+        this.resetSampleSize = Math.max(cacheSize, 8) * 10;
+    }
+    
+    /**
+     * Get the counter position of an item ID in the specified row.
+     * 
+     * @param itemID The item ID.
+     * @param row The row of the sketch.
+     * @return Position of the counter.
+     */
+    private int counterPosition(int itemID, int row) {
+        int hash = itemID * ROW_SEEDS[row];
+        hash ^= hash >>> 15;
+        return row * (rowMask + 1) + (hash & rowMask);
+    }
+    
+    /**
+     * Record a lookup of the specified item ID.
+     * 
+     * @param itemID The looked up item ID.
+     */
+    void increment(int itemID) {
+        for (int row = 0; row < ROWS; row++) {
+            int position = counterPosition(itemID, row);
+            if (counters[position] < MAXIMUM_COUNT)
+                counters[position]++;
+        }
+        if (++samplesSinceReset >= resetSampleSize)
+            halveAllCounters();
+    }
+    
+    /**
+     * Estimate how often the specified item ID has been looked up recently.
+     * 
+     * @param itemID The item ID.
+     * @return The estimated frequency.
+     */
+    int frequency(int itemID) {
+        int minimumCount = MAXIMUM_COUNT;
+        for (int row = 0; row < ROWS; row++)
+            minimumCount = Math.min(minimumCount, 
+                    counters[counterPosition(itemID, row)]);
+        return minimumCount;
+    }
+    
+    /**
+     * Halve all counters so that the estimates favour recent lookups.
+     */
+    private void halveAllCounters() {
+        for (int i = 0; i < counters.length; i++)
+            counters[i] >>>= 1;
+        samplesSinceReset /= 2;
+    }
+}
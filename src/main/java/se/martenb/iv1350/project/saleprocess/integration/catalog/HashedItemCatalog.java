@@ -0,0 +1,60 @@
+package se.martenb.iv1350.project.saleprocess.integration.catalog;
+
+import java.util.function.Consumer;
+import se.martenb.iv1350.project.saleprocess.integration.dto.ItemDTO;
+import se.martenb.iv1350.project.saleprocess.util.IntKeyMap;
+
+/**
+ * An {@link ItemCatalog} keeping all items on the heap, indexed by item ID.
+ */
+public class HashedItemCatalog implements ItemCatalog {
+    private final IntKeyMap<ItemDTO> itemsByID = new IntKeyMap<>();
+    
+    /**
+     * Creates a new, empty catalog.
+     */
+    public HashedItemCatalog() {
+    }
+    
+    /**
+     * Add an item to the catalog, replacing any item with the same ID.
+     * 
+     * @param itemToAdd The item to add.
+     */
+    public void addItem(ItemDTO itemToAdd) {
+        itemsByID.put(itemToAdd.getItemID(), itemToAdd);
+    }
+    
+    /**
+     * Find the item with the specified ID.
+     * 
+     * @param itemID The ID of the item to find.
+     * @return The found item or <code>null</code>.
+     */
+    @Override
+    public ItemDTO findItem(int itemID) {
+        return itemsByID.get(itemID);
+    }
+    
+    /**
+     * Get the number of items in the catalog.
+     * 
+     * @return The number of items.
+     */
+    @Override
+    public int size() {
+        return itemsByID.size();
+    }
+    
+    /**
+     * Perform the specified action for every item in the catalog, in no 
+     * particular order.
+     * 
+     * @param action The action to perform on each item.
+     */
+    @Override
+    public void forEachItem(Consumer<ItemDTO> action) {
+        itemsByID.forEachValue(action);
+    }
+    
+}
@@ -0,0 +1,32 @@
+package se.martenb.iv1350.project.saleprocess.integration.catalog;
+
+import java.util.function.Consumer;
+import se.martenb.iv1350.project.saleprocess.integration.dto.ItemDTO;
+
+/**
+ * Defines a source of item information that can be searched by item ID.
+ */
+public interface ItemCatalog {
+    /**
+     * Find the item with the specified ID.
+     * 
+     * @param itemID The ID of the item to find.
+     * @return The found item, or <code>null</code> if there is no item with 
+     * the specified ID in the catalog.
+     */
+    public ItemDTO findItem(int itemID);
+    
+    /**
+     * Get the number of items in the catalog.
+     * 
+     * @return The number of items.
+     */
+    public int size();
+    
+    /**
+     * Perform the specified action for every item in the catalog.
+     * 
+     * @param action The action to perform on each item.
+     */
+    public void forEachItem(Consumer<ItemDTO> action);
+}
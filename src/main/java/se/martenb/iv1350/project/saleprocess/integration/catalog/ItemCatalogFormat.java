@@ -0,0 +1,47 @@
+package se.martenb.iv1350.project.saleprocess.integration.catalog;
+
+/**
+ * Describes the layout of a binary item catalog file. All numbers are 
+ * stored in big-endian byte order.
+ * 
+ * <pre>
+ * Header:  int magic, int version, int itemCount, int reserved
+ * Index:   itemCount entries of (int itemID, int recordOffset), 
+ *          sorted by item ID
+ * Records: long priceBeforeTaxes (in minor units), double vatTaxRate, 
+ *          short nameLength, byte[nameLength] name (UTF-8)
+ * </pre>
+ * 
+ * Record offsets are counted from the start of the file. A file can be at 
+ * most <code>Integer.MAX_VALUE</code> bytes, so it can be mapped in a 
+ * single buffer.
+ */
+final class ItemCatalogFormat {
+    static final int MAGIC = 0x49544D43;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    static final int MAGIC_POSITION = 0;
+    static final int VERSION_POSITION = 4;
+    static final int ITEM_COUNT_POSITION = 8;
+    static final int INDEX_ENTRY_SIZE = 8;
+    static final int INDEX_ENTRY_OFFSET_POSITION = 4;
+    static final int RECORD_PRICE_POSITION = 0;
+    static final int RECORD_VAT_TAX_RATE_POSITION = 8;
+    static final int RECORD_NAME_LENGTH_POSITION = 16;
+    static final int RECORD_NAME_POSITION = 18;
+    static final int MAXIMUM_NAME_LENGTH = Short.MAX_VALUE;
+    static final int PRICE_SCALE = 2;
+    
+    private ItemCatalogFormat() {
+    }
+    
+    /**
+     * Get the position of the index entry with the specified number.
+     * 
+     * @param entryNumber The number of the entry, starting at zero.
+     * @return The position of the entry in the file.
+     */
+    static int indexEntryPosition(int entryNumber) {
+        return HEADER_SIZE + entryNumber * INDEX_ENTRY_SIZE;
+    }
+}
@@ -0,0 +1,225 @@
+package se.martenb.iv1350.project.saleprocess.integration.catalog;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import se.martenb.iv1350.project.saleprocess.integration.dto.ItemDTO;
+import se.martenb.iv1350.project.saleprocess.util.Amount;
+import se.martenb.iv1350.project.saleprocess.util.Price;
+
+/**
+ * Writes binary item catalog files that can be opened by 
+ * {@link MappedItemCatalog}.
+ */
+public class ItemCatalogWriter {
+    private static final String CSV_SEPARATOR = ",";
+    private static final int CSV_MINIMUM_FIELDS = 4;
+    
+    /**
+     * Creates a new catalog writer.
+     */
+    public ItemCatalogWriter() {
+    }
+    
+    /**
+     * Write the specified items to a binary catalog file, replacing the file 
+     * if it already exists.
+     * 
+     * @param items The items to write, in any order.
+     * @param catalogFile The file to write to.
+     * @throws IOException If the file could not be written.
+     * @throws IllegalArgumentException If two items have the same ID or the 
+     *                                  catalog would be too large.
+     */
+    public void writeCatalog(List<ItemDTO> items, Path catalogFile) 
+            throws IOException {
+        List<ItemDTO> sortedItems = new ArrayList<>(items);
+        sortedItems.sort(Comparator.comparingInt(ItemDTO::getItemID));
+        verifyUniqueItemIDs(sortedItems);
+        byte[][] encodedNames = encodeItemNames(sortedItems);
+        int[] recordOffsets = calculateRecordOffsets(encodedNames);
+        try (DataOutputStream catalogOutput = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(catalogFile)))) {
+            writeHeader(catalogOutput, sortedItems.size());
+            for (int i = 0; i < sortedItems.size(); i++) {
+                catalogOutput.writeInt(sortedItems.get(i).getItemID());
+                catalogOutput.writeInt(recordOffsets[i]);
+            }
+            for (int i = 0; i < sortedItems.size(); i++)
+                writeRecord(catalogOutput, sortedItems.get(i), encodedNames[i]);
+        }
+    }
+    
+    /**
+     * Convert a CSV catalog into a binary catalog file. The first line of 
+     * the CSV file is a header and is skipped. Every other non-empty line 
+     * contains <code>itemID,itemName,priceBeforeTaxes,vatTaxRate</code>. 
+     * Item names may contain commas, since the ID is read from the first 
+     * field and the price and tax rate from the last two fields.
+     * 
+     * @param csvFile The CSV file to read.
+     * @param catalogFile The binary catalog file to write.
+     * @return The number of items written.
+     * @throws IOException If a file could not be read or written, or a line 
+     *                     in the CSV file is malformed.
+     */
+    public int convertCSVCatalog(Path csvFile, Path catalogFile) 
+            throws IOException {
+        List<ItemDTO> items = readCSVCatalog(csvFile);
+        writeCatalog(items, catalogFile);
+        return items.size();
+    }
+    
+    /**
+     * Read all items from a CSV catalog.
+     * 
+     * @param csvFile The CSV file to read.
+     * @return The read items.
+     * @throws IOException If the file could not be read or is malformed.
+     */
+    private List<ItemDTO> readCSVCatalog(Path csvFile) throws IOException {
+        List<ItemDTO> items = new ArrayList<>();
+        try (BufferedReader csvReader = 
+                Files.newBufferedReader(csvFile, StandardCharsets.UTF_8)) {
+            String csvLine = csvReader.readLine();
+            int lineNumber = 1;
+            while ((csvLine = csvReader.readLine()) != null) {
+                lineNumber++;
+                if (!csvLine.isBlank())
+                    items.add(parseCSVLine(csvLine, lineNumber));
+            }
+        }
+        return items;
+    }
+    
+    /**
+     * Parse a single CSV line into an item.
+     * 
+     * @param csvLine The line to parse.
+     * @param lineNumber The line number, used in error messages.
+     * @return The parsed item.
+     * @throws IOException If the line is malformed.
+     */
+    private ItemDTO parseCSVLine(String csvLine, int lineNumber) 
+            throws IOException {
+        String[] fields = csvLine.split(CSV_SEPARATOR, -1);
+        if (fields.length < CSV_MINIMUM_FIELDS)
+            throw new IOException("Too few fields on CSV line " + lineNumber);
+        try {
+            int itemID = Integer.parseInt(fields[0].trim());
+            String itemName = String.join(CSV_SEPARATOR, 
+                    List.of(fields).subList(1, fields.length - 2)).trim();
+            BigDecimal priceBeforeTaxes = 
+                    new BigDecimal(fields[fields.length - 2].trim());
+            double vatTaxRate = 
+                    Double.parseDouble(fields[fields.length - 1].trim());
+            Price itemPrice = 
+                    Price.of(new Amount(priceBeforeTaxes), vatTaxRate);
+            return new ItemDTO(itemID, itemName, itemPrice);
+        } catch (NumberFormatException exc) {
+            throw new IOException("Malformed number on CSV line " + 
+                    lineNumber, exc);
+        }
+    }
+    
+    /**
+     * Verify that no two items in a sorted list have the same ID.
+     * 
+     * @param sortedItems Items sorted by ID.
+     */
+    private void verifyUniqueItemIDs(List<ItemDTO> sortedItems) {
+        for (int i = 1; i < sortedItems.size(); i++) {
+            int itemID = sortedItems.get(i).getItemID();
+            if (itemID == sortedItems.get(i - 1).getItemID())
+                throw new IllegalArgumentException("Duplicate item ID " + 
+                        "in catalog: " + itemID);
+        }
+    }
+    
+    /**
+     * Encode the names of all items as UTF-8.
+     * 
+     * @param sortedItems The items.
+     * @return The encoded names in the same order as the items.
+     */
+    private byte[][] encodeItemNames(List<ItemDTO> sortedItems) {
+        byte[][] encodedNames = new byte[sortedItems.size()][];
+        for (int i = 0; i < sortedItems.size(); i++) {
+            ItemDTO item = sortedItems.get(i);
+            byte[] encodedName = 
+                    item.getItemName().getBytes(StandardCharsets.UTF_8);
+            if (encodedName.length > ItemCatalogFormat.MAXIMUM_NAME_LENGTH)
+                throw new IllegalArgumentException("Item name too long " + 
+                        "for item " + item.getItemID());
+            encodedNames[i] = encodedName;
+        }
+        return encodedNames;
+    }
+    
+    /**
+     * Calculate where each record will be placed in the file.
+     * 
+     * @param encodedNames The encoded item names, which decide the size 
+     *                     of each record.
+     * @return The offset of each record from the start of the file.
+     */
+    private int[] calculateRecordOffsets(byte[][] encodedNames) {
+        int[] recordOffsets = new int[encodedNames.length];
+        long nextRecordOffset = 
+                ItemCatalogFormat.indexEntryPosition(0) + 
+                (long) encodedNames.length * ItemCatalogFormat.INDEX_ENTRY_SIZE;
+        for (int i = 0; i < encodedNames.length; i++) {
+            recordOffsets[i] = (int) nextRecordOffset;
+            nextRecordOffset += ItemCatalogFormat.RECORD_NAME_POSITION + 
+                    encodedNames[i].length;
+            if (nextRecordOffset > Integer.MAX_VALUE)
+                throw new IllegalArgumentException("Catalog is too large " + 
+                        "to be stored in a single file.");
+        }
+        return recordOffsets;
+    }
+    
+    /**
+     * Write the catalog file header.
+     * 
+     * @param catalogOutput The output to write to.
+     * @param itemCount The number of items in the catalog.
+     * @throws IOException If writing failed.
+     */
+    private void writeHeader(DataOutputStream catalogOutput, int itemCount) 
+            throws IOException {
+        catalogOutput.writeInt(ItemCatalogFormat.MAGIC);
+        catalogOutput.writeInt(ItemCatalogFormat.VERSION);
+        catalogOutput.writeInt(itemCount);
+        catalogOutput.writeInt(0);
+    }
+    
+    /**
+     * Write the record of a single item.
+     * 
+     * @param catalogOutput The output to write to.
+     * @param item The item to write.
+     * @param encodedName The UTF-8 encoded name of the item.
+     * @throws IOException If writing failed.
+     */
+    private void writeRecord(DataOutputStream catalogOutput, ItemDTO item, 
+            byte[] encodedName) throws IOException {
+        Price itemPrice = item.getItemPrice();
+        long priceMinorUnits = itemPrice.getPriceBeforeTax().getAmount().
+                setScale(ItemCatalogFormat.PRICE_SCALE).
+                unscaledValue().longValueExact();
+        catalogOutput.writeLong(priceMinorUnits);
+        catalogOutput.writeDouble(itemPrice.getVATTaxRate());
+        catalogOutput.writeShort(encodedName.length);
+        catalogOutput.write(encodedName);
+    }
+    
+}
@@ -0,0 +1,513 @@
+package se.martenb.iv1350.project.saleprocess.integration.catalog;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import se.martenb.iv1350.project.saleprocess.integration.dto.ItemDTO;
+import se.martenb.iv1350.project.saleprocess.util.IntKeyMap;
+
+/**
+ * An immutable index of item names, used to search for items by name
+ * instead of by ID. Names are compared without regard to case.
+ *
+ * Prefix searches use a sorted array of names. Substring searches use
+ * trigram postings: for every sequence of three characters, the sorted IDs
+ * of all items whose names contain it. Only items found in the postings of
+ * every trigram of the searched text are compared with the text.
+ *
+ * Updating items creates a new index, sharing the postings of all trigrams
+ * not found in the names of the updated items.
+ */
+class ItemNameIndex {
+    private static final int TRIGRAM_LENGTH = 3;
+    private static final int[] NO_ITEM_IDS = new int[0];
+    private static final Comparator<SubstringMatch> BEST_MATCH_FIRST =
+            Comparator.comparingInt((SubstringMatch match) -> match.matchRank)
+                    .thenComparingInt(match -> match.itemName.length())
+                    .thenComparing(match -> match.itemName)
+                    .thenComparingInt(match -> match.itemID);
+    private final IntKeyMap<String> namesByID;
+    private final String[] sortedNames;
+    private final int[] sortedNameIDs;
+    private final IntKeyMap<int[]> itemIDsByTrigram;
+
+    /**
+     * Creates a new instance from its parts.
+     *
+     * @param namesByID The normalized name of every item.
+     * @param sortedNames All normalized names in sorted order.
+     * @param sortedNameIDs The item ID of every name in
+     *                      <code>sortedNames</code>.
+     * @param itemIDsByTrigram The sorted IDs of the items containing each
+     *                         trigram.
+     */
+    private ItemNameIndex(IntKeyMap<String> namesByID, String[] sortedNames,
+            int[] sortedNameIDs, IntKeyMap<int[]> itemIDsByTrigram) {
+        this.namesByID = namesByID;
+        this.sortedNames = sortedNames;
+        this.sortedNameIDs = sortedNameIDs;
+        this.itemIDsByTrigram = itemIDsByTrigram;
+    }
+
+    /**
+     * Build an index of the names of all items in the specified catalog.
+     *
+     * @param itemCatalog The catalog to index.
+     * @return The new index.
+     */
+    static ItemNameIndex build(ItemCatalog itemCatalog) {
+        IntKeyMap<String> namesByID = new IntKeyMap<>(itemCatalog.size());
+        IntKeyMap<PostingBuilder> postingBuilders = new IntKeyMap<>();
+        itemCatalog.forEachItem(item -> {
+            String itemName = normalize(item.getItemName());
+            namesByID.put(item.getItemID(), itemName);
+            addToPostings(postingBuilders, item.getItemID(), itemName);
+        });
+        IntKeyMap<int[]> itemIDsByTrigram =
+                new IntKeyMap<>(postingBuilders.size());
+        postingBuilders.forEachValue(postingBuilder ->
+                itemIDsByTrigram.put(postingBuilder.trigram,
+                        postingBuilder.toSortedUniqueIDs()));
+        return createWithSortedNames(namesByID, itemIDsByTrigram);
+    }
+
+    /**
+     * Create an index, sorting the names of all items.
+     *
+     * @param namesByID The normalized name of every item.
+     * @param itemIDsByTrigram The postings of every trigram.
+     * @return The new index.
+     */
+    private static ItemNameIndex createWithSortedNames(
+            IntKeyMap<String> namesByID, IntKeyMap<int[]> itemIDsByTrigram) {
+        List<NamedItemID> namedItemIDs = new ArrayList<>(namesByID.size());
+        collectNamedItemIDs(namesByID, namedItemIDs);
+        namedItemIDs.sort(null);
+        String[] sortedNames = new String[namedItemIDs.size()];
+        int[] sortedNameIDs = new int[namedItemIDs.size()];
+        for (int i = 0; i < sortedNames.length; i++) {
+            sortedNames[i] = namedItemIDs.get(i).itemName;
+            sortedNameIDs[i] = namedItemIDs.get(i).itemID;
+        }
+        return new ItemNameIndex(namesByID, sortedNames, sortedNameIDs,
+                itemIDsByTrigram);
+    }
+
+    /**
+     * Collect the ID and name of every item in the map.
+     *
+     * @param namesByID The map of names.
+     * @param namedItemIDs The list to add the items to.
+     */
+    private static void collectNamedItemIDs(IntKeyMap<String> namesByID,
+            List<NamedItemID> namedItemIDs) {
+        namesByID.forEachKeyAndValue((itemID, itemName) ->
+                namedItemIDs.add(new NamedItemID(itemID, itemName)));
+    }
+
+    /**
+     * Convert a name to the form it is indexed and searched by.
+     *
+     * @param name The name to convert.
+     * @return The name in lower case.
+     */
+    static String normalize(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Calculate the key of the trigram starting at the specified position.
+     * Different trigrams may get the same key, which only makes a search
+     * compare more names with the searched text.
+     *
+     * @param text The text containing the trigram.
+     * @param start The position of the first character of the trigram.
+     * @return The key of the trigram.
+     */
+    private static int trigramKey(String text, int start) {
+        int key = text.charAt(start);
+        key = key * 65599 + text.charAt(start + 1);
+        key = key * 65599 + text.charAt(start + 2);
+        return key;
+    }
+
+    /**
+     * Add an item to the postings of every trigram in its name.
+     *
+     * @param postingBuilders The postings being built.
+     * @param itemID The item to add.
+     * @param itemName The normalized name of the item.
+     */
+    private static void addToPostings(IntKeyMap<PostingBuilder> postingBuilders,
+            int itemID, String itemName) {
+        for (int i = 0; i + TRIGRAM_LENGTH <= itemName.length(); i++) {
+            int trigram = trigramKey(itemName, i);
+            PostingBuilder postingBuilder = postingBuilders.get(trigram);
+            if (postingBuilder == null) {
+                postingBuilder = new PostingBuilder(trigram);
+                postingBuilders.put(trigram, postingBuilder);
+            }
+            postingBuilder.add(itemID);
+        }
+    }
+
+    /**
+     * Create a new index where the specified items replace the items with
+     * the same IDs, and items with new IDs are added. This index is not
+     * changed. Only the postings of trigrams in the old or new names of the
+     * updated items are rebuilt, and the changed names are merged into the
+     * sorted names.
+     *
+     * @param updatedItems The new item information.
+     * @return The new index.
+     */
+    ItemNameIndex withUpdatedItems(Collection<ItemDTO> updatedItems) {
+        IntKeyMap<String> changedNamesByID = new IntKeyMap<>();
+        for (ItemDTO updatedItem : updatedItems) {
+            int itemID = updatedItem.getItemID();
+            String updatedName = normalize(updatedItem.getItemName());
+            if (updatedName.equals(namesByID.get(itemID)))
+                changedNamesByID.remove(itemID);
+            else
+                changedNamesByID.put(itemID, updatedName);
+        }
+        if (changedNamesByID.isEmpty())
+            return this;
+        IntKeyMap<String> updatedNamesByID = new IntKeyMap<>(namesByID);
+        IntKeyMap<PostingBuilder> affectedPostings = new IntKeyMap<>();
+        changedNamesByID.forEachKeyAndValue((itemID, updatedName) -> {
+            String previousName = namesByID.get(itemID);
+            if (previousName != null)
+                addToPostings(affectedPostings, itemID, previousName);
+            addToPostings(affectedPostings, itemID, updatedName);
+            updatedNamesByID.put(itemID, updatedName);
+        });
+        IntKeyMap<int[]> updatedItemIDsByTrigram =
+                new IntKeyMap<>(itemIDsByTrigram);
+        affectedPostings.forEachValue(affectedPosting -> {
+            int[] rebuiltPosting = rebuildPosting(affectedPosting.trigram,
+                    changedNamesByID);
+            if (rebuiltPosting.length == 0)
+                updatedItemIDsByTrigram.remove(affectedPosting.trigram);
+            else
+                updatedItemIDsByTrigram.put(affectedPosting.trigram,
+                        rebuiltPosting);
+        });
+        return mergeSortedNames(updatedNamesByID, changedNamesByID,
+                updatedItemIDsByTrigram);
+    }
+
+    /**
+     * Create an index where the changed names are merged into the sorted
+     * names of this index, without sorting the unchanged names again.
+     *
+     * @param updatedNamesByID The normalized name of every item.
+     * @param changedNamesByID The new names of the changed items.
+     * @param updatedItemIDsByTrigram The postings of every trigram.
+     * @return The new index.
+     */
+    private ItemNameIndex mergeSortedNames(IntKeyMap<String> updatedNamesByID,
+            IntKeyMap<String> changedNamesByID,
+            IntKeyMap<int[]> updatedItemIDsByTrigram) {
+        List<NamedItemID> changedNamedItemIDs =
+                new ArrayList<>(changedNamesByID.size());
+        collectNamedItemIDs(changedNamesByID, changedNamedItemIDs);
+        changedNamedItemIDs.sort(null);
+        String[] mergedNames = new String[updatedNamesByID.size()];
+        int[] mergedNameIDs = new int[updatedNamesByID.size()];
+        int mergedCount = 0;
+        int changedPosition = 0;
+        for (int i = 0; i < sortedNames.length; i++) {
+            if (changedNamesByID.containsKey(sortedNameIDs[i]))
+                continue;
+            NamedItemID unchanged =
+                    new NamedItemID(sortedNameIDs[i], sortedNames[i]);
+            while (changedPosition < changedNamedItemIDs.size() &&
+                    changedNamedItemIDs.get(changedPosition)
+                            .compareTo(unchanged) < 0) {
+                NamedItemID changed = changedNamedItemIDs.get(changedPosition++);
+                mergedNames[mergedCount] = changed.itemName;
+                mergedNameIDs[mergedCount++] = changed.itemID;
+            }
+            mergedNames[mergedCount] = unchanged.itemName;
+            mergedNameIDs[mergedCount++] = unchanged.itemID;
+        }
+        while (changedPosition < changedNamedItemIDs.size()) {
+            NamedItemID changed = changedNamedItemIDs.get(changedPosition++);
+            mergedNames[mergedCount] = changed.itemName;
+            mergedNameIDs[mergedCount++] = changed.itemID;
+        }
+        return new ItemNameIndex(updatedNamesByID, mergedNames, mergedNameIDs,
+                updatedItemIDsByTrigram);
+    }
+
+    /**
+     * Rebuild the posting of a trigram after the names of some items have
+     * changed.
+     *
+     * @param trigram The trigram to rebuild the posting of.
+     * @param changedNamesByID The new names of the changed items.
+     * @return The sorted IDs of the items containing the trigram.
+     */
+    private int[] rebuildPosting(int trigram,
+            IntKeyMap<String> changedNamesByID) {
+        int[] previousPosting = itemIDsByTrigram.get(trigram);
+        PostingBuilder postingBuilder = new PostingBuilder(trigram);
+        if (previousPosting != null)
+            for (int itemID : previousPosting)
+                if (!changedNamesByID.containsKey(itemID))
+                    postingBuilder.add(itemID);
+        changedNamesByID.forEachKeyAndValue((itemID, changedName) -> {
+            if (containsTrigram(changedName, trigram))
+                postingBuilder.add(itemID);
+        });
+        return postingBuilder.toSortedUniqueIDs();
+    }
+
+    /**
+     * Check if a name contains a trigram.
+     *
+     * @param itemName The normalized name.
+     * @param trigram The key of the trigram.
+     * @return <code>true</code> if the name contains the trigram,
+     * otherwise <code>false</code>.
+     */
+    private static boolean containsTrigram(String itemName, int trigram) {
+        for (int i = 0; i + TRIGRAM_LENGTH <= itemName.length(); i++)
+            if (trigramKey(itemName, i) == trigram)
+                return true;
+        return false;
+    }
+
+    /**
+     * Find the items whose names start with the specified text, in order of
+     * their names.
+     *
+     * @param prefix The start of the names to find.
+     * @param maximumResults The maximum number of items to find.
+     * @return The IDs of the found items.
+     */
+    int[] findItemIDsByNamePrefix(String prefix, int maximumResults) {
+        String normalizedPrefix = normalize(prefix);
+        int firstMatch = Arrays.binarySearch(sortedNames, normalizedPrefix);
+        if (firstMatch < 0)
+            firstMatch = -firstMatch - 1;
+        int endOfMatches = firstMatch;
+        while (endOfMatches < sortedNames.length &&
+                endOfMatches - firstMatch < maximumResults &&
+                sortedNames[endOfMatches].startsWith(normalizedPrefix))
+            endOfMatches++;
+        return Arrays.copyOfRange(sortedNameIDs, firstMatch, endOfMatches);
+    }
+
+    /**
+     * Find the items whose names contain the specified text. Names starting
+     * with the text are found first, followed by names with a word starting
+     * with the text, and then other names. Shorter names are found before
+     * longer names with the same kind of match.
+     *
+     * Texts shorter than a trigram can not use the postings, so all names
+     * are compared with them.
+     *
+     * @param text The text the names must contain.
+     * @param maximumResults The maximum number of items to find.
+     * @return The IDs of the found items, best match first.
+     */
+    int[] findItemIDsByNameContaining(String text, int maximumResults) {
+        String normalizedText = normalize(text);
+        PriorityQueue<SubstringMatch> bestMatches =
+                new PriorityQueue<>(BEST_MATCH_FIRST.reversed());
+        if (normalizedText.length() < TRIGRAM_LENGTH) {
+            for (int i = 0; i < sortedNames.length; i++)
+                offerMatch(bestMatches, sortedNameIDs[i], sortedNames[i],
+                        normalizedText, maximumResults);
+        } else {
+            for (int itemID : findCandidateItemIDs(normalizedText))
+                offerMatch(bestMatches, itemID, namesByID.get(itemID),
+                        normalizedText, maximumResults);
+        }
+        SubstringMatch[] sortedMatches =
+                bestMatches.toArray(new SubstringMatch[0]);
+        Arrays.sort(sortedMatches, BEST_MATCH_FIRST);
+        int[] foundItemIDs = new int[sortedMatches.length];
+        for (int i = 0; i < sortedMatches.length; i++)
+            foundItemIDs[i] = sortedMatches[i].itemID;
+        return foundItemIDs;
+    }
+
+    /**
+     * Find the items found in the postings of every trigram of the text,
+     * by intersecting the postings, starting with the shortest one.
+     *
+     * @param normalizedText The text to find candidates for.
+     * @return The sorted IDs of the candidate items.
+     */
+    private int[] findCandidateItemIDs(String normalizedText) {
+        int numberOfTrigrams = normalizedText.length() - TRIGRAM_LENGTH + 1;
+        int[][] postings = new int[numberOfTrigrams][];
+        for (int i = 0; i < numberOfTrigrams; i++) {
+            postings[i] = itemIDsByTrigram.get(trigramKey(normalizedText, i));
+            if (postings[i] == null)
+                return NO_ITEM_IDS;
+        }
+        Arrays.sort(postings, Comparator.comparingInt(posting ->
+                posting.length));
+        int[] candidates = postings[0];
+        for (int i = 1; i < postings.length && candidates.length > 0; i++)
+            candidates = intersect(candidates, postings[i]);
+        return candidates;
+    }
+
+    /**
+     * Find the IDs found in both sorted arrays. Each ID of the shorter array
+     * is searched for in the longer one.
+     *
+     * @param shorterIDs The shorter array of sorted IDs.
+     * @param longerIDs The longer array of sorted IDs.
+     * @return The sorted IDs found in both arrays.
+     */
+    private static int[] intersect(int[] shorterIDs, int[] longerIDs) {
+        int[] foundInBoth = new int[shorterIDs.length];
+        int numberFound = 0;
+        int searchFrom = 0;
+        for (int itemID : shorterIDs) {
+            int position = Arrays.binarySearch(longerIDs, searchFrom,
+                    longerIDs.length, itemID);
+            if (position >= 0) {
+                foundInBoth[numberFound++] = itemID;
+                searchFrom = position + 1;
+            } else {
+                searchFrom = -position - 1;
+            }
+            if (searchFrom == longerIDs.length)
+                break;
+        }
+        return Arrays.copyOf(foundInBoth, numberFound);
+    }
+
+    /**
+     * Keep a name among the best matches if it contains the text and is a
+     * better match than the worst match kept so far.
+     *
+     * @param bestMatches The best matches found so far, worst match first.
+     * @param itemID The ID of the item.
+     * @param itemName The normalized name of the item.
+     * @param normalizedText The searched text.
+     * @param maximumResults The maximum number of matches to keep.
+     */
+    private static void offerMatch(PriorityQueue<SubstringMatch> bestMatches,
+            int itemID, String itemName, String normalizedText,
+            int maximumResults) {
+        int matchPosition = itemName.indexOf(normalizedText);
+        if (matchPosition < 0)
+            return;
+        SubstringMatch match = new SubstringMatch(itemID, itemName,
+                rankMatch(itemName, normalizedText, matchPosition));
+        if (bestMatches.size() < maximumResults) {
+            bestMatches.add(match);
+        } else if (BEST_MATCH_FIRST.compare(match, bestMatches.peek()) < 0) {
+            bestMatches.poll();
+            bestMatches.add(match);
+        }
+    }
+
+    /**
+     * Rank how well a name matches the text, lower is better.
+     *
+     * @param itemName The normalized name.
+     * @param normalizedText The searched text.
+     * @param firstMatchPosition The first position of the text in the name.
+     * @return <code>0</code> if the name starts with the text,
+     * <code>1</code> if a word in the name starts with the text, otherwise
+     * <code>2</code>.
+     */
+    private static int rankMatch(String itemName, String normalizedText,
+            int firstMatchPosition) {
+        if (firstMatchPosition == 0)
+            return 0;
+        for (int position = firstMatchPosition; position >= 0;
+                position = itemName.indexOf(normalizedText, position + 1))
+            if (!Character.isLetterOrDigit(itemName.charAt(position - 1)))
+                return 1;
+        return 2;
+    }
+
+    /**
+     * Get the number of indexed items.
+     *
+     * @return The number of items.
+     */
+    int size() {
+        return sortedNames.length;
+    }
+
+    /**
+     * The IDs of items containing a trigram, collected while building.
+     */
+    private static class PostingBuilder {
+        private final int trigram;
+        private int[] itemIDs = new int[4];
+        private int size;
+
+        private PostingBuilder(int trigram) {
+            this.trigram = trigram;
+        }
+
+        private void add(int itemID) {
+            if (size == itemIDs.length)
+                itemIDs = Arrays.copyOf(itemIDs, size * 2);
+            itemIDs[size++] = itemID;
+        }
+
+        private int[] toSortedUniqueIDs() {
+            int[] sortedIDs = Arrays.copyOf(itemIDs, size);
+            Arrays.sort(sortedIDs);
+            int uniqueIDs = 0;
+            for (int i = 0; i < sortedIDs.length; i++)
+                if (uniqueIDs == 0 || sortedIDs[i] != sortedIDs[uniqueIDs - 1])
+                    sortedIDs[uniqueIDs++] = sortedIDs[i];
+            return Arrays.copyOf(sortedIDs, uniqueIDs);
+        }
+    }
+
+    /**
+     * A name and the ID of its item, ordered by name.
+     */
+    private static class NamedItemID implements Comparable<NamedItemID> {
+        private final int itemID;
+        private final String itemName;
+
+        private NamedItemID(int itemID, String itemName) {
+            this.itemID = itemID;
+            this.itemName = itemName;
+        }
+
+        @Override
+        public int compareTo(NamedItemID other) {
+            int nameOrder = itemName.compareTo(other.itemName);
+            if (nameOrder != 0)
+                return nameOrder;
+            return Integer.compare(itemID, other.itemID);
+        }
+    }
+
+    /**
+     * A name found by a substring search, with its rank.
+     */
+    private static class SubstringMatch {
+        private final int itemID;
+        private final String itemName;
+        private final int matchRank;
+
+        private SubstringMatch(int itemID, String itemName, int matchRank) {
+            this.itemID = itemID;
+            this.itemName = itemName;
+            this.matchRank = matchRank;
+        }
+    }
+
+}
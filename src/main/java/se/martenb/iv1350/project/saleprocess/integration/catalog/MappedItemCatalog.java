@@ -0,0 +1,170 @@
+package se.martenb.iv1350.project.saleprocess.integration.catalog;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import se.martenb.iv1350.project.saleprocess.integration.dto.ItemDTO;
+import se.martenb.iv1350.project.saleprocess.util.Amount;
+import se.martenb.iv1350.project.saleprocess.util.Price;
+
+/**
+ * An {@link ItemCatalog} reading a binary catalog file written by 
+ * {@link ItemCatalogWriter}. The file is memory-mapped, so opening it does 
+ * not read any items and the catalog does not live on the heap. Each 
+ * {@link ItemDTO} is created when its item is looked up.
+ */
+public class MappedItemCatalog implements ItemCatalog {
+    private final MappedByteBuffer catalogBuffer;
+    private final int itemCount;
+    
+    /**
+     * Opens the specified catalog file by mapping it into memory.
+     * 
+     * @param catalogFile The catalog file to open.
+     * @throws IOException If the file could not be read or is not an item 
+     *                     catalog file.
+     */
+    public MappedItemCatalog(Path catalogFile) throws IOException {
+        try (FileChannel catalogChannel = 
+                FileChannel.open(catalogFile, StandardOpenOption.READ)) {
+            long fileSize = catalogChannel.size();
+            if (fileSize < ItemCatalogFormat.HEADER_SIZE || 
+                    fileSize > Integer.MAX_VALUE)
+                throw new IOException("Not an item catalog file: " + 
+                        catalogFile);
+            catalogBuffer = catalogChannel.map(
+                    FileChannel.MapMode.READ_ONLY, 0, fileSize);
+        }
+        verifyHeader(catalogFile);
+        itemCount = catalogBuffer.getInt(
+                ItemCatalogFormat.ITEM_COUNT_POSITION);
+    }
+    
+    /**
+     * Verify that the mapped file starts with a known catalog header.
+     * 
+     * @param catalogFile The mapped file, used in error messages.
+     * @throws IOException If the header is not valid.
+     */
+    private void verifyHeader(Path catalogFile) throws IOException {
+        int magic = catalogBuffer.getInt(ItemCatalogFormat.MAGIC_POSITION);
+        int version = catalogBuffer.getInt(ItemCatalogFormat.VERSION_POSITION);
+        if (magic != ItemCatalogFormat.MAGIC)
+            throw new IOException("Not an item catalog file: " + catalogFile);
+        if (version != ItemCatalogFormat.VERSION)
+            throw new IOException("Unsupported item catalog version " + 
+                    version + ": " + catalogFile);
+        int itemCount = catalogBuffer.getInt(
+                ItemCatalogFormat.ITEM_COUNT_POSITION);
+        long indexEnd = (long) ItemCatalogFormat.HEADER_SIZE + 
+                (long) itemCount * ItemCatalogFormat.INDEX_ENTRY_SIZE;
+        if (itemCount < 0 || indexEnd > catalogBuffer.capacity())
+            throw new IOException("Corrupt item catalog index: " + 
+                    catalogFile);
+    }
+    
+    /**
+     * Get the item ID stored in the specified index entry.
+     * 
+     * @param entryNumber The index entry.
+     * @return The item ID.
+     */
+    private int itemIDAtEntry(int entryNumber) {
+        return catalogBuffer.getInt(
+                ItemCatalogFormat.indexEntryPosition(entryNumber));
+    }
+    
+    /**
+     * Binary search the sorted index for the specified item ID.
+     * 
+     * @param itemID The item ID to look for.
+     * @return The index entry of the item, or -1 if it was not found.
+     */
+    private int findIndexEntry(int itemID) {
+        int low = 0;
+        int high = itemCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int middleItemID = itemIDAtEntry(middle);
+            if (middleItemID < itemID)
+                low = middle + 1;
+            else if (middleItemID > itemID)
+                high = middle - 1;
+            else
+                return middle;
+        }
+        return -1;
+    }
+    
+    /**
+     * Create an {@link ItemDTO} from the record of the specified 
+     * index entry.
+     * 
+     * @param entryNumber The index entry of the item.
+     * @return The item.
+     */
+    private ItemDTO readItemAtEntry(int entryNumber) {
+        int entryPosition = ItemCatalogFormat.indexEntryPosition(entryNumber);
+        int itemID = catalogBuffer.getInt(entryPosition);
+        int recordPosition = catalogBuffer.getInt(
+                entryPosition + ItemCatalogFormat.INDEX_ENTRY_OFFSET_POSITION);
+        long priceMinorUnits = catalogBuffer.getLong(
+                recordPosition + ItemCatalogFormat.RECORD_PRICE_POSITION);
+        double vatTaxRate = catalogBuffer.getDouble(
+                recordPosition + ItemCatalogFormat.RECORD_VAT_TAX_RATE_POSITION);
+        int nameLength = catalogBuffer.getShort(
+                recordPosition + ItemCatalogFormat.RECORD_NAME_LENGTH_POSITION);
+        byte[] nameBytes = new byte[nameLength];
+        int namePosition = 
+                recordPosition + ItemCatalogFormat.RECORD_NAME_POSITION;
+        for (int i = 0; i < nameLength; i++)
+            nameBytes[i] = catalogBuffer.get(namePosition + i);
+        String itemName = new String(nameBytes, StandardCharsets.UTF_8);
+        Amount priceBeforeTaxes = new Amount(BigDecimal.valueOf(
+                priceMinorUnits, ItemCatalogFormat.PRICE_SCALE));
+        Price itemPrice = Price.of(priceBeforeTaxes, vatTaxRate);
+        return new ItemDTO(itemID, itemName, itemPrice);
+    }
+    
+    /**
+     * Find the item with the specified ID, reading it from the mapped file.
+     * 
+     * @param itemID The ID of the item to find.
+     * @return The found item or <code>null</code>.
+     */
+    @Override
+    public ItemDTO findItem(int itemID) {
+        int entryNumber = findIndexEntry(itemID);
+        if (entryNumber < 0)
+            return null;
+        return readItemAtEntry(entryNumber);
+    }
+    
+    /**
+     * Get the number of items in the catalog.
+     * 
+     * @return The number of items.
+     */
+    @Override
+    public int size() {
+        return itemCount;
+    }
+    
+    /**
+     * Perform the specified action for every item in the catalog, in order 
+     * of item ID.
+     * 
+     * @param action The action to perform on each item.
+     */
+    @Override
+    public void forEachItem(Consumer<ItemDTO> action) {
+        for (int entryNumber = 0; entryNumber < itemCount; entryNumber++)
+            action.accept(readItemAtEntry(entryNumber));
+    }
+    
+}
@@ -2,70 +2,99 @@ package se.martenb.iv1350.project.saleprocess.integration.discount;
 
 import java.util.ArrayList;
 import java.util.List;
-import se.martenb.iv1350.project.saleprocess.integration.dto.CustomerDTO;
 import se.martenb.iv1350.project.saleprocess.integration.dto.SaleDTO;
 
 /**
- * A {@link DiscountRule} which tries and applies multiple rules all at once.
+ * A {@link DiscountRule} which tries and applies multiple rules all at once. 
+ * All rules are added before the composite is used, after that it never 
+ * changes.
  */
 public class CompositeDiscountRule implements DiscountRule {
-    private List<DiscountRule> discountRuleList = new ArrayList<>();
-    private List<DiscountRule> applicableRulesList = new ArrayList<>();
-    private SaleDTO saleInfo;
-    private CustomerDTO customerInfo;
+    private final List<DiscountRule> discountRuleList = new ArrayList<>();
     
     /**
-     * Check if any added discounts are applicable for the current sale and 
-     * for the current specified customer.
+     * Check if any added discounts are applicable for the sale and the 
+     * customer of the specified context. The applicable discounts are 
+     * remembered by the context.
      * 
-     * @param saleInfo The sale on which to check if discounts are applicable.
-     * @param customerInfo The customer that might be eligible for discounts.
+     * @param context The sale on which to check if discounts are applicable 
+     *                and the customer that might be eligible for discounts.
      * @return Whether discounts are applicable.
      */
     @Override
-    public boolean isRuleApplicable(
-            SaleDTO saleInfo, CustomerDTO customerInfo) {
+    public boolean isRuleApplicable(DiscountContext context) {
         if(discountRuleList.isEmpty())
             throw new IllegalStateException("addRule(DiscountRule " + 
                     "discountRule) must be called before isRuleApplicable()");
-        this.saleInfo = saleInfo;
-        this.customerInfo = customerInfo;
         boolean isAnyRuleApplicable = false;
         for(DiscountRule discountRule : discountRuleList) {
             boolean isDiscountRuleApplicable = 
-                    discountRule.isRuleApplicable(saleInfo, customerInfo);
+                    discountRule.isRuleApplicable(context);
             if (isDiscountRuleApplicable) {
                 isAnyRuleApplicable = true;
-                applicableRulesList.add(discountRule);
+                context.addApplicableRule(discountRule);
             }
         }
         return isAnyRuleApplicable;
     }
 
     /**
-     * Apply any applicable discounts to specified sale after it has been 
-     * verified any rule can be applied. 
-     * {@link CompositeDiscountRule isRuleApplicable} must be called 
-     * before applying.
+     * Apply the discounts found applicable to the sale of the specified 
+     * context, in the order the rules were added. 
+     * {@link CompositeDiscountRule isRuleApplicable} must be called with 
+     * the same context before applying.
      * 
+     * Applicable rules that discount each item on their own, added one after 
+     * the other, are applied together in a single pass over the items of 
+     * the sale. The result is the same as applying them one at a time.
+     * 
+     * @param context The sale to apply discounts to.
      * @return The sale after rules have been applied.
      */
     @Override
-    public SaleDTO applyRule() {
-        if(applicableRulesList.isEmpty())
-            throw new IllegalStateException("isRuleApplicable(SaleDTO " + 
-                    "saleInfo, CustomerDTO customerInfo) must be called " + 
-                    "before applyRule()");
-        for(DiscountRule discountRule : applicableRulesList) {
-            discountRule.isRuleApplicable(saleInfo, customerInfo);
-            saleInfo = discountRule.applyRule();
+    public SaleDTO applyRule(DiscountContext context) {
+        boolean isAnyRuleApplied = false;
+        List<LineItemDiscountRule> lineItemRules = new ArrayList<>();
+        for(DiscountRule discountRule : discountRuleList) {
+            if (!context.isApplicableRule(discountRule))
+                continue;
+            isAnyRuleApplied = true;
+            if (discountRule instanceof LineItemDiscountRule) {
+                lineItemRules.add((LineItemDiscountRule) discountRule);
+            } else {
+                applyLineItemRules(context, lineItemRules);
+                discountRule.applyRule(context);
+            }
         }
-        return saleInfo;
+        if(!isAnyRuleApplied)
+            throw new IllegalStateException("isRuleApplicable(" + 
+                    "DiscountContext context) must find an applicable " + 
+                    "rule before applyRule()");
+        applyLineItemRules(context, lineItemRules);
+        return context.getSaleInfo();
+    }
+    
+    /**
+     * Apply the specified rules to the sale of the specified context in a 
+     * single pass over its items, and remove them from the list.
+     * 
+     * @param context The sale to apply discounts to.
+     * @param lineItemRules The rules to apply.
+     */
+    private void applyLineItemRules(DiscountContext context, 
+            List<LineItemDiscountRule> lineItemRules) {
+        if (lineItemRules.isEmpty())
+            return;
+        DiscountApplier discountApplier = new DiscountApplier(
+                context.getSaleInfo(), context.getCustomerInfo());
+        discountApplier.applyLineItemRules(lineItemRules);
+        context.updateSaleInfo(discountApplier.getSaleInfo());
+        lineItemRules.clear();
     }
     
     /**
      * Adds a rule to be applied when this composite is trying and applying
-     * discounts.
+     * discounts. Must not be called after the composite has been shared.
      * 
      * @param discountRule The discount rule to add.
      */
@@ -3,14 +3,14 @@ package se.martenb.iv1350.project.saleprocess.integration.discount;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Date;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import se.martenb.iv1350.project.saleprocess.integration.dto.CustomerDTO;
 import se.martenb.iv1350.project.saleprocess.integration.dto.ItemInSaleDTO;
 import se.martenb.iv1350.project.saleprocess.integration.dto.SaleDTO;
 import se.martenb.iv1350.project.saleprocess.util.Amount;
+import se.martenb.iv1350.project.saleprocess.util.AmountAccumulator;
 
 /**
  * Handler for verifying and applying discount onto a sale.
@@ -18,7 +18,8 @@ import se.martenb.iv1350.project.saleprocess.util.Amount;
 class DiscountApplier {
     private SaleDTO saleInfo;
     private final CustomerDTO customerInfo;
-    private Map<String,Double> itemNameContains = new HashMap<>();
+    private ItemDiscountTable itemDiscountTable = ItemDiscountTable.empty(
+            new NameKeywordMatcher(Collections.emptyMap()));
 
     /**
      * Creates a new discount applier for the specified sale.
@@ -38,7 +39,19 @@ class DiscountApplier {
      * @param The rules for when item name contains specific text.
      */
     void setItemNameContains(Map<String,Double> itemNameContains) {
-        this.itemNameContains = new HashMap<>(itemNameContains);
+        this.itemDiscountTable = ItemDiscountTable.empty(
+                new NameKeywordMatcher(itemNameContains));
+    }
+    
+    /**
+     * Set rules for when item name contains specific text, already 
+     * computed for the items in the catalog by the discount rule.
+     * 
+     * @param itemDiscountTable The "item name contains" discount of each 
+     *                          item.
+     */
+    void setItemDiscountTable(ItemDiscountTable itemDiscountTable) {
+        this.itemDiscountTable = itemDiscountTable;
     }
     
     /**
@@ -96,21 +109,17 @@ class DiscountApplier {
      * @param itemsInSale The item list to calculate running total for.
      */
     private Amount calculateRunningTotal(List<ItemInSaleDTO> itemsInSale) {
-        Amount runningTotal = new Amount(0);
+        AmountAccumulator runningTotal = new AmountAccumulator();
         for(ItemInSaleDTO itemInSale : itemsInSale) {
             double numericalQuantity = 
                     itemInSale.
                             getItemQuantity().
                             getNumericalValue();
-            Amount itemTotal = 
-                    itemInSale.
-                            getItemInfo().
-                            getItemPrice().
-                            getPriceAfterTax().
-                            multiply(numericalQuantity);
-            runningTotal = runningTotal.plus(itemTotal);
+            runningTotal.addPriceAfterTaxes(
+                    itemInSale.getItemInfo().getItemPrice(), 
+                    numericalQuantity);
         }
-        return runningTotal;
+        return runningTotal.getTotalPriceAfterTaxes();
     }
     
     /**
@@ -133,6 +142,40 @@ class DiscountApplier {
         saleInfo = saleInfoUpdated;
     }
     
+    /**
+     * Apply several rules that discount items on their own, in the 
+     * specified order, and update sale with the latest item information and 
+     * running total. The items are gone through once, applying all rules to 
+     * each item before moving on to the next, so only one new sale is 
+     * created no matter how many rules are applied.
+     * 
+     * @param lineItemRules The rules to apply.
+     */
+    void applyLineItemRules(List<LineItemDiscountRule> lineItemRules) {
+        List<ItemInSaleDTO> itemsInSale = saleInfo.getItemsInSale();
+        List<ItemInSaleDTO> itemsInSaleWithDiscounted = 
+                new ArrayList<>(itemsInSale.size());
+        AmountAccumulator runningTotal = new AmountAccumulator();
+        for(ItemInSaleDTO itemInSale : itemsInSale) {
+            ItemInSaleDTO itemInSaleDiscounted = itemInSale;
+            for(LineItemDiscountRule lineItemRule : lineItemRules)
+                itemInSaleDiscounted = 
+                        lineItemRule.applyRuleToItem(itemInSaleDiscounted);
+            itemsInSaleWithDiscounted.add(itemInSaleDiscounted);
+            runningTotal.addPriceAfterTaxes(
+                    itemInSaleDiscounted.getItemInfo().getItemPrice(), 
+                    itemInSaleDiscounted.getItemQuantity().
+                            getNumericalValue());
+        }
+        SaleDTO saleInfoUpdated = new SaleDTO(
+                saleInfo.getSaleDateTime(), 
+                runningTotal.getTotalPriceAfterTaxes(), 
+                itemsInSaleWithDiscounted, 
+                saleInfo.getTotalItems());
+        
+        saleInfo = saleInfoUpdated;
+    }
+    
     /**
      * Apply a full sale discount and update sale with the latest 
      * running total.
@@ -163,9 +206,9 @@ class DiscountApplier {
     private List<ItemInSaleDTO> makeItemInSaleListAfterDiscounts() {
         List<ItemInSaleDTO> itemsInSaleWithDiscounted = new ArrayList<>();
         for(ItemInSaleDTO itemInSale : saleInfo.getItemsInSale()) {
-            if (doesItemHaveApplicableNameContainsDiscount(itemInSale)) {
-                double percentDiscount = 
-                        getItemNameContainsDiscount(itemInSale);
+            Double percentDiscount = itemDiscountTable.findBestDiscount(
+                    itemInSale.getItemInfo());
+            if (percentDiscount != null) {
                 ItemInSaleDTO itemInSaleDiscounted = 
                         itemInSale.applyDiscount(percentDiscount);
                 itemsInSaleWithDiscounted.add(itemInSaleDiscounted);
@@ -191,37 +234,6 @@ class DiscountApplier {
         return itemsInSaleWithDiscounted;
     }
     
-    /**
-     * Get possible "name contains" discount rule 
-     * <code>Entry&lt;String,Double&gt;</code> if the specified item name 
-     * is applicable. Will return the best discount if more than one is 
-     * applicable to the item.
-     * 
-     * @param The item name.
-     * @return The best possible  "name contains" discount rule 
-     * <code>Entry&lt;String,Double&gt;</code>.
-     */
-    private Entry<String,Double> getBestPossibleNameContainsDiscountEntry(
-            String itemName) {
-        Entry<String,Double> bestBossibleEntry = null;
-        String lowerCaseItemName = itemName.toLowerCase();
-        for(Entry<String,Double> itemNameContainsEntry : 
-                itemNameContains.entrySet()) {
-            boolean entryContainsText = 
-                    lowerCaseItemName.contains(itemNameContainsEntry.getKey());
-            if (entryContainsText) {
-                boolean foundNoPossibleEntryYet = bestBossibleEntry == null;
-                boolean foundBetterPossibleEntry = foundNoPossibleEntryYet ||
-                        itemNameContainsEntry.getValue() > 
-                        bestBossibleEntry.getValue();
-                if(foundBetterPossibleEntry) {
-                    bestBossibleEntry = itemNameContainsEntry;
-                }
-            }
-        }
-        return bestBossibleEntry;
-    }
-    
     /**
      * See if specified item in a sale is applicable for a 
      * "name contains" discount.
@@ -231,25 +243,10 @@ class DiscountApplier {
      */
     private boolean doesItemHaveApplicableNameContainsDiscount(
             ItemInSaleDTO itemInSale) {
-        String itemName = itemInSale.getItemInfo().getItemName();
         boolean doesItemHaveApplicableDiscount = 
-                getBestPossibleNameContainsDiscountEntry(itemName) != null;
+                itemDiscountTable.findBestDiscount(
+                        itemInSale.getItemInfo()) != null;
         
         return doesItemHaveApplicableDiscount;
     }
-    
-    /**
-     * Get the discount percentage for the specified item.
-     * 
-     * @param itemInSale The item to get the discount for.
-     * @return The discount percentage for the item.
-     */
-    private double getItemNameContainsDiscount(ItemInSaleDTO itemInSale) {
-        String itemName = itemInSale.getItemInfo().getItemName();
-        Entry<String,Double> possibleNameContainsDiscountEntry = 
-                getBestPossibleNameContainsDiscountEntry(itemName);
-        double itemDiscountPercent = 
-                possibleNameContainsDiscountEntry.getValue();
-        return itemDiscountPercent;
-    }
 }
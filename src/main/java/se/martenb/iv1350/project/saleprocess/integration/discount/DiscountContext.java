@@ -0,0 +1,76 @@
+package se.martenb.iv1350.project.saleprocess.integration.discount;
+
+import java.util.HashSet;
+import java.util.Set;
+import se.martenb.iv1350.project.saleprocess.integration.dto.CustomerDTO;
+import se.martenb.iv1350.project.saleprocess.integration.dto.SaleDTO;
+
+/**
+ * The state of trying discounts on one sale for one customer. The discount
+ * rules themselves never change, so they can be shared by any number of
+ * threads, while each evaluation keeps its state in its own context. A
+ * context is used by one thread at a time.
+ */
+public class DiscountContext {
+    private final CustomerDTO customerInfo;
+    private SaleDTO saleInfo;
+    private final Set<DiscountRule> applicableRules = new HashSet<>();
+
+    /**
+     * Creates a new context for trying discounts on the specified sale.
+     *
+     * @param saleInfo The sale to try discounts on.
+     * @param customerInfo The customer that might be eligible for discounts.
+     */
+    public DiscountContext(SaleDTO saleInfo, CustomerDTO customerInfo) {
+        this.saleInfo = saleInfo;
+        this.customerInfo = customerInfo;
+    }
+
+    /**
+     * Get the sale with all discounts applied so far.
+     *
+     * @return The sale.
+     */
+    public SaleDTO getSaleInfo() {
+        return saleInfo;
+    }
+
+    /**
+     * Get the customer that might be eligible for discounts.
+     *
+     * @return The customer.
+     */
+    public CustomerDTO getCustomerInfo() {
+        return customerInfo;
+    }
+
+    /**
+     * Update the sale after a discount has been applied.
+     *
+     * @param saleAfterDiscount The sale after the applied discount.
+     */
+    void updateSaleInfo(SaleDTO saleAfterDiscount) {
+        saleInfo = saleAfterDiscount;
+    }
+
+    /**
+     * Remember that the specified rule was found applicable to the sale.
+     *
+     * @param discountRule The applicable rule.
+     */
+    void addApplicableRule(DiscountRule discountRule) {
+        applicableRules.add(discountRule);
+    }
+
+    /**
+     * See if the specified rule was found applicable to the sale.
+     *
+     * @param discountRule The rule to look for.
+     * @return <code>true</code> if the rule was found applicable.
+     */
+    boolean isApplicableRule(DiscountRule discountRule) {
+        return applicableRules.contains(discountRule);
+    }
+
+}
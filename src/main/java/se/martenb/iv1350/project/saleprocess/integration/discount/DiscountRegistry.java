@@ -1,5 +1,7 @@
 package se.martenb.iv1350.project.saleprocess.integration.discount;
 
+import se.martenb.iv1350.project.saleprocess.integration.catalog.CatalogSnapshot;
+
 /**
  * The {@link DiscountRegistry} singleton handles communications with an 
  * external item discount system.
@@ -34,4 +36,19 @@ public class DiscountRegistry {
         return allRulesComposite;
     } 
     
+    /**
+     * Compute the discounts of every item in the specified catalog snapshot 
+     * in advance, for the rules that only depend on the items. Should be 
+     * called when the catalog is replaced or item names change, but never 
+     * while a sale is checked out, since it reads the whole catalog. Does 
+     * nothing if the item names have not changed since the discounts were 
+     * last computed.
+     * 
+     * @param catalogSnapshot The catalog to compute discounts for.
+     */
+    public void materializeItemDiscounts(CatalogSnapshot catalogSnapshot) {
+        SummerDiscount.getSummerDiscount().materializeItemDiscounts(
+                catalogSnapshot);
+    }
+    
 }
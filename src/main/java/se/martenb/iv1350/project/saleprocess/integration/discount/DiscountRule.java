@@ -1,28 +1,33 @@
 package se.martenb.iv1350.project.saleprocess.integration.discount;
 
-import se.martenb.iv1350.project.saleprocess.integration.dto.CustomerDTO;
 import se.martenb.iv1350.project.saleprocess.integration.dto.SaleDTO;
 
 /**
- * Defines the ability to apply discounts onto a sale.
+ * Defines the ability to apply discounts onto a sale. Rules never change 
+ * while discounts are tried, everything about the sale being discounted is 
+ * kept in a {@link DiscountContext}, so the same rule can be tried on many 
+ * sales at the same time.
  */
 public interface DiscountRule {
     /**
-     * See if a rule is applicable with the current sale.
+     * See if a rule is applicable with the sale of the specified context.
      * 
-     * @param saleInfo The sale to see if rule can be applied to.
-     * @param customerInfo The customer to see if eligible.
-     * @return The discount rule that is possible to apply.
+     * @param context The sale to see if rule can be applied to and the 
+     *                customer to see if eligible.
+     * @return Whether the rule is possible to apply.
      */
-    public boolean isRuleApplicable(SaleDTO saleInfo, CustomerDTO customerInfo);
+    public boolean isRuleApplicable(DiscountContext context);
     
     /**
-     * Apply the verified discount rule to the sale. 
-     * {@link DiscountRule isRuleApplicable} must be called before applying.
+     * Apply the verified discount rule to the sale of the specified context 
+     * and update the context with the discounted sale. 
+     * {@link DiscountRule isRuleApplicable} must be called with the same 
+     * context before applying.
      * 
+     * @param context The sale to apply the rule to.
      * @return The sale after the applied rule.
      */
-    public SaleDTO applyRule();
+    public SaleDTO applyRule(DiscountContext context);
     
     /**
      * Return a <code>String</code> representation of the discount rule.
@@ -0,0 +1,253 @@
+package se.martenb.iv1350.project.saleprocess.integration.discount;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import se.martenb.iv1350.project.saleprocess.integration.catalog.CatalogSnapshot;
+import se.martenb.iv1350.project.saleprocess.integration.dto.ItemDTO;
+import se.martenb.iv1350.project.saleprocess.util.IntLongMap;
+
+/**
+ * The "item name contains" discount of every item in a catalog snapshot,
+ * computed once when the table is built so that finding the discount of an
+ * item in a sale is a single lookup by item ID. Instances never change and
+ * can be used by any number of threads.
+ *
+ * The table does not keep the items or their names. For every item it keeps
+ * the hash code of the name the discount was found for, packed into one
+ * <code>long</code> together with the discount. An item is only looked up
+ * in the table if its name has the same hash code as when the table was
+ * built. Other items, such as items added to the catalog later, are matched
+ * against the keywords instead, so a table that is out of date gives the
+ * same discounts, only slower. Since the table is computed again whenever
+ * item names change, an item renamed to another name with the same hash
+ * code can at most be given the discount of its old name until then.
+ */
+final class ItemDiscountTable {
+    private static final int ITEMS_PER_TASK = 1024;
+    private static final int ITEMS_PER_CHUNK = ITEMS_PER_TASK * 64;
+    private static final long NO_ITEM_NAMES_VERSION = -1;
+    private static final int NOT_IN_TABLE = 0;
+    private static final int NO_DISCOUNT = 1;
+    private static final int FIRST_DISCOUNT = 2;
+    private final NameKeywordMatcher itemNameContainsMatcher;
+    private final long itemNamesVersion;
+    private final IntLongMap itemDiscounts;
+    private final Double[] discountPercents;
+
+    /**
+     * Creates a new table from its parts.
+     *
+     * @param itemNameContainsMatcher The keywords the discounts are found
+     *                                with.
+     * @param itemNamesVersion The version of the item names of the catalog
+     *                         the table was built from.
+     * @param itemDiscounts The name hash code and discount index of each
+     *                      item by item ID.
+     * @param discountPercents The discounts referred to by the discount
+     *                         indexes, starting at {@link #FIRST_DISCOUNT}.
+     */
+    private ItemDiscountTable(NameKeywordMatcher itemNameContainsMatcher,
+            long itemNamesVersion, IntLongMap itemDiscounts,
+            Double[] discountPercents) {
+        this.itemNameContainsMatcher = itemNameContainsMatcher;
+        this.itemNamesVersion = itemNamesVersion;
+        this.itemDiscounts = itemDiscounts;
+        this.discountPercents = discountPercents;
+    }
+
+    /**
+     * Create a table without any items, where every discount is found by
+     * matching the item name against the keywords.
+     *
+     * @param itemNameContainsMatcher The keywords to find discounts with.
+     * @return The empty table.
+     */
+    static ItemDiscountTable empty(
+            NameKeywordMatcher itemNameContainsMatcher) {
+        return new ItemDiscountTable(itemNameContainsMatcher,
+                NO_ITEM_NAMES_VERSION, new IntLongMap(), new Double[0]);
+    }
+
+    /**
+     * Build a table with the discount of every item in the specified
+     * catalog snapshot. The items are read one chunk at a time, and the
+     * names of each chunk are matched against the keywords in parallel, so
+     * the whole catalog is never held in memory.
+     *
+     * @param itemNameContainsMatcher The keywords to find discounts with.
+     * @param catalogSnapshot The catalog to build the table from.
+     * @return The built table.
+     */
+    static ItemDiscountTable build(NameKeywordMatcher itemNameContainsMatcher,
+            CatalogSnapshot catalogSnapshot) {
+        TableBuilder tableBuilder = new TableBuilder(itemNameContainsMatcher,
+                catalogSnapshot.size());
+        catalogSnapshot.forEachItem(tableBuilder::addItem);
+        return tableBuilder.build(catalogSnapshot.getItemNamesVersion());
+    }
+
+    /**
+     * See if this table was built from a catalog snapshot with the same
+     * item names as the specified snapshot, so that it does not have to be
+     * built again for the snapshot.
+     *
+     * @param snapshot The catalog snapshot.
+     * @return <code>true</code> if the table has the item names of the
+     * snapshot.
+     */
+    boolean hasItemNamesOf(CatalogSnapshot snapshot) {
+        return itemNamesVersion == snapshot.getItemNamesVersion();
+    }
+
+    /**
+     * Get the best "item name contains" discount of the specified item.
+     *
+     * @param item The item.
+     * @return The best discount percentage, or <code>null</code> if the item
+     * has no discount.
+     */
+    Double findBestDiscount(ItemDTO item) {
+        String itemName = item.getItemName();
+        long itemDiscount = itemDiscounts.get(item.getItemID());
+        int discountIndex = (int) itemDiscount;
+        boolean isNameInTable = discountIndex != NOT_IN_TABLE &&
+                (int) (itemDiscount >>> 32) == itemName.hashCode();
+        if (!isNameInTable)
+            return itemNameContainsMatcher.findBestDiscount(itemName);
+        if (discountIndex == NO_DISCOUNT)
+            return null;
+        return discountPercents[discountIndex - FIRST_DISCOUNT];
+    }
+
+    /**
+     * Collects the items of a catalog in chunks and adds the discount of
+     * every item of a full chunk to the table.
+     */
+    private static final class TableBuilder {
+        private final NameKeywordMatcher itemNameContainsMatcher;
+        private final IntLongMap itemDiscounts;
+        private final List<Double> discountPercents = new ArrayList<>();
+        private final int[] chunkItemIDs;
+        private final String[] chunkItemNames;
+        private final Double[] chunkDiscountPercents;
+        private int chunkSize;
+
+        private TableBuilder(NameKeywordMatcher itemNameContainsMatcher,
+                int expectedItems) {
+            this.itemNameContainsMatcher = itemNameContainsMatcher;
+            this.itemDiscounts = new IntLongMap(expectedItems);
+            int chunkCapacity = Math.max(1,
+                    Math.min(expectedItems, ITEMS_PER_CHUNK));
+            this.chunkItemIDs = new int[chunkCapacity];
+            this.chunkItemNames = new String[chunkCapacity];
+            this.chunkDiscountPercents = new Double[chunkCapacity];
+        }
+
+        /**
+         * Add an item to the current chunk, adding the chunk to the table
+         * if it is full.
+         *
+         * @param item The item to add.
+         */
+        private void addItem(ItemDTO item) {
+            chunkItemIDs[chunkSize] = item.getItemID();
+            chunkItemNames[chunkSize] = item.getItemName();
+            chunkSize++;
+            if (chunkSize == chunkItemIDs.length)
+                addChunk();
+        }
+
+        /**
+         * Match the names of the current chunk against the keywords in
+         * parallel and add the discounts to the table.
+         */
+        private void addChunk() {
+            ForkJoinPool.commonPool().invoke(new MatchItemNamesTask(
+                    itemNameContainsMatcher, chunkItemNames,
+                    chunkDiscountPercents, 0, chunkSize));
+            for (int i = 0; i < chunkSize; i++) {
+                long nameHash = chunkItemNames[i].hashCode();
+                itemDiscounts.add(chunkItemIDs[i], (nameHash << 32) |
+                        discountIndexOf(chunkDiscountPercents[i]));
+            }
+            Arrays.fill(chunkItemNames, 0, chunkSize, null);
+            chunkSize = 0;
+        }
+
+        /**
+         * Get the index of the specified discount, adding it to the
+         * discounts of the table if it is not already there.
+         *
+         * @param discountPercent The discount, or <code>null</code>.
+         * @return The index of the discount.
+         */
+        private int discountIndexOf(Double discountPercent) {
+            if (discountPercent == null)
+                return NO_DISCOUNT;
+            int index = discountPercents.indexOf(discountPercent);
+            if (index < 0) {
+                index = discountPercents.size();
+                discountPercents.add(discountPercent);
+            }
+            return FIRST_DISCOUNT + index;
+        }
+
+        /**
+         * Add the last chunk to the table and create the table.
+         *
+         * @param itemNamesVersion The version of the item names of the
+         *                         catalog the table was built from.
+         * @return The table.
+         */
+        private ItemDiscountTable build(long itemNamesVersion) {
+            if (chunkSize > 0)
+                addChunk();
+            return new ItemDiscountTable(itemNameContainsMatcher,
+                    itemNamesVersion, itemDiscounts,
+                    discountPercents.toArray(new Double[0]));
+        }
+    }
+
+    /**
+     * Matches a range of item names against the keywords, splitting large
+     * ranges into tasks run in parallel.
+     */
+    private static final class MatchItemNamesTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final NameKeywordMatcher itemNameContainsMatcher;
+        private final String[] itemNames;
+        private final Double[] discountPercents;
+        private final int fromIndex;
+        private final int toIndex;
+
+        private MatchItemNamesTask(NameKeywordMatcher itemNameContainsMatcher,
+                String[] itemNames, Double[] discountPercents, int fromIndex,
+                int toIndex) {
+            this.itemNameContainsMatcher = itemNameContainsMatcher;
+            this.itemNames = itemNames;
+            this.discountPercents = discountPercents;
+            this.fromIndex = fromIndex;
+            this.toIndex = toIndex;
+        }
+
+        @Override
+        protected void compute() {
+            if (toIndex - fromIndex <= ITEMS_PER_TASK) {
+                for (int i = fromIndex; i < toIndex; i++)
+                    discountPercents[i] = itemNameContainsMatcher.
+                            findBestDiscount(itemNames[i]);
+                return;
+            }
+            int middleIndex = (fromIndex + toIndex) >>> 1;
+            invokeAll(new MatchItemNamesTask(itemNameContainsMatcher,
+                    itemNames, discountPercents, fromIndex, middleIndex),
+                    new MatchItemNamesTask(itemNameContainsMatcher,
+                            itemNames, discountPercents, middleIndex,
+                            toIndex));
+        }
+    }
+
+}
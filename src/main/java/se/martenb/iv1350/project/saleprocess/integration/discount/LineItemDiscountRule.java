@@ -0,0 +1,23 @@
+package se.martenb.iv1350.project.saleprocess.integration.discount;
+
+import se.martenb.iv1350.project.saleprocess.integration.dto.ItemInSaleDTO;
+
+/**
+ * A {@link DiscountRule} that discounts each item in a sale on its own,
+ * without depending on the other items in the sale. Applying such a rule
+ * to a sale gives the same result as applying it to each item and then
+ * calculating the running total of the discounted items, which lets a
+ * {@link CompositeDiscountRule} apply several of them in a single pass
+ * over the items.
+ */
+public interface LineItemDiscountRule extends DiscountRule {
+    /**
+     * Apply the verified discount rule to a single item in the sale.
+     * {@link DiscountRule isRuleApplicable} must be called before applying.
+     *
+     * @param itemInSale The item to apply the rule to.
+     * @return The item after the applied rule, or the same item if the rule
+     * does not discount it.
+     */
+    public ItemInSaleDTO applyRuleToItem(ItemInSaleDTO itemInSale);
+}
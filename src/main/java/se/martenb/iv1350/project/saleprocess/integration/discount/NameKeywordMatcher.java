@@ -0,0 +1,173 @@
+package se.martenb.iv1350.project.saleprocess.integration.discount;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Finds the best "item name contains" discount for item names. All keywords
+ * are compiled once into an Aho–Corasick automaton, so an item name is
+ * scanned once no matter how many keywords there are. Instances never
+ * change and can be used by any number of threads.
+ *
+ * Like <code>String.contains</code> on the item name in lowercase, a keyword
+ * matches if it is found anywhere in the lowercase name, and keywords are
+ * compared exactly as they were specified.
+ */
+final class NameKeywordMatcher {
+    private static final int ROOT_STATE = 0;
+    private final int[] firstEdge;
+    private final char[] edgeChars;
+    private final int[] edgeTargets;
+    private final int[] failureStates;
+    private final Double[] bestDiscounts;
+
+    /**
+     * Compiles the specified keywords and their discount percentages into
+     * a matcher.
+     *
+     * @param itemNameContains The discount percentage of each keyword.
+     */
+    NameKeywordMatcher(Map<String,Double> itemNameContains) {
+        List<TreeMap<Character,Integer>> trieEdges = new ArrayList<>();
+        List<Double> trieDiscounts = new ArrayList<>();
+        trieEdges.add(new TreeMap<>());
+        trieDiscounts.add(null);
+        for (Map.Entry<String,Double> keywordDiscount :
+                itemNameContains.entrySet())
+            addKeyword(trieEdges, trieDiscounts, keywordDiscount.getKey(),
+                    keywordDiscount.getValue());
+        int states = trieEdges.size();
+        firstEdge = new int[states + 1];
+        for (int state = 0; state < states; state++)
+            firstEdge[state + 1] = firstEdge[state] +
+                    trieEdges.get(state).size();
+        edgeChars = new char[firstEdge[states]];
+        edgeTargets = new int[firstEdge[states]];
+        for (int state = 0; state < states; state++) {
+            int edge = firstEdge[state];
+            for (Map.Entry<Character,Integer> trieEdge :
+                    trieEdges.get(state).entrySet()) {
+                edgeChars[edge] = trieEdge.getKey();
+                edgeTargets[edge] = trieEdge.getValue();
+                edge++;
+            }
+        }
+        failureStates = new int[states];
+        bestDiscounts = trieDiscounts.toArray(new Double[states]);
+        linkFailureStates();
+    }
+
+    /**
+     * Add a keyword to the trie, keeping the best discount if the keyword
+     * is already added.
+     *
+     * @param trieEdges The edges of each state of the trie.
+     * @param trieDiscounts The discount of the keyword ending in each state.
+     * @param keyword The keyword to add.
+     * @param discountPercent The percentage of the discount.
+     */
+    private static void addKeyword(List<TreeMap<Character,Integer>> trieEdges,
+            List<Double> trieDiscounts, String keyword,
+            Double discountPercent) {
+        int state = ROOT_STATE;
+        for (int i = 0; i < keyword.length(); i++) {
+            Integer nextState = trieEdges.get(state).get(keyword.charAt(i));
+            if (nextState == null) {
+                nextState = trieEdges.size();
+                trieEdges.get(state).put(keyword.charAt(i), nextState);
+                trieEdges.add(new TreeMap<>());
+                trieDiscounts.add(null);
+            }
+            state = nextState;
+        }
+        trieDiscounts.set(state,
+                better(trieDiscounts.get(state), discountPercent));
+    }
+
+    /**
+     * Link every state to the state of its longest proper suffix in the
+     * trie, visiting states in breadth-first order, and let every state
+     * inherit the best discount of that suffix.
+     */
+    private void linkFailureStates() {
+        int[] stateQueue = new int[failureStates.length];
+        int queueHead = 0;
+        int queueTail = 0;
+        for (int edge = firstEdge[ROOT_STATE];
+                edge < firstEdge[ROOT_STATE + 1]; edge++) {
+            failureStates[edgeTargets[edge]] = ROOT_STATE;
+            stateQueue[queueTail++] = edgeTargets[edge];
+        }
+        while (queueHead < queueTail) {
+            int state = stateQueue[queueHead++];
+            bestDiscounts[state] = better(bestDiscounts[state],
+                    bestDiscounts[failureStates[state]]);
+            for (int edge = firstEdge[state]; edge < firstEdge[state + 1];
+                    edge++) {
+                int childState = edgeTargets[edge];
+                failureStates[childState] =
+                        nextState(failureStates[state], edgeChars[edge]);
+                stateQueue[queueTail++] = childState;
+            }
+        }
+    }
+
+    /**
+     * Get the best discount of the keywords found in the specified item
+     * name.
+     *
+     * @param itemName The item name.
+     * @return The best discount percentage, or <code>null</code> if no
+     * keyword is found in the name.
+     */
+    Double findBestDiscount(String itemName) {
+        String lowerCaseItemName = itemName.toLowerCase();
+        Double bestDiscount = bestDiscounts[ROOT_STATE];
+        int state = ROOT_STATE;
+        for (int i = 0; i < lowerCaseItemName.length(); i++) {
+            state = nextState(state, lowerCaseItemName.charAt(i));
+            bestDiscount = better(bestDiscount, bestDiscounts[state]);
+        }
+        return bestDiscount;
+    }
+
+    /**
+     * Get the state after reading the specified character, following
+     * failure links until a state has an edge for the character.
+     *
+     * @param state The current state.
+     * @param nextChar The character to read.
+     * @return The next state.
+     */
+    private int nextState(int state, char nextChar) {
+        while (true) {
+            int edge = Arrays.binarySearch(edgeChars, firstEdge[state],
+                    firstEdge[state + 1], nextChar);
+            if (edge >= 0)
+                return edgeTargets[edge];
+            if (state == ROOT_STATE)
+                return ROOT_STATE;
+            state = failureStates[state];
+        }
+    }
+
+    /**
+     * Get the better of two discounts, where <code>null</code> means no
+     * discount.
+     *
+     * @param firstDiscount The first discount percentage.
+     * @param secondDiscount The second discount percentage.
+     * @return The better discount percentage.
+     */
+    private static Double better(Double firstDiscount, Double secondDiscount) {
+        if (firstDiscount == null)
+            return secondDiscount;
+        if (secondDiscount == null || secondDiscount <= firstDiscount)
+            return firstDiscount;
+        return secondDiscount;
+    }
+
+}
@@ -3,25 +3,28 @@ package se.martenb.iv1350.project.saleprocess.integration.discount;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.GregorianCalendar;
-import se.martenb.iv1350.project.saleprocess.integration.dto.CustomerDTO;
+import se.martenb.iv1350.project.saleprocess.integration.dto.ItemInSaleDTO;
 import se.martenb.iv1350.project.saleprocess.integration.dto.SaleDTO;
 
 /**
- * Singleton with rules for applying senior specific discounts.
+ * Singleton with rules for applying senior specific discounts. The rules 
+ * never change after they have been initialized, so the singleton can be 
+ * used by any number of threads.
  */
-public class SeniorDiscount implements DiscountRule {
+public class SeniorDiscount implements LineItemDiscountRule {
     private static final SeniorDiscount SENIOR_DISCOUNT = new SeniorDiscount();
     private final String name = "Senior Discount!";
-    private int customerAge;
-    private Date bornBefore;
-    private double fullSaleDiscountPercent;
-    private DiscountApplier discountApplier;
+    private final int customerAge = 65;
+    private final Date bornBefore;
+    private final double fullSaleDiscountPercent = 10;
 
     /**
      * Creates the only instance of the senior discount rules.
      */
     private SeniorDiscount() {
-        initializeDiscountRules();
+        GregorianCalendar seniorDate = new GregorianCalendar();
+        seniorDate.add(Calendar.YEAR, customerAge * -1);
+        bornBefore = seniorDate.getTime();
     }
     
     /**
@@ -33,30 +36,17 @@ public class SeniorDiscount implements DiscountRule {
     }
     
     /**
-     * Initializes all stored (hard coded) discount rules, when rules apply and
-     * for which items.
-     */
-    private void initializeDiscountRules() {
-        customerAge = 65;
-        fullSaleDiscountPercent = 10;
-        GregorianCalendar seniorDate = new GregorianCalendar();
-        seniorDate.add(Calendar.YEAR, customerAge * -1);
-        bornBefore = seniorDate.getTime();
-    }
-
-    /**
-     * Check if senior discounts are applicable for the current sale and for
-     * the current specified customer.
+     * Check if senior discounts are applicable for the sale and the customer 
+     * of the specified context.
      * 
-     * @param saleInfo The sale on which to check if discounts are applicable.
-     * @param customerInfo The customer that might be eligible for discounts.
+     * @param context The sale on which to check if discounts are applicable 
+     *                and the customer that might be eligible for discounts.
      * @return Whether discounts are applicable.
      */
     @Override
-    public boolean isRuleApplicable(
-            SaleDTO saleInfo, CustomerDTO customerInfo) {
-        discountApplier = 
-                new DiscountApplier(saleInfo, customerInfo);
+    public boolean isRuleApplicable(DiscountContext context) {
+        DiscountApplier discountApplier = new DiscountApplier(
+                context.getSaleInfo(), context.getCustomerInfo());
         boolean isCustomerOldEnough = 
                 discountApplier.isCustomerOldEnough(bornBefore);
         boolean isRuleApplicable = isCustomerOldEnough;
@@ -68,19 +58,32 @@ public class SeniorDiscount implements DiscountRule {
      * that rules can be applied. {@link SeniorDiscount isRuleApplicable} 
      * must be called before applying.
      * 
+     * @param context The sale to apply discounts to.
      * @return The sale after rules have been applied.
      */
     @Override
-    public SaleDTO applyRule() {
-        if(discountApplier == null)
-            throw new IllegalStateException("isRuleApplicable(SaleDTO " + 
-                    "saleInfo, CustomerDTO customerInfo) must be called " + 
-                    "before applyRule()");
+    public SaleDTO applyRule(DiscountContext context) {
+        DiscountApplier discountApplier = new DiscountApplier(
+                context.getSaleInfo(), context.getCustomerInfo());
         discountApplier.applyFullSaleDiscount(fullSaleDiscountPercent);
         SaleDTO saleAfterDiscounts = discountApplier.getSaleInfo();
+        context.updateSaleInfo(saleAfterDiscounts);
         return saleAfterDiscounts;
     }
 
+    /**
+     * Apply the senior discount to the specified item, as part of the 
+     * discount of the whole sale. {@link SeniorDiscount isRuleApplicable} 
+     * must be called before applying.
+     * 
+     * @param itemInSale The item to apply discounts to.
+     * @return The item after discounts have been applied.
+     */
+    @Override
+    public ItemInSaleDTO applyRuleToItem(ItemInSaleDTO itemInSale) {
+        return itemInSale.applyDiscount(fullSaleDiscountPercent);
+    }
+
     /**
      * String describing the senior rule.
      * 
@@ -1,29 +1,48 @@
 package se.martenb.iv1350.project.saleprocess.integration.discount;
 
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
 import java.util.GregorianCalendar;
 import java.util.HashMap;
 import java.util.Map;
-import se.martenb.iv1350.project.saleprocess.integration.dto.CustomerDTO;
+import se.martenb.iv1350.project.saleprocess.integration.catalog.CatalogSnapshot;
+import se.martenb.iv1350.project.saleprocess.integration.dto.ItemInSaleDTO;
 import se.martenb.iv1350.project.saleprocess.integration.dto.SaleDTO;
 
 /**
- * Singleton with rules for applying summer specific discounts.
+ * Singleton with rules for applying summer specific discounts. The rules 
+ * never change after they have been initialized, so the singleton can be 
+ * used by any number of threads.
+ * 
+ * The discount of every item in the catalog can be computed in advance 
+ * with {@link #materializeItemDiscounts}, so that applying the discounts 
+ * does not have to search the item names for the keywords.
  */
-public class SummerDiscount implements DiscountRule {
+public class SummerDiscount implements LineItemDiscountRule {
     private static final SummerDiscount SUMMER_DISCOUNT = new SummerDiscount();
     private final String name = "Summer Discount!";
-    private Date startDate;
-    private Date endDate;
-    private Map<String,Double> itemNameContains = new HashMap<>();
-    private DiscountApplier discountApplier;
+    private final Date startDate;
+    private final Date endDate;
+    private final Map<String,Double> itemNameContains;
+    private final NameKeywordMatcher itemNameContainsMatcher;
+    private volatile ItemDiscountTable itemDiscountTable;
 
     /**
      * Creates the only instance of the summer discount rules.
      */
     private SummerDiscount() {
-        initializeDiscountRules();
+        int currentYear = Calendar.getInstance().get(Calendar.YEAR);
+        startDate = new GregorianCalendar(currentYear, Calendar.MAY, 1).
+                getTime();
+        endDate = new GregorianCalendar(currentYear, Calendar.AUGUST, 31).
+                getTime();
+        Map<String,Double> initializedItemNameContains = new HashMap<>();
+        initializeDiscountRules(initializedItemNameContains);
+        itemNameContains = 
+                Collections.unmodifiableMap(initializedItemNameContains);
+        itemNameContainsMatcher = new NameKeywordMatcher(itemNameContains);
+        itemDiscountTable = ItemDiscountTable.empty(itemNameContainsMatcher);
     }
     
     /**
@@ -35,24 +54,21 @@ public class SummerDiscount implements DiscountRule {
     }
     
     /**
-     * Initializes all stored (hard coded) discount rules, when rules apply and
-     * for which items.
+     * Initializes all stored (hard coded) discount rules for which items.
+     * 
+     * @param initializedItemNameContains The "item name contains" rules to 
+     *                                    initialize.
      */
-    private void initializeDiscountRules() {
-        startDate = new GregorianCalendar(
-                Calendar.getInstance().get(Calendar.YEAR), Calendar.MAY, 1).
-                getTime();
-        endDate = new GregorianCalendar(
-                Calendar.getInstance().get(Calendar.YEAR), Calendar.AUGUST, 31).
-                getTime();
+    private void initializeDiscountRules(
+            Map<String,Double> initializedItemNameContains) {
         String stringItemNameContainsDrink = "drink";
         int discountPercentItemNameContainsDrink = 10;
         String stringItemNameContainsStrawberry = "strawberry";
         int discountPercentItemNameContainsStrawberry = 5;
-        initializeItemNameContainsDiscount(
+        initializeItemNameContainsDiscount(initializedItemNameContains, 
                 stringItemNameContainsDrink, 
                 discountPercentItemNameContainsDrink);
-        initializeItemNameContainsDiscount(
+        initializeItemNameContainsDiscount(initializedItemNameContains, 
                 stringItemNameContainsStrawberry, 
                 discountPercentItemNameContainsStrawberry);
     }
@@ -61,29 +77,29 @@ public class SummerDiscount implements DiscountRule {
      * Initialize discount rules for items containing specified text 
      * (in lowercase) in its name and the discount percentage.
      * 
+     * @param initializedItemNameContains The rules to add the rule to.
      * @param nameContains The text to find within the item name.
      * @param discountPercent The percentage of the discount.
      */
     private void initializeItemNameContainsDiscount(
+            Map<String,Double> initializedItemNameContains, 
             String nameContains, double discountPercent) {
         String lowerCaseNameContains = nameContains.toLowerCase();
-        itemNameContains.put(lowerCaseNameContains, discountPercent);
+        initializedItemNameContains.put(lowerCaseNameContains, 
+                discountPercent);
     }
 
     /**
-     * Check if summer discounts are applicable for the current sale and for
-     * the current specified customer.
+     * Check if summer discounts are applicable for the sale and the customer 
+     * of the specified context.
      * 
-     * @param saleInfo The sale on which to check if discounts are applicable.
-     * @param customerInfo The customer that might be eligible for discounts.
+     * @param context The sale on which to check if discounts are applicable 
+     *                and the customer that might be eligible for discounts.
      * @return Whether discounts are applicable.
      */
     @Override
-    public boolean isRuleApplicable(
-            SaleDTO saleInfo, CustomerDTO customerInfo) {
-        discountApplier = 
-                new DiscountApplier(saleInfo, customerInfo);
-        discountApplier.setItemNameContains(itemNameContains);
+    public boolean isRuleApplicable(DiscountContext context) {
+        DiscountApplier discountApplier = createDiscountApplier(context);
         boolean isItTheRightPeriod = 
                 discountApplier.isItTheRightPeriod(startDate, endDate);
         boolean isApplicableItemInSale = 
@@ -98,18 +114,67 @@ public class SummerDiscount implements DiscountRule {
      * that rules can be applied. {@link SummerDiscount isRuleApplicable} 
      * must be called before applying.
      * 
+     * @param context The sale to apply discounts to.
      * @return The sale after rules have been applied.
      */
     @Override
-    public SaleDTO applyRule() {
-        if(discountApplier == null)
-            throw new IllegalStateException("isRuleApplicable(SaleDTO " + 
-                    "saleInfo, CustomerDTO customerInfo) must be called " + 
-                    "before applyRule()");
+    public SaleDTO applyRule(DiscountContext context) {
+        DiscountApplier discountApplier = createDiscountApplier(context);
         discountApplier.applyPerItemRules();
         SaleDTO saleAfterDiscounts = discountApplier.getSaleInfo();
+        context.updateSaleInfo(saleAfterDiscounts);
         return saleAfterDiscounts;
     }
+    
+    /**
+     * Apply the summer discount of the specified item, if it has one. 
+     * {@link SummerDiscount isRuleApplicable} must be called before 
+     * applying.
+     * 
+     * @param itemInSale The item to apply discounts to.
+     * @return The item after discounts have been applied.
+     */
+    @Override
+    public ItemInSaleDTO applyRuleToItem(ItemInSaleDTO itemInSale) {
+        Double percentDiscount = 
+                itemDiscountTable.findBestDiscount(itemInSale.getItemInfo());
+        if (percentDiscount == null)
+            return itemInSale;
+        return itemInSale.applyDiscount(percentDiscount);
+    }
+    
+    /**
+     * Create a handler for verifying and applying the summer discounts to 
+     * the sale of the specified context.
+     * 
+     * @param context The sale to verify and apply discounts to.
+     * @return The handler.
+     */
+    private DiscountApplier createDiscountApplier(DiscountContext context) {
+        DiscountApplier discountApplier = new DiscountApplier(
+                context.getSaleInfo(), context.getCustomerInfo());
+        discountApplier.setItemDiscountTable(itemDiscountTable);
+        return discountApplier;
+    }
+    
+    /**
+     * Compute the discount of every item in the specified catalog snapshot, 
+     * replacing any previously computed discounts. Nothing is computed if 
+     * the discounts were already computed for a snapshot with the same item 
+     * names, so price updates never cause the discounts to be computed 
+     * again. Only one thread computes the discounts at a time, and 
+     * discounts tried while the new discounts are computed use the previous 
+     * ones.
+     * 
+     * @param catalogSnapshot The catalog to compute discounts for.
+     */
+    synchronized void materializeItemDiscounts(
+            CatalogSnapshot catalogSnapshot) {
+        if (itemDiscountTable.hasItemNamesOf(catalogSnapshot))
+            return;
+        itemDiscountTable = ItemDiscountTable.build(itemNameContainsMatcher, 
+                catalogSnapshot);
+    }
 
     /**
      * String describing the summer rule.
@@ -0,0 +1,92 @@
+package se.martenb.iv1350.project.saleprocess.integration.dto;
+
+/**
+ * Represents counters describing how well a cache has performed since it 
+ * was created.
+ */
+public class CacheStatisticsDTO {
+    private final long hitCount;
+    private final long negativeHitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final int cachedEntries;
+    
+    /**
+     * Creates a new instance, representing the specified counters.
+     * 
+     * @param hitCount Lookups answered by a cached item.
+     * @param negativeHitCount Lookups answered by a cached unknown item.
+     * @param missCount Lookups that had to search the backing store.
+     * @param evictionCount Entries removed to make room for new entries.
+     * @param cachedEntries Entries currently in the cache.
+     */
+    public CacheStatisticsDTO(long hitCount, long negativeHitCount, 
+            long missCount, long evictionCount, int cachedEntries) {
+        this.hitCount = hitCount;
+        this.negativeHitCount = negativeHitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.cachedEntries = cachedEntries;
+    }
+    
+    /**
+     * Get the number of lookups answered by a cached item.
+     * 
+     * @return The number of hits.
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+    
+    /**
+     * Get the number of lookups answered by a cached unknown item, without 
+     * searching the backing store.
+     * 
+     * @return The number of negative hits.
+     */
+    public long getNegativeHitCount() {
+        return negativeHitCount;
+    }
+    
+    /**
+     * Get the number of lookups that had to search the backing store.
+     * 
+     * @return The number of misses.
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+    
+    /**
+     * Get the number of entries removed to make room for new entries.
+     * 
+     * @return The number of evictions.
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+    
+    /**
+     * Get the number of entries currently in the cache.
+     * 
+     * @return The number of cached entries.
+     */
+    public int getCachedEntries() {
+        return cachedEntries;
+    }
+    
+    /**
+     * Get the share of lookups answered by the cache, including negative 
+     * hits.
+     * 
+     * @return The hit rate between 0 and 1, or 0 if there were no lookups.
+     */
+    public double getHitRate() {
+        long answeredByCache = hitCount + negativeHitCount;
+        long totalLookups = answeredByCache + missCount;
+        if (totalLookups == 0)
+            return 0;
+        return (double) answeredByCache / totalLookups;
+    }
+    
+}
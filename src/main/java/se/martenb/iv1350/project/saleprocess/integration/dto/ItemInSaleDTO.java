@@ -60,7 +60,7 @@ public class ItemInSaleDTO {
         Amount discountedPriceBeforeTaxes = originalPriceBeforeTaxes.
                 minus(discountAmount);
         Price discountedPrice = 
-                new Price(discountedPriceBeforeTaxes, originalVATTaxRate);
+                Price.of(discountedPriceBeforeTaxes, originalVATTaxRate);
         ItemDTO discountedItemInfo = 
                 new ItemDTO(originalID, originalName, discountedPrice);
         
@@ -0,0 +1,65 @@
+package se.martenb.iv1350.project.saleprocess.integration.dto;
+
+import se.martenb.iv1350.project.saleprocess.util.Amount;
+
+/**
+ * Represents how much of one item was sold during a reported period.
+ */
+public class ItemSalesDTO {
+    private final int itemID;
+    private final String itemName;
+    private final double quantitySold;
+    private final Amount totalPriceAfterTaxes;
+    
+    /**
+     * Creates a new instance, representing the specified sales.
+     * 
+     * @param itemID The ID of the item.
+     * @param itemName The name of the item.
+     * @param quantitySold The total quantity sold of the item.
+     * @param totalPriceAfterTaxes The total price after taxes of the item.
+     */
+    public ItemSalesDTO(int itemID, String itemName, double quantitySold, 
+            Amount totalPriceAfterTaxes) {
+        this.itemID = itemID;
+        this.itemName = itemName;
+        this.quantitySold = quantitySold;
+        this.totalPriceAfterTaxes = totalPriceAfterTaxes;
+    }
+    
+    /**
+     * Get the ID of the item.
+     * 
+     * @return The item ID.
+     */
+    public int getItemID() {
+        return itemID;
+    }
+    
+    /**
+     * Get the name of the item.
+     * 
+     * @return The item name.
+     */
+    public String getItemName() {
+        return itemName;
+    }
+    
+    /**
+     * Get the total quantity sold of the item.
+     * 
+     * @return The numerical value of the quantity.
+     */
+    public double getQuantitySold() {
+        return quantitySold;
+    }
+    
+    /**
+     * Get the total price after taxes of everything sold of the item.
+     * 
+     * @return The total price after taxes.
+     */
+    public Amount getTotalPriceAfterTaxes() {
+        return totalPriceAfterTaxes;
+    }
+}
@@ -0,0 +1,41 @@
+package se.martenb.iv1350.project.saleprocess.integration.dto;
+
+import se.martenb.iv1350.project.saleprocess.util.Price;
+
+/**
+ * Represents a new price for an item in the item catalog.
+ */
+public class PriceUpdateDTO {
+    private final int itemID;
+    private final Price newPrice;
+    
+    /**
+     * Creates a new instance, representing a price change for an item.
+     * 
+     * @param itemID The item to change the price of.
+     * @param newPrice The new price of the item.
+     */
+    public PriceUpdateDTO(int itemID, Price newPrice) {
+        this.itemID = itemID;
+        this.newPrice = newPrice;
+    }
+    
+    /**
+     * Get the item to change the price of.
+     * 
+     * @return The item ID.
+     */
+    public int getItemID() {
+        return itemID;
+    }
+    
+    /**
+     * Get the new price of the item.
+     * 
+     * @return The new price.
+     */
+    public Price getNewPrice() {
+        return newPrice;
+    }
+    
+}
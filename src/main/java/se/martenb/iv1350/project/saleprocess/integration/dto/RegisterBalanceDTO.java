@@ -0,0 +1,69 @@
+package se.martenb.iv1350.project.saleprocess.integration.dto;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import se.martenb.iv1350.project.saleprocess.util.Amount;
+
+/**
+ * Represents the balance of a register at one point in time, with the 
+ * amount in each cash drawer and the total of all drawers.
+ */
+public class RegisterBalanceDTO {
+    private final Amount totalAmount;
+    private final Amount mainDrawerAmount;
+    private final Map<Integer, Amount> laneDrawerAmounts;
+    
+    /**
+     * Creates a new instance, representing the specified balances.
+     * 
+     * @param totalAmount The total amount in the register.
+     * @param mainDrawerAmount The amount in the drawer not belonging to a 
+     *                         lane.
+     * @param laneDrawerAmounts The amount in the drawer of each lane.
+     */
+    public RegisterBalanceDTO(Amount totalAmount, Amount mainDrawerAmount, 
+            Map<Integer, Amount> laneDrawerAmounts) {
+        this.totalAmount = totalAmount;
+        this.mainDrawerAmount = mainDrawerAmount;
+        this.laneDrawerAmounts = 
+                Collections.unmodifiableMap(new TreeMap<>(laneDrawerAmounts));
+    }
+    
+    /**
+     * Get the total amount in the register.
+     * 
+     * @return The total amount.
+     */
+    public Amount getTotalAmount() {
+        return totalAmount;
+    }
+    
+    /**
+     * Get the amount in the drawer not belonging to a lane.
+     * 
+     * @return The amount in the main drawer.
+     */
+    public Amount getMainDrawerAmount() {
+        return mainDrawerAmount;
+    }
+    
+    /**
+     * Get the amount in the drawer of the specified lane.
+     * 
+     * @param laneID The lane of the drawer.
+     * @return The amount in the drawer, or zero if the lane has no drawer.
+     */
+    public Amount getLaneDrawerAmount(int laneID) {
+        return laneDrawerAmounts.getOrDefault(laneID, Amount.ZERO);
+    }
+    
+    /**
+     * Get the amount in the drawer of each lane, ordered by lane ID.
+     * 
+     * @return The amounts by lane ID.
+     */
+    public Map<Integer, Amount> getLaneDrawerAmounts() {
+        return laneDrawerAmounts;
+    }
+}
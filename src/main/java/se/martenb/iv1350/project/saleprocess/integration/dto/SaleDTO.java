@@ -13,6 +13,7 @@ public class SaleDTO {
     private final Amount runningTotal;
     private final List<ItemInSaleDTO> itemsInSale;
     private final int totalItems;
+    private final ItemInSaleDTO lastChangedItem;
     
     /**
      * Creates a new instance of a sale object. 
@@ -24,10 +25,28 @@ public class SaleDTO {
      */
     public SaleDTO(LocalDateTime saleDateTime, Amount runningTotal, 
             List<ItemInSaleDTO> itemsInSaleList, int totalItems) {
+        this(saleDateTime, runningTotal, itemsInSaleList, totalItems, null);
+    }
+    
+    /**
+     * Creates a new instance of a sale object, where the item in the sale 
+     * that was added or changed last is known. 
+     * 
+     * @param saleDateTime Date and time of the sale.
+     * @param runningTotal Running total of the sale.
+     * @param itemsInSaleList List of items in the sale.
+     * @param totalItems Total number of items in the sale.
+     * @param lastChangedItem The item in the sale that was added or changed 
+     *                        last, or <code>null</code> if not known.
+     */
+    public SaleDTO(LocalDateTime saleDateTime, Amount runningTotal, 
+            List<ItemInSaleDTO> itemsInSaleList, int totalItems, 
+            ItemInSaleDTO lastChangedItem) {
         this.saleDateTime = saleDateTime;
         this.runningTotal = runningTotal;
         this.itemsInSale = itemsInSaleList;
         this.totalItems = totalItems;
+        this.lastChangedItem = lastChangedItem;
     }
 
     /**
@@ -66,4 +85,14 @@ public class SaleDTO {
         return totalItems;
     }
     
+    /**
+     * Get the item in the sale that was added or changed last, so that it 
+     * does not have to be searched for among all items in the sale.
+     * 
+     * @return The item, or <code>null</code> if not known.
+     */
+    public ItemInSaleDTO getLastChangedItem() {
+        return lastChangedItem;
+    }
+    
 }
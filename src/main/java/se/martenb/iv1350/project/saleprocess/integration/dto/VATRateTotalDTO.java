@@ -0,0 +1,64 @@
+package se.martenb.iv1350.project.saleprocess.integration.dto;
+
+import se.martenb.iv1350.project.saleprocess.util.Amount;
+
+/**
+ * Represents the total of all items sold with one VAT tax rate during a 
+ * reported period.
+ */
+public class VATRateTotalDTO {
+    private final double vatTaxRate;
+    private final Amount totalPriceBeforeTaxes;
+    private final Amount totalTaxes;
+    
+    /**
+     * Creates a new instance, representing the specified totals.
+     * 
+     * @param vatTaxRate The VAT tax rate in percent.
+     * @param totalPriceBeforeTaxes The total price before taxes of the 
+     *                              items sold with the rate.
+     * @param totalTaxes The total taxes of the items sold with the rate.
+     */
+    public VATRateTotalDTO(double vatTaxRate, Amount totalPriceBeforeTaxes, 
+            Amount totalTaxes) {
+        this.vatTaxRate = vatTaxRate;
+        this.totalPriceBeforeTaxes = totalPriceBeforeTaxes;
+        this.totalTaxes = totalTaxes;
+    }
+    
+    /**
+     * Get the VAT tax rate.
+     * 
+     * @return The VAT tax rate in percent.
+     */
+    public double getVATTaxRate() {
+        return vatTaxRate;
+    }
+    
+    /**
+     * Get the total price before taxes of the items sold with the rate.
+     * 
+     * @return The total price before taxes.
+     */
+    public Amount getTotalPriceBeforeTaxes() {
+        return totalPriceBeforeTaxes;
+    }
+    
+    /**
+     * Get the total taxes of the items sold with the rate.
+     * 
+     * @return The total taxes.
+     */
+    public Amount getTotalTaxes() {
+        return totalTaxes;
+    }
+    
+    /**
+     * Get the total price after taxes of the items sold with the rate.
+     * 
+     * @return The total price after taxes.
+     */
+    public Amount getTotalPriceAfterTaxes() {
+        return totalPriceBeforeTaxes.plus(totalTaxes);
+    }
+}
@@ -0,0 +1,168 @@
+package se.martenb.iv1350.project.saleprocess.integration.dto;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import se.martenb.iv1350.project.saleprocess.util.Amount;
+
+/**
+ * Represents a Z-report, the summary of all sales during a period, usually 
+ * one business day, made at close of business.
+ */
+public class ZReportDTO {
+    private final LocalDateTime periodStart;
+    private final LocalDateTime periodEnd;
+    private final long numberOfSales;
+    private final long itemsSold;
+    private final Amount totalPriceBeforeTaxes;
+    private final Amount totalPriceAfterTaxes;
+    private final Amount totalTaxes;
+    private final Amount totalDiscount;
+    private final List<VATRateTotalDTO> vatRateTotals;
+    private final List<ItemSalesDTO> itemSales;
+    private final SortedMap<LocalDateTime, Amount> hourlyRevenue;
+    
+    /**
+     * Creates a new instance, representing the specified report.
+     * 
+     * @param periodStart The start of the reported period.
+     * @param periodEnd The end of the reported period, not included in it.
+     * @param numberOfSales The number of sales during the period.
+     * @param itemsSold The number of items sold, where an item that is 
+     *                  weighed or measured counts as one.
+     * @param totalPriceBeforeTaxes The total price before taxes of all 
+     *                              sales.
+     * @param totalPriceAfterTaxes The total price after taxes of all sales.
+     * @param totalTaxes The total taxes of all sales.
+     * @param totalDiscount The total discount given on all sales.
+     * @param vatRateTotals The totals of each VAT tax rate, ordered by 
+     *                      rate.
+     * @param itemSales The sales of each item, ordered by item ID.
+     * @param hourlyRevenue The total price after taxes of the sales during 
+     *                      each hour, by the start of the hour.
+     */
+    public ZReportDTO(LocalDateTime periodStart, LocalDateTime periodEnd, 
+            long numberOfSales, long itemsSold, 
+            Amount totalPriceBeforeTaxes, Amount totalPriceAfterTaxes, 
+            Amount totalTaxes, Amount totalDiscount, 
+            List<VATRateTotalDTO> vatRateTotals, 
+            List<ItemSalesDTO> itemSales, 
+            SortedMap<LocalDateTime, Amount> hourlyRevenue) {
+        this.periodStart = periodStart;
+        this.periodEnd = periodEnd;
+        this.numberOfSales = numberOfSales;
+        this.itemsSold = itemsSold;
+        this.totalPriceBeforeTaxes = totalPriceBeforeTaxes;
+        this.totalPriceAfterTaxes = totalPriceAfterTaxes;
+        this.totalTaxes = totalTaxes;
+        this.totalDiscount = totalDiscount;
+        this.vatRateTotals = List.copyOf(vatRateTotals);
+        this.itemSales = List.copyOf(itemSales);
+        this.hourlyRevenue = 
+                Collections.unmodifiableSortedMap(new TreeMap<>(hourlyRevenue));
+    }
+    
+    /**
+     * Get the start of the reported period.
+     * 
+     * @return The start of the period.
+     */
+    public LocalDateTime getPeriodStart() {
+        return periodStart;
+    }
+    
+    /**
+     * Get the end of the reported period, which is not included in it.
+     * 
+     * @return The end of the period.
+     */
+    public LocalDateTime getPeriodEnd() {
+        return periodEnd;
+    }
+    
+    /**
+     * Get the number of sales during the period.
+     * 
+     * @return The number of sales.
+     */
+    public long getNumberOfSales() {
+        return numberOfSales;
+    }
+    
+    /**
+     * Get the number of items sold during the period, where an item that 
+     * is weighed or measured counts as one.
+     * 
+     * @return The number of items sold.
+     */
+    public long getItemsSold() {
+        return itemsSold;
+    }
+    
+    /**
+     * Get the total price before taxes of all sales.
+     * 
+     * @return The total price before taxes.
+     */
+    public Amount getTotalPriceBeforeTaxes() {
+        return totalPriceBeforeTaxes;
+    }
+    
+    /**
+     * Get the total price after taxes of all sales, the revenue of the 
+     * period.
+     * 
+     * @return The total price after taxes.
+     */
+    public Amount getTotalPriceAfterTaxes() {
+        return totalPriceAfterTaxes;
+    }
+    
+    /**
+     * Get the total taxes of all sales.
+     * 
+     * @return The total taxes.
+     */
+    public Amount getTotalTaxes() {
+        return totalTaxes;
+    }
+    
+    /**
+     * Get the total discount given on all sales.
+     * 
+     * @return The total discount.
+     */
+    public Amount getTotalDiscount() {
+        return totalDiscount;
+    }
+    
+    /**
+     * Get the totals of each VAT tax rate, ordered by rate.
+     * 
+     * @return The totals of each rate.
+     */
+    public List<VATRateTotalDTO> getVATRateTotals() {
+        return vatRateTotals;
+    }
+    
+    /**
+     * Get the sales of each item, ordered by item ID.
+     * 
+     * @return The sales of each item.
+     */
+    public List<ItemSalesDTO> getItemSales() {
+        return itemSales;
+    }
+    
+    /**
+     * Get the total price after taxes of the sales during each hour with 
+     * any sales, by the start of the hour.
+     * 
+     * @return The revenue of each hour.
+     */
+    public SortedMap<LocalDateTime, Amount> getHourlyRevenue() {
+        return hourlyRevenue;
+    }
+}
@@ -0,0 +1,300 @@
+package se.martenb.iv1350.project.saleprocess.integration.inventory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import se.martenb.iv1350.project.saleprocess.util.ConcurrentIntKeyMap;
+
+/**
+ * An in-memory inventory keeping the stock level of every item, searched
+ * for by item ID. Stock levels can be updated by any number of threads at
+ * the same time. Observers are notified when an item runs low in stock.
+ *
+ * If an {@link InventoryJournal} is attached, every change of a stock level
+ * is also written to the journal in the background, so that the stock
+ * levels can be recovered after a restart.
+ */
+public class Inventory {
+    private static final long DEFAULT_LOW_STOCK_THRESHOLD = 0;
+    private final ConcurrentIntKeyMap<StockLevel> stockLevelsByID =
+            new ConcurrentIntKeyMap<>();
+    private final List<LowStockObserver> lowStockObservers =
+            new CopyOnWriteArrayList<>();
+    private final ReadWriteLock journalLock = new ReentrantReadWriteLock();
+    private volatile InventoryJournal journal;
+
+    /**
+     * Set the stock level of an item, replacing any previous stock level.
+     * If a journal is attached, the new stock level is written to it.
+     * Changes of stock levels wait while the stock level is replaced, so
+     * that the journal holds the changes in the order they were made.
+     * Without a journal, changes made at the same time are either
+     * overwritten or added to the new stock level.
+     *
+     * The new stock level is queued for the journal before it is set, so
+     * if the journal has failed, the stock level is left unchanged.
+     *
+     * @param itemID The item to set the stock level of.
+     * @param unitsInStock The number of units in stock.
+     * @param lowStockThreshold The number of units at or below which the
+     *                          item is low in stock.
+     * @throws UncheckedIOException If an earlier change could not be
+     *                              written to the attached journal.
+     */
+    public void setStockLevel(int itemID, long unitsInStock,
+            long lowStockThreshold) {
+        InventoryJournal attachedJournal = journal;
+        if (attachedJournal == null) {
+            putStockLevel(itemID, unitsInStock, lowStockThreshold);
+            return;
+        }
+        Lock setLock = journalLock.writeLock();
+        setLock.lock();
+        try {
+            attachedJournal.appendStockLevel(
+                    new StockLevel(itemID, unitsInStock, lowStockThreshold));
+            putStockLevel(itemID, unitsInStock, lowStockThreshold);
+        } finally {
+            setLock.unlock();
+        }
+        writeSnapshotIfDue(attachedJournal);
+    }
+
+    /**
+     * Set the stock level of an item. An existing stock level is updated in
+     * place rather than replaced, so that changes made with it at the same
+     * time are not lost.
+     *
+     * @param itemID The item to set the stock level of.
+     * @param unitsInStock The number of units in stock.
+     * @param lowStockThreshold The number of units at or below which the
+     *                          item is low in stock.
+     */
+    private void putStockLevel(int itemID, long unitsInStock,
+            long lowStockThreshold) {
+        StockLevel stockLevel = stockLevelsByID.computeIfAbsent(itemID, id ->
+                new StockLevel(id, unitsInStock, lowStockThreshold));
+        stockLevel.replace(unitsInStock, lowStockThreshold);
+    }
+
+    /**
+     * Get the stock level of an item without creating one.
+     *
+     * @param itemID The item to get the stock level of.
+     * @return The stock level or <code>null</code> if the item has none.
+     */
+    private StockLevel findStockLevel(int itemID) {
+        return stockLevelsByID.get(itemID);
+    }
+
+    /**
+     * Get the stock level of an item, creating an empty one with the default
+     * low stock threshold if the item has never been in stock.
+     *
+     * @param itemID The item to get the stock level of.
+     * @return The stock level.
+     */
+    private StockLevel findOrCreateStockLevel(int itemID) {
+        return stockLevelsByID.computeIfAbsent(itemID, id ->
+                new StockLevel(id, 0, DEFAULT_LOW_STOCK_THRESHOLD));
+    }
+
+    /**
+     * Change the number of units in stock of an item. A negative number
+     * removes units, for example when the item is sold, and a positive
+     * number adds units when the item is restocked. The stock level may
+     * become negative if more units are sold than are known to be in stock.
+     *
+     * The change is only queued for the attached journal, if any, so this
+     * method only waits for the disk if the journal has fallen behind. The
+     * change is queued before it is applied, so once the journal has
+     * failed to write, every change is rejected and the stock levels keep
+     * matching what was handed to the journal.
+     *
+     * @param itemID The item to change the stock level of.
+     * @param unitDelta The number of units to add.
+     * @throws UncheckedIOException If an earlier change could not be
+     *                              written to the attached journal.
+     */
+    public void adjustStockLevel(int itemID, long unitDelta) {
+        InventoryJournal attachedJournal = journal;
+        if (attachedJournal == null) {
+            applyAdjustment(itemID, unitDelta);
+            return;
+        }
+        Lock adjustmentLock = journalLock.readLock();
+        adjustmentLock.lock();
+        try {
+            attachedJournal.append(itemID, unitDelta);
+            applyAdjustment(itemID, unitDelta);
+        } finally {
+            adjustmentLock.unlock();
+        }
+        writeSnapshotIfDue(attachedJournal);
+    }
+
+    /**
+     * Change the number of units in stock of an item and notify observers
+     * if the item has run low in stock.
+     *
+     * @param itemID The item to change the stock level of.
+     * @param unitDelta The number of units to add.
+     */
+    private void applyAdjustment(int itemID, long unitDelta) {
+        StockLevel stockLevel = findOrCreateStockLevel(itemID);
+        stockLevel.add(unitDelta);
+        long currentUnits = stockLevel.getUnitsInStock();
+        if (stockLevel.checkLowStockCrossing(unitDelta, currentUnits))
+            notifyLowStockObservers(itemID, currentUnits);
+    }
+
+    /**
+     * Get the number of units in stock of an item.
+     *
+     * @param itemID The item to get the number of units of.
+     * @return The number of units in stock, <code>0</code> if the item has
+     * never been in stock.
+     */
+    public long getUnitsInStock(int itemID) {
+        StockLevel stockLevel = findStockLevel(itemID);
+        if (stockLevel == null)
+            return 0;
+        return stockLevel.getUnitsInStock();
+    }
+
+    /**
+     * Check if the inventory has a stock level for an item.
+     *
+     * @param itemID The item to look for.
+     * @return <code>true</code> if the item has a stock level,
+     * otherwise <code>false</code>.
+     */
+    public boolean isItemStocked(int itemID) {
+        return findStockLevel(itemID) != null;
+    }
+
+    /**
+     * Attach a journal to the inventory. The stock levels saved in the
+     * journal are recovered first, replacing the stock levels of the same
+     * items, and then all later changes are written to the journal. Should
+     * be called at startup, before any stock levels are changed.
+     *
+     * @param journalToAttach The journal to recover from and write to.
+     * @throws IOException If the journal could not be read.
+     */
+    public void attachJournal(InventoryJournal journalToAttach)
+            throws IOException {
+        Lock attachLock = journalLock.writeLock();
+        attachLock.lock();
+        try {
+            if (journal != null)
+                throw new IllegalStateException("A journal is already " +
+                        "attached to the inventory.");
+            journalToAttach.recover(this);
+            journal = journalToAttach;
+        } finally {
+            attachLock.unlock();
+        }
+    }
+
+    /**
+     * Recover the stock level of an item from the journal.
+     *
+     * @param recoveredStockLevel The stock level read from the journal.
+     */
+    void recoverStockLevel(StockLevel recoveredStockLevel) {
+        putStockLevel(recoveredStockLevel.getItemID(),
+                recoveredStockLevel.getUnitsInStock(),
+                recoveredStockLevel.getLowStockThreshold());
+    }
+
+    /**
+     * Recover the stock levels of many items at once from a snapshot in
+     * the journal. Room for all of them is made before they are added.
+     *
+     * @param recoveredStockLevels The stock levels read from the snapshot.
+     */
+    void recoverStockLevels(Collection<StockLevel> recoveredStockLevels) {
+        stockLevelsByID.ensureCapacity(recoveredStockLevels.size());
+        for (StockLevel recoveredStockLevel : recoveredStockLevels)
+            recoverStockLevel(recoveredStockLevel);
+    }
+
+    /**
+     * Replay a change of the number of units in stock of an item from the
+     * journal. Whether the item is low in stock is updated, but observers
+     * are not notified, since they were notified when the change was made.
+     *
+     * @param itemID The item to change the stock level of.
+     * @param unitDelta The number of units to add.
+     */
+    void recoverAdjustment(int itemID, long unitDelta) {
+        StockLevel stockLevel = findOrCreateStockLevel(itemID);
+        stockLevel.add(unitDelta);
+        stockLevel.checkLowStockCrossing(unitDelta,
+                stockLevel.getUnitsInStock());
+    }
+
+    /**
+     * Write a snapshot of all stock levels to the attached journal, so that
+     * the changes before the snapshot no longer have to be replayed when
+     * the stock levels are recovered. Changes of stock levels wait while
+     * the stock levels are copied, but not while the snapshot is written.
+     */
+    public void writeSnapshot() {
+        InventoryJournal attachedJournal = journal;
+        if (attachedJournal == null)
+            throw new IllegalStateException("No journal is attached to the " +
+                    "inventory.");
+        List<StockLevel> copiedStockLevels = new ArrayList<>();
+        Lock snapshotLock = journalLock.writeLock();
+        snapshotLock.lock();
+        try {
+            stockLevelsByID.forEachValue(stockLevel ->
+                    copiedStockLevels.add(stockLevel.copy()));
+            attachedJournal.appendSnapshot(copiedStockLevels);
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    /**
+     * Write a snapshot if the journal has asked for one. Snapshots are
+     * written by a thread changing the stock levels, never by the writer of
+     * the journal, which must not wait for changes that wait for it.
+     *
+     * @param attachedJournal The attached journal.
+     */
+    private void writeSnapshotIfDue(InventoryJournal attachedJournal) {
+        if (attachedJournal.takeDueSnapshot())
+            writeSnapshot();
+    }
+
+    /**
+     * Add a {@link LowStockObserver} to be notified when items run low in
+     * stock.
+     *
+     * @param lowStockObserver The observer to add.
+     */
+    public void addLowStockObserver(LowStockObserver lowStockObserver) {
+        lowStockObservers.add(lowStockObserver);
+    }
+
+    /**
+     * Notify all observers that an item has run low in stock.
+     *
+     * @param itemID The item running low in stock.
+     * @param unitsInStock The number of units left.
+     */
+    private void notifyLowStockObservers(int itemID, long unitsInStock) {
+        for (LowStockObserver lowStockObserver : lowStockObservers)
+            lowStockObserver.lowStockLevelReached(itemID, unitsInStock);
+    }
+
+}
@@ -0,0 +1,702 @@
+package se.martenb.iv1350.project.saleprocess.integration.inventory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import se.martenb.iv1350.project.saleprocess.util.ErrorLogger;
+
+/**
+ * An append-only journal of stock level changes, used to recover the
+ * stock levels of an {@link Inventory} after a restart. A change either
+ * adjusts the number of units of an item or sets its whole stock level.
+ *
+ * Changes are queued by the selling thread and written by a background
+ * thread, which commits them to disk in groups: a group is written when it
+ * holds the maximum number of changes or when its oldest change has waited
+ * for the maximum delay, whichever comes first. At most a few groups wait
+ * to be written, beyond that queueing a change waits for the writer. After
+ * a configured number of changes a snapshot of all stock levels is due,
+ * which the inventory writes with its next change, after which the
+ * journal is emptied, so recovery never replays much more than that number
+ * of changes.
+ *
+ * Once a change could not be written, the journal no longer matches the
+ * stock levels, so no more changes are accepted.
+ *
+ * The journal file starts with a header holding the generation of the
+ * journal, and the snapshot file holds the generation of the journal
+ * following it. A journal left from before the latest snapshot, because
+ * the program stopped between writing the snapshot and emptying the
+ * journal, is therefore never replayed on top of that snapshot.
+ */
+public class InventoryJournal implements Closeable {
+    private static final String JOURNAL_FILE_NAME = "inventory.journal";
+    private static final String SNAPSHOT_FILE_NAME = "inventory.snapshot";
+    private static final String NEW_SNAPSHOT_FILE_NAME =
+            "inventory.snapshot.new";
+    private static final int JOURNAL_MAGIC = 0x494E564A;
+    private static final int SNAPSHOT_MAGIC = 0x494E5653;
+    private static final int JOURNAL_HEADER_BYTES = 12;
+    private static final int JOURNAL_RECORD_BYTES = 21;
+    private static final byte ADJUSTMENT_RECORD = 1;
+    private static final byte STOCK_LEVEL_RECORD = 2;
+    private static final int MAXIMUM_PENDING_BATCHES = 4;
+    private static final int SNAPSHOT_HEADER_BYTES = 16;
+    private static final int SNAPSHOT_RECORD_BYTES = 20;
+    private static final int REPLAY_BUFFER_RECORDS = 4096;
+    private final Path journalFile;
+    private final Path snapshotFile;
+    private final Path newSnapshotFile;
+    private final int maximumBatchRecords;
+    private final long maximumBatchDelayNanos;
+    private final long snapshotEveryRecords;
+    private final FileChannel journalChannel;
+    private final BlockingQueue<JournalEntry> pendingEntries;
+    private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+    private final AtomicBoolean isSnapshotDue = new AtomicBoolean();
+    private final Thread writerThread;
+    private final ErrorLogger errorLogger = new ErrorLogger();
+    private long generation;
+    private long recordsSinceSnapshot;
+    private volatile IOException writeFailure;
+    private boolean isClosed;
+
+    /**
+     * Opens the journal in the specified directory, creating the directory
+     * and the journal if they do not exist, and starts the background
+     * writer.
+     *
+     * @param journalDirectory The directory of the journal and snapshot.
+     * @param maximumBatchRecords The maximum number of changes committed
+     *                            to disk at once.
+     * @param maximumBatchDelay The maximum time a change waits before it
+     *                          is committed to disk.
+     * @param snapshotEveryRecords The number of changes written to the
+     *                             journal before a new snapshot is written.
+     * @throws IOException If the journal could not be opened.
+     */
+    public InventoryJournal(Path journalDirectory, int maximumBatchRecords,
+            Duration maximumBatchDelay, long snapshotEveryRecords)
+            throws IOException {
+        if (maximumBatchRecords < 1)
+            throw new IllegalArgumentException("A batch must hold at least " +
+                    "one change.");
+        if (maximumBatchDelay.isNegative())
+            throw new IllegalArgumentException("Batch delay cannot be " +
+                    "negative.");
+        if (snapshotEveryRecords < 1)
+            throw new IllegalArgumentException("Snapshot interval must be " +
+                    "positive.");
+        this.maximumBatchRecords = maximumBatchRecords;
+        this.maximumBatchDelayNanos = maximumBatchDelay.toNanos();
+        this.snapshotEveryRecords = snapshotEveryRecords;
+        this.pendingEntries = new ArrayBlockingQueue<>(
+                maximumBatchRecords * MAXIMUM_PENDING_BATCHES);
+        Files.createDirectories(journalDirectory);
+        this.journalFile = journalDirectory.resolve(JOURNAL_FILE_NAME);
+        this.snapshotFile = journalDirectory.resolve(SNAPSHOT_FILE_NAME);
+        this.newSnapshotFile = journalDirectory.resolve(NEW_SNAPSHOT_FILE_NAME);
+        this.journalChannel = FileChannel.open(journalFile,
+                StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            this.generation = readSnapshotGeneration();
+            prepareJournalForAppending();
+        } catch (IOException exc) {
+            journalChannel.close();
+            throw exc;
+        }
+        this.writerThread = new Thread(this::writeQueuedEntries,
+                "inventory-journal-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Read the generation of the journal following the current snapshot.
+     *
+     * @return The generation, <code>0</code> if there is no snapshot.
+     * @throws IOException If the snapshot could not be read.
+     */
+    private long readSnapshotGeneration() throws IOException {
+        if (!Files.exists(snapshotFile))
+            return 0;
+        try (FileChannel snapshotChannel = FileChannel.open(snapshotFile)) {
+            ByteBuffer header = readFully(snapshotChannel, 0,
+                    SNAPSHOT_HEADER_BYTES);
+            if (header.getInt() != SNAPSHOT_MAGIC)
+                throw new IOException("Not an inventory snapshot: " +
+                        snapshotFile);
+            return header.getLong();
+        }
+    }
+
+    /**
+     * Make sure the journal belongs to the current snapshot and ends with a
+     * whole change, so that new changes can be appended. A journal of an
+     * older generation is emptied, and a change only partly written before
+     * the program stopped is removed.
+     *
+     * @throws IOException If the journal could not be read or written.
+     */
+    private void prepareJournalForAppending() throws IOException {
+        long journalSize = journalChannel.size();
+        boolean isCurrentJournal = false;
+        if (journalSize >= JOURNAL_HEADER_BYTES) {
+            ByteBuffer header = readFully(journalChannel, 0,
+                    JOURNAL_HEADER_BYTES);
+            if (header.getInt() != JOURNAL_MAGIC)
+                throw new IOException("Not an inventory journal: " +
+                        journalFile);
+            isCurrentJournal = header.getLong() == generation;
+        }
+        if (!isCurrentJournal) {
+            startNewJournal();
+            return;
+        }
+        long wholeRecordBytes = (journalSize - JOURNAL_HEADER_BYTES) /
+                JOURNAL_RECORD_BYTES * JOURNAL_RECORD_BYTES;
+        long endOfLastRecord = JOURNAL_HEADER_BYTES + wholeRecordBytes;
+        journalChannel.truncate(endOfLastRecord);
+        journalChannel.position(endOfLastRecord);
+    }
+
+    /**
+     * Empty the journal and write a header with the current generation.
+     *
+     * @throws IOException If the journal could not be written.
+     */
+    private void startNewJournal() throws IOException {
+        journalChannel.truncate(0);
+        ByteBuffer header = ByteBuffer.allocate(JOURNAL_HEADER_BYTES);
+        header.putInt(JOURNAL_MAGIC).putLong(generation).flip();
+        journalChannel.position(0);
+        writeFully(journalChannel, header);
+        journalChannel.force(true);
+    }
+
+    /**
+     * Read the specified number of bytes, starting at the specified
+     * position.
+     *
+     * @param channel The channel to read from.
+     * @param position The position of the first byte.
+     * @param length The number of bytes to read.
+     * @return A buffer holding the read bytes, ready to be read.
+     * @throws IOException If the bytes could not be read.
+     */
+    private static ByteBuffer readFully(FileChannel channel, long position,
+            int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            int readBytes = channel.read(buffer, position + buffer.position());
+            if (readBytes < 0)
+                throw new IOException("Unexpected end of file.");
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Write all remaining bytes of the buffer at the position of the
+     * channel.
+     *
+     * @param channel The channel to write to.
+     * @param buffer The bytes to write.
+     * @throws IOException If the bytes could not be written.
+     */
+    private static void writeFully(FileChannel channel, ByteBuffer buffer)
+            throws IOException {
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+    }
+
+    /**
+     * Recover stock levels by reading the snapshot and replaying the changes
+     * written to the journal after it. No low stock observers are notified
+     * while the stock levels are recovered.
+     *
+     * @param inventory The inventory to recover the stock levels of.
+     * @throws IOException If the snapshot or journal could not be read.
+     */
+    void recover(Inventory inventory) throws IOException {
+        if (Files.exists(snapshotFile))
+            recoverSnapshot(inventory);
+        replayJournal(inventory);
+    }
+
+    /**
+     * Set the stock levels saved in the snapshot.
+     *
+     * @param inventory The inventory to set the stock levels of.
+     * @throws IOException If the snapshot could not be read.
+     */
+    private void recoverSnapshot(Inventory inventory) throws IOException {
+        try (FileChannel snapshotChannel = FileChannel.open(snapshotFile)) {
+            ByteBuffer header = readFully(snapshotChannel, 0,
+                    SNAPSHOT_HEADER_BYTES);
+            header.position(header.limit() - Integer.BYTES);
+            int numberOfStockLevels = header.getInt();
+            ByteBuffer records = readFully(snapshotChannel,
+                    SNAPSHOT_HEADER_BYTES,
+                    numberOfStockLevels * SNAPSHOT_RECORD_BYTES);
+            List<StockLevel> stockLevels =
+                    new ArrayList<>(numberOfStockLevels);
+            for (int i = 0; i < numberOfStockLevels; i++) {
+                int itemID = records.getInt();
+                long unitsInStock = records.getLong();
+                long lowStockThreshold = records.getLong();
+                stockLevels.add(new StockLevel(itemID, unitsInStock,
+                        lowStockThreshold));
+            }
+            inventory.recoverStockLevels(stockLevels);
+        }
+    }
+
+    /**
+     * Apply every change in the journal to the stock levels.
+     *
+     * @param inventory The inventory to apply the changes to.
+     * @throws IOException If the journal could not be read.
+     */
+    private void replayJournal(Inventory inventory) throws IOException {
+        long endOfJournal = journalChannel.position();
+        long readPosition = JOURNAL_HEADER_BYTES;
+        while (readPosition < endOfJournal) {
+            int bytesToRead = (int) Math.min(endOfJournal - readPosition,
+                    REPLAY_BUFFER_RECORDS * JOURNAL_RECORD_BYTES);
+            ByteBuffer records = readFully(journalChannel, readPosition,
+                    bytesToRead);
+            while (records.hasRemaining())
+                replayRecord(inventory, records);
+            readPosition += bytesToRead;
+        }
+    }
+
+    /**
+     * Apply the next record of the journal to the stock levels.
+     *
+     * @param inventory The inventory to apply the record to.
+     * @param records The records, positioned at the record to apply.
+     * @throws IOException If the record is not a journal record.
+     */
+    private void replayRecord(Inventory inventory, ByteBuffer records)
+            throws IOException {
+        byte recordType = records.get();
+        int itemID = records.getInt();
+        long units = records.getLong();
+        long lowStockThreshold = records.getLong();
+        if (recordType == ADJUSTMENT_RECORD)
+            inventory.recoverAdjustment(itemID, units);
+        else if (recordType == STOCK_LEVEL_RECORD)
+            inventory.recoverStockLevel(new StockLevel(itemID, units,
+                    lowStockThreshold));
+        else
+            throw new IOException("Not an inventory journal record in " +
+                    journalFile);
+    }
+
+    /**
+     * Queue a change of a stock level to be written. Only waits if too many
+     * changes are already waiting to be written.
+     *
+     * @param itemID The item whose stock level was changed.
+     * @param unitDelta The number of units added.
+     * @throws IllegalStateException If the journal is closed.
+     * @throws UncheckedIOException If an earlier change could not be
+     *                              written.
+     */
+    void append(int itemID, long unitDelta) {
+        queue(JournalEntry.adjustment(itemID, unitDelta));
+    }
+
+    /**
+     * Queue a stock level that replaces the stock level of its item to be
+     * written. Only waits if too many changes are already waiting to be
+     * written.
+     *
+     * @param stockLevel The new stock level.
+     * @throws IllegalStateException If the journal is closed.
+     * @throws UncheckedIOException If an earlier change could not be
+     *                              written.
+     */
+    void appendStockLevel(StockLevel stockLevel) {
+        queue(JournalEntry.stockLevel(stockLevel.getItemID(),
+                stockLevel.getUnitsInStock(),
+                stockLevel.getLowStockThreshold()));
+    }
+
+    /**
+     * Queue a snapshot to be written. All changes queued before the
+     * snapshot must be included in it.
+     *
+     * @param stockLevels Copies of all stock levels.
+     * @throws IllegalStateException If the journal is closed.
+     * @throws UncheckedIOException If an earlier change could not be
+     *                              written.
+     */
+    void appendSnapshot(List<StockLevel> stockLevels) {
+        queue(JournalEntry.snapshot(stockLevels));
+    }
+
+    /**
+     * See if enough changes have been written since the last snapshot that
+     * a new snapshot is due, and if so, take the task of writing it. Only
+     * one caller takes each due snapshot.
+     *
+     * @return <code>true</code> if the caller should write a snapshot.
+     */
+    boolean takeDueSnapshot() {
+        return isSnapshotDue.get() && isSnapshotDue.compareAndSet(true, false);
+    }
+
+    /**
+     * Queue an entry for the background writer.
+     *
+     * @param entry The entry to queue.
+     * @throws IllegalStateException If the journal is closed.
+     * @throws UncheckedIOException If an earlier change could not be
+     *                              written.
+     */
+    private void queue(JournalEntry entry) {
+        closeLock.readLock().lock();
+        try {
+            if (isClosed)
+                throw new IllegalStateException("The inventory journal is " +
+                        "closed.");
+            IOException failure = writeFailure;
+            if (failure != null)
+                throw new UncheckedIOException("Failed to write inventory " +
+                        "journal.", failure);
+            putUninterruptibly(entry);
+        } finally {
+            closeLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Queue an entry for the background writer, waiting for room in the
+     * queue even if interrupted.
+     *
+     * @param entry The entry to queue.
+     */
+    private void putUninterruptibly(JournalEntry entry) {
+        boolean isInterrupted = false;
+        while (true) {
+            try {
+                pendingEntries.put(entry);
+                break;
+            } catch (InterruptedException exc) {
+                isInterrupted = true;
+            }
+        }
+        if (isInterrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    /**
+     * Wait until all changes queued so far have been committed to disk.
+     * Once the journal is closed, every change has already been written.
+     *
+     * @throws IOException If a change could not be written.
+     */
+    public void flush() throws IOException {
+        CountDownLatch flushedSignal = new CountDownLatch(1);
+        closeLock.readLock().lock();
+        try {
+            if (!isClosed)
+                putUninterruptibly(JournalEntry.flush(flushedSignal));
+            else
+                flushedSignal.countDown();
+        } finally {
+            closeLock.readLock().unlock();
+        }
+        try {
+            flushedSignal.await();
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting " +
+                    "for the journal to be written.");
+        }
+        throwIfWriteFailed();
+    }
+
+    /**
+     * Commit all queued changes to disk, stop the background writer and
+     * close the journal. No changes can be queued once the journal is
+     * closed. Closing a closed journal has no effect.
+     *
+     * @throws IOException If a change could not be written.
+     */
+    @Override
+    public void close() throws IOException {
+        closeLock.writeLock().lock();
+        try {
+            if (isClosed)
+                return;
+            isClosed = true;
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+        putUninterruptibly(JournalEntry.stop());
+        boolean isInterrupted = false;
+        while (writerThread.isAlive()) {
+            try {
+                writerThread.join();
+            } catch (InterruptedException exc) {
+                isInterrupted = true;
+            }
+        }
+        if (isInterrupted)
+            Thread.currentThread().interrupt();
+        journalChannel.close();
+        throwIfWriteFailed();
+    }
+
+    /**
+     * Throw the first exception that occurred while writing, if any.
+     *
+     * @throws IOException If a change could not be written.
+     */
+    private void throwIfWriteFailed() throws IOException {
+        IOException failure = writeFailure;
+        if (failure != null)
+            throw new IOException("Failed to write inventory journal.",
+                    failure);
+    }
+
+    /**
+     * Run by the background writer. Takes queued entries in batches and
+     * writes them until the journal is closed.
+     */
+    private void writeQueuedEntries() {
+        List<JournalEntry> batch = new ArrayList<>();
+        ByteBuffer batchBuffer =
+                ByteBuffer.allocate(maximumBatchRecords * JOURNAL_RECORD_BYTES);
+        boolean isStopping = false;
+        while (!isStopping) {
+            try {
+                collectBatch(batch);
+            } catch (InterruptedException exc) {
+                isStopping = true;
+            }
+            isStopping |= writeBatch(batch, batchBuffer);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Wait for the next entry, then collect more entries until the batch is
+     * full, the oldest entry has waited for the maximum delay, or an entry
+     * that is not a change is found.
+     *
+     * @param batch The list to collect entries in.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    private void collectBatch(List<JournalEntry> batch)
+            throws InterruptedException {
+        JournalEntry firstEntry = pendingEntries.take();
+        batch.add(firstEntry);
+        long batchDeadline = System.nanoTime() + maximumBatchDelayNanos;
+        int changesInBatch = firstEntry.isRecord() ? 1 : 0;
+        boolean isBatchComplete = !firstEntry.isRecord();
+        while (!isBatchComplete && changesInBatch < maximumBatchRecords) {
+            JournalEntry nextEntry = pendingEntries.poll();
+            if (nextEntry == null) {
+                long remainingNanos = batchDeadline - System.nanoTime();
+                if (remainingNanos <= 0)
+                    break;
+                nextEntry = pendingEntries.poll(remainingNanos,
+                        TimeUnit.NANOSECONDS);
+                if (nextEntry == null)
+                    break;
+            }
+            batch.add(nextEntry);
+            if (nextEntry.isRecord())
+                changesInBatch++;
+            else
+                isBatchComplete = true;
+        }
+    }
+
+    /**
+     * Write a batch of entries. Changes are written together and committed
+     * to disk once, before any entry that is not a change is handled. Once
+     * a write has failed, nothing more is written.
+     *
+     * @param batch The entries to write.
+     * @param batchBuffer A buffer large enough for a full batch of changes.
+     * @return <code>true</code> if the writer should stop, otherwise
+     * <code>false</code>.
+     */
+    private boolean writeBatch(List<JournalEntry> batch,
+            ByteBuffer batchBuffer) {
+        boolean isStopping = false;
+        for (JournalEntry entry : batch) {
+            if (entry.isRecord()) {
+                batchBuffer.put(entry.recordType).putInt(entry.itemID).
+                        putLong(entry.units).putLong(entry.lowStockThreshold);
+                continue;
+            }
+            commitChanges(batchBuffer);
+            if (entry.snapshotStockLevels != null) {
+                if (writeFailure == null)
+                    writeSnapshotAndStartNewJournal(entry.snapshotStockLevels);
+            } else if (entry.flushedSignal != null)
+                entry.flushedSignal.countDown();
+            else
+                isStopping = true;
+        }
+        commitChanges(batchBuffer);
+        return isStopping;
+    }
+
+    /**
+     * Write and commit the changes in the buffer to disk, and mark a
+     * snapshot as due if enough changes have been written since the last
+     * one. The changes are dropped if an earlier write has failed.
+     *
+     * @param batchBuffer The buffer holding the changes.
+     */
+    private void commitChanges(ByteBuffer batchBuffer) {
+        if (batchBuffer.position() == 0)
+            return;
+        batchBuffer.flip();
+        int writtenRecords = batchBuffer.remaining() / JOURNAL_RECORD_BYTES;
+        try {
+            if (writeFailure == null) {
+                writeFully(journalChannel, batchBuffer);
+                journalChannel.force(false);
+            }
+        } catch (IOException exc) {
+            recordWriteFailure(exc);
+        }
+        batchBuffer.clear();
+        recordsSinceSnapshot += writtenRecords;
+        if (recordsSinceSnapshot >= snapshotEveryRecords) {
+            recordsSinceSnapshot = 0;
+            isSnapshotDue.set(true);
+        }
+    }
+
+    /**
+     * Write a new snapshot and then empty the journal, since all changes in
+     * it are included in the snapshot. The snapshot replaces the previous
+     * one in a single step, so a complete snapshot always exists.
+     *
+     * @param stockLevels The stock levels to write.
+     */
+    private void writeSnapshotAndStartNewJournal(List<StockLevel> stockLevels) {
+        long nextGeneration = generation + 1;
+        ByteBuffer snapshot = ByteBuffer.allocate(SNAPSHOT_HEADER_BYTES +
+                stockLevels.size() * SNAPSHOT_RECORD_BYTES);
+        snapshot.putInt(SNAPSHOT_MAGIC).putLong(nextGeneration)
+                .putInt(stockLevels.size());
+        for (StockLevel stockLevel : stockLevels)
+            snapshot.putInt(stockLevel.getItemID())
+                    .putLong(stockLevel.getUnitsInStock())
+                    .putLong(stockLevel.getLowStockThreshold());
+        snapshot.flip();
+        try {
+            try (FileChannel snapshotChannel = FileChannel.open(
+                    newSnapshotFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                writeFully(snapshotChannel, snapshot);
+                snapshotChannel.force(true);
+            }
+            Files.move(newSnapshotFile, snapshotFile,
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            generation = nextGeneration;
+            startNewJournal();
+            recordsSinceSnapshot = 0;
+        } catch (IOException exc) {
+            recordWriteFailure(exc);
+        }
+    }
+
+    /**
+     * Log a failed write and keep it to be reported by {@link #flush()}
+     * and {@link #close()}.
+     *
+     * @param exc The exception thrown by the failed write.
+     */
+    private void recordWriteFailure(IOException exc) {
+        errorLogger.logException(exc);
+        if (writeFailure == null)
+            writeFailure = exc;
+    }
+
+    /**
+     * An entry in the queue of the background writer. Either a record of a
+     * change of a stock level, a snapshot, a request to signal when
+     * everything before it is written, or a request to stop.
+     */
+    private static class JournalEntry {
+        private static final byte NOT_A_RECORD = 0;
+        private final byte recordType;
+        private final int itemID;
+        private final long units;
+        private final long lowStockThreshold;
+        private final List<StockLevel> snapshotStockLevels;
+        private final CountDownLatch flushedSignal;
+
+        private JournalEntry(byte recordType, int itemID, long units,
+                long lowStockThreshold, List<StockLevel> snapshotStockLevels,
+                CountDownLatch flushedSignal) {
+            this.recordType = recordType;
+            this.itemID = itemID;
+            this.units = units;
+            this.lowStockThreshold = lowStockThreshold;
+            this.snapshotStockLevels = snapshotStockLevels;
+            this.flushedSignal = flushedSignal;
+        }
+
+        private static JournalEntry adjustment(int itemID, long unitDelta) {
+            return new JournalEntry(ADJUSTMENT_RECORD, itemID, unitDelta, 0,
+                    null, null);
+        }
+
+        private static JournalEntry stockLevel(int itemID, long unitsInStock,
+                long lowStockThreshold) {
+            return new JournalEntry(STOCK_LEVEL_RECORD, itemID, unitsInStock,
+                    lowStockThreshold, null, null);
+        }
+
+        private static JournalEntry snapshot(List<StockLevel> stockLevels) {
+            return new JournalEntry(NOT_A_RECORD, 0, 0, 0, stockLevels, null);
+        }
+
+        private static JournalEntry flush(CountDownLatch flushedSignal) {
+            return new JournalEntry(NOT_A_RECORD, 0, 0, 0, null,
+                    flushedSignal);
+        }
+
+        private static JournalEntry stop() {
+            return new JournalEntry(NOT_A_RECORD, 0, 0, 0, null, null);
+        }
+
+        private boolean isRecord() {
+            return recordType != NOT_A_RECORD;
+        }
+    }
+
+}
@@ -0,0 +1,18 @@
+package se.martenb.iv1350.project.saleprocess.integration.inventory;
+
+/**
+ * A listener interface for receiving notifications about items running low 
+ * in stock.
+ */
+public interface LowStockObserver {
+    /**
+     * Called when the stock level of an item has fallen to or below its 
+     * low stock threshold. Called once for every time the threshold is 
+     * crossed, not once for every item sold below it.
+     * 
+     * @param itemID The item running low in stock.
+     * @param unitsInStock The number of units left when the threshold was 
+     *                     crossed.
+     */
+    public void lowStockLevelReached(int itemID, long unitsInStock);
+}
@@ -0,0 +1,118 @@
+package se.martenb.iv1350.project.saleprocess.integration.inventory;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The stock level of a single item. The number of units is kept in a 
+ * {@link LongAdder}, which spreads concurrent updates over several cells, so 
+ * many checkout lanes can sell the same item without waiting for each other.
+ */
+class StockLevel {
+    private final int itemID;
+    private final LongAdder unitsInStock = new LongAdder();
+    private volatile long lowStockThreshold;
+    private final AtomicBoolean isLowInStock = new AtomicBoolean();
+    
+    /**
+     * Creates a new instance with the specified number of units in stock.
+     * 
+     * @param itemID The item the stock level belongs to.
+     * @param initialUnits The number of units in stock.
+     * @param lowStockThreshold The number of units at or below which the 
+     *                          item is low in stock.
+     */
+    StockLevel(int itemID, long initialUnits, long lowStockThreshold) {
+        this.itemID = itemID;
+        this.lowStockThreshold = lowStockThreshold;
+        unitsInStock.add(initialUnits);
+        isLowInStock.set(initialUnits <= lowStockThreshold);
+    }
+    
+    /**
+     * Add the specified number of units to the stock level. Negative numbers 
+     * remove units.
+     * 
+     * @param unitDelta The number of units to add.
+     */
+    void add(long unitDelta) {
+        unitsInStock.add(unitDelta);
+    }
+    
+    /**
+     * Replace the number of units in stock and the low stock threshold. 
+     * Units added at the same time are either overwritten or added to the 
+     * new number of units, as if they were added just before or just after 
+     * the replacement.
+     * 
+     * @param newUnits The number of units in stock.
+     * @param newLowStockThreshold The number of units at or below which the 
+     *                             item is low in stock.
+     */
+    synchronized void replace(long newUnits, long newLowStockThreshold) {
+        lowStockThreshold = newLowStockThreshold;
+        unitsInStock.add(newUnits - unitsInStock.sum());
+        isLowInStock.set(newUnits <= newLowStockThreshold);
+    }
+    
+    /**
+     * Get the number of units in stock. Updates made at the same time may 
+     * or may not be included.
+     * 
+     * @return The number of units in stock.
+     */
+    long getUnitsInStock() {
+        return unitsInStock.sum();
+    }
+    
+    /**
+     * Get the item the stock level belongs to.
+     * 
+     * @return The item ID.
+     */
+    int getItemID() {
+        return itemID;
+    }
+    
+    /**
+     * Get the number of units at or below which the item is low in stock.
+     * 
+     * @return The low stock threshold.
+     */
+    long getLowStockThreshold() {
+        return lowStockThreshold;
+    }
+    
+    /**
+     * Create a copy of this stock level that is not changed by later 
+     * updates.
+     * 
+     * @return The copy.
+     */
+    StockLevel copy() {
+        return new StockLevel(itemID, getUnitsInStock(), lowStockThreshold);
+    }
+    
+    /**
+     * Check if the stock level has just fallen to or below the low stock 
+     * threshold. Only one caller is told about each crossing, the item must 
+     * be restocked above the threshold before it is reported again. Only 
+     * restocking clears the low stock state, since a seller may have read 
+     * a number of units from before other sales were made.
+     * 
+     * @param unitDelta The number of units just added, negative for sold 
+     *                  units.
+     * @param currentUnits The number of units in stock after the change.
+     * @return <code>true</code> if the caller should report the crossing, 
+     * otherwise <code>false</code>.
+     */
+    boolean checkLowStockCrossing(long unitDelta, long currentUnits) {
+        if (currentUnits > lowStockThreshold) {
+            if (unitDelta > 0 && isLowInStock.get())
+                isLowInStock.compareAndSet(true, false);
+            return false;
+        }
+        return !isLowInStock.get() && isLowInStock.compareAndSet(false, true);
+    }
+    
+}
@@ -0,0 +1,263 @@
+package se.martenb.iv1350.project.saleprocess.integration.ledger;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import se.martenb.iv1350.project.saleprocess.integration.dto.ItemDTO;
+import se.martenb.iv1350.project.saleprocess.integration.dto.ItemInSaleDTO;
+import se.martenb.iv1350.project.saleprocess.integration.dto.SaleDTO;
+import se.martenb.iv1350.project.saleprocess.util.Amount;
+import se.martenb.iv1350.project.saleprocess.util.Price;
+import se.martenb.iv1350.project.saleprocess.util.Quantity;
+import se.martenb.iv1350.project.saleprocess.util.Unit;
+
+/**
+ * A sale read from a {@link SalesLedger}. Every value is read from the
+ * ledger file when it is requested, so reading a sale creates no objects
+ * unless a method returning an object is called. Amounts are returned in
+ * minor units, for example <code>1995</code> for <code>19.95</code>.
+ *
+ * The same instance is moved from sale to sale while the ledger is read,
+ * so it is only valid until the method it was passed to returns. Use
+ * {@link #toSaleDTO()} to keep a sale.
+ */
+public class LedgerSale {
+    private static final Unit[] UNITS = Unit.values();
+    private final ByteBuffer segmentBuffer;
+    private int payloadPosition;
+
+    /**
+     * Creates a new instance reading sales in the specified segment.
+     *
+     * @param segmentBuffer The buffer holding the segment.
+     */
+    LedgerSale(ByteBuffer segmentBuffer) {
+        this.segmentBuffer = segmentBuffer;
+    }
+
+    /**
+     * Move to the sale with a payload at the specified position.
+     *
+     * @param payloadPosition The position of the payload in the segment.
+     */
+    void moveTo(int payloadPosition) {
+        this.payloadPosition = payloadPosition;
+    }
+
+    /**
+     * Get the date and time of the sale.
+     *
+     * @return The date and time.
+     */
+    public LocalDateTime getSaleDateTime() {
+        return LocalDateTime.ofEpochSecond(getSaleEpochSecond(),
+                segmentBuffer.getInt(payloadPosition +
+                        SalesLedgerFormat.SALE_NANO_OF_SECOND_POSITION),
+                ZoneOffset.UTC);
+    }
+
+    /**
+     * Get the date and time of the sale as seconds from 1970-01-01 00:00
+     * of the same local time.
+     *
+     * @return The number of seconds.
+     */
+    public long getSaleEpochSecond() {
+        return segmentBuffer.getLong(payloadPosition +
+                SalesLedgerFormat.SALE_EPOCH_SECOND_POSITION);
+    }
+
+    /**
+     * Get the total price of the sale before taxes.
+     *
+     * @return The total price in minor units.
+     */
+    public long getTotalPriceBeforeTaxes() {
+        return segmentBuffer.getLong(payloadPosition +
+                SalesLedgerFormat.TOTAL_PRICE_BEFORE_TAXES_POSITION);
+    }
+
+    /**
+     * Get the total price of the sale after taxes.
+     *
+     * @return The total price in minor units.
+     */
+    public long getTotalPriceAfterTaxes() {
+        return segmentBuffer.getLong(payloadPosition +
+                SalesLedgerFormat.TOTAL_PRICE_AFTER_TAXES_POSITION);
+    }
+
+    /**
+     * Get the total taxes of the sale.
+     *
+     * @return The total taxes in minor units.
+     */
+    public long getTotalTaxes() {
+        return segmentBuffer.getLong(payloadPosition +
+                SalesLedgerFormat.TOTAL_TAXES_POSITION);
+    }
+
+    /**
+     * Get the total discount given on the sale, beyond the discounts
+     * already included in the prices of its items.
+     *
+     * @return The total discount in minor units.
+     */
+    public long getTotalDiscount() {
+        return segmentBuffer.getLong(payloadPosition +
+                SalesLedgerFormat.TOTAL_DISCOUNT_POSITION);
+    }
+
+    /**
+     * Get the number of lines in the sale, one for each item.
+     *
+     * @return The number of lines.
+     */
+    public int getLineCount() {
+        return segmentBuffer.getInt(payloadPosition +
+                SalesLedgerFormat.LINE_COUNT_POSITION);
+    }
+
+    /**
+     * Get the ID of the item on the specified line.
+     *
+     * @param lineNumber The line, starting at zero.
+     * @return The item ID.
+     */
+    public int getItemID(int lineNumber) {
+        return segmentBuffer.getInt(linePosition(lineNumber) +
+                SalesLedgerFormat.LINE_ITEM_ID_POSITION);
+    }
+
+    /**
+     * Get the name of the item on the specified line.
+     *
+     * @param lineNumber The line, starting at zero.
+     * @return The item name.
+     */
+    public String getItemName(int lineNumber) {
+        int linePosition = linePosition(lineNumber);
+        int nameOffset = segmentBuffer.getInt(linePosition +
+                SalesLedgerFormat.LINE_NAME_OFFSET_POSITION);
+        int nameLength = segmentBuffer.getShort(linePosition +
+                SalesLedgerFormat.LINE_NAME_LENGTH_POSITION);
+        byte[] encodedName = new byte[nameLength];
+        int namePosition = payloadPosition + nameOffset;
+        for (int i = 0; i < nameLength; i++)
+            encodedName[i] = segmentBuffer.get(namePosition + i);
+        return new String(encodedName, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Get the price before taxes of one unit of the item on the specified
+     * line.
+     *
+     * @param lineNumber The line, starting at zero.
+     * @return The unit price in minor units.
+     */
+    public long getUnitPriceBeforeTaxes(int lineNumber) {
+        return segmentBuffer.getLong(linePosition(lineNumber) +
+                SalesLedgerFormat.LINE_UNIT_PRICE_POSITION);
+    }
+
+    /**
+     * Get the VAT tax rate of the item on the specified line.
+     *
+     * @param lineNumber The line, starting at zero.
+     * @return The VAT tax rate in percent.
+     */
+    public double getVATTaxRate(int lineNumber) {
+        return segmentBuffer.getDouble(linePosition(lineNumber) +
+                SalesLedgerFormat.LINE_VAT_TAX_RATE_POSITION);
+    }
+
+    /**
+     * Get the quantity of the item on the specified line.
+     *
+     * @param lineNumber The line, starting at zero.
+     * @return The numerical value of the quantity.
+     */
+    public double getQuantity(int lineNumber) {
+        return segmentBuffer.getDouble(linePosition(lineNumber) +
+                SalesLedgerFormat.LINE_QUANTITY_POSITION);
+    }
+
+    /**
+     * Get the unit of the quantity on the specified line.
+     *
+     * @param lineNumber The line, starting at zero.
+     * @return The unit.
+     */
+    public Unit getUnit(int lineNumber) {
+        return UNITS[segmentBuffer.get(linePosition(lineNumber) +
+                SalesLedgerFormat.LINE_UNIT_POSITION)];
+    }
+
+    /**
+     * Get the price before taxes of all units on the specified line.
+     *
+     * @param lineNumber The line, starting at zero.
+     * @return The line total in minor units.
+     */
+    public long getLineTotalBeforeTaxes(int lineNumber) {
+        return segmentBuffer.getLong(linePosition(lineNumber) +
+                SalesLedgerFormat.LINE_TOTAL_BEFORE_TAXES_POSITION);
+    }
+
+    /**
+     * Get the price after taxes of all units on the specified line.
+     *
+     * @param lineNumber The line, starting at zero.
+     * @return The line total in minor units.
+     */
+    public long getLineTotalAfterTaxes(int lineNumber) {
+        return segmentBuffer.getLong(linePosition(lineNumber) +
+                SalesLedgerFormat.LINE_TOTAL_AFTER_TAXES_POSITION);
+    }
+
+    /**
+     * Get the taxes of all units on the specified line.
+     *
+     * @param lineNumber The line, starting at zero.
+     * @return The line taxes in minor units.
+     */
+    public long getLineTaxes(int lineNumber) {
+        return segmentBuffer.getLong(linePosition(lineNumber) +
+                SalesLedgerFormat.LINE_TAXES_POSITION);
+    }
+
+    /**
+     * Create a {@link SaleDTO} holding all information about the sale.
+     *
+     * @return The sale.
+     */
+    public SaleDTO toSaleDTO() {
+        int lineCount = getLineCount();
+        List<ItemInSaleDTO> itemsInSale = new ArrayList<>(lineCount);
+        for (int lineNumber = 0; lineNumber < lineCount; lineNumber++) {
+            Price itemPrice = Price.of(Amount.ofMinorUnits(
+                    getUnitPriceBeforeTaxes(lineNumber)),
+                    getVATTaxRate(lineNumber));
+            ItemDTO itemInfo = new ItemDTO(getItemID(lineNumber),
+                    getItemName(lineNumber), itemPrice);
+            itemsInSale.add(new ItemInSaleDTO(itemInfo, new Quantity(
+                    getQuantity(lineNumber), getUnit(lineNumber))));
+        }
+        return new SaleDTO(getSaleDateTime(),
+                Amount.ofMinorUnits(getTotalPriceAfterTaxes()), itemsInSale,
+                lineCount);
+    }
+
+    /**
+     * Get the position of the specified line in the segment.
+     *
+     * @param lineNumber The line, starting at zero.
+     * @return The position of the line.
+     */
+    private int linePosition(int lineNumber) {
+        return payloadPosition + SalesLedgerFormat.linePosition(lineNumber);
+    }
+}
@@ -0,0 +1,187 @@
+package se.martenb.iv1350.project.saleprocess.integration.ledger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Reads the sales in one segment file of a {@link SalesLedger}, in the
+ * order they were written. The file is memory-mapped, so the sales are
+ * read from the file one at a time and the segment does not live on the
+ * heap. Readers of different segments can be used by different threads at
+ * the same time.
+ *
+ * Only completely written sales are read, so a segment can be read while
+ * the ledger is appending to it.
+ */
+public class LedgerSegmentReader {
+    private final Path segmentFile;
+    private final MappedByteBuffer segmentBuffer;
+
+    /**
+     * Opens the specified segment file by mapping it into memory.
+     *
+     * @param segmentFile The segment file to read.
+     * @throws IOException If the file could not be read or is not a sales
+     *                     ledger segment.
+     */
+    public LedgerSegmentReader(Path segmentFile) throws IOException {
+        this.segmentFile = segmentFile;
+        try (FileChannel segmentChannel =
+                FileChannel.open(segmentFile, StandardOpenOption.READ)) {
+            long fileSize = segmentChannel.size();
+            if (fileSize < SalesLedgerFormat.HEADER_SIZE ||
+                    fileSize > Integer.MAX_VALUE)
+                throw new IOException("Not a sales ledger segment: " +
+                        segmentFile);
+            segmentBuffer = segmentChannel.map(FileChannel.MapMode.READ_ONLY,
+                    0, fileSize);
+        }
+        verifyHeader(segmentBuffer, segmentFile);
+    }
+
+    /**
+     * Get the segment file read by this reader.
+     *
+     * @return The segment file.
+     */
+    public Path getSegmentFile() {
+        return segmentFile;
+    }
+
+    /**
+     * See if the segment may hold sales made during the specified period,
+     * using the range of sale times in its header. Segments that can not
+     * hold any such sales do not have to be read.
+     *
+     * @param periodStartSecond The first second of the period.
+     * @param periodEndSecond The second after the period.
+     * @return <code>false</code> if the segment has no sales in the period.
+     */
+    public boolean maySpanPeriod(long periodStartSecond,
+            long periodEndSecond) {
+        long earliestSaleSecond = segmentBuffer.getLong(
+                SalesLedgerFormat.EARLIEST_SALE_POSITION);
+        long latestSaleSecond = segmentBuffer.getLong(
+                SalesLedgerFormat.LATEST_SALE_POSITION);
+        return earliestSaleSecond < periodEndSecond &&
+                latestSaleSecond >= periodStartSecond;
+    }
+
+    /**
+     * Pass every sale in the segment, in the order they were written, to
+     * the specified consumer. The {@link LedgerSale} passed to the consumer
+     * is only valid until the consumer returns.
+     *
+     * @param saleConsumer The consumer of the sales.
+     * @return The number of read sales.
+     */
+    public long forEachSale(Consumer<LedgerSale> saleConsumer) {
+        LedgerSale ledgerSale = new LedgerSale(segmentBuffer);
+        RecordVerifier recordVerifier = new RecordVerifier(segmentBuffer);
+        long readSales = 0;
+        int recordPosition = SalesLedgerFormat.HEADER_SIZE;
+        int nextRecordPosition;
+        while ((nextRecordPosition =
+                recordVerifier.nextRecordPosition(recordPosition)) > 0) {
+            ledgerSale.moveTo(
+                    recordPosition + SalesLedgerFormat.RECORD_HEADER_SIZE);
+            saleConsumer.accept(ledgerSale);
+            readSales++;
+            recordPosition = nextRecordPosition;
+        }
+        return readSales;
+    }
+
+    /**
+     * Verify that the segment starts with a known segment header.
+     *
+     * @param segmentBuffer The buffer holding the segment.
+     * @param segmentFile The segment file, used in error messages.
+     * @throws IOException If the header is not valid.
+     */
+    static void verifyHeader(ByteBuffer segmentBuffer, Path segmentFile)
+            throws IOException {
+        int magic = segmentBuffer.getInt(SalesLedgerFormat.MAGIC_POSITION);
+        int version = segmentBuffer.getInt(SalesLedgerFormat.VERSION_POSITION);
+        if (magic != SalesLedgerFormat.MAGIC)
+            throw new IOException("Not a sales ledger segment: " +
+                    segmentFile);
+        if (version != SalesLedgerFormat.VERSION)
+            throw new IOException("Unsupported sales ledger version " +
+                    version + ": " + segmentFile);
+    }
+
+    /**
+     * Write the range of sale times of the completely written sales in the
+     * segment to its header, and get the position following the last of
+     * them.
+     *
+     * @param segmentBuffer The buffer holding the segment.
+     * @return The position where the next record is written.
+     */
+    static int restoreSaleTimeRange(ByteBuffer segmentBuffer) {
+        SalesLedgerFormat.clearSaleTimeRange(segmentBuffer);
+        RecordVerifier recordVerifier = new RecordVerifier(segmentBuffer);
+        int recordPosition = SalesLedgerFormat.HEADER_SIZE;
+        int nextRecordPosition;
+        while ((nextRecordPosition =
+                recordVerifier.nextRecordPosition(recordPosition)) > 0) {
+            SalesLedgerFormat.includeSaleTime(segmentBuffer,
+                    segmentBuffer.getLong(recordPosition +
+                            SalesLedgerFormat.RECORD_HEADER_SIZE +
+                            SalesLedgerFormat.SALE_EPOCH_SECOND_POSITION));
+            recordPosition = nextRecordPosition;
+        }
+        return recordPosition;
+    }
+
+    /**
+     * Finds where records end and verifies their checksums, reusing its
+     * checksum and view of the segment for every record.
+     */
+    private static final class RecordVerifier {
+        private final ByteBuffer segmentBuffer;
+        private final ByteBuffer payloadView;
+        private final CRC32 payloadChecksum = new CRC32();
+
+        private RecordVerifier(ByteBuffer segmentBuffer) {
+            this.segmentBuffer = segmentBuffer;
+            this.payloadView = segmentBuffer.duplicate();
+        }
+
+        /**
+         * Get the position of the record following the record at the
+         * specified position, if that record is completely written.
+         *
+         * @param recordPosition The position of the record.
+         * @return The position of the following record, or <code>-1</code>
+         * if there is no completely written record at the position.
+         */
+        private int nextRecordPosition(int recordPosition) {
+            int payloadPosition =
+                    recordPosition + SalesLedgerFormat.RECORD_HEADER_SIZE;
+            if (payloadPosition > segmentBuffer.capacity())
+                return -1;
+            int payloadLength = segmentBuffer.getInt(recordPosition);
+            if (payloadLength <= 0 || payloadLength >
+                    segmentBuffer.capacity() - payloadPosition)
+                return -1;
+            payloadView.limit(payloadPosition + payloadLength);
+            payloadView.position(payloadPosition);
+            payloadChecksum.reset();
+            payloadChecksum.update(payloadView);
+            int expectedChecksum = segmentBuffer.getInt(recordPosition +
+                    SalesLedgerFormat.RECORD_CHECKSUM_POSITION);
+            if ((int) payloadChecksum.getValue() != expectedChecksum)
+                return -1;
+            return payloadPosition + payloadLength;
+        }
+    }
+
+}
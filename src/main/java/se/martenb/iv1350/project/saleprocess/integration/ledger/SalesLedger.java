@@ -0,0 +1,716 @@
+package se.martenb.iv1350.project.saleprocess.integration.ledger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import se.martenb.iv1350.project.saleprocess.integration.dto.ItemInSaleDTO;
+import se.martenb.iv1350.project.saleprocess.integration.dto.SaleDTO;
+import se.martenb.iv1350.project.saleprocess.util.Amount;
+import se.martenb.iv1350.project.saleprocess.util.AmountAccumulator;
+import se.martenb.iv1350.project.saleprocess.util.ErrorLogger;
+import se.martenb.iv1350.project.saleprocess.util.Price;
+import se.martenb.iv1350.project.saleprocess.util.Quantity;
+
+/**
+ * An append-only ledger of completed sales, with the items, totals, taxes
+ * and time of every sale, kept for reporting.
+ *
+ * Sales are encoded by the appending thread and written by a background
+ * thread, which commits them to disk in groups: a group is committed when
+ * it holds the maximum number of sales or when its oldest sale has waited
+ * for the maximum delay, whichever comes first. The ledger is split into
+ * segment files of a fixed size, which are memory-mapped while they are
+ * written. A sale that does not fit in the current segment is written to a
+ * new segment, so segments never need to be resized.
+ *
+ * At most a few batches of sales wait to be written. Appending waits for
+ * the writer when it has fallen that far behind, so a slow disk holds up
+ * the appending threads instead of filling the heap. Every appended sale
+ * gets a future that tells when it is on disk, or why it could not be
+ * written. A sale that could not be written is reported once: by
+ * {@link #write(SaleDTO, Amount)} if it was written with that method,
+ * otherwise by the next {@link #flush()} or by {@link #close()}.
+ *
+ * The ledger is read back with {@link #forEachSale(Consumer)}, or one
+ * segment at a time with a {@link LedgerSegmentReader}, without loading it
+ * into the heap. The layout of the files is described by
+ * {@link SalesLedgerFormat}.
+ */
+public class SalesLedger implements Closeable {
+    private static final int MAXIMUM_PENDING_BATCHES = 4;
+    private final Path ledgerDirectory;
+    private final int maximumBatchRecords;
+    private final long maximumBatchDelayNanos;
+    private final int segmentSize;
+    private final BlockingQueue<LedgerEntry> pendingEntries;
+    private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+    private final Thread writerThread;
+    private final ErrorLogger errorLogger;
+    private final CRC32 payloadChecksum = new CRC32();
+    private FileChannel segmentChannel;
+    private MappedByteBuffer segmentBuffer;
+    private long segmentNumber;
+    private IOException unreportedFailure;
+    private boolean isClosed;
+
+    /**
+     * Opens the ledger in the specified directory, creating the directory
+     * and the first segment if they do not exist, and starts the background
+     * writer. A sale only partly written before the program stopped is
+     * removed. The ledger must be closed, since the writer keeps the
+     * program running until then.
+     *
+     * @param ledgerDirectory The directory of the segment files.
+     * @param maximumBatchRecords The maximum number of sales committed to
+     *                            disk at once.
+     * @param maximumBatchDelay The maximum time a sale waits before it is
+     *                          committed to disk.
+     * @param segmentSize The size in bytes of each segment file.
+     * @throws IOException If the ledger could not be opened.
+     */
+    public SalesLedger(Path ledgerDirectory, int maximumBatchRecords,
+            Duration maximumBatchDelay, int segmentSize) throws IOException {
+        this(ledgerDirectory, maximumBatchRecords, maximumBatchDelay,
+                segmentSize, new ErrorLogger());
+    }
+
+    /**
+     * Opens the ledger in the specified directory, logging failed writes
+     * with the specified logger. See
+     * {@link #SalesLedger(Path, int, Duration, int)}.
+     *
+     * @param ledgerDirectory The directory of the segment files.
+     * @param maximumBatchRecords The maximum number of sales committed to
+     *                            disk at once.
+     * @param maximumBatchDelay The maximum time a sale waits before it is
+     *                          committed to disk.
+     * @param segmentSize The size in bytes of each segment file.
+     * @param errorLogger The logger of sales that could not be written.
+     * @throws IOException If the ledger could not be opened.
+     */
+    public SalesLedger(Path ledgerDirectory, int maximumBatchRecords,
+            Duration maximumBatchDelay, int segmentSize,
+            ErrorLogger errorLogger) throws IOException {
+        if (maximumBatchRecords < 1)
+            throw new IllegalArgumentException("A batch must hold at least " +
+                    "one sale.");
+        if (maximumBatchDelay.isNegative())
+            throw new IllegalArgumentException("Batch delay cannot be " +
+                    "negative.");
+        if (segmentSize <= SalesLedgerFormat.HEADER_SIZE +
+                SalesLedgerFormat.RECORD_HEADER_SIZE)
+            throw new IllegalArgumentException("Segment size is too small.");
+        this.ledgerDirectory = ledgerDirectory;
+        this.maximumBatchRecords = maximumBatchRecords;
+        this.maximumBatchDelayNanos = maximumBatchDelay.toNanos();
+        this.segmentSize = segmentSize;
+        this.errorLogger = errorLogger;
+        this.pendingEntries = new ArrayBlockingQueue<>(
+                maximumBatchRecords * MAXIMUM_PENDING_BATCHES);
+        Files.createDirectories(ledgerDirectory);
+        List<Path> segmentFiles = getSegmentFiles();
+        if (segmentFiles.isEmpty())
+            openNewSegment(0);
+        else
+            reopenLastSegment(segmentFiles.get(segmentFiles.size() - 1));
+        this.writerThread = new Thread(this::writeQueuedEntries,
+                "sales-ledger-writer");
+        writerThread.start();
+    }
+
+    /**
+     * Get the segment files of the ledger, in the order they were written.
+     *
+     * @return The segment files.
+     * @throws IOException If the ledger directory could not be read.
+     */
+    public List<Path> getSegmentFiles() throws IOException {
+        try (Stream<Path> ledgerFiles = Files.list(ledgerDirectory)) {
+            return ledgerFiles.filter(ledgerFile ->
+                    SalesLedgerFormat.isSegmentFileName(
+                            ledgerFile.getFileName().toString())).
+                    sorted().collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Pass every sale in the ledger, in the order they were written, to the
+     * specified consumer. Sales that are not yet committed to disk may be
+     * left out. The {@link LedgerSale} passed to the consumer is only valid
+     * until the consumer returns.
+     *
+     * @param saleConsumer The consumer of the sales.
+     * @return The number of read sales.
+     * @throws IOException If a segment could not be read.
+     */
+    public long forEachSale(Consumer<LedgerSale> saleConsumer)
+            throws IOException {
+        long readSales = 0;
+        for (Path segmentFile : getSegmentFiles())
+            readSales += new LedgerSegmentReader(segmentFile).
+                    forEachSale(saleConsumer);
+        return readSales;
+    }
+
+    /**
+     * Queue a completed sale to be written. Only waits if too many sales
+     * are already waiting to be written. If the sale could not be written,
+     * the next flush also reports it.
+     *
+     * @param saleInfo The completed sale.
+     * @param totalDiscount The discount given on the whole sale, beyond
+     *                      the discounts included in the prices of its
+     *                      items.
+     * @return A future completed when the sale has been committed to disk,
+     * or completed exceptionally with an <code>IOException</code> if it
+     * could not be written.
+     * @throws IllegalArgumentException If the sale is too large to be
+     *                                  written to a segment.
+     * @throws IllegalStateException If the ledger is closed.
+     */
+    public CompletableFuture<Void> append(SaleDTO saleInfo,
+            Amount totalDiscount) {
+        return queueSale(saleInfo, totalDiscount, false);
+    }
+
+    /**
+     * Write a completed sale and wait until it has been committed to disk,
+     * together with the sales appended at the same time by other threads.
+     * A sale that could not be written is reported only by this method.
+     *
+     * @param saleInfo The completed sale.
+     * @param totalDiscount The discount given on the whole sale, beyond
+     *                      the discounts included in the prices of its
+     *                      items.
+     * @throws IOException If the sale could not be written.
+     * @throws IllegalArgumentException If the sale is too large to be
+     *                                  written to a segment.
+     * @throws IllegalStateException If the ledger is closed.
+     */
+    public void write(SaleDTO saleInfo, Amount totalDiscount)
+            throws IOException {
+        awaitWritten(queueSale(saleInfo, totalDiscount, true));
+    }
+
+    /**
+     * Encode a completed sale and queue it for the background writer.
+     *
+     * @param saleInfo The completed sale.
+     * @param totalDiscount The discount given on the whole sale.
+     * @param isAwaited <code>true</code> if the caller waits for the sale
+     *                  and reports a failed write itself, otherwise a
+     *                  failed write is left to the next flush.
+     * @return A future completed when the sale has been committed to disk.
+     */
+    private CompletableFuture<Void> queueSale(SaleDTO saleInfo,
+            Amount totalDiscount, boolean isAwaited) {
+        ByteBuffer payload = encodeSale(saleInfo, totalDiscount);
+        if (payload.remaining() > segmentSize - SalesLedgerFormat.HEADER_SIZE -
+                SalesLedgerFormat.RECORD_HEADER_SIZE)
+            throw new IllegalArgumentException("Sale is too large to be " +
+                    "written to a ledger segment.");
+        LedgerEntry saleEntry = LedgerEntry.sale(payload, isAwaited);
+        closeLock.readLock().lock();
+        try {
+            if (isClosed)
+                throw new IllegalStateException("The sales ledger is closed.");
+            putUninterruptibly(saleEntry);
+        } finally {
+            closeLock.readLock().unlock();
+        }
+        return saleEntry.written;
+    }
+
+    /**
+     * Wait until all sales queued so far have been committed to disk. Once
+     * the ledger is closed, every sale has already been written. A failed
+     * write is reported by the first flush queued after it, not by later
+     * ones, and sales written with {@link #write(SaleDTO, Amount)} are
+     * never reported here.
+     *
+     * @throws IOException If a sale appended since the previous flush
+     *                     could not be written.
+     */
+    public void flush() throws IOException {
+        LedgerEntry flushEntry = LedgerEntry.flush();
+        closeLock.readLock().lock();
+        try {
+            if (!isClosed)
+                putUninterruptibly(flushEntry);
+            else
+                flushEntry.written.complete(null);
+        } finally {
+            closeLock.readLock().unlock();
+        }
+        awaitWritten(flushEntry.written);
+    }
+
+    /**
+     * Commit all queued sales to disk, stop the background writer and close
+     * the ledger. No sales can be appended once the ledger is closed.
+     * Closing a closed ledger has no effect.
+     *
+     * @throws IOException If a sale could not be written, and the failure
+     *                     was not already reported by {@link #flush()}.
+     */
+    @Override
+    public void close() throws IOException {
+        closeLock.writeLock().lock();
+        try {
+            if (isClosed)
+                return;
+            isClosed = true;
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+        putUninterruptibly(LedgerEntry.stop());
+        boolean isInterrupted = false;
+        while (writerThread.isAlive()) {
+            try {
+                writerThread.join();
+            } catch (InterruptedException exc) {
+                isInterrupted = true;
+            }
+        }
+        if (isInterrupted)
+            Thread.currentThread().interrupt();
+        segmentChannel.close();
+        throwIfUnreportedFailure();
+    }
+
+    /**
+     * Queue an entry for the background writer, waiting for room in the
+     * queue even if interrupted.
+     *
+     * @param entry The entry to queue.
+     */
+    private void putUninterruptibly(LedgerEntry entry) {
+        boolean isInterrupted = false;
+        while (true) {
+            try {
+                pendingEntries.put(entry);
+                break;
+            } catch (InterruptedException exc) {
+                isInterrupted = true;
+            }
+        }
+        if (isInterrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    /**
+     * Wait until the background writer has handled an entry.
+     *
+     * @param written The future of the entry.
+     * @throws IOException If the entry could not be written.
+     */
+    private static void awaitWritten(CompletableFuture<Void> written)
+            throws IOException {
+        try {
+            written.get();
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting " +
+                    "for the sales ledger to be written.");
+        } catch (ExecutionException exc) {
+            throw new IOException("Failed to write sales ledger.",
+                    exc.getCause());
+        }
+    }
+
+    /**
+     * Throw the first exception that occurred while writing since the last
+     * flush, if any. Only called once the writer has stopped.
+     *
+     * @throws IOException If a sale could not be written.
+     */
+    private void throwIfUnreportedFailure() throws IOException {
+        IOException failure = unreportedFailure;
+        unreportedFailure = null;
+        if (failure != null)
+            throw new IOException("Failed to write sales ledger.", failure);
+    }
+
+    /**
+     * Encode the payload of the record of a sale.
+     *
+     * @param saleInfo The sale.
+     * @param totalDiscount The discount given on the whole sale.
+     * @return A buffer holding the payload, ready to be read.
+     */
+    private static ByteBuffer encodeSale(SaleDTO saleInfo,
+            Amount totalDiscount) {
+        List<ItemInSaleDTO> itemsInSale = saleInfo.getItemsInSale();
+        byte[][] encodedNames = new byte[itemsInSale.size()][];
+        int payloadLength =
+                SalesLedgerFormat.linePosition(itemsInSale.size());
+        for (int i = 0; i < itemsInSale.size(); i++) {
+            ItemInSaleDTO itemInSale = itemsInSale.get(i);
+            encodedNames[i] = itemInSale.getItemInfo().getItemName().
+                    getBytes(StandardCharsets.UTF_8);
+            if (encodedNames[i].length > SalesLedgerFormat.MAXIMUM_NAME_LENGTH)
+                throw new IllegalArgumentException("Item name too long " +
+                        "for item " + itemInSale.getItemInfo().getItemID());
+            payloadLength += encodedNames[i].length;
+        }
+        ByteBuffer payload = ByteBuffer.allocate(payloadLength);
+        AmountAccumulator saleTotals = new AmountAccumulator();
+        AmountAccumulator lineTotals = new AmountAccumulator();
+        int nameOffset = SalesLedgerFormat.linePosition(itemsInSale.size());
+        payload.position(SalesLedgerFormat.LINES_POSITION);
+        for (int i = 0; i < itemsInSale.size(); i++) {
+            Price itemPrice = itemsInSale.get(i).getItemInfo().getItemPrice();
+            Quantity itemQuantity = itemsInSale.get(i).getItemQuantity();
+            double quantity = itemQuantity.getNumericalValue();
+            lineTotals.reset();
+            lineTotals.addPrice(itemPrice, quantity);
+            saleTotals.addPrice(itemPrice, quantity);
+            payload.putInt(itemsInSale.get(i).getItemInfo().getItemID()).
+                    putLong(itemPrice.getPriceBeforeTax().getMinorUnits()).
+                    putDouble(itemPrice.getVATTaxRate()).
+                    putDouble(quantity).
+                    put((byte) itemQuantity.getUnitType().ordinal()).
+                    putLong(lineTotals.getTotalPriceBeforeTaxes().
+                            getMinorUnits()).
+                    putLong(lineTotals.getTotalPriceAfterTaxes().
+                            getMinorUnits()).
+                    putLong(lineTotals.getTotalTaxes().getMinorUnits()).
+                    putInt(nameOffset).
+                    putShort((short) encodedNames[i].length);
+            nameOffset += encodedNames[i].length;
+        }
+        for (byte[] encodedName : encodedNames)
+            payload.put(encodedName);
+        LocalDateTime saleDateTime = saleInfo.getSaleDateTime();
+        payload.position(0);
+        payload.putLong(saleDateTime.toEpochSecond(ZoneOffset.UTC)).
+                putInt(saleDateTime.getNano()).
+                putLong(saleTotals.getTotalPriceBeforeTaxes().getMinorUnits()).
+                putLong(saleTotals.getTotalPriceAfterTaxes().getMinorUnits()).
+                putLong(saleTotals.getTotalTaxes().getMinorUnits()).
+                putLong(totalDiscount.getMinorUnits()).
+                putInt(itemsInSale.size());
+        payload.position(0);
+        return payload;
+    }
+
+    /**
+     * Create and map a new, empty segment file.
+     *
+     * @param newSegmentNumber The number of the new segment.
+     * @throws IOException If the segment could not be created.
+     */
+    private void openNewSegment(long newSegmentNumber) throws IOException {
+        Path segmentFile = ledgerDirectory.resolve(
+                SalesLedgerFormat.segmentFileName(newSegmentNumber));
+        FileChannel newSegmentChannel = FileChannel.open(segmentFile,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer newSegmentBuffer = newSegmentChannel.map(
+                    FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            newSegmentBuffer.putInt(SalesLedgerFormat.MAGIC_POSITION,
+                    SalesLedgerFormat.MAGIC);
+            newSegmentBuffer.putInt(SalesLedgerFormat.VERSION_POSITION,
+                    SalesLedgerFormat.VERSION);
+            SalesLedgerFormat.clearSaleTimeRange(newSegmentBuffer);
+            newSegmentBuffer.position(SalesLedgerFormat.HEADER_SIZE);
+            newSegmentBuffer.force();
+            useSegment(newSegmentNumber, newSegmentChannel, newSegmentBuffer);
+        } catch (IOException exc) {
+            newSegmentChannel.close();
+            throw exc;
+        }
+    }
+
+    /**
+     * Map the last segment file written before the ledger was closed, and
+     * continue writing after its last completely written sale. Anything
+     * after that sale is erased. The range of sale times in the header is
+     * found again from the sales, since the header may not have been
+     * written to disk together with them.
+     *
+     * @param segmentFile The last segment file.
+     * @throws IOException If the segment could not be read or written.
+     */
+    private void reopenLastSegment(Path segmentFile) throws IOException {
+        String fileName = segmentFile.getFileName().toString();
+        long lastSegmentNumber = Long.parseLong(fileName.substring(
+                SalesLedgerFormat.SEGMENT_FILE_PREFIX.length(),
+                fileName.length() -
+                        SalesLedgerFormat.SEGMENT_FILE_SUFFIX.length()));
+        FileChannel lastSegmentChannel = FileChannel.open(segmentFile,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long fileSize = lastSegmentChannel.size();
+            if (fileSize < SalesLedgerFormat.HEADER_SIZE ||
+                    fileSize > Integer.MAX_VALUE)
+                throw new IOException("Not a sales ledger segment: " +
+                        segmentFile);
+            MappedByteBuffer lastSegmentBuffer = lastSegmentChannel.map(
+                    FileChannel.MapMode.READ_WRITE, 0, fileSize);
+            LedgerSegmentReader.verifyHeader(lastSegmentBuffer, segmentFile);
+            int endOfRecords = LedgerSegmentReader.
+                    restoreSaleTimeRange(lastSegmentBuffer);
+            for (int position = endOfRecords;
+                    position < lastSegmentBuffer.capacity(); position++)
+                lastSegmentBuffer.put(position, (byte) 0);
+            lastSegmentBuffer.position(endOfRecords);
+            lastSegmentBuffer.force();
+            useSegment(lastSegmentNumber, lastSegmentChannel,
+                    lastSegmentBuffer);
+        } catch (IOException exc) {
+            lastSegmentChannel.close();
+            throw exc;
+        }
+    }
+
+    /**
+     * Write new sales to the specified segment from now on.
+     *
+     * @param newSegmentNumber The number of the segment.
+     * @param newSegmentChannel The channel of the segment file.
+     * @param newSegmentBuffer The mapped segment, positioned where the next
+     *                         sale is written.
+     */
+    private void useSegment(long newSegmentNumber,
+            FileChannel newSegmentChannel, MappedByteBuffer newSegmentBuffer) {
+        segmentNumber = newSegmentNumber;
+        segmentChannel = newSegmentChannel;
+        segmentBuffer = newSegmentBuffer;
+    }
+
+    /**
+     * Run by the background writer. Takes queued entries in batches and
+     * writes them until the ledger is closed.
+     */
+    private void writeQueuedEntries() {
+        List<LedgerEntry> batch = new ArrayList<>();
+        boolean isStopping = false;
+        while (!isStopping) {
+            try {
+                collectBatch(batch);
+            } catch (InterruptedException exc) {
+                isStopping = true;
+            }
+            isStopping |= writeBatch(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Wait for the next entry, then collect more entries until the batch is
+     * full, the oldest entry has waited for the maximum delay, or an entry
+     * that is not a sale is found.
+     *
+     * @param batch The list to collect entries in.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    private void collectBatch(List<LedgerEntry> batch)
+            throws InterruptedException {
+        LedgerEntry firstEntry = pendingEntries.take();
+        batch.add(firstEntry);
+        long batchDeadline = System.nanoTime() + maximumBatchDelayNanos;
+        int salesInBatch = firstEntry.isSale() ? 1 : 0;
+        boolean isBatchComplete = !firstEntry.isSale();
+        while (!isBatchComplete && salesInBatch < maximumBatchRecords) {
+            LedgerEntry nextEntry = pendingEntries.poll();
+            if (nextEntry == null) {
+                long remainingNanos = batchDeadline - System.nanoTime();
+                if (remainingNanos <= 0)
+                    break;
+                nextEntry = pendingEntries.poll(remainingNanos,
+                        TimeUnit.NANOSECONDS);
+                if (nextEntry == null)
+                    break;
+            }
+            batch.add(nextEntry);
+            if (nextEntry.isSale())
+                salesInBatch++;
+            else
+                isBatchComplete = true;
+        }
+    }
+
+    /**
+     * Write a batch of entries. Sales are written together and committed
+     * to disk once, before any entry that is not a sale is handled. A sale
+     * that could not be written is failed, and the writer goes on with the
+     * next entry.
+     *
+     * @param batch The entries to write.
+     * @return <code>true</code> if the writer should stop, otherwise
+     * <code>false</code>.
+     */
+    private boolean writeBatch(List<LedgerEntry> batch) {
+        boolean isStopping = false;
+        List<LedgerEntry> uncommittedSales = new ArrayList<>();
+        for (LedgerEntry entry : batch) {
+            if (entry.isSale()) {
+                try {
+                    writeSale(entry.payload);
+                    uncommittedSales.add(entry);
+                } catch (IOException | RuntimeException exc) {
+                    failEntry(entry, exc);
+                }
+                continue;
+            }
+            commit(uncommittedSales);
+            if (entry.written != null)
+                completeFlush(entry);
+            else
+                isStopping = true;
+        }
+        commit(uncommittedSales);
+        return isStopping;
+    }
+
+    /**
+     * Commit the specified written sales to disk, and complete or fail
+     * their futures.
+     *
+     * @param writtenSales The sales written since the last commit, which
+     *                     are removed from the list.
+     */
+    private void commit(List<LedgerEntry> writtenSales) {
+        if (writtenSales.isEmpty())
+            return;
+        try {
+            segmentBuffer.force();
+            for (LedgerEntry sale : writtenSales)
+                sale.written.complete(null);
+        } catch (RuntimeException exc) {
+            for (LedgerEntry sale : writtenSales)
+                failEntry(sale, exc);
+        }
+        writtenSales.clear();
+    }
+
+    /**
+     * Write the record of a sale to the current segment, first moving to a
+     * new segment if the record does not fit. The range of sale times in
+     * the segment header is widened before the record is written.
+     *
+     * @param payload The payload of the record.
+     * @throws IOException If a new segment could not be created.
+     */
+    private void writeSale(ByteBuffer payload) throws IOException {
+        int recordSize = SalesLedgerFormat.RECORD_HEADER_SIZE +
+                payload.remaining();
+        if (recordSize > segmentBuffer.remaining()) {
+            segmentBuffer.force();
+            FileChannel fullSegmentChannel = segmentChannel;
+            openNewSegment(segmentNumber + 1);
+            fullSegmentChannel.close();
+        }
+        SalesLedgerFormat.includeSaleTime(segmentBuffer, payload.getLong(
+                payload.position() +
+                        SalesLedgerFormat.SALE_EPOCH_SECOND_POSITION));
+        payloadChecksum.reset();
+        payloadChecksum.update(payload.duplicate());
+        int recordPosition = segmentBuffer.position();
+        segmentBuffer.position(
+                recordPosition + SalesLedgerFormat.RECORD_HEADER_SIZE);
+        segmentBuffer.put(payload);
+        segmentBuffer.putInt(recordPosition +
+                SalesLedgerFormat.RECORD_CHECKSUM_POSITION,
+                (int) payloadChecksum.getValue());
+        segmentBuffer.putInt(recordPosition, recordSize -
+                SalesLedgerFormat.RECORD_HEADER_SIZE);
+    }
+
+    /**
+     * Complete a flush, failing it with the first write failure since the
+     * previous flush, if any. The failure is then forgotten, so that later
+     * flushes only report failures of sales queued after this one.
+     *
+     * @param flushEntry The flush to complete.
+     */
+    private void completeFlush(LedgerEntry flushEntry) {
+        IOException failure = unreportedFailure;
+        unreportedFailure = null;
+        if (failure != null)
+            flushEntry.written.completeExceptionally(failure);
+        else
+            flushEntry.written.complete(null);
+    }
+
+    /**
+     * Fail an entry that could not be written and log the failure. Unless
+     * the appending thread waits for the entry, the failure is kept to be
+     * reported by the next flush or by {@link #close()}, if no earlier
+     * failure is already kept.
+     *
+     * @param entry The entry that could not be written.
+     * @param exc The exception thrown by the failed write.
+     */
+    private void failEntry(LedgerEntry entry, Exception exc) {
+        IOException failure = exc instanceof IOException ?
+                (IOException) exc : new IOException(exc);
+        errorLogger.logException(failure);
+        if (!entry.isAwaited && unreportedFailure == null)
+            unreportedFailure = failure;
+        entry.written.completeExceptionally(failure);
+    }
+
+    /**
+     * An entry in the queue of the background writer. Either the payload
+     * of a sale, a request to signal when everything before it is written,
+     * or a request to stop. The future of a sale or a flush is completed
+     * when it has been written.
+     */
+    private static class LedgerEntry {
+        private final ByteBuffer payload;
+        private final CompletableFuture<Void> written;
+        private final boolean isAwaited;
+
+        private LedgerEntry(ByteBuffer payload,
+                CompletableFuture<Void> written, boolean isAwaited) {
+            this.payload = payload;
+            this.written = written;
+            this.isAwaited = isAwaited;
+        }
+
+        private static LedgerEntry sale(ByteBuffer payload,
+                boolean isAwaited) {
+            return new LedgerEntry(payload, new CompletableFuture<>(),
+                    isAwaited);
+        }
+
+        private static LedgerEntry flush() {
+            return new LedgerEntry(null, new CompletableFuture<>(), false);
+        }
+
+        private static LedgerEntry stop() {
+            return new LedgerEntry(null, null, false);
+        }
+
+        private boolean isSale() {
+            return payload != null;
+        }
+    }
+
+}
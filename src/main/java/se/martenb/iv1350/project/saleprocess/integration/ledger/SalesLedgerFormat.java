@@ -0,0 +1,125 @@
+package se.martenb.iv1350.project.saleprocess.integration.ledger;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Describes the layout of a sales ledger segment file. All numbers are
+ * stored in big-endian byte order, and all amounts in minor units.
+ *
+ * <pre>
+ * Header:  int magic, int version, long earliestSaleEpochSecond,
+ *          long latestSaleEpochSecond
+ * Records: int payloadLength, int payloadChecksum (CRC-32),
+ *          byte[payloadLength] payload
+ * Payload: long saleEpochSecond, int saleNanoOfSecond,
+ *          long totalPriceBeforeTaxes, long totalPriceAfterTaxes,
+ *          long totalTaxes, long totalDiscount, int lineCount,
+ *          lineCount lines of (int itemID, long unitPriceBeforeTaxes,
+ *          double vatTaxRate, double quantity, byte unit,
+ *          long lineTotalBeforeTaxes, long lineTotalAfterTaxes,
+ *          long lineTaxes, int nameOffset, short nameLength),
+ *          item names (UTF-8)
+ * </pre>
+ *
+ * The time of a sale is its local date and time, counted from 1970-01-01
+ * 00:00 of the same local time. The header holds the earliest and latest
+ * second of the sales in the segment, so a report can skip segments
+ * without sales in its period. A segment without sales has an earliest
+ * second after its latest second. Name offsets are counted from the start
+ * of the payload. A segment is filled with zeros after its last record, so
+ * a payload length of zero marks the end of the records, and a record
+ * whose checksum does not match was not completely written.
+ */
+final class SalesLedgerFormat {
+    static final int MAGIC = 0x534C4447;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 24;
+    static final int MAGIC_POSITION = 0;
+    static final int VERSION_POSITION = 4;
+    static final int EARLIEST_SALE_POSITION = 8;
+    static final int LATEST_SALE_POSITION = 16;
+    static final int RECORD_HEADER_SIZE = 8;
+    static final int RECORD_CHECKSUM_POSITION = 4;
+    static final int SALE_EPOCH_SECOND_POSITION = 0;
+    static final int SALE_NANO_OF_SECOND_POSITION = 8;
+    static final int TOTAL_PRICE_BEFORE_TAXES_POSITION = 12;
+    static final int TOTAL_PRICE_AFTER_TAXES_POSITION = 20;
+    static final int TOTAL_TAXES_POSITION = 28;
+    static final int TOTAL_DISCOUNT_POSITION = 36;
+    static final int LINE_COUNT_POSITION = 44;
+    static final int LINES_POSITION = 48;
+    static final int LINE_SIZE = 59;
+    static final int LINE_ITEM_ID_POSITION = 0;
+    static final int LINE_UNIT_PRICE_POSITION = 4;
+    static final int LINE_VAT_TAX_RATE_POSITION = 12;
+    static final int LINE_QUANTITY_POSITION = 20;
+    static final int LINE_UNIT_POSITION = 28;
+    static final int LINE_TOTAL_BEFORE_TAXES_POSITION = 29;
+    static final int LINE_TOTAL_AFTER_TAXES_POSITION = 37;
+    static final int LINE_TAXES_POSITION = 45;
+    static final int LINE_NAME_OFFSET_POSITION = 53;
+    static final int LINE_NAME_LENGTH_POSITION = 57;
+    static final int MAXIMUM_NAME_LENGTH = Short.MAX_VALUE;
+    static final String SEGMENT_FILE_PREFIX = "sales-";
+    static final String SEGMENT_FILE_SUFFIX = ".ledger";
+
+    private SalesLedgerFormat() {
+    }
+
+    /**
+     * Get the position of the specified line in a payload.
+     *
+     * @param lineNumber The number of the line, starting at zero.
+     * @return The position of the line from the start of the payload.
+     */
+    static int linePosition(int lineNumber) {
+        return LINES_POSITION + lineNumber * LINE_SIZE;
+    }
+
+    /**
+     * Mark the segment header as holding no sales.
+     *
+     * @param segmentBuffer The buffer holding the segment.
+     */
+    static void clearSaleTimeRange(ByteBuffer segmentBuffer) {
+        segmentBuffer.putLong(EARLIEST_SALE_POSITION, Long.MAX_VALUE);
+        segmentBuffer.putLong(LATEST_SALE_POSITION, Long.MIN_VALUE);
+    }
+
+    /**
+     * Widen the range of sale times in the segment header to include the
+     * specified sale time.
+     *
+     * @param segmentBuffer The buffer holding the segment.
+     * @param saleEpochSecond The second of a sale in the segment.
+     */
+    static void includeSaleTime(ByteBuffer segmentBuffer,
+            long saleEpochSecond) {
+        if (saleEpochSecond < segmentBuffer.getLong(EARLIEST_SALE_POSITION))
+            segmentBuffer.putLong(EARLIEST_SALE_POSITION, saleEpochSecond);
+        if (saleEpochSecond > segmentBuffer.getLong(LATEST_SALE_POSITION))
+            segmentBuffer.putLong(LATEST_SALE_POSITION, saleEpochSecond);
+    }
+
+    /**
+     * Get the name of the segment file with the specified number.
+     *
+     * @param segmentNumber The number of the segment, starting at zero.
+     * @return The file name.
+     */
+    static String segmentFileName(long segmentNumber) {
+        return String.format("%s%016d%s", SEGMENT_FILE_PREFIX, segmentNumber,
+                SEGMENT_FILE_SUFFIX);
+    }
+
+    /**
+     * See if the specified file name is the name of a segment file.
+     *
+     * @param fileName The file name.
+     * @return <code>true</code> if it is the name of a segment file.
+     */
+    static boolean isSegmentFileName(String fileName) {
+        return fileName.startsWith(SEGMENT_FILE_PREFIX) &&
+                fileName.endsWith(SEGMENT_FILE_SUFFIX);
+    }
+}
@@ -0,0 +1,194 @@
+package se.martenb.iv1350.project.saleprocess.integration.ledger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import se.martenb.iv1350.project.saleprocess.integration.dto.ZReportDTO;
+
+/**
+ * Creates reports of the sales in a {@link SalesLedger}, such as the
+ * Z-report made at close of business.
+ *
+ * The segments of the ledger are read in parallel, one task per segment,
+ * and the totals of each segment are summed in primitive maps before they
+ * are added together. Since segments are memory-mapped and read without
+ * creating objects for each sale, the time of a report depends mostly on
+ * how fast the segment files can be read. Segments whose header shows that
+ * they have no sales in the reported period are skipped without being
+ * read.
+ */
+public class SalesReportEngine implements AutoCloseable {
+    private final SalesLedger ledger;
+    private final ForkJoinPool scanPool;
+    private final boolean isScanPoolOwned;
+
+    /**
+     * Creates a new instance reading the specified ledger, with a pool of
+     * its own to read the segments in. Reading a segment waits for the
+     * disk, so segments are not read in the common fork/join pool, where
+     * they would hold up unrelated parallel work. The pool is shut down
+     * when the engine is closed.
+     *
+     * @param ledger The ledger to report on.
+     */
+    public SalesReportEngine(SalesLedger ledger) {
+        this(ledger, new ForkJoinPool(
+                Runtime.getRuntime().availableProcessors()), true);
+    }
+
+    /**
+     * Creates a new instance reading the specified ledger, using the
+     * specified fork/join pool, which is not shut down when the engine is
+     * closed.
+     *
+     * @param ledger The ledger to report on.
+     * @param scanPool The pool the segments are read in.
+     */
+    public SalesReportEngine(SalesLedger ledger, ForkJoinPool scanPool) {
+        this(ledger, scanPool, false);
+    }
+
+    /**
+     * Creates a new instance from its parts.
+     *
+     * @param ledger The ledger to report on.
+     * @param scanPool The pool the segments are read in.
+     * @param isScanPoolOwned <code>true</code> if the pool is shut down
+     *                        when the engine is closed.
+     */
+    private SalesReportEngine(SalesLedger ledger, ForkJoinPool scanPool,
+            boolean isScanPoolOwned) {
+        this.ledger = ledger;
+        this.scanPool = scanPool;
+        this.isScanPoolOwned = isScanPoolOwned;
+    }
+
+    /**
+     * Shut down the pool the segments are read in, if it was created by
+     * this engine. Reports that are being created are finished first.
+     */
+    @Override
+    public void close() {
+        if (isScanPoolOwned)
+            scanPool.shutdown();
+    }
+
+    /**
+     * Create the Z-report of the specified business day, from midnight to
+     * midnight.
+     *
+     * @param businessDay The day to report.
+     * @return The report.
+     * @throws IOException If the ledger could not be read.
+     */
+    public ZReportDTO createZReport(LocalDate businessDay) throws IOException {
+        return createReport(businessDay.atStartOfDay(),
+                businessDay.plusDays(1).atStartOfDay());
+    }
+
+    /**
+     * Create a report of all sales made during the specified period. Sales
+     * appended to the ledger before this method is called are included.
+     *
+     * @param periodStart The start of the period.
+     * @param periodEnd The end of the period, not included in it.
+     * @return The report.
+     * @throws IOException If the ledger could not be read.
+     */
+    public ZReportDTO createReport(LocalDateTime periodStart,
+            LocalDateTime periodEnd) throws IOException {
+        if (periodEnd.isBefore(periodStart))
+            throw new IllegalArgumentException("Report period ends before " +
+                    "it starts.");
+        ledger.flush();
+        List<Path> segmentFiles = ledger.getSegmentFiles();
+        SalesTotals periodTotals;
+        try {
+            periodTotals = scanPool.invoke(new ScanSegmentsTask(segmentFiles,
+                    periodStart.toEpochSecond(ZoneOffset.UTC),
+                    periodEnd.toEpochSecond(ZoneOffset.UTC), 0,
+                    segmentFiles.size()));
+        } catch (UncheckedIOException exc) {
+            throw exc.getCause();
+        }
+        return periodTotals.toZReport(periodStart, periodEnd);
+    }
+
+    /**
+     * Sums the sales in a range of segments during the reported period,
+     * splitting ranges of more than one segment into tasks run in parallel.
+     */
+    private static final class ScanSegmentsTask
+            extends RecursiveTask<SalesTotals> {
+        private static final long serialVersionUID = 1L;
+        private final List<Path> segmentFiles;
+        private final long periodStartSecond;
+        private final long periodEndSecond;
+        private final int fromIndex;
+        private final int toIndex;
+
+        private ScanSegmentsTask(List<Path> segmentFiles,
+                long periodStartSecond, long periodEndSecond, int fromIndex,
+                int toIndex) {
+            this.segmentFiles = segmentFiles;
+            this.periodStartSecond = periodStartSecond;
+            this.periodEndSecond = periodEndSecond;
+            this.fromIndex = fromIndex;
+            this.toIndex = toIndex;
+        }
+
+        @Override
+        protected SalesTotals compute() {
+            if (toIndex - fromIndex <= 1)
+                return scanSegments();
+            int middleIndex = (fromIndex + toIndex) >>> 1;
+            ScanSegmentsTask firstHalf = new ScanSegmentsTask(segmentFiles,
+                    periodStartSecond, periodEndSecond, fromIndex,
+                    middleIndex);
+            ScanSegmentsTask secondHalf = new ScanSegmentsTask(segmentFiles,
+                    periodStartSecond, periodEndSecond, middleIndex,
+                    toIndex);
+            firstHalf.fork();
+            SalesTotals totals = secondHalf.compute();
+            totals.addAll(firstHalf.join());
+            return totals;
+        }
+
+        /**
+         * Sum the sales in the range of segments, skipping segments
+         * without sales in the reported period.
+         *
+         * @return The totals of the sales.
+         * @throws UncheckedIOException If a segment could not be read.
+         */
+        private SalesTotals scanSegments() {
+            SalesTotals totals = new SalesTotals();
+            for (int i = fromIndex; i < toIndex; i++) {
+                LedgerSegmentReader segmentReader;
+                try {
+                    segmentReader = new LedgerSegmentReader(
+                            segmentFiles.get(i));
+                } catch (IOException exc) {
+                    throw new UncheckedIOException(exc);
+                }
+                if (!segmentReader.maySpanPeriod(periodStartSecond,
+                        periodEndSecond))
+                    continue;
+                segmentReader.forEachSale(sale -> {
+                    long saleSecond = sale.getSaleEpochSecond();
+                    if (saleSecond >= periodStartSecond &&
+                            saleSecond < periodEndSecond)
+                        totals.addSale(sale);
+                });
+            }
+            return totals;
+        }
+    }
+
+}
@@ -0,0 +1,140 @@
+package se.martenb.iv1350.project.saleprocess.integration.ledger;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import se.martenb.iv1350.project.saleprocess.integration.dto.ItemSalesDTO;
+import se.martenb.iv1350.project.saleprocess.integration.dto.VATRateTotalDTO;
+import se.martenb.iv1350.project.saleprocess.integration.dto.ZReportDTO;
+import se.martenb.iv1350.project.saleprocess.util.Amount;
+import se.martenb.iv1350.project.saleprocess.util.IntKeyMap;
+import se.martenb.iv1350.project.saleprocess.util.IntLongMap;
+import se.martenb.iv1350.project.saleprocess.util.Unit;
+
+/**
+ * The totals of a number of sales read from a {@link SalesLedger}, used to
+ * create a {@link ZReportDTO}. Amounts are summed in minor units in
+ * primitive maps, so adding a sale creates no objects unless it holds an
+ * item not seen before. Totals of different parts of a ledger are summed
+ * separately and then added together.
+ *
+ * VAT tax rates are kept in hundredths of a percent, quantities in
+ * millionths of a unit and hours as hours from 1970-01-01 00:00. Items
+ * sold are counted like in a sale, where an item that is weighed or
+ * measured counts as one.
+ */
+final class SalesTotals {
+    private static final int VAT_RATE_SCALE = 100;
+    private static final double QUANTITY_SCALE = 1_000_000;
+    private static final int SECONDS_PER_HOUR = 3600;
+    private final IntLongMap priceBeforeTaxesByVATRate = new IntLongMap();
+    private final IntLongMap taxesByVATRate = new IntLongMap();
+    private final IntLongMap scaledQuantityByItem = new IntLongMap();
+    private final IntLongMap priceAfterTaxesByItem = new IntLongMap();
+    private final IntKeyMap<String> itemNames = new IntKeyMap<>();
+    private final IntLongMap priceAfterTaxesByHour = new IntLongMap();
+    private long numberOfSales;
+    private long itemsSold;
+    private long totalPriceBeforeTaxes;
+    private long totalPriceAfterTaxes;
+    private long totalTaxes;
+    private long totalDiscount;
+
+    /**
+     * Add a sale to the totals.
+     *
+     * @param sale The sale to add.
+     */
+    void addSale(LedgerSale sale) {
+        numberOfSales++;
+        totalPriceBeforeTaxes += sale.getTotalPriceBeforeTaxes();
+        totalPriceAfterTaxes += sale.getTotalPriceAfterTaxes();
+        totalTaxes += sale.getTotalTaxes();
+        totalDiscount += sale.getTotalDiscount();
+        int saleHour = (int) Math.floorDiv(sale.getSaleEpochSecond(),
+                SECONDS_PER_HOUR);
+        priceAfterTaxesByHour.add(saleHour, sale.getTotalPriceAfterTaxes());
+        int lineCount = sale.getLineCount();
+        for (int lineNumber = 0; lineNumber < lineCount; lineNumber++) {
+            int vatRate = (int) Math.round(
+                    sale.getVATTaxRate(lineNumber) * VAT_RATE_SCALE);
+            priceBeforeTaxesByVATRate.add(vatRate,
+                    sale.getLineTotalBeforeTaxes(lineNumber));
+            taxesByVATRate.add(vatRate, sale.getLineTaxes(lineNumber));
+            int itemID = sale.getItemID(lineNumber);
+            long scaledQuantity = Math.round(
+                    sale.getQuantity(lineNumber) * QUANTITY_SCALE);
+            itemsSold += sale.getUnit(lineNumber) == Unit.PIECE ?
+                    (long) sale.getQuantity(lineNumber) : 1;
+            scaledQuantityByItem.add(itemID, scaledQuantity);
+            priceAfterTaxesByItem.add(itemID,
+                    sale.getLineTotalAfterTaxes(lineNumber));
+            if (!itemNames.containsKey(itemID))
+                itemNames.put(itemID, sale.getItemName(lineNumber));
+        }
+    }
+
+    /**
+     * Add the specified totals to these totals.
+     *
+     * @param totalsToAdd The totals to add.
+     */
+    void addAll(SalesTotals totalsToAdd) {
+        numberOfSales += totalsToAdd.numberOfSales;
+        itemsSold += totalsToAdd.itemsSold;
+        totalPriceBeforeTaxes += totalsToAdd.totalPriceBeforeTaxes;
+        totalPriceAfterTaxes += totalsToAdd.totalPriceAfterTaxes;
+        totalTaxes += totalsToAdd.totalTaxes;
+        totalDiscount += totalsToAdd.totalDiscount;
+        priceBeforeTaxesByVATRate.addAll(
+                totalsToAdd.priceBeforeTaxesByVATRate);
+        taxesByVATRate.addAll(totalsToAdd.taxesByVATRate);
+        scaledQuantityByItem.addAll(totalsToAdd.scaledQuantityByItem);
+        priceAfterTaxesByItem.addAll(totalsToAdd.priceAfterTaxesByItem);
+        priceAfterTaxesByHour.addAll(totalsToAdd.priceAfterTaxesByHour);
+        totalsToAdd.itemNames.forEachKeyAndValue((itemID, itemName) -> {
+            if (!itemNames.containsKey(itemID))
+                itemNames.put(itemID, itemName);
+        });
+    }
+
+    /**
+     * Create a Z-report of the totals.
+     *
+     * @param periodStart The start of the reported period.
+     * @param periodEnd The end of the reported period.
+     * @return The report.
+     */
+    ZReportDTO toZReport(LocalDateTime periodStart, LocalDateTime periodEnd) {
+        List<VATRateTotalDTO> vatRateTotals = new ArrayList<>();
+        priceBeforeTaxesByVATRate.forEachKeyAndValue((vatRate,
+                priceBeforeTaxes) -> vatRateTotals.add(new VATRateTotalDTO(
+                        (double) vatRate / VAT_RATE_SCALE,
+                        Amount.ofMinorUnits(priceBeforeTaxes),
+                        Amount.ofMinorUnits(taxesByVATRate.get(vatRate)))));
+        vatRateTotals.sort(
+                Comparator.comparingDouble(VATRateTotalDTO::getVATTaxRate));
+        List<ItemSalesDTO> itemSales = new ArrayList<>();
+        scaledQuantityByItem.forEachKeyAndValue((itemID, scaledQuantity) ->
+                itemSales.add(new ItemSalesDTO(itemID, itemNames.get(itemID),
+                        scaledQuantity / QUANTITY_SCALE, Amount.ofMinorUnits(
+                                priceAfterTaxesByItem.get(itemID)))));
+        itemSales.sort(Comparator.comparingInt(ItemSalesDTO::getItemID));
+        SortedMap<LocalDateTime, Amount> hourlyRevenue = new TreeMap<>();
+        priceAfterTaxesByHour.forEachKeyAndValue((saleHour, priceAfterTaxes) ->
+                hourlyRevenue.put(LocalDateTime.ofEpochSecond(
+                        (long) saleHour * SECONDS_PER_HOUR, 0, ZoneOffset.UTC),
+                        Amount.ofMinorUnits(priceAfterTaxes)));
+        return new ZReportDTO(periodStart, periodEnd, numberOfSales,
+                itemsSold,
+                Amount.ofMinorUnits(totalPriceBeforeTaxes),
+                Amount.ofMinorUnits(totalPriceAfterTaxes),
+                Amount.ofMinorUnits(totalTaxes),
+                Amount.ofMinorUnits(totalDiscount), vatRateTotals, itemSales,
+                hourlyRevenue);
+    }
+}
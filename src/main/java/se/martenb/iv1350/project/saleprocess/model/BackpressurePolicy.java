@@ -0,0 +1,25 @@
+package se.martenb.iv1350.project.saleprocess.model;
+
+/**
+ * What a {@link PurchaseEventDispatcher} does when a {@link PurchaseObserver}
+ * has not kept up with the purchases made.
+ */
+public enum BackpressurePolicy {
+    /**
+     * Payments wait for the observer, so that it is notified about every
+     * purchase.
+     */
+    BLOCK,
+
+    /**
+     * Payments never wait for the observer. Purchases the observer has
+     * fallen too far behind to be notified about are skipped.
+     */
+    DROP,
+
+    /**
+     * Payments never wait for the observer. When several purchases are
+     * waiting, the observer is only notified about the latest of them.
+     */
+    COALESCE
+}
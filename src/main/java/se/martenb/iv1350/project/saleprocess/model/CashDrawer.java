@@ -0,0 +1,74 @@
+package se.martenb.iv1350.project.saleprocess.model;
+
+import se.martenb.iv1350.project.saleprocess.util.Amount;
+
+/**
+ * Represents a cash drawer in a {@link Register}. Each checkout lane puts 
+ * its payments into a drawer of its own, so lanes paying at the same time 
+ * never update the same balance. The balance is kept in minor units and 
+ * is rolled up into the total of the register. 
+ * 
+ * The balance is guarded by a sequence number, which is odd while an 
+ * amount is being added and even otherwise. A reader that sees the same 
+ * even sequence number before and after reading the balances of several 
+ * drawers has read balances that were all in the drawers at the same time. 
+ */
+public class CashDrawer {
+    private volatile long sequence;
+    private volatile long balanceMinorUnits;
+    
+    /**
+     * Creates a new instance of a {@link CashDrawer} containing the 
+     * specified amount. 
+     * 
+     * @param initialAmount The amount initially in the drawer.
+     */
+    CashDrawer(Amount initialAmount) {
+        balanceMinorUnits = initialAmount.getMinorUnits();
+    }
+    
+    /**
+     * Add an {@link Amount} to the drawer. Amounts added at the same time 
+     * are added one at a time, and wait while the register holds the lock 
+     * of the drawer to take a snapshot.
+     * 
+     * @param amountToAdd The amount to add.
+     * @throws ArithmeticException If the balance would overflow, in which 
+     *                             case the balance is left unchanged.
+     */
+    synchronized void addAmount(Amount amountToAdd) {
+        long nextBalance = Math.addExact(balanceMinorUnits, 
+                amountToAdd.getMinorUnits());
+        sequence++;
+        balanceMinorUnits = nextBalance;
+        sequence++;
+    }
+    
+    /**
+     * Get the {@link Amount} in the drawer. 
+     * 
+     * @return The amount.
+     */
+    public Amount getAmount() {
+        return Amount.ofMinorUnits(balanceMinorUnits);
+    }
+    
+    /**
+     * Get the balance of the drawer in minor units.
+     * 
+     * @return The balance in minor units.
+     */
+    long getBalanceMinorUnits() {
+        return balanceMinorUnits;
+    }
+    
+    /**
+     * Get the sequence number of the drawer. It is odd while an amount is 
+     * being added and is increased by two for every added amount. 
+     * 
+     * @return The sequence number.
+     */
+    long getSequence() {
+        return sequence;
+    }
+}
@@ -1,5 +1,6 @@
 package se.martenb.iv1350.project.saleprocess.model;
 
+import se.martenb.iv1350.project.saleprocess.integration.discount.DiscountContext;
 import se.martenb.iv1350.project.saleprocess.integration.discount.DiscountRule;
 import se.martenb.iv1350.project.saleprocess.integration.dto.CustomerDTO;
 import se.martenb.iv1350.project.saleprocess.integration.dto.DiscountDTO;
@@ -40,11 +41,13 @@ public class Discount {
     private SaleDTO tryAvailableDiscountsOnSale(
             CustomerDTO customerInformaton) {
         SaleDTO saleAfterDiscount = saleState;
+        DiscountContext discountContext = 
+                new DiscountContext(saleState, customerInformaton);
         boolean isDiscountRuleApplicable = 
-                compositeDiscountRule.isRuleApplicable(
-                        saleAfterDiscount, customerInformaton);
+                compositeDiscountRule.isRuleApplicable(discountContext);
         if (isDiscountRuleApplicable) {
-            saleAfterDiscount = compositeDiscountRule.applyRule();
+            saleAfterDiscount = 
+                    compositeDiscountRule.applyRule(discountContext);
         }
         return saleAfterDiscount;
     }
@@ -1,8 +1,7 @@
 package se.martenb.iv1350.project.saleprocess.model;
 
-import java.util.ArrayList;
-import java.util.List;
 import se.martenb.iv1350.project.saleprocess.util.Amount;
+import se.martenb.iv1350.project.saleprocess.util.AmountAccumulator;
 import se.martenb.iv1350.project.saleprocess.integration.dto.ItemInSaleDTO;
 import se.martenb.iv1350.project.saleprocess.util.PriceTotal;
 import se.martenb.iv1350.project.saleprocess.integration.dto.PurchaseDTO;
@@ -10,28 +9,84 @@ import se.martenb.iv1350.project.saleprocess.integration.dto.ReceiptDTO;
 import se.martenb.iv1350.project.saleprocess.integration.dto.SaleDTO;
 import se.martenb.iv1350.project.saleprocess.integration.dto.StoreDTO;
 import se.martenb.iv1350.project.saleprocess.integration.StoreRegistry;
+import se.martenb.iv1350.project.saleprocess.util.ErrorLogger;
 
 /**
  * Represents handling payment for an ended sale.
  */
 public class Payment {
     private final StoreRegistry storeRegistry;
-    private final Register register;
+    private final CashDrawer cashDrawer;
     private final Amount totalDiscount;
-    private List<PurchaseObserver> purchaseObserverList = new ArrayList<>();
+    private final PurchaseEventDispatcher purchaseEventDispatcher;
+    private final boolean isDispatcherOwned;
     private SaleDTO saleState;
     
     /**
      * Creates a new instance of a payment handler. Discounts are not yet 
-     * implemented and defaulted to 0. 
+     * implemented and defaulted to 0. Purchases are published to a 
+     * dispatcher of this payment handler's own, which is closed by 
+     * {@link #close()}. 
      * 
      * @param storeRegistry Registry containing store information.
      * @param register The register to put the paid amount into.
      */
     public Payment(StoreRegistry storeRegistry, Register register) {
+        this(storeRegistry, register.getMainDrawer(), 
+                new PurchaseEventDispatcher(new ErrorLogger()), true);
+    }
+    
+    /**
+     * Creates a new instance of a payment handler publishing purchases to 
+     * the specified dispatcher, which may be shared with the payment 
+     * handlers of other checkout lanes. 
+     * 
+     * @param storeRegistry Registry containing store information.
+     * @param register The register to put the paid amount into, in its 
+     *                 main drawer.
+     * @param purchaseEventDispatcher The dispatcher notifying observers 
+     *                                about purchases.
+     */
+    public Payment(StoreRegistry storeRegistry, Register register, 
+            PurchaseEventDispatcher purchaseEventDispatcher) {
+        this(storeRegistry, register.getMainDrawer(), purchaseEventDispatcher);
+    }
+    
+    /**
+     * Creates a new instance of a payment handler putting the paid amount 
+     * into the specified drawer of a register, such as the drawer of a 
+     * checkout lane, and publishing purchases to the specified dispatcher. 
+     * 
+     * @param storeRegistry Registry containing store information.
+     * @param cashDrawer The drawer to put the paid amount into.
+     * @param purchaseEventDispatcher The dispatcher notifying observers 
+     *                                about purchases.
+     */
+    public Payment(StoreRegistry storeRegistry, CashDrawer cashDrawer, 
+            PurchaseEventDispatcher purchaseEventDispatcher) {
+        this(storeRegistry, cashDrawer, purchaseEventDispatcher, false);
+    }
+    
+    private Payment(StoreRegistry storeRegistry, CashDrawer cashDrawer, 
+            PurchaseEventDispatcher purchaseEventDispatcher, 
+            boolean isDispatcherOwned) {
         this.storeRegistry = storeRegistry;
-        this.register = register;
-        this.totalDiscount = new Amount(0);
+        this.cashDrawer = cashDrawer;
+        this.totalDiscount = Amount.ZERO;
+        this.purchaseEventDispatcher = purchaseEventDispatcher;
+        this.isDispatcherOwned = isDispatcherOwned;
+    }
+    
+    /**
+     * Close the dispatcher of this payment handler if it was created by 
+     * this payment handler, which notifies the observers about every 
+     * purchase already made and then stops their threads. A dispatcher 
+     * passed to the constructor is left open, since it is closed by its 
+     * owner. No payments can be made once the own dispatcher is closed.
+     */
+    public void close() {
+        if (isDispatcherOwned)
+            purchaseEventDispatcher.close();
     }
     
     /**
@@ -50,37 +105,15 @@ public class Payment {
      * @return The final price 
      */
     private PriceTotal calculateFinalPrice() {
-        Amount totalPriceBeforeTaxes = new Amount(0);
-        Amount totalPriceAfterTaxes = new Amount(0);
-        Amount totalTaxes = new Amount(0);
+        AmountAccumulator totals = new AmountAccumulator();
         for (ItemInSaleDTO itemInSale : 
                 saleState.getItemsInSale()) {
             double itemMultiplier = 
                     itemInSale.getItemQuantity().getNumericalValue();
-            Amount totalItemPriceBeforeTax = itemInSale.
-                    getItemInfo().
-                    getItemPrice().
-                    getPriceBeforeTax().
-                    multiply(itemMultiplier);
-            Amount totalItemPriceAfterTaxes = itemInSale.
-                    getItemInfo().
-                    getItemPrice().
-                    getPriceAfterTax().
-                    multiply(itemMultiplier);
-            Amount totalItemTaxes = itemInSale.
-                    getItemInfo().
-                    getItemPrice().
-                    getTaxesAmount().
-                    multiply(itemMultiplier);
-            totalPriceBeforeTaxes = totalPriceBeforeTaxes.plus(
-                    totalItemPriceBeforeTax);
-            totalPriceAfterTaxes = totalPriceAfterTaxes.plus(
-                    totalItemPriceAfterTaxes);
-            totalTaxes = totalTaxes.plus(
-                    totalItemTaxes);
+            totals.addPrice(itemInSale.getItemInfo().getItemPrice(), 
+                    itemMultiplier);
         }
-        PriceTotal finalPrice = new PriceTotal(totalPriceAfterTaxes, 
-                totalPriceBeforeTaxes, totalTaxes);
+        PriceTotal finalPrice = totals.toPriceTotal();
         return finalPrice;
     }
     
@@ -130,7 +163,7 @@ public class Payment {
      * Pay for the sale and complete the purchase. 
      * Updates the amount available in the register.
      * Will notify any {@link PurchaseObserver} listening for when new 
-     * purchases are made.
+     * purchases are made, on the threads of the observers.
      * 
      * @param amountPaid The paid amount.
      * @return The receipt for the purchase.
@@ -140,7 +173,7 @@ public class Payment {
         Amount amountChange = calculateChange(runningTotal, amountPaid);
         PurchaseDTO purchaseInfo = makePurchaseInfo(amountPaid, amountChange);
         ReceiptDTO receipt = makeReceipt(purchaseInfo);
-        register.addAmount(
+        cashDrawer.addAmount(
                 receipt.getPurchaseInfo().
                         getFinalPrice().
                         getTotalPriceAfterTaxes());
@@ -150,23 +183,38 @@ public class Payment {
     }
     
     /**
-     * Add a {@link PurchaseObserver} to the ongoing sale.
+     * Add a {@link PurchaseObserver} to the ongoing sale. Payments wait for 
+     * the observer if it falls too far behind, so that it is notified about 
+     * every purchase.
      * 
      * @param purchaseObserver The observer to add.
      */
     public void addPurchaseObserver(PurchaseObserver purchaseObserver) {
-        purchaseObserverList.add(purchaseObserver);
+        addPurchaseObserver(purchaseObserver, BackpressurePolicy.BLOCK);
+    }
+    
+    /**
+     * Add a {@link PurchaseObserver} to the ongoing sale, handling an 
+     * observer that falls behind according to the specified policy.
+     * 
+     * @param purchaseObserver The observer to add.
+     * @param backpressurePolicy What to do when the observer has not kept 
+     *                           up with the purchases.
+     */
+    public void addPurchaseObserver(PurchaseObserver purchaseObserver, 
+            BackpressurePolicy backpressurePolicy) {
+        purchaseEventDispatcher.subscribe(purchaseObserver, 
+                backpressurePolicy);
     }
     
     /**
      * Notifies purchase observers about a finished purchase, giving them
      * information about the purchase after the payment has been registered.
+     * The observers are notified on their own threads.
      * 
      * @param purchaseInfo Information about the purchase.
      */
     private void notifyObserversNewPurchase(PurchaseDTO purchaseInfo) {
-        for(PurchaseObserver purchaseObserver : purchaseObserverList) {
-            purchaseObserver.newRegisteredPurchase(purchaseInfo);
-        }
+        purchaseEventDispatcher.publish(purchaseInfo);
     }
 }
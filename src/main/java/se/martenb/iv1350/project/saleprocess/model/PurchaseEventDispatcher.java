@@ -0,0 +1,369 @@
+package se.martenb.iv1350.project.saleprocess.model;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import se.martenb.iv1350.project.saleprocess.integration.dto.PurchaseDTO;
+import se.martenb.iv1350.project.saleprocess.util.ErrorLogger;
+
+/**
+ * Notifies {@link PurchaseObserver}s about purchases on their own threads,
+ * so that a slow observer does not hold up the payment.
+ *
+ * Purchases are published into a ring of a fixed number of slots, which is
+ * allocated once when the dispatcher is created. Every slot is numbered by
+ * a sequence that grows with each published purchase, and each observer
+ * reads the ring in sequence order on a thread of its own, notifying the
+ * observer about all purchases that are waiting at once. Any number of
+ * payments may publish at the same time, and publishing a purchase never
+ * allocates any objects.
+ *
+ * When the ring is full, what happens depends on the
+ * {@link BackpressurePolicy} of each observer. Payments wait for observers
+ * that block, while observers that drop or coalesce purchases miss the
+ * purchases that have been overwritten before they read them.
+ *
+ * The observer threads run until the dispatcher is closed. Closing notifies
+ * the observers about every purchase already published and then stops
+ * their threads.
+ */
+public class PurchaseEventDispatcher {
+    /**
+     * The number of purchases the ring holds if no capacity is specified.
+     */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private static final long SLOT_BEING_WRITTEN = Long.MIN_VALUE;
+    private static final int SPINS_BEFORE_PARKING = 100;
+    private static final long PARK_NANOS = 50_000;
+    private final int capacity;
+    private final int indexMask;
+    private final AtomicReferenceArray<PurchaseDTO> slots;
+    private final AtomicLongArray publishedSequences;
+    private final AtomicLong nextSequence = new AtomicLong();
+    private final ErrorLogger errorLogger;
+    private volatile ObserverConsumer[] consumers = new ObserverConsumer[0];
+    private volatile boolean isClosed;
+
+    /**
+     * Creates a new dispatcher with a ring of the default capacity.
+     *
+     * @param errorLogger The logger of exceptions thrown by observers.
+     */
+    public PurchaseEventDispatcher(ErrorLogger errorLogger) {
+        this(DEFAULT_CAPACITY, errorLogger);
+    }
+
+    /**
+     * Creates a new dispatcher with a ring of the specified capacity.
+     *
+     * @param capacity The number of purchases the ring holds, which must be
+     *                 a power of two.
+     * @param errorLogger The logger of exceptions thrown by observers.
+     * @throws IllegalArgumentException If the capacity is not a power of
+     * two.
+     */
+    public PurchaseEventDispatcher(int capacity, ErrorLogger errorLogger) {
+        if (capacity < 1 || Integer.bitCount(capacity) != 1)
+            throw new IllegalArgumentException(
+                    "The capacity must be a power of two.");
+        this.capacity = capacity;
+        this.indexMask = capacity - 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.publishedSequences = new AtomicLongArray(capacity);
+        for (int index = 0; index < capacity; index++)
+            publishedSequences.set(index, index - capacity);
+        this.errorLogger = errorLogger;
+    }
+
+    /**
+     * Start notifying the specified observer about purchases published
+     * from now on, on a thread of its own.
+     *
+     * @param purchaseObserver The observer to notify.
+     * @param backpressurePolicy What to do when the observer has not kept
+     *                           up with the purchases.
+     * @throws IllegalStateException If the dispatcher is closed.
+     */
+    public synchronized void subscribe(PurchaseObserver purchaseObserver,
+            BackpressurePolicy backpressurePolicy) {
+        if (isClosed)
+            throw new IllegalStateException("The dispatcher is closed.");
+        ObserverConsumer consumer = new ObserverConsumer(purchaseObserver,
+                backpressurePolicy, nextSequence.get());
+        ObserverConsumer[] updatedConsumers =
+                Arrays.copyOf(consumers, consumers.length + 1);
+        updatedConsumers[consumers.length] = consumer;
+        consumers = updatedConsumers;
+        consumer.start();
+    }
+
+    /**
+     * Publish a purchase to all subscribed observers. Waits only if an
+     * observer that blocks has fallen a full ring behind.
+     *
+     * @param purchaseInfo Information about the purchase.
+     * @throws IllegalStateException If the dispatcher is closed.
+     */
+    public void publish(PurchaseDTO purchaseInfo) {
+        if (isClosed)
+            throw new IllegalStateException("The dispatcher is closed.");
+        long sequence = nextSequence.getAndIncrement();
+        int index = indexOf(sequence);
+        awaitFreeSlot(sequence, index);
+        publishedSequences.set(index, SLOT_BEING_WRITTEN);
+        slots.set(index, purchaseInfo);
+        publishedSequences.set(index, sequence);
+        wakeWaitingConsumers();
+    }
+
+    /**
+     * Wait until every observer has been notified about, or has skipped,
+     * every purchase published so far.
+     */
+    public void awaitNotifiedObservers() {
+        long publishedEnd = nextSequence.get();
+        for (ObserverConsumer consumer : consumers) {
+            int spins = 0;
+            while (consumer.nextSequence < publishedEnd)
+                spins = backOff(spins);
+        }
+    }
+
+    /**
+     * Close the dispatcher. Waits until every observer has been notified
+     * about, or has skipped, every purchase published so far, and then
+     * stops the threads of the observers. No purchases can be published
+     * once the dispatcher is closed. Closing a closed dispatcher does
+     * nothing.
+     */
+    public void close() {
+        synchronized (this) {
+            isClosed = true;
+        }
+        boolean isInterrupted = false;
+        for (ObserverConsumer consumer : consumers) {
+            LockSupport.unpark(consumer.consumerThread);
+            while (consumer.consumerThread.isAlive()) {
+                try {
+                    consumer.consumerThread.join();
+                } catch (InterruptedException exc) {
+                    isInterrupted = true;
+                }
+            }
+        }
+        if (isInterrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    /**
+     * Get the index of the slot of the specified sequence.
+     *
+     * @param sequence The sequence.
+     * @return The index of the slot in the ring.
+     */
+    private int indexOf(long sequence) {
+        return (int) sequence & indexMask;
+    }
+
+    /**
+     * Wait until the slot of the specified sequence may be written, which
+     * is when the purchase a full ring earlier has been published and every
+     * observer that blocks has read it.
+     *
+     * @param sequence The sequence to write.
+     * @param index The index of the slot of the sequence.
+     */
+    private void awaitFreeSlot(long sequence, int index) {
+        long previousSequence = sequence - capacity;
+        int spins = 0;
+        while (publishedSequences.get(index) != previousSequence ||
+                previousSequence >= slowestBlockingSequence())
+            spins = backOff(spins);
+    }
+
+    /**
+     * Get the next sequence to read of the observer that blocks and is the
+     * furthest behind.
+     *
+     * @return The sequence, or <code>Long.MAX_VALUE</code> if no observer
+     * blocks.
+     */
+    private long slowestBlockingSequence() {
+        long slowestSequence = Long.MAX_VALUE;
+        for (ObserverConsumer consumer : consumers) {
+            if (consumer.backpressurePolicy == BackpressurePolicy.BLOCK)
+                slowestSequence =
+                        Math.min(slowestSequence, consumer.nextSequence);
+        }
+        return slowestSequence;
+    }
+
+    /**
+     * Wake the threads of the observers waiting for purchases.
+     */
+    private void wakeWaitingConsumers() {
+        for (ObserverConsumer consumer : consumers) {
+            if (consumer.waiting)
+                LockSupport.unpark(consumer.consumerThread);
+        }
+    }
+
+    /**
+     * Spin for a while before parking the thread for a short time.
+     *
+     * @param spins The number of times the thread has backed off so far.
+     * @return The number of times the thread has backed off.
+     */
+    private static int backOff(int spins) {
+        if (spins < SPINS_BEFORE_PARKING)
+            Thread.onSpinWait();
+        else
+            LockSupport.parkNanos(PARK_NANOS);
+        return spins + 1;
+    }
+
+    /**
+     * Reads the ring and notifies one observer, on a thread of its own.
+     */
+    private final class ObserverConsumer implements Runnable {
+        private final PurchaseObserver purchaseObserver;
+        private final BackpressurePolicy backpressurePolicy;
+        private final Thread consumerThread;
+        private volatile long nextSequence;
+        private volatile boolean waiting;
+
+        private ObserverConsumer(PurchaseObserver purchaseObserver,
+                BackpressurePolicy backpressurePolicy, long firstSequence) {
+            this.purchaseObserver = purchaseObserver;
+            this.backpressurePolicy = backpressurePolicy;
+            this.nextSequence = firstSequence;
+            this.consumerThread = new Thread(this, "purchase-observer");
+            this.consumerThread.setDaemon(true);
+        }
+
+        /**
+         * Start reading the ring.
+         */
+        private void start() {
+            consumerThread.start();
+        }
+
+        /**
+         * Read the ring until the dispatcher is closed and every published
+         * purchase has been read. When the thread ends, for whatever
+         * reason, the consumer stops holding up payments.
+         */
+        @Override
+        public void run() {
+            try {
+                boolean isDrained = false;
+                while (!isDrained) {
+                    boolean wasClosed = isClosed;
+                    if (consumeAvailable())
+                        continue;
+                    if (wasClosed)
+                        isDrained = true;
+                    else
+                        awaitPublished();
+                }
+            } finally {
+                nextSequence = Long.MAX_VALUE;
+            }
+        }
+
+        /**
+         * Notify the observer about all purchases published since it was
+         * last notified.
+         *
+         * @return <code>true</code> if any purchases were read.
+         */
+        private boolean consumeAvailable() {
+            long firstSequence = nextSequence;
+            long endSequence = firstSequence;
+            while (endSequence - firstSequence < capacity &&
+                    isPublished(endSequence))
+                endSequence++;
+            if (endSequence == firstSequence)
+                return false;
+            PurchaseDTO latestPurchase = null;
+            for (long sequence = firstSequence; sequence < endSequence;
+                    sequence++) {
+                PurchaseDTO purchaseInfo = read(sequence);
+                if (purchaseInfo == null)
+                    continue;
+                if (backpressurePolicy == BackpressurePolicy.COALESCE)
+                    latestPurchase = purchaseInfo;
+                else
+                    notifyObserver(purchaseInfo);
+            }
+            if (latestPurchase != null)
+                notifyObserver(latestPurchase);
+            nextSequence = endSequence;
+            return true;
+        }
+
+        /**
+         * See if the specified sequence has been published, or already
+         * overwritten by a later sequence.
+         *
+         * @param sequence The sequence.
+         * @return <code>true</code> if the sequence can be read or skipped.
+         */
+        private boolean isPublished(long sequence) {
+            return publishedSequences.get(indexOf(sequence)) >= sequence;
+        }
+
+        /**
+         * Read the purchase of the specified published sequence.
+         *
+         * @param sequence The sequence.
+         * @return The purchase, or <code>null</code> if the slot has been
+         * overwritten by a later sequence.
+         */
+        private PurchaseDTO read(long sequence) {
+            int index = indexOf(sequence);
+            if (publishedSequences.get(index) != sequence)
+                return null;
+            PurchaseDTO purchaseInfo = slots.get(index);
+            if (publishedSequences.get(index) != sequence)
+                return null;
+            return purchaseInfo;
+        }
+
+        /**
+         * Wait until the next sequence is published or the dispatcher is
+         * closed. Spins for a while before parking the thread until a
+         * purchase is published.
+         */
+        private void awaitPublished() {
+            for (int spins = 0; spins < SPINS_BEFORE_PARKING; spins++) {
+                if (isPublished(nextSequence) || isClosed)
+                    return;
+                Thread.onSpinWait();
+            }
+            waiting = true;
+            if (!isPublished(nextSequence) && !isClosed)
+                LockSupport.park(this);
+            waiting = false;
+        }
+
+        /**
+         * Notify the observer about a purchase, logging any exception or
+         * error thrown by the observer, so that a failing observer keeps
+         * being notified.
+         *
+         * @param purchaseInfo Information about the purchase.
+         */
+        private void notifyObserver(PurchaseDTO purchaseInfo) {
+            try {
+                purchaseObserver.newRegisteredPurchase(purchaseInfo);
+            } catch (Throwable exception) {
+                errorLogger.logException(exception);
+            }
+        }
+    }
+
+}
@@ -1,35 +1,233 @@
 package se.martenb.iv1350.project.saleprocess.model;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import se.martenb.iv1350.project.saleprocess.integration.dto.RegisterBalanceDTO;
 import se.martenb.iv1350.project.saleprocess.util.Amount;
 
 /**
- * Representing a register in a store and its content.
+ * Representing a register in a store and its content. The register can be
+ * shared by several checkout lanes. Each lane puts payments into a
+ * {@link CashDrawer} of its own, so lanes never wait for each other, and
+ * the drawers roll up into the total of the register. Amounts added
+ * without a lane go into the main drawer, which also holds the amount the
+ * register starts with.
  */
 public class Register {
-    private Amount amount;
-    
+    private static final int OPTIMISTIC_SNAPSHOT_ATTEMPTS = 32;
+    private final CashDrawer mainDrawer;
+    private final ConcurrentMap<Integer, CashDrawer> laneDrawers =
+            new ConcurrentHashMap<>();
+
     /**
-     * Creates a new instance of a {@link Register}, setting the register 
+     * Creates a new instance of a {@link Register}, setting the register
      * amount to a dummy value.
      */
     public Register() {
         double dummyRegisterAmount = 10000;
-        amount = new Amount(10000);
+        mainDrawer = new CashDrawer(new Amount(dummyRegisterAmount));
+    }
+
+    /**
+     * Get the drawer of the specified lane, opening an empty drawer if the
+     * lane has none.
+     *
+     * @param laneID The lane of the drawer.
+     * @return The drawer of the lane.
+     */
+    public CashDrawer openDrawer(int laneID) {
+        return laneDrawers.computeIfAbsent(laneID,
+                newLaneID -> new CashDrawer(Amount.ZERO));
     }
-    
+
     /**
-     * Add an {@link Amount} to the register
+     * Get the drawer for amounts not added by a lane.
+     *
+     * @return The main drawer.
+     */
+    CashDrawer getMainDrawer() {
+        return mainDrawer;
+    }
+
+    /**
+     * Add an {@link Amount} to the main drawer of the register.
      */
     void addAmount(Amount amountToAdd) {
-        amount = amount.plus(amountToAdd);
+        mainDrawer.addAmount(amountToAdd);
     }
-    
+
     /**
-     * Get the {@link Amount} for this object.
-     * 
+     * Get the total {@link Amount} in all drawers of the register.
+     *
      * @return The amount.
      */
     Amount getAmount() {
-        return amount;
+        return snapshot().getTotalAmount();
+    }
+
+    /**
+     * Get the balance of every drawer and the total of the register, as
+     * they were at one point in time. The balances are read without
+     * stopping the lanes, and read again if an amount was being added to
+     * any drawer, or any drawer changed, while they were read. If they
+     * keep changing, the drawers are locked one by one, the main drawer
+     * first and then the lane drawers in order of lane, and read while
+     * payments wait, so a snapshot is never starved by busy lanes.
+     *
+     * @return The balance of the register.
+     * @throws ArithmeticException If the total overflows.
+     */
+    public RegisterBalanceDTO snapshot() {
+        for (int attempt = 0; attempt < OPTIMISTIC_SNAPSHOT_ATTEMPTS;
+                attempt++) {
+            RegisterBalanceDTO balance = trySnapshotWithoutLocking();
+            if (balance != null)
+                return balance;
+            Thread.onSpinWait();
+        }
+        return snapshotLockingDrawers();
+    }
+
+    /**
+     * Read the balances of all drawers without locking them.
+     *
+     * @return The balance of the register, or <code>null</code> if any
+     * drawer changed while the balances were read.
+     */
+    private RegisterBalanceDTO trySnapshotWithoutLocking() {
+        Map<Integer, CashDrawer> drawers = new HashMap<>(laneDrawers);
+        Map<CashDrawer, Long> sequencesBefore = readSequences(drawers);
+        if (sequencesBefore == null)
+            return null;
+        long mainBalance = mainDrawer.getBalanceMinorUnits();
+        Map<Integer, Long> laneBalances = readLaneBalances(drawers);
+        if (!isUnchangedSince(sequencesBefore))
+            return null;
+        return makeBalance(mainBalance, laneBalances);
+    }
+
+    /**
+     * Read the balances of all drawers while holding the lock of every
+     * drawer, so that no amount can be added while they are read. Read
+     * again if a drawer was opened while the drawers were locked.
+     *
+     * @return The balance of the register.
+     */
+    private RegisterBalanceDTO snapshotLockingDrawers() {
+        while (true) {
+            Map<Integer, CashDrawer> drawers = new TreeMap<>(laneDrawers);
+            List<CashDrawer> drawersInLockOrder = new ArrayList<>();
+            drawersInLockOrder.add(mainDrawer);
+            drawersInLockOrder.addAll(drawers.values());
+            RegisterBalanceDTO balance =
+                    readWhileLocked(drawersInLockOrder, 0, drawers);
+            if (balance != null)
+                return balance;
+        }
+    }
+
+    /**
+     * Lock the remaining drawers in order, and read the balances once all
+     * of them are locked.
+     *
+     * @param drawersInLockOrder All drawers, in the order they are locked.
+     * @param lockedDrawers The number of drawers already locked.
+     * @param drawers The lane drawers.
+     * @return The balance of the register, or <code>null</code> if a
+     * drawer was opened before all drawers were locked.
+     */
+    private RegisterBalanceDTO readWhileLocked(
+            List<CashDrawer> drawersInLockOrder, int lockedDrawers,
+            Map<Integer, CashDrawer> drawers) {
+        if (lockedDrawers < drawersInLockOrder.size()) {
+            synchronized (drawersInLockOrder.get(lockedDrawers)) {
+                return readWhileLocked(drawersInLockOrder, lockedDrawers + 1,
+                        drawers);
+            }
+        }
+        if (laneDrawers.size() != drawers.size())
+            return null;
+        return makeBalance(mainDrawer.getBalanceMinorUnits(),
+                readLaneBalances(drawers));
+    }
+
+    /**
+     * Read the balance of each of the specified lane drawers.
+     *
+     * @param drawers The lane drawers.
+     * @return The balance of each drawer in minor units, by lane.
+     */
+    private Map<Integer, Long> readLaneBalances(
+            Map<Integer, CashDrawer> drawers) {
+        Map<Integer, Long> laneBalances = new HashMap<>();
+        for (Map.Entry<Integer, CashDrawer> drawer : drawers.entrySet())
+            laneBalances.put(drawer.getKey(),
+                    drawer.getValue().getBalanceMinorUnits());
+        return laneBalances;
+    }
+
+    /**
+     * Create the balance of the register from the balances of its drawers.
+     *
+     * @param mainBalance The balance of the main drawer in minor units.
+     * @param laneBalances The balance of each lane drawer in minor units.
+     * @return The balance of the register.
+     * @throws ArithmeticException If the total overflows.
+     */
+    private RegisterBalanceDTO makeBalance(long mainBalance,
+            Map<Integer, Long> laneBalances) {
+        long totalBalance = mainBalance;
+        Map<Integer, Amount> laneDrawerAmounts = new HashMap<>();
+        for (Map.Entry<Integer, Long> laneBalance : laneBalances.entrySet()) {
+            totalBalance = Math.addExact(totalBalance,
+                    laneBalance.getValue());
+            laneDrawerAmounts.put(laneBalance.getKey(),
+                    Amount.ofMinorUnits(laneBalance.getValue()));
+        }
+        return new RegisterBalanceDTO(Amount.ofMinorUnits(totalBalance),
+                Amount.ofMinorUnits(mainBalance), laneDrawerAmounts);
+    }
+
+    /**
+     * Read the sequence number of the main drawer and the specified lane
+     * drawers.
+     *
+     * @param drawers The lane drawers.
+     * @return The sequence number of each drawer, or <code>null</code> if
+     * an amount was being added to any of them.
+     */
+    private Map<CashDrawer, Long> readSequences(
+            Map<Integer, CashDrawer> drawers) {
+        Map<CashDrawer, Long> sequences = new HashMap<>();
+        sequences.put(mainDrawer, mainDrawer.getSequence());
+        for (CashDrawer drawer : drawers.values())
+            sequences.put(drawer, drawer.getSequence());
+        for (long sequence : sequences.values()) {
+            if ((sequence & 1) != 0)
+                return null;
+        }
+        return sequences;
+    }
+
+    /**
+     * See if no amount has been added to any drawer, and no drawer has
+     * been opened, since the sequence numbers of the drawers were read.
+     *
+     * @param sequencesBefore The sequence number of each drawer when read.
+     * @return <code>true</code> if no drawer has changed.
+     */
+    private boolean isUnchangedSince(Map<CashDrawer, Long> sequencesBefore) {
+        if (laneDrawers.size() + 1 != sequencesBefore.size())
+            return false;
+        for (Map.Entry<CashDrawer, Long> drawer : sequencesBefore.entrySet()) {
+            if (drawer.getKey().getSequence() != drawer.getValue())
+                return false;
+        }
+        return true;
     }
 }
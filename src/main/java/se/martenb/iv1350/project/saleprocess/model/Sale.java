@@ -42,4 +42,22 @@ public class Sale {
         return saleState;
     }
     
+    /**
+     * Add several items to the sale, for example a whole basket from a 
+     * self-checkout. Either all items are added or, if any quantity is 
+     * invalid, none of them.
+     * 
+     * @param itemInfos What items to add.
+     * @param quantities How many of each item to add.
+     * 
+     * @return The state of the updated sale in a {@link SaleDTO} object.
+     * @throws IllegalItemQuantityException if any quantity was invalid.
+     */
+    public SaleDTO addItemsToSale(ItemDTO[] itemInfos, Quantity[] quantities) 
+            throws IllegalItemQuantityException {
+        saleInformation.addItemsToSale(itemInfos, quantities);
+        SaleDTO saleState = saleInformation.getSaleDTO();
+        return saleState;
+    }
+    
 }
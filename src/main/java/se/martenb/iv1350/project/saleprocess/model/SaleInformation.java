@@ -5,6 +5,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 import se.martenb.iv1350.project.saleprocess.util.Amount;
+import se.martenb.iv1350.project.saleprocess.util.AmountAccumulator;
+import se.martenb.iv1350.project.saleprocess.util.IntIntMap;
+import se.martenb.iv1350.project.saleprocess.util.PersistentList;
 import se.martenb.iv1350.project.saleprocess.integration.dto.ItemDTO;
 import se.martenb.iv1350.project.saleprocess.integration.dto.ItemInSaleDTO;
 import se.martenb.iv1350.project.saleprocess.util.Quantity;
@@ -16,8 +19,11 @@ import se.martenb.iv1350.project.saleprocess.util.Unit;
  */
 class SaleInformation {
     private LocalDateTime saleTime;
-    private Amount runningTotal;
+    private final AmountAccumulator runningTotal;
     private List<Item> itemList = new ArrayList<>();
+    private PersistentList<ItemInSaleDTO> itemsInSale = PersistentList.empty();
+    private final IntIntMap positionsByItemID = new IntIntMap();
+    private ItemInSaleDTO lastChangedItem;
     private int totalItems = 0;
 
     /**
@@ -25,7 +31,7 @@ class SaleInformation {
      * with an ongoing sale.
      */
     SaleInformation() {
-        runningTotal = new Amount(0);
+        runningTotal = new AmountAccumulator();
     }
     
     /**
@@ -45,66 +51,33 @@ class SaleInformation {
     }
     
     /**
-     * See if an {@link Item} object is uniquely identified by a
-     * specified {@link ItemDTO}. 
-     * 
-     * @param itemCompare Item to compare against an ItemDTO.
-     * @param itemDTOMatch ItemDTO to match the specified Item.
-     * @return If the Item was identified by the specified ItemDTO.
-     */
-    private boolean doesItemAndItemDTOMatch(Item itemCompare, 
-            ItemDTO itemDTOMatch) {
-        int idOfItemCompare = 
-                itemCompare.getItemInSale().getItemInfo().getItemID();
-        int idOfItemDTOMatch = itemDTOMatch.getItemID();
-        boolean doesBothItemsHaveTheSameID = 
-                idOfItemCompare == idOfItemDTOMatch;
-        return doesBothItemsHaveTheSameID;
-    }
-    
-    /**
-     * See if item is in current sale, returns <code>true</code> if the item
-     * with its unique ID is found among the items in the current sale, returns
-     * <code>false</code> no match among all the items in sale was found.
-     * 
-     * @param itemInfo The item to search for.
-     * @return If the item was in the current sale or not.
-     */
-    private boolean isItemInSale(ItemDTO itemInfo) {
-        for (Item itemInSale : itemList)
-            if (doesItemAndItemDTOMatch(itemInSale, itemInfo))
-                return true;
-        return false;
-    }
-    
-    /**
-     * Get the {@link Item} in sale that matches the specified 
-     * {@link ItemDTO}. If there's no match, a <code>null</code> value 
-     * will be returned.
+     * Get the position in the current sale of the {@link Item} that matches 
+     * the specified {@link ItemDTO}. If there's no match, <code>-1</code> 
+     * will be returned. The position is looked up by item ID, so the time
+     * taken does not depend on the number of items in the sale.
      * 
      * @param itemInfo The item to look for.
-     * @return The found {@link Item} or <code>null</code>.
+     * @return The position of the found {@link Item} or <code>-1</code>.
      */
-    private Item getItemInSale(ItemDTO itemInfo) {
-        Item foundItemInSale = null;
-        for (Item itemInSale : itemList)
-            if (doesItemAndItemDTOMatch(itemInSale, itemInfo))
-                foundItemInSale = itemInSale;
-        
-        return foundItemInSale;
+    private int findPositionInSale(ItemDTO itemInfo) {
+        return positionsByItemID.getOrDefault(itemInfo.getItemID(), -1);
     }
     
     /**
-     * Increases the quantity amount of an item in the current sale.
+     * Increases the quantity amount of an item in the current sale. Only the
+     * changed item is replaced in the list of items in the sale, which is 
+     * shared with earlier snapshots of the sale.
      * 
-     * @param itemInfo The item to increase the {@link Quantity} of.
+     * @param positionOfItem The position of the item to increase the 
+     *                       {@link Quantity} of.
      * @param quantity How much to increase the {@link Quantity} with.
      */
-    private void increaseItemQuantity(ItemDTO itemInfo, Quantity quantity) {
+    private void increaseItemQuantity(int positionOfItem, Quantity quantity) {
         double quantityValue = quantity.getNumericalValue();
-        Item itemToIncreaseQuantityOf = getItemInSale(itemInfo);
-        if (itemToIncreaseQuantityOf != null)
-            itemToIncreaseQuantityOf.addQuantity(quantityValue);
+        Item itemToIncreaseQuantityOf = itemList.get(positionOfItem);
+        itemToIncreaseQuantityOf.addQuantity(quantityValue);
+        lastChangedItem = itemToIncreaseQuantityOf.getItemInSale();
+        itemsInSale = itemsInSale.with(positionOfItem, lastChangedItem);
         if (quantity.getUnitType() == Unit.PIECE)
             updateTotalPiecesOfItems(quantity);
     }
@@ -131,7 +104,10 @@ class SaleInformation {
      */
     private void putNewItemInSale(ItemDTO itemInfo, Quantity quantity) {
         Item newItemToPutInSale = createItemToPutInSale(itemInfo, quantity);
+        positionsByItemID.put(itemInfo.getItemID(), itemList.size());
         itemList.add(newItemToPutInSale);
+        lastChangedItem = newItemToPutInSale.getItemInSale();
+        itemsInSale = itemsInSale.plus(lastChangedItem);
         updateTotalPiecesOfItems(quantity);
     }
     
@@ -159,12 +135,8 @@ class SaleInformation {
      */
     private void updateRunningTotal(ItemDTO itemInfo, Quantity quantity) {
         double quantityValue = quantity.getNumericalValue();
-        Amount amountCostOfAddedItems = 
-                itemInfo.
-                        getItemPrice().
-                        getPriceAfterTax().
-                        multiply(quantityValue);
-        runningTotal = runningTotal.plus(amountCostOfAddedItems);
+        runningTotal.addPriceAfterTaxes(itemInfo.getItemPrice(), 
+                quantityValue);
     }
     
     /**
@@ -175,13 +147,52 @@ class SaleInformation {
      */
     void addItemToSale(ItemDTO itemInfo, Quantity quantity) 
             throws IllegalItemQuantityException {
+        checkQuantity(itemInfo, quantity);
+        addCheckedItemToSale(itemInfo, quantity);
+    }
+    
+    /**
+     * Add several items to the current sale. All quantities are checked 
+     * before any item is added, so either all items are added or none.
+     * 
+     * @param itemInfos Items to add to the sale.
+     * @param quantities The quantity of each item to add to the sale.
+     * @throws IllegalItemQuantityException if any quantity was invalid.
+     */
+    void addItemsToSale(ItemDTO[] itemInfos, Quantity[] quantities) 
+            throws IllegalItemQuantityException {
+        for (int i = 0; i < itemInfos.length; i++)
+            checkQuantity(itemInfos[i], quantities[i]);
+        for (int i = 0; i < itemInfos.length; i++)
+            addCheckedItemToSale(itemInfos[i], quantities[i]);
+    }
+    
+    /**
+     * Check that a quantity of an item can be added to the sale.
+     * 
+     * @param itemInfo Item to add to the sale.
+     * @param quantity The quantity of the item to add to the sale.
+     * @throws IllegalItemQuantityException if the quantity was invalid.
+     */
+    private void checkQuantity(ItemDTO itemInfo, Quantity quantity) 
+            throws IllegalItemQuantityException {
         double numericalQuantity = quantity.getNumericalValue();
         if (numericalQuantity <= 0) {
             int itemID = itemInfo.getItemID();
             throw new IllegalItemQuantityException(itemID, quantity);
         }
-        if (isItemInSale(itemInfo))
-            increaseItemQuantity(itemInfo, quantity);
+    }
+    
+    /**
+     * Add an item with a checked quantity to the current sale.
+     * 
+     * @param itemInfo Item to add to the sale.
+     * @param quantity The quantity of the item to add to the sale.
+     */
+    private void addCheckedItemToSale(ItemDTO itemInfo, Quantity quantity) {
+        int positionOfItem = findPositionInSale(itemInfo);
+        if (positionOfItem >= 0)
+            increaseItemQuantity(positionOfItem, quantity);
         else
             putNewItemInSale(itemInfo, quantity);
         updateRunningTotal(itemInfo, quantity);
@@ -189,14 +200,12 @@ class SaleInformation {
     
     /**
      * Get a list with the currents sales' items 
-     * {@link ItemInSaleDTO} objects.
+     * {@link ItemInSaleDTO} objects. The list is an immutable snapshot, 
+     * it is not changed when more items are added to the sale.
      * @return 
      */
     private List<ItemInSaleDTO> getListForItemInSaleDTO() {
-        List<ItemInSaleDTO> listItemInSaleDTO = new ArrayList<>(); 
-        for (Item itemInSale : itemList)
-            listItemInSaleDTO.add(itemInSale.getItemInSale());
-        return listItemInSaleDTO;
+        return itemsInSale;
     }
     
     /**
@@ -206,8 +215,8 @@ class SaleInformation {
      */
     SaleDTO getSaleDTO() {
         List<ItemInSaleDTO> itemInSaleDTOList = getListForItemInSaleDTO();
-        SaleDTO saleDTO = new SaleDTO(saleTime, runningTotal, 
-                itemInSaleDTOList, totalItems);
+        SaleDTO saleDTO = new SaleDTO(saleTime, getRunningTotal(), 
+                itemInSaleDTOList, totalItems, lastChangedItem);
         return saleDTO;
     }
     
@@ -217,7 +226,7 @@ class SaleInformation {
      * @return {@link Amount} of running total.
      */
     Amount getRunningTotal() {
-        return runningTotal;
+        return runningTotal.getTotalPriceAfterTaxes();
     }
     
 }
@@ -0,0 +1,38 @@
+package se.martenb.iv1350.project.saleprocess.startup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import se.martenb.iv1350.project.saleprocess.integration.catalog.ItemCatalogWriter;
+
+/**
+ * Command line tool converting a CSV item catalog into the binary catalog 
+ * format read by the item registry.
+ */
+public class CatalogConverter {
+    /**
+     * Converts the CSV catalog named by the first argument into a binary 
+     * catalog file named by the second argument.
+     *
+     * @param args The CSV file to read and the catalog file to write.
+     */
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.err.println("Usage: CatalogConverter <catalog.csv> " + 
+                    "<catalog.bin>");
+            System.exit(1);
+        }
+        Path csvFile = Paths.get(args[0]);
+        Path catalogFile = Paths.get(args[1]);
+        try {
+            int convertedItems = 
+                    new ItemCatalogWriter().convertCSVCatalog(
+                            csvFile, catalogFile);
+            System.out.println("Wrote " + convertedItems + " items to " + 
+                    catalogFile);
+        } catch (IOException | IllegalArgumentException exc) {
+            System.err.println("Conversion failed: " + exc.getMessage());
+            System.exit(1);
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package se.martenb.iv1350.project.saleprocess.startup;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import se.martenb.iv1350.project.saleprocess.controller.Controller;
 import se.martenb.iv1350.project.saleprocess.integration.Printer;
 import se.martenb.iv1350.project.saleprocess.view.View;
@@ -9,15 +11,24 @@ import se.martenb.iv1350.project.saleprocess.view.View;
  * the application.
  */
 public class Main {
+    private static final Path DEFAULT_SALES_LEDGER_DIRECTORY = 
+            Path.of("sales-ledger");
+    
     /**
      * The main method used to start the entire application.
      *
-     * @param args The application does not take any command line parameters.
+     * @param args The first parameter, if any, is the directory of the sales 
+     *             ledger. Without it, the ledger is kept in 
+     *             <code>sales-ledger</code> in the working directory.
+     * @throws IOException If the sales ledger could not be opened.
      */
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        Path salesLedgerDirectory = args != null && args.length > 0 ? 
+                Path.of(args[0]) : DEFAULT_SALES_LEDGER_DIRECTORY;
         Printer printer = new Printer();
-        Controller contr = new Controller(printer);
+        Controller contr = new Controller(printer, salesLedgerDirectory);
         View view = new View(contr);
         view.runFakeExecution();
+        contr.shutdown();
     }
 }
@@ -5,162 +5,521 @@ import java.math.RoundingMode;
 
 /**
  * Represents an amount of money. Instances are immutable.
+ *
+ * The amount is kept as a whole number of minor units, for example
+ * <code>1995</code> for <code>19.95 SEK</code>, so that adding, subtracting
+ * and multiplying amounts is exact and does not create any objects except
+ * the result. Operations without a {@link RoundingMode} round toward zero,
+ * exactly as if the operation had been made on the exact decimal value of
+ * the operands. An {@link ArithmeticException} is thrown if the result is
+ * too large to be represented.
  */
 public class Amount {
-    private final int DECIMAL_PRECISION = 2;
-    private final String STANDARD_CURRENCY = "SEK";
-    private final RoundingMode STANDARD_ROUNDING = RoundingMode.DOWN;
-    private final BigDecimal amount;
+    private static final int DECIMAL_PRECISION = 2;
+    private static final long MINOR_UNITS_PER_UNIT = 100;
+    private static final String STANDARD_CURRENCY = "SEK";
+    private static final RoundingMode STANDARD_ROUNDING = RoundingMode.DOWN;
+    private static final double LARGEST_EXACT_OPERAND = 0x1p51;
+
+    /**
+     * An amount of zero in the standard currency.
+     */
+    public static final Amount ZERO = new Amount(STANDARD_CURRENCY, 0);
+
+    private final long minorUnits;
     private final String currency;
-    
+
     /**
      * Creates a new instance, representing the specified amount.
-     * Sets the currency to the standard currency and sets the decimal 
+     * Sets the currency to the standard currency and sets the decimal
      * precision to the specified precision.
-     * 
+     *
      * @param amount The amount represented by the newly created instance.
-     * 
+     *
     */
     public Amount(double amount) {
-        this.amount = new BigDecimal(amount).
-                setScale(DECIMAL_PRECISION, STANDARD_ROUNDING);
-        this.currency = STANDARD_CURRENCY;
+        this(STANDARD_CURRENCY, roundedQuotient(amount, MINOR_UNITS_PER_UNIT,
+                0, 1, STANDARD_ROUNDING));
     }
-    
+
     /**
      * Creates a new instance, representing the specified amount.
-     * Sets the currency to the standard currency and sets the decimal 
+     * Sets the currency to the standard currency and sets the decimal
      * precision to the specified precision.
-     * 
+     *
      * @param amount The amount represented by the newly created instance.
-     * 
+     *
     */
     public Amount(BigDecimal amount) {
-        this.amount = amount.setScale(DECIMAL_PRECISION, STANDARD_ROUNDING);
-        this.currency = STANDARD_CURRENCY;
+        this(STANDARD_CURRENCY, amount.
+                setScale(DECIMAL_PRECISION, STANDARD_ROUNDING).
+                unscaledValue().
+                longValueExact());
+    }
+
+    /**
+     * Creates a new instance, representing the specified number of minor
+     * units in the specified currency.
+     *
+     * @param currency The currency of the amount.
+     * @param minorUnits The amount in minor units.
+     */
+    private Amount(String currency, long minorUnits) {
+        this.currency = currency;
+        this.minorUnits = minorUnits;
+    }
+
+    /**
+     * Creates a new instance, representing the specified number of minor
+     * units, for example <code>1995</code> for <code>19.95</code>, in the
+     * standard currency.
+     *
+     * @param minorUnits The amount in minor units.
+     * @return The amount.
+     */
+    public static Amount ofMinorUnits(long minorUnits) {
+        if (minorUnits == 0)
+            return ZERO;
+        return new Amount(STANDARD_CURRENCY, minorUnits);
+    }
+
+    /**
+     * Creates a new instance, representing the specified amount rounded to
+     * whole minor units with the specified {@link RoundingMode}.
+     *
+     * @param amount The amount to represent.
+     * @param roundingMode How to round the amount.
+     * @return The amount.
+     */
+    public static Amount of(double amount, RoundingMode roundingMode) {
+        return ofMinorUnits(roundedQuotient(amount, MINOR_UNITS_PER_UNIT, 0,
+                1, roundingMode));
     }
 
     /**
      * Get the amount for this object.
-     * 
+     *
      * @return The amount.
      */
     public BigDecimal getAmount() {
-        return amount;
+        return BigDecimal.valueOf(minorUnits, DECIMAL_PRECISION);
+    }
+
+    /**
+     * Get the amount for this object in minor units, for example
+     * <code>1995</code> for <code>19.95</code>.
+     *
+     * @return The amount in minor units.
+     */
+    public long getMinorUnits() {
+        return minorUnits;
     }
 
     /**
      * Get the currency for this object.
-     * 
+     *
      * @return The currency.
      */
     public String getCurrency() {
         return currency;
     }
-    
+
     /**
-     * Adds the specified <code>double</code> value to this object and returns 
+     * Adds the specified <code>double</code> value to this object and returns
      * an {@link Amount} instance with the result.
-     * 
+     *
      * @param amountToAdd Amount to add
      * @return The sum of the addition.
      */
     public Amount plus(double amountToAdd) {
-        BigDecimal amountToAddBigDecimal = new BigDecimal(amountToAdd);
-        return new Amount(amount.add(amountToAddBigDecimal));
+        return withMinorUnits(roundedQuotient(amountToAdd,
+                MINOR_UNITS_PER_UNIT, minorUnits, 1, STANDARD_ROUNDING));
     }
-    
+
     /**
-     * Adds the specified {@link Amount} to this object and returns 
+     * Adds the specified {@link Amount} to this object and returns
      * an {@link Amount} instance with the result.
-     * 
+     *
      * @param amountToAdd Amount to add
      * @return The sum of the addition.
      */
     public Amount plus(Amount amountToAdd) {
-        return new Amount(amount.add(amountToAdd.amount));
+        return withMinorUnits(Math.addExact(minorUnits,
+                amountToAdd.minorUnits));
     }
-    
+
     /**
-     * Subtracts the specified <code>double</code> from this object and 
+     * Subtracts the specified <code>double</code> from this object and
      * returns an {@link Amount} instance with the result.
-     * 
+     *
      * @param amountToSubtract The {@link Amount} to subtract.
      * @return The difference of the subtraction.
      */
     public Amount minus(double amountToSubtract) {
-        BigDecimal amountToSubtractBigDecimal = 
-                new BigDecimal(amountToSubtract);
-        return new Amount(amount.subtract(amountToSubtractBigDecimal));
+        return withMinorUnits(roundedQuotient(-amountToSubtract,
+                MINOR_UNITS_PER_UNIT, minorUnits, 1, STANDARD_ROUNDING));
     }
-    
+
     /**
-     * Subtracts the specified {@link Amount} from this object and returns an 
+     * Subtracts the specified {@link Amount} from this object and returns an
      * {@link Amount} instance with the result.
-     * 
+     *
      * @param amountToSubtract The {@link Amount} to subtract.
      * @return The difference of the subtraction.
      */
     public Amount minus(Amount amountToSubtract) {
-        return new Amount(amount.subtract(amountToSubtract.amount));
+        return withMinorUnits(Math.subtractExact(minorUnits,
+                amountToSubtract.minorUnits));
     }
-    
+
     /**
-     * Multiplies the specified <code>double</code> with this object and 
+     * Multiplies the specified <code>double</code> with this object and
      * returns an {@link Amount} instance with the result.
-     * 
+     *
      * @param amountToMultiplyWith The {@link Amount} multiplicand.
      * @return The product of the multiplication.
      */
     public Amount multiply(double amountToMultiplyWith) {
-        BigDecimal amountToMultiplyWithBigDecimal = 
-                new BigDecimal(amountToMultiplyWith);
-        return new Amount(amount.multiply(amountToMultiplyWithBigDecimal));
+        return multiply(amountToMultiplyWith, STANDARD_ROUNDING);
+    }
+
+    /**
+     * Multiplies the specified <code>double</code> with this object and
+     * returns an {@link Amount} instance with the result rounded to whole
+     * minor units with the specified {@link RoundingMode}.
+     *
+     * @param amountToMultiplyWith The multiplicand.
+     * @param roundingMode How to round the product.
+     * @return The product of the multiplication.
+     */
+    public Amount multiply(double amountToMultiplyWith,
+            RoundingMode roundingMode) {
+        return withMinorUnits(multiplyMinorUnits(amountToMultiplyWith,
+                roundingMode));
+    }
+
+    /**
+     * Multiplies the specified <code>double</code> with this object without
+     * creating an {@link Amount} instance for the result.
+     *
+     * @param amountToMultiplyWith The multiplicand.
+     * @param roundingMode How to round the product.
+     * @return The product of the multiplication in minor units.
+     */
+    long multiplyMinorUnits(double amountToMultiplyWith,
+            RoundingMode roundingMode) {
+        if (Math.abs(minorUnits) >= LARGEST_EXACT_OPERAND)
+            return exactRoundedProduct(minorUnits, amountToMultiplyWith,
+                    roundingMode);
+        return roundedQuotient(minorUnits, amountToMultiplyWith, 0, 1,
+                roundingMode);
     }
-    
+
     /**
-     * Multiplies the specified {@link Amount} with this object and returns 
+     * Multiplies the specified {@link Amount} with this object and returns
      * an {@link Amount} instance with the result.
-     * 
+     *
      * @param amountToMultiplyWith The {@link Amount} multiplicand.
      * @return The product of the multiplication.
      */
     public Amount multiply(Amount amountToMultiplyWith) {
-        return new Amount(amount.multiply(amountToMultiplyWith.amount));
+        return multiply(amountToMultiplyWith, STANDARD_ROUNDING);
     }
-    
+
+    /**
+     * Multiplies the specified {@link Amount} with this object and returns
+     * an {@link Amount} instance with the result rounded to whole minor
+     * units with the specified {@link RoundingMode}.
+     *
+     * @param amountToMultiplyWith The {@link Amount} multiplicand.
+     * @param roundingMode How to round the product.
+     * @return The product of the multiplication.
+     */
+    public Amount multiply(Amount amountToMultiplyWith,
+            RoundingMode roundingMode) {
+        long productInMinorUnitsSquared;
+        try {
+            productInMinorUnitsSquared =
+                    Math.multiplyExact(minorUnits,
+                            amountToMultiplyWith.minorUnits);
+        } catch (ArithmeticException exc) {
+            return withMinorUnits(getAmount().
+                    multiply(amountToMultiplyWith.getAmount()).
+                    setScale(DECIMAL_PRECISION, roundingMode).
+                    unscaledValue().
+                    longValueExact());
+        }
+        return withMinorUnits(roundedQuotient(productInMinorUnitsSquared,
+                MINOR_UNITS_PER_UNIT, roundingMode));
+    }
+
     /**
-     * Divides this object with the specified <code>double</code> and 
+     * Divides this object with the specified <code>double</code> and
      * returns an {@link Amount} instance with the quotient.
-     * 
+     *
      * @param amountToDivideWith The {@link Amount} divisor.
      * @return The quotient of the division.
+     * @throws ArithmeticException If the quotient has no exact decimal
+     * representation.
      */
     public Amount divide(double amountToDivideWith) {
-        BigDecimal amountToDivideWithBigDecimal = 
+        BigDecimal amountToDivideWithBigDecimal =
+                new BigDecimal(amountToDivideWith);
+        return new Amount(getAmount().divide(amountToDivideWithBigDecimal));
+    }
+
+    /**
+     * Divides this object with the specified <code>double</code> and
+     * returns an {@link Amount} instance with the quotient rounded to whole
+     * minor units with the specified {@link RoundingMode}.
+     *
+     * @param amountToDivideWith The divisor.
+     * @param roundingMode How to round the quotient.
+     * @return The quotient of the division.
+     */
+    public Amount divide(double amountToDivideWith,
+            RoundingMode roundingMode) {
+        BigDecimal amountToDivideWithBigDecimal =
                 new BigDecimal(amountToDivideWith);
-        return new Amount(amount.divide(amountToDivideWithBigDecimal));
+        return new Amount(getAmount().divide(amountToDivideWithBigDecimal,
+                DECIMAL_PRECISION, roundingMode));
     }
-    
+
     /**
-     * Divides this object with the specified {@link Amount} and 
+     * Divides this object with the specified {@link Amount} and
      * returns an {@link Amount} instance with the quotient.
-     * 
+     *
      * @param amountToDivideWith The {@link Amount} divisor.
      * @return The quotient of the division.
+     * @throws ArithmeticException If the quotient has no exact decimal
+     * representation.
      */
     public Amount divide(Amount amountToDivideWith) {
-        return new Amount(amount.divide(amountToDivideWith.amount));
+        return new Amount(getAmount().divide(amountToDivideWith.getAmount()));
+    }
+
+    /**
+     * Divides this object with the specified {@link Amount} and
+     * returns an {@link Amount} instance with the quotient rounded to whole
+     * minor units with the specified {@link RoundingMode}.
+     *
+     * @param amountToDivideWith The {@link Amount} divisor.
+     * @param roundingMode How to round the quotient.
+     * @return The quotient of the division.
+     */
+    public Amount divide(Amount amountToDivideWith,
+            RoundingMode roundingMode) {
+        long dividendInMinorUnitsSquared =
+                Math.multiplyExact(minorUnits, MINOR_UNITS_PER_UNIT);
+        long divisorInMinorUnits = amountToDivideWith.minorUnits;
+        if (divisorInMinorUnits < 0) {
+            dividendInMinorUnitsSquared =
+                    Math.negateExact(dividendInMinorUnitsSquared);
+            divisorInMinorUnits = Math.negateExact(divisorInMinorUnits);
+        }
+        return withMinorUnits(roundedQuotient(dividendInMinorUnitsSquared,
+                divisorInMinorUnits, roundingMode));
+    }
+
+    /**
+     * Create an instance with the specified number of minor units in the
+     * currency of this object.
+     *
+     * @param resultInMinorUnits The amount in minor units.
+     * @return The amount.
+     */
+    private Amount withMinorUnits(long resultInMinorUnits) {
+        if (resultInMinorUnits == minorUnits)
+            return this;
+        if (resultInMinorUnits == 0 && currency.equals(STANDARD_CURRENCY))
+            return ZERO;
+        return new Amount(currency, resultInMinorUnits);
+    }
+
+    /**
+     * Round the quotient of two <code>long</code> values to a whole number.
+     *
+     * @param dividend The dividend.
+     * @param divisor The divisor, which must be positive.
+     * @param roundingMode How to round the quotient.
+     * @return The rounded quotient.
+     */
+    private static long roundedQuotient(long dividend, long divisor,
+            RoundingMode roundingMode) {
+        long quotientFloor = Math.floorDiv(dividend, divisor);
+        long remainder = Math.floorMod(dividend, divisor);
+        if (remainder == 0)
+            return quotientFloor;
+        int comparedWithHalf = Long.compare(remainder, divisor - remainder);
+        return roundFraction(quotientFloor, comparedWithHalf, roundingMode);
+    }
+
+    /**
+     * Round <code>(factor * multiplier + addend) / divisor</code> to a
+     * whole number, where the quotient is calculated without any rounding
+     * errors. The quotient is first estimated with <code>double</code>
+     * arithmetic and then corrected by looking at the sign of the exact
+     * remainder, which a fused multiply-add calculates exactly. Operands
+     * too large for that fall back to <code>BigDecimal</code>.
+     *
+     * Either <code>factor</code> or <code>multiplier</code> must be a whole
+     * number.
+     *
+     * @param factor The first factor.
+     * @param multiplier The second factor.
+     * @param addend The whole number added to the product.
+     * @param divisor The positive divisor.
+     * @param roundingMode How to round the quotient.
+     * @return The rounded quotient.
+     * @throws NumberFormatException If a factor is infinite or not a
+     * number.
+     * @throws ArithmeticException If the quotient is too large, or needs
+     * rounding and the rounding mode is {@link RoundingMode#UNNECESSARY}.
+     */
+    private static long roundedQuotient(double factor, double multiplier,
+            long addend, long divisor, RoundingMode roundingMode) {
+        if (!Double.isFinite(factor) || !Double.isFinite(multiplier))
+            throw new NumberFormatException("Infinite or NaN");
+        double estimatedProduct = factor * multiplier;
+        boolean isExactlyRepresentable =
+                Math.abs(estimatedProduct) < LARGEST_EXACT_OPERAND &&
+                Math.abs(addend) < LARGEST_EXACT_OPERAND;
+        if (!isExactlyRepresentable)
+            return exactRoundedQuotient(factor, multiplier, addend, divisor,
+                    roundingMode);
+        long quotientFloor =
+                (long) Math.floor((estimatedProduct + addend) / divisor);
+        while (compareWithMultiple(factor, multiplier, addend, divisor,
+                quotientFloor, 0) < 0)
+            quotientFloor--;
+        while (compareWithMultiple(factor, multiplier, addend, divisor,
+                quotientFloor + 1, 0) >= 0)
+            quotientFloor++;
+        if (compareWithMultiple(factor, multiplier, addend, divisor,
+                quotientFloor, 0) == 0)
+            return quotientFloor;
+        int comparedWithHalf = compareWithMultiple(factor, multiplier, addend,
+                divisor, quotientFloor, 0.5);
+        return roundFraction(quotientFloor, comparedWithHalf, roundingMode);
+    }
+
+    /**
+     * Compare <code>factor * multiplier + addend</code> with
+     * <code>divisor * (quotient + fraction)</code> without any rounding
+     * errors.
+     *
+     * @param factor The first factor.
+     * @param multiplier The second factor.
+     * @param addend The whole number added to the product.
+     * @param divisor The divisor.
+     * @param quotient The whole part of the quotient to compare with.
+     * @param fraction <code>0</code> or <code>0.5</code>.
+     * @return A negative number, zero or a positive number if the dividend
+     * is less than, equal to or greater than the multiple of the divisor.
+     */
+    private static int compareWithMultiple(double factor, double multiplier,
+            long addend, long divisor, long quotient, double fraction) {
+        double negatedMultiple =
+                (double) (addend - divisor * quotient) - divisor * fraction;
+        return (int) Math.signum(Math.fma(factor, multiplier,
+                negatedMultiple));
+    }
+
+    /**
+     * Round <code>(factor * multiplier + addend) / divisor</code> to a
+     * whole number using <code>BigDecimal</code> arithmetic.
+     *
+     * @param factor The first factor.
+     * @param multiplier The second factor.
+     * @param addend The whole number added to the product.
+     * @param divisor The positive divisor.
+     * @param roundingMode How to round the quotient.
+     * @return The rounded quotient.
+     */
+    private static long exactRoundedQuotient(double factor, double multiplier,
+            long addend, long divisor, RoundingMode roundingMode) {
+        BigDecimal dividend = new BigDecimal(factor).
+                multiply(new BigDecimal(multiplier)).
+                add(BigDecimal.valueOf(addend));
+        return dividend.
+                divide(BigDecimal.valueOf(divisor), 0, roundingMode).
+                longValueExact();
+    }
+
+    /**
+     * Round <code>wholeFactor * factor</code> to a whole number using
+     * <code>BigDecimal</code> arithmetic. Unlike
+     * {@link #exactRoundedQuotient}, the whole factor is never converted to
+     * a <code>double</code>, so it can be larger than the largest whole
+     * number a <code>double</code> holds exactly.
+     *
+     * @param wholeFactor The whole factor.
+     * @param factor The other factor.
+     * @param roundingMode How to round the product.
+     * @return The rounded product.
+     * @throws NumberFormatException If <code>factor</code> is infinite or
+     * not a number.
+     * @throws ArithmeticException If the product is too large, or needs
+     * rounding and the rounding mode is {@link RoundingMode#UNNECESSARY}.
+     */
+    private static long exactRoundedProduct(long wholeFactor, double factor,
+            RoundingMode roundingMode) {
+        if (!Double.isFinite(factor))
+            throw new NumberFormatException("Infinite or NaN");
+        return BigDecimal.valueOf(wholeFactor).
+                multiply(new BigDecimal(factor)).
+                setScale(0, roundingMode).
+                longValueExact();
+    }
+
+    /**
+     * Round a quotient that is not a whole number.
+     *
+     * @param quotientFloor The largest whole number below the quotient.
+     * @param comparedWithHalf A negative number, zero or a positive number
+     *                         if the fraction of the quotient is less than,
+     *                         equal to or greater than one half.
+     * @param roundingMode How to round the quotient.
+     * @return The rounded quotient.
+     */
+    private static long roundFraction(long quotientFloor, int comparedWithHalf,
+            RoundingMode roundingMode) {
+        boolean isNegative = quotientFloor < 0;
+        long towardZero = isNegative ? quotientFloor + 1 : quotientFloor;
+        long awayFromZero = isNegative ? quotientFloor : quotientFloor + 1;
+        long nearest = comparedWithHalf < 0 ?
+                quotientFloor : quotientFloor + 1;
+        switch (roundingMode) {
+            case DOWN:
+                return towardZero;
+            case UP:
+                return awayFromZero;
+            case FLOOR:
+                return quotientFloor;
+            case CEILING:
+                return quotientFloor + 1;
+            case HALF_UP:
+                return comparedWithHalf == 0 ? awayFromZero : nearest;
+            case HALF_DOWN:
+                return comparedWithHalf == 0 ? towardZero : nearest;
+            case HALF_EVEN:
+                if (comparedWithHalf != 0)
+                    return nearest;
+                return quotientFloor % 2 == 0 ?
+                        quotientFloor : quotientFloor + 1;
+            default:
+                throw new ArithmeticException("Rounding necessary");
+        }
     }
-    
+
     /**
-     * Compares the specified <code>Object</code> to this object and 
-     * returns <code>true</code> if they are the same object of if both 
-     * instances of {@link Amount} and contain the same numerical value and 
+     * Compares the specified <code>Object</code> to this object and
+     * returns <code>true</code> if they are the same object of if both
+     * instances of {@link Amount} and contain the same numerical value and
      * the same currency.
      *
      * @param objectToCompare The object to compare this object with.
-     * @return The result of the comparison, <code>true</code> or 
+     * @return The result of the comparison, <code>true</code> or
      * <code>false</code>.
      */
     @Override
@@ -175,20 +534,31 @@ public class Amount {
         if (!isInstanceOfAmount)
             return false;
         Amount amountToCompare = (Amount) objectToCompare;
-        return amount.equals(amountToCompare.amount) && 
+        return minorUnits == amountToCompare.minorUnits &&
                 currency.equals(amountToCompare.currency);
-        
+
+    }
+
+    /**
+     * Creates a hash code from the numerical value and the currency, so that
+     * equal amounts have equal hash codes.
+     *
+     * @return The hash code.
+     */
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(minorUnits) + currency.hashCode();
     }
 
     /**
      * Creates a string of the amount containing the numerical value and
      * the currency.
-     * 
+     *
      * @return The string representing the amount.
      */
     @Override
     public String toString() {
-        return amount.toString() + " " + currency;
+        return getAmount().toString() + " " + currency;
     }
-    
+
 }
@@ -0,0 +1,110 @@
+package se.martenb.iv1350.project.saleprocess.util;
+
+import java.math.RoundingMode;
+
+/**
+ * Sums prices before taxes, prices after taxes and taxes, for example of all
+ * items in a sale. Adding a price does not create any objects, the
+ * immutable {@link Amount} and {@link PriceTotal} instances are only created
+ * when the totals are read. Every price is multiplied with its quantity
+ * and rounded toward zero before it is added, exactly as when multiplying
+ * and adding {@link Amount} instances. All amounts are in the standard
+ * currency.
+ *
+ * Instances are mutable and not thread-safe, and can be reused by calling
+ * {@link #reset()}.
+ */
+public class AmountAccumulator {
+    private static final RoundingMode STANDARD_ROUNDING = RoundingMode.DOWN;
+    private long totalPriceBeforeTaxes;
+    private long totalPriceAfterTaxes;
+    private long totalTaxes;
+
+    /**
+     * Add a price multiplied with the specified quantity to the totals.
+     *
+     * @param price The price to add.
+     * @param quantity The number of units the price is added for.
+     * @throws ArithmeticException If a total becomes too large, in which
+     * case no total is changed.
+     */
+    public void addPrice(Price price, double quantity) {
+        long priceBeforeTaxes = price.getPriceBeforeTax().
+                multiplyMinorUnits(quantity, STANDARD_ROUNDING);
+        long priceAfterTaxes = price.getPriceAfterTax().
+                multiplyMinorUnits(quantity, STANDARD_ROUNDING);
+        long taxes = price.getTaxesAmount().
+                multiplyMinorUnits(quantity, STANDARD_ROUNDING);
+        long updatedPriceBeforeTaxes =
+                Math.addExact(totalPriceBeforeTaxes, priceBeforeTaxes);
+        long updatedPriceAfterTaxes =
+                Math.addExact(totalPriceAfterTaxes, priceAfterTaxes);
+        long updatedTaxes = Math.addExact(totalTaxes, taxes);
+        totalPriceBeforeTaxes = updatedPriceBeforeTaxes;
+        totalPriceAfterTaxes = updatedPriceAfterTaxes;
+        totalTaxes = updatedTaxes;
+    }
+
+    /**
+     * Add the price after taxes multiplied with the specified quantity to
+     * the total price after taxes, leaving the other totals unchanged. Use
+     * this when only the total price after taxes is read.
+     *
+     * @param price The price to add the price after taxes of.
+     * @param quantity The number of units the price is added for.
+     * @throws ArithmeticException If the total becomes too large.
+     */
+    public void addPriceAfterTaxes(Price price, double quantity) {
+        long priceAfterTaxes = price.getPriceAfterTax().
+                multiplyMinorUnits(quantity, STANDARD_ROUNDING);
+        totalPriceAfterTaxes =
+                Math.addExact(totalPriceAfterTaxes, priceAfterTaxes);
+    }
+
+    /**
+     * Set all totals to zero, so that the accumulator can be reused.
+     */
+    public void reset() {
+        totalPriceBeforeTaxes = 0;
+        totalPriceAfterTaxes = 0;
+        totalTaxes = 0;
+    }
+
+    /**
+     * Get the total price before taxes.
+     *
+     * @return The total price before taxes.
+     */
+    public Amount getTotalPriceBeforeTaxes() {
+        return Amount.ofMinorUnits(totalPriceBeforeTaxes);
+    }
+
+    /**
+     * Get the total price after taxes.
+     *
+     * @return The total price after taxes.
+     */
+    public Amount getTotalPriceAfterTaxes() {
+        return Amount.ofMinorUnits(totalPriceAfterTaxes);
+    }
+
+    /**
+     * Get the total taxes.
+     *
+     * @return The total taxes.
+     */
+    public Amount getTotalTaxes() {
+        return Amount.ofMinorUnits(totalTaxes);
+    }
+
+    /**
+     * Create a {@link PriceTotal} of the current totals.
+     *
+     * @return The totals.
+     */
+    public PriceTotal toPriceTotal() {
+        return new PriceTotal(getTotalPriceAfterTaxes(),
+                getTotalPriceBeforeTaxes(), getTotalTaxes());
+    }
+
+}
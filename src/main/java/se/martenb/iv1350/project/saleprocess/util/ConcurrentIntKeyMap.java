@@ -0,0 +1,321 @@
+package se.martenb.iv1350.project.saleprocess.util;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * A thread-safe hash map keyed by primitive <code>int</code> values. The map
+ * is split into segments, each an open addressing table with linear probing
+ * that is updated in place while holding the lock of the segment. Reads take
+ * no lock. Entries can be added and replaced but never removed, so a reader
+ * probing a table never misses a key that was already in it.
+ *
+ * @param <V> The type of values stored in the map.
+ */
+public class ConcurrentIntKeyMap<V> {
+    private static final int SEGMENT_COUNT = 16;
+    private static final int SEGMENT_SHIFT = 28;
+    private static final int MINIMUM_CAPACITY = 16;
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+    private static final float LOAD_FACTOR = 0.5f;
+    private final Segment<V>[] segments;
+
+    /**
+     * Creates a new, empty map.
+     */
+    @SuppressWarnings("unchecked")
+    public ConcurrentIntKeyMap() {
+        segments = new Segment[SEGMENT_COUNT];
+        for (int i = 0; i < SEGMENT_COUNT; i++)
+            segments[i] = new Segment<>();
+    }
+
+    /**
+     * Spread the bits of a key so that sequential keys do not end up in
+     * sequential slots, which would create long probe sequences.
+     *
+     * @param key The key to hash.
+     * @return The mixed hash of the key.
+     */
+    private static int mixHash(int key) {
+        int hash = key * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Get the segment holding the specified key. The segment is chosen by
+     * the highest bits of the hash, the slot within it by the lowest.
+     *
+     * @param hash The mixed hash of the key.
+     * @return The segment.
+     */
+    private Segment<V> segmentFor(int hash) {
+        return segments[hash >>> SEGMENT_SHIFT];
+    }
+
+    /**
+     * Get the value mapped to the specified key.
+     *
+     * @param key The key to look for.
+     * @return The mapped value or <code>null</code> if the key is not in
+     * the map.
+     */
+    public V get(int key) {
+        int hash = mixHash(key);
+        return segmentFor(hash).get(key, hash);
+    }
+
+    /**
+     * Map the specified key to the specified value, replacing any value
+     * previously mapped to the key.
+     *
+     * @param key The key of the entry.
+     * @param value The value of the entry, must not be <code>null</code>.
+     * @return The previously mapped value or <code>null</code> if there
+     * was none.
+     */
+    public V put(int key, V value) {
+        if (value == null)
+            throw new IllegalArgumentException("Values cannot be null.");
+        int hash = mixHash(key);
+        return segmentFor(hash).put(key, hash, value, true);
+    }
+
+    /**
+     * Get the value mapped to the specified key, mapping the key to a value
+     * created by the specified function if it is not in the map. The
+     * function is called at most once, while holding the lock of a segment,
+     * so it must be quick and must not use the map.
+     *
+     * @param key The key to look for.
+     * @param valueFactory Creates the value to map the key to, must not
+     *                     return <code>null</code>.
+     * @return The value mapped to the key.
+     */
+    public V computeIfAbsent(int key, IntFunction<? extends V> valueFactory) {
+        int hash = mixHash(key);
+        Segment<V> segment = segmentFor(hash);
+        V value = segment.get(key, hash);
+        if (value != null)
+            return value;
+        synchronized (segment) {
+            value = segment.get(key, hash);
+            if (value != null)
+                return value;
+            value = valueFactory.apply(key);
+            if (value == null)
+                throw new IllegalArgumentException("Values cannot be null.");
+            segment.put(key, hash, value, false);
+            return value;
+        }
+    }
+
+    /**
+     * Make room for the specified number of entries in addition to those
+     * already in the map, so that loading many entries does not grow the
+     * tables over and over.
+     *
+     * @param additionalEntries The number of entries about to be added.
+     */
+    public void ensureCapacity(int additionalEntries) {
+        if (additionalEntries < 0)
+            throw new IllegalArgumentException("Number of entries cannot " +
+                    "be negative: " + additionalEntries);
+        int entriesPerSegment = additionalEntries / SEGMENT_COUNT + 1;
+        for (Segment<V> segment : segments)
+            segment.ensureCapacity(entriesPerSegment);
+    }
+
+    /**
+     * Get the number of entries in the map. Entries added at the same time
+     * may or may not be counted.
+     *
+     * @return The number of entries.
+     */
+    public int size() {
+        int size = 0;
+        for (Segment<V> segment : segments)
+            size += segment.size;
+        return size;
+    }
+
+    /**
+     * Check if the map contains no entries.
+     *
+     * @return <code>true</code> if the map is empty, otherwise
+     * <code>false</code>.
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Perform the specified action for every value in the map. The order in
+     * which values are visited is unspecified. Values added at the same
+     * time may or may not be visited.
+     *
+     * @param action The action to perform on each value.
+     */
+    public void forEachValue(Consumer<? super V> action) {
+        for (Segment<V> segment : segments)
+            segment.forEachValue(action);
+    }
+
+    /**
+     * Calculate a power of two table capacity able to hold the specified
+     * number of entries below the load factor.
+     *
+     * @param entries Number of entries to fit.
+     * @return The table capacity.
+     */
+    private static int capacityForEntries(int entries) {
+        long requiredCapacity = (long) Math.ceil(entries / LOAD_FACTOR) + 1;
+        if (requiredCapacity > MAXIMUM_CAPACITY)
+            throw new IllegalArgumentException("Too many entries: " + entries);
+        int capacity = MINIMUM_CAPACITY;
+        while (capacity < requiredCapacity)
+            capacity <<= 1;
+        return capacity;
+    }
+
+    /**
+     * The key and value tables of a segment. A key is written before its
+     * value, and the value is written with volatile semantics, so a reader
+     * that finds a value in a slot also finds its key.
+     */
+    private static class Table {
+        private final int[] keys;
+        private final AtomicReferenceArray<Object> values;
+
+        /**
+         * Creates new, empty tables.
+         *
+         * @param capacity The capacity of the tables, a power of two.
+         */
+        Table(int capacity) {
+            keys = new int[capacity];
+            values = new AtomicReferenceArray<>(capacity);
+        }
+
+        /**
+         * Find the slot holding the specified key or the empty slot where it
+         * would be inserted. A slot is empty when its value is
+         * <code>null</code>.
+         *
+         * @param key The key to look for.
+         * @param hash The mixed hash of the key.
+         * @return The index of the slot.
+         */
+        int findSlot(int key, int hash) {
+            int mask = keys.length - 1;
+            int slot = hash & mask;
+            while (values.get(slot) != null && keys[slot] != key)
+                slot = (slot + 1) & mask;
+            return slot;
+        }
+    }
+
+    /**
+     * A part of the map, changed only while holding its own lock. A table
+     * that has grown is replaced as a whole, so readers of the old table
+     * still see every entry that was in it.
+     *
+     * @param <V> The type of values stored in the segment.
+     */
+    private static class Segment<V> {
+        private volatile Table table = new Table(MINIMUM_CAPACITY);
+        private volatile int size;
+
+        /**
+         * Get the value mapped to the specified key.
+         *
+         * @param key The key to look for.
+         * @param hash The mixed hash of the key.
+         * @return The mapped value or <code>null</code> if there is none.
+         */
+        @SuppressWarnings("unchecked")
+        V get(int key, int hash) {
+            Table currentTable = table;
+            return (V) currentTable.values.get(
+                    currentTable.findSlot(key, hash));
+        }
+
+        /**
+         * Map the specified key to the specified value.
+         *
+         * @param key The key of the entry.
+         * @param hash The mixed hash of the key.
+         * @param value The value of the entry.
+         * @param replaceExisting <code>true</code> if a value already mapped
+         *                        to the key is replaced.
+         * @return The previously mapped value or <code>null</code> if there
+         * was none.
+         */
+        @SuppressWarnings("unchecked")
+        synchronized V put(int key, int hash, V value,
+                boolean replaceExisting) {
+            Table currentTable = table;
+            int slot = currentTable.findSlot(key, hash);
+            V previousValue = (V) currentTable.values.get(slot);
+            if (previousValue != null && !replaceExisting)
+                return previousValue;
+            currentTable.keys[slot] = key;
+            currentTable.values.set(slot, value);
+            if (previousValue == null &&
+                    ++size > currentTable.keys.length * LOAD_FACTOR)
+                table = copyTable(currentTable, currentTable.keys.length << 1);
+            return previousValue;
+        }
+
+        /**
+         * Grow the table, if needed, to fit the specified number of entries
+         * in addition to those already in the segment.
+         *
+         * @param additionalEntries The number of entries about to be added.
+         */
+        synchronized void ensureCapacity(int additionalEntries) {
+            Table currentTable = table;
+            int capacity = capacityForEntries(size + additionalEntries);
+            if (capacity > currentTable.keys.length)
+                table = copyTable(currentTable, capacity);
+        }
+
+        /**
+         * Copy all entries into new tables of the specified capacity.
+         *
+         * @param oldTable The tables to copy.
+         * @param capacity The capacity of the new tables, a power of two.
+         * @return The new tables.
+         */
+        private static Table copyTable(Table oldTable, int capacity) {
+            Table newTable = new Table(capacity);
+            for (int i = 0; i < oldTable.keys.length; i++) {
+                Object value = oldTable.values.get(i);
+                if (value != null) {
+                    int key = oldTable.keys[i];
+                    int slot = newTable.findSlot(key, mixHash(key));
+                    newTable.keys[slot] = key;
+                    newTable.values.set(slot, value);
+                }
+            }
+            return newTable;
+        }
+
+        /**
+         * Perform the specified action for every value in the segment.
+         *
+         * @param action The action to perform on each value.
+         */
+        @SuppressWarnings("unchecked")
+        void forEachValue(Consumer<? super V> action) {
+            Table currentTable = table;
+            for (int i = 0; i < currentTable.keys.length; i++) {
+                Object value = currentTable.values.get(i);
+                if (value != null)
+                    action.accept((V) value);
+            }
+        }
+    }
+
+}
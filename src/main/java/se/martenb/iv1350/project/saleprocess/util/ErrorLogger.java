@@ -14,7 +14,7 @@ import java.util.logging.Logger;
 public class ErrorLogger {
     private static final String LOG_FILE_NAME = "error_log.txt";
     private static final boolean MODE_APPEND_TO_FILE = true;
-    private PrintWriter logFile;
+    private static final Object LOG_FILE_LOCK = new Object();
     
     /**
      * Creates a new instance of the exception logger and opens the log
@@ -24,13 +24,25 @@ public class ErrorLogger {
     public ErrorLogger() {}
     
     /**
-     * Logs the thrown error to the log file.
+     * Logs the thrown error to the log file. Errors logged by several 
+     * threads at the same time are written one after the other.
      *
-     * @param exception The exception that shall be logged.
+     * @param exception The exception or error that shall be logged.
     */
-    public void logException(Exception exception) {
+    public void logException(Throwable exception) {
+        synchronized (LOG_FILE_LOCK) {
+            writeToLogFile(exception);
+        }
+    }
+    
+    /**
+     * Writes the thrown error to the end of the log file.
+     *
+     * @param exception The exception or error that shall be logged.
+     */
+    private void writeToLogFile(Throwable exception) {
         try {
-            logFile = new PrintWriter(
+            PrintWriter logFile = new PrintWriter(
                     new FileWriter(LOG_FILE_NAME, MODE_APPEND_TO_FILE));
             StringBuilder errorMessage = new StringBuilder();
             errorMessage.append("[");
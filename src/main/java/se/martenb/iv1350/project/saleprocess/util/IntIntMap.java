@@ -0,0 +1,176 @@
+package se.martenb.iv1350.project.saleprocess.util;
+
+/**
+ * A hash map from primitive <code>int</code> keys to primitive
+ * <code>int</code> values. Entries are stored using open addressing with
+ * linear probing in parallel arrays, so neither keys nor values are boxed.
+ * Instances are not thread-safe, but a map that is no longer modified may
+ * be read by any number of threads once it has been safely published.
+ */
+public class IntIntMap {
+    private static final int MINIMUM_CAPACITY = 16;
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+    private static final float LOAD_FACTOR = 0.5f;
+    private int[] keys;
+    private int[] values;
+    private boolean[] isSlotUsed;
+    private int size;
+    private int resizeThreshold;
+
+    /**
+     * Creates a new, empty map with a default initial capacity.
+     */
+    public IntIntMap() {
+        this(MINIMUM_CAPACITY);
+    }
+
+    /**
+     * Creates a new, empty map able to hold the specified number of entries
+     * without having to grow.
+     *
+     * @param expectedEntries The number of entries the map is expected to
+     * hold.
+     */
+    public IntIntMap(int expectedEntries) {
+        if (expectedEntries < 0)
+            throw new IllegalArgumentException("Expected number of entries " +
+                    "cannot be negative: " + expectedEntries);
+        allocateTables(capacityForEntries(expectedEntries));
+    }
+
+    /**
+     * Calculate a power of two table capacity able to hold the specified
+     * number of entries below the load factor.
+     *
+     * @param entries Number of entries to fit.
+     * @return The table capacity.
+     */
+    private static int capacityForEntries(int entries) {
+        long requiredCapacity = (long) Math.ceil(entries / LOAD_FACTOR) + 1;
+        if (requiredCapacity > MAXIMUM_CAPACITY)
+            throw new IllegalArgumentException("Too many entries: " + entries);
+        int capacity = MINIMUM_CAPACITY;
+        while (capacity < requiredCapacity)
+            capacity <<= 1;
+        return capacity;
+    }
+
+    /**
+     * Allocate empty tables of the specified capacity.
+     *
+     * @param capacity The capacity of the tables, a power of two.
+     */
+    private void allocateTables(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        isSlotUsed = new boolean[capacity];
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    /**
+     * Spread the bits of a key so that sequential keys do not end up in
+     * sequential slots, which would create long probe sequences.
+     *
+     * @param key The key to hash.
+     * @return The mixed hash of the key.
+     */
+    private static int mixHash(int key) {
+        int hash = key * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Find the slot holding the specified key or the empty slot where it
+     * would be inserted.
+     *
+     * @param key The key to look for.
+     * @return The index of the slot.
+     */
+    private int findSlot(int key) {
+        int mask = keys.length - 1;
+        int slot = mixHash(key) & mask;
+        while (isSlotUsed[slot] && keys[slot] != key)
+            slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    /**
+     * Get the value of the specified key, or the specified default value if
+     * the key is not in the map.
+     *
+     * @param key The key to look for.
+     * @param defaultValue The value to return if the key is not in the map.
+     * @return The value of the key, or the default value.
+     */
+    public int getOrDefault(int key, int defaultValue) {
+        int slot = findSlot(key);
+        return isSlotUsed[slot] ? values[slot] : defaultValue;
+    }
+
+    /**
+     * Check if the specified key is in the map.
+     *
+     * @param key The key to look for.
+     * @return <code>true</code> if the key is in the map, otherwise
+     * <code>false</code>.
+     */
+    public boolean containsKey(int key) {
+        return isSlotUsed[findSlot(key)];
+    }
+
+    /**
+     * Set the value of the specified key, adding the key if it is not in
+     * the map.
+     *
+     * @param key The key of the entry.
+     * @param value The value of the entry.
+     */
+    public void put(int key, int value) {
+        int slot = findSlot(key);
+        values[slot] = value;
+        if (!isSlotUsed[slot]) {
+            keys[slot] = key;
+            isSlotUsed[slot] = true;
+            if (++size > resizeThreshold)
+                growTables();
+        }
+    }
+
+    /**
+     * Double the capacity of the tables and reinsert all entries.
+     */
+    private void growTables() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        boolean[] oldIsSlotUsed = isSlotUsed;
+        allocateTables(oldKeys.length << 1);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldIsSlotUsed[i]) {
+                int slot = findSlot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+                isSlotUsed[slot] = true;
+            }
+        }
+    }
+
+    /**
+     * Get the number of entries in the map.
+     *
+     * @return The number of entries.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Check if the map contains no entries.
+     *
+     * @return <code>true</code> if the map is empty, otherwise
+     * <code>false</code>.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+}
@@ -0,0 +1,279 @@
+package se.martenb.iv1350.project.saleprocess.util;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * A hash map keyed by primitive <code>int</code> values. Entries are stored
+ * using open addressing with linear probing in two parallel arrays, so no
+ * <code>Integer</code> boxing takes place on either insertion or lookup.
+ * Instances are not thread-safe, but a map that is no longer modified may be
+ * read by any number of threads once it has been safely published.
+ *
+ * @param <V> The type of values stored in the map.
+ */
+public class IntKeyMap<V> {
+    private static final int MINIMUM_CAPACITY = 16;
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+    private static final float LOAD_FACTOR = 0.5f;
+    private int[] keys;
+    private Object[] values;
+    private int size;
+    private int resizeThreshold;
+
+    /**
+     * Creates a new, empty map with a default initial capacity.
+     */
+    public IntKeyMap() {
+        this(MINIMUM_CAPACITY);
+    }
+
+    /**
+     * Creates a new, empty map able to hold the specified number of entries
+     * without having to grow.
+     *
+     * @param expectedEntries The number of entries the map is expected to
+     * hold.
+     */
+    public IntKeyMap(int expectedEntries) {
+        if (expectedEntries < 0)
+            throw new IllegalArgumentException("Expected number of entries " +
+                    "cannot be negative: " + expectedEntries);
+        allocateTables(capacityForEntries(expectedEntries));
+    }
+
+    /**
+     * Creates a new map containing the same entries as the specified map.
+     *
+     * @param mapToCopy The map to copy all entries from.
+     */
+    public IntKeyMap(IntKeyMap<? extends V> mapToCopy) {
+        this.keys = mapToCopy.keys.clone();
+        this.values = mapToCopy.values.clone();
+        this.size = mapToCopy.size;
+        this.resizeThreshold = mapToCopy.resizeThreshold;
+    }
+
+    /**
+     * Calculate a power of two table capacity able to hold the specified
+     * number of entries below the load factor.
+     *
+     * @param entries Number of entries to fit.
+     * @return The table capacity.
+     */
+    private static int capacityForEntries(int entries) {
+        long requiredCapacity = (long) Math.ceil(entries / LOAD_FACTOR) + 1;
+        if (requiredCapacity > MAXIMUM_CAPACITY)
+            throw new IllegalArgumentException("Too many entries: " + entries);
+        int capacity = MINIMUM_CAPACITY;
+        while (capacity < requiredCapacity)
+            capacity <<= 1;
+        return capacity;
+    }
+
+    /**
+     * Allocate empty key and value tables of the specified capacity.
+     *
+     * @param capacity The capacity of the tables, a power of two.
+     */
+    private void allocateTables(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    /**
+     * Spread the bits of a key so that sequential keys do not end up in
+     * sequential slots, which would create long probe sequences.
+     *
+     * @param key The key to hash.
+     * @return The mixed hash of the key.
+     */
+    private static int mixHash(int key) {
+        int hash = key * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Find the slot holding the specified key or the empty slot where it
+     * would be inserted. A slot is empty when its value is <code>null</code>.
+     *
+     * @param key The key to look for.
+     * @return The index of the slot.
+     */
+    private int findSlot(int key) {
+        int mask = keys.length - 1;
+        int slot = mixHash(key) & mask;
+        while (values[slot] != null && keys[slot] != key)
+            slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    /**
+     * Get the value mapped to the specified key.
+     *
+     * @param key The key to look for.
+     * @return The mapped value or <code>null</code> if the key is not in
+     * the map.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        return (V) values[findSlot(key)];
+    }
+
+    /**
+     * Check if the specified key is in the map.
+     *
+     * @param key The key to look for.
+     * @return <code>true</code> if the key is in the map, otherwise
+     * <code>false</code>.
+     */
+    public boolean containsKey(int key) {
+        return values[findSlot(key)] != null;
+    }
+
+    /**
+     * Map the specified key to the specified value, replacing any value
+     * previously mapped to the key.
+     *
+     * @param key The key of the entry.
+     * @param value The value of the entry, must not be <code>null</code>.
+     * @return The previously mapped value or <code>null</code> if there
+     * was none.
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (value == null)
+            throw new IllegalArgumentException("Values cannot be null.");
+        int slot = findSlot(key);
+        V previousValue = (V) values[slot];
+        keys[slot] = key;
+        values[slot] = value;
+        if (previousValue == null && ++size > resizeThreshold)
+            growTables();
+        return previousValue;
+    }
+
+    /**
+     * Remove the entry for the specified key. Entries following the removed
+     * entry in its probe sequence are moved back, so no tombstones are left
+     * behind.
+     *
+     * @param key The key of the entry to remove.
+     * @return The removed value or <code>null</code> if the key was not in
+     * the map.
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int slot = findSlot(key);
+        V removedValue = (V) values[slot];
+        if (removedValue == null)
+            return null;
+        int mask = keys.length - 1;
+        int emptySlot = slot;
+        int nextSlot = (slot + 1) & mask;
+        while (values[nextSlot] != null) {
+            int homeSlot = mixHash(keys[nextSlot]) & mask;
+            boolean canMoveToEmptySlot =
+                    ((nextSlot - homeSlot) & mask) >=
+                    ((nextSlot - emptySlot) & mask);
+            if (canMoveToEmptySlot) {
+                keys[emptySlot] = keys[nextSlot];
+                values[emptySlot] = values[nextSlot];
+                emptySlot = nextSlot;
+            }
+            nextSlot = (nextSlot + 1) & mask;
+        }
+        keys[emptySlot] = 0;
+        values[emptySlot] = null;
+        size--;
+        return removedValue;
+    }
+
+    /**
+     * Double the capacity of the tables and reinsert all entries.
+     */
+    private void growTables() {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocateTables(oldKeys.length << 1);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != null) {
+                int slot = findSlot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Remove all entries from the map.
+     */
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    /**
+     * Get the number of entries in the map.
+     *
+     * @return The number of entries.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Check if the map contains no entries.
+     *
+     * @return <code>true</code> if the map is empty, otherwise
+     * <code>false</code>.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Perform the specified action for every value in the map. The order in
+     * which values are visited is unspecified.
+     *
+     * @param action The action to perform on each value.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEachValue(Consumer<? super V> action) {
+        for (Object value : values)
+            if (value != null)
+                action.accept((V) value);
+    }
+
+    /**
+     * Perform the specified action for every entry in the map. The order in
+     * which entries are visited is unspecified.
+     *
+     * @param action The action to perform on each key and its value.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEachKeyAndValue(EntryConsumer<? super V> action) {
+        for (int i = 0; i < values.length; i++)
+            if (values[i] != null)
+                action.accept(keys[i], (V) values[i]);
+    }
+
+    /**
+     * An action performed on an entry of an {@link IntKeyMap}.
+     *
+     * @param <V> The type of values in the map.
+     */
+    @FunctionalInterface
+    public interface EntryConsumer<V> {
+        /**
+         * Perform the action on an entry.
+         *
+         * @param key The key of the entry.
+         * @param value The value of the entry.
+         */
+        void accept(int key, V value);
+    }
+
+}
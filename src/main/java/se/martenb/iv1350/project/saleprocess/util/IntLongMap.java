@@ -0,0 +1,216 @@
+package se.martenb.iv1350.project.saleprocess.util;
+
+/**
+ * A hash map from primitive <code>int</code> keys to primitive
+ * <code>long</code> values, made for summing values by key. Entries are
+ * stored using open addressing with linear probing in parallel arrays, so
+ * neither keys nor values are boxed. A key that was never added has the
+ * value zero. Instances are not thread-safe, but a map that is no longer
+ * modified may be read by any number of threads once it has been safely
+ * published.
+ */
+public class IntLongMap {
+    private static final int MINIMUM_CAPACITY = 16;
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+    private static final float LOAD_FACTOR = 0.5f;
+    private int[] keys;
+    private long[] values;
+    private boolean[] isSlotUsed;
+    private int size;
+    private int resizeThreshold;
+
+    /**
+     * Creates a new, empty map with a default initial capacity.
+     */
+    public IntLongMap() {
+        this(MINIMUM_CAPACITY);
+    }
+
+    /**
+     * Creates a new, empty map able to hold the specified number of entries
+     * without having to grow.
+     *
+     * @param expectedEntries The number of entries the map is expected to
+     * hold.
+     */
+    public IntLongMap(int expectedEntries) {
+        if (expectedEntries < 0)
+            throw new IllegalArgumentException("Expected number of entries " +
+                    "cannot be negative: " + expectedEntries);
+        allocateTables(capacityForEntries(expectedEntries));
+    }
+
+    /**
+     * Calculate a power of two table capacity able to hold the specified
+     * number of entries below the load factor.
+     *
+     * @param entries Number of entries to fit.
+     * @return The table capacity.
+     */
+    private static int capacityForEntries(int entries) {
+        long requiredCapacity = (long) Math.ceil(entries / LOAD_FACTOR) + 1;
+        if (requiredCapacity > MAXIMUM_CAPACITY)
+            throw new IllegalArgumentException("Too many entries: " + entries);
+        int capacity = MINIMUM_CAPACITY;
+        while (capacity < requiredCapacity)
+            capacity <<= 1;
+        return capacity;
+    }
+
+    /**
+     * Allocate empty tables of the specified capacity.
+     *
+     * @param capacity The capacity of the tables, a power of two.
+     */
+    private void allocateTables(int capacity) {
+        keys = new int[capacity];
+        values = new long[capacity];
+        isSlotUsed = new boolean[capacity];
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    /**
+     * Spread the bits of a key so that sequential keys do not end up in
+     * sequential slots, which would create long probe sequences.
+     *
+     * @param key The key to hash.
+     * @return The mixed hash of the key.
+     */
+    private static int mixHash(int key) {
+        int hash = key * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Find the slot holding the specified key or the empty slot where it
+     * would be inserted.
+     *
+     * @param key The key to look for.
+     * @return The index of the slot.
+     */
+    private int findSlot(int key) {
+        int mask = keys.length - 1;
+        int slot = mixHash(key) & mask;
+        while (isSlotUsed[slot] && keys[slot] != key)
+            slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    /**
+     * Get the value of the specified key.
+     *
+     * @param key The key to look for.
+     * @return The value, or zero if the key is not in the map.
+     */
+    public long get(int key) {
+        return values[findSlot(key)];
+    }
+
+    /**
+     * Check if the specified key is in the map.
+     *
+     * @param key The key to look for.
+     * @return <code>true</code> if the key is in the map, otherwise
+     * <code>false</code>.
+     */
+    public boolean containsKey(int key) {
+        return isSlotUsed[findSlot(key)];
+    }
+
+    /**
+     * Add the specified amount to the value of the specified key, adding
+     * the key with the value zero first if it is not in the map.
+     *
+     * @param key The key of the entry.
+     * @param amount The amount to add.
+     * @return The value of the key after the amount is added.
+     */
+    public long add(int key, long amount) {
+        int slot = findSlot(key);
+        long newValue = values[slot] + amount;
+        values[slot] = newValue;
+        if (!isSlotUsed[slot]) {
+            keys[slot] = key;
+            isSlotUsed[slot] = true;
+            if (++size > resizeThreshold)
+                growTables();
+        }
+        return newValue;
+    }
+
+    /**
+     * Add the value of every entry in the specified map to the value of the
+     * same key in this map.
+     *
+     * @param mapToAdd The map to add the entries of.
+     */
+    public void addAll(IntLongMap mapToAdd) {
+        for (int i = 0; i < mapToAdd.keys.length; i++)
+            if (mapToAdd.isSlotUsed[i])
+                add(mapToAdd.keys[i], mapToAdd.values[i]);
+    }
+
+    /**
+     * Double the capacity of the tables and reinsert all entries.
+     */
+    private void growTables() {
+        int[] oldKeys = keys;
+        long[] oldValues = values;
+        boolean[] oldIsSlotUsed = isSlotUsed;
+        allocateTables(oldKeys.length << 1);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldIsSlotUsed[i]) {
+                int slot = findSlot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+                isSlotUsed[slot] = true;
+            }
+        }
+    }
+
+    /**
+     * Get the number of entries in the map.
+     *
+     * @return The number of entries.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Check if the map contains no entries.
+     *
+     * @return <code>true</code> if the map is empty, otherwise
+     * <code>false</code>.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Perform the specified action for every entry in the map. The order in
+     * which entries are visited is unspecified.
+     *
+     * @param action The action to perform on each key and its value.
+     */
+    public void forEachKeyAndValue(EntryConsumer action) {
+        for (int i = 0; i < keys.length; i++)
+            if (isSlotUsed[i])
+                action.accept(keys[i], values[i]);
+    }
+
+    /**
+     * An action performed on an entry of an {@link IntLongMap}.
+     */
+    @FunctionalInterface
+    public interface EntryConsumer {
+        /**
+         * Perform the action on an entry.
+         *
+         * @param key The key of the entry.
+         * @param value The value of the entry.
+         */
+        void accept(int key, long value);
+    }
+
+}
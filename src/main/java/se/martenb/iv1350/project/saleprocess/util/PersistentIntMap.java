@@ -0,0 +1,219 @@
+package se.martenb.iv1350.project.saleprocess.util;
+
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * An immutable map from primitive <code>int</code> keys to values, where
+ * adding or replacing an entry creates a new map sharing almost all of its
+ * structure with the old map. Instances can therefore be handed out as
+ * snapshots that never change, without copying the entries.
+ *
+ * The entries are kept in a tree where every node has up to 32 children,
+ * chosen by five bits of the key at a time, starting with the lowest bits.
+ * Each node only holds the children that exist, so getting, adding or
+ * replacing an entry only visits a few small nodes even for large maps.
+ * Values can not be <code>null</code>.
+ *
+ * @param <V> The type of the values.
+ */
+public final class PersistentIntMap<V> {
+    private static final int BITS_PER_LEVEL = 5;
+    private static final int INDEX_MASK = (1 << BITS_PER_LEVEL) - 1;
+    private static final PersistentIntMap<?> EMPTY =
+            new PersistentIntMap<>(new Node(0, new Object[0]), 0);
+    private final Node root;
+    private final int size;
+
+    /**
+     * Creates a new instance with the specified tree of entries.
+     *
+     * @param root The root node of the tree.
+     * @param size The number of entries.
+     */
+    private PersistentIntMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Get an empty map.
+     *
+     * @param <V> The type of the values.
+     * @return The empty map.
+     */
+    @SuppressWarnings("unchecked")
+    public static <V> PersistentIntMap<V> empty() {
+        return (PersistentIntMap<V>) EMPTY;
+    }
+
+    /**
+     * Get the value of the specified key.
+     *
+     * @param key The key to look up.
+     * @return The value, or <code>null</code> if the key is not in the map.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        Node node = root;
+        for (int shift = 0; ; shift += BITS_PER_LEVEL) {
+            int bit = 1 << ((key >>> shift) & INDEX_MASK);
+            if ((node.bitmap & bit) == 0)
+                return null;
+            Object child = node.children[node.positionOf(bit)];
+            if (child instanceof Entry) {
+                Entry entry = (Entry) child;
+                return entry.key == key ? (V) entry.value : null;
+            }
+            node = (Node) child;
+        }
+    }
+
+    /**
+     * Get the number of entries.
+     *
+     * @return The number of entries.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Check if the map has no entries.
+     *
+     * @return <code>true</code> if the map is empty.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Create a map where the specified key has the specified value,
+     * replacing any previous value of the key. This map is not changed.
+     *
+     * @param key The key.
+     * @param value The value.
+     * @return The map with the entry added or replaced.
+     */
+    public PersistentIntMap<V> plus(int key, V value) {
+        Objects.requireNonNull(value, "Values can not be null.");
+        int nextSize = get(key) == null ? size + 1 : size;
+        return new PersistentIntMap<>(
+                putIn(root, 0, new Entry(key, value)), nextSize);
+    }
+
+    /**
+     * Copy the nodes on the path to the key of the entry, adding or
+     * replacing the entry.
+     *
+     * @param node The node to add the entry below.
+     * @param shift The number of key bits used above the node.
+     * @param entry The entry to add.
+     * @return The copied node.
+     */
+    private static Node putIn(Node node, int shift, Entry entry) {
+        int bit = 1 << ((entry.key >>> shift) & INDEX_MASK);
+        int position = node.positionOf(bit);
+        if ((node.bitmap & bit) == 0) {
+            Object[] children = new Object[node.children.length + 1];
+            System.arraycopy(node.children, 0, children, 0, position);
+            children[position] = entry;
+            System.arraycopy(node.children, position, children, position + 1,
+                    node.children.length - position);
+            return new Node(node.bitmap | bit, children);
+        }
+        Object child = node.children[position];
+        Object[] children = node.children.clone();
+        if (child instanceof Node)
+            children[position] =
+                    putIn((Node) child, shift + BITS_PER_LEVEL, entry);
+        else if (((Entry) child).key == entry.key)
+            children[position] = entry;
+        else
+            children[position] = createNode((Entry) child, entry,
+                    shift + BITS_PER_LEVEL);
+        return new Node(node.bitmap, children);
+    }
+
+    /**
+     * Create the nodes needed to hold two entries with different keys,
+     * which share the key bits used above the created node.
+     *
+     * @param firstEntry One of the entries.
+     * @param secondEntry The other entry.
+     * @param shift The number of key bits used above the created node.
+     * @return The created node.
+     */
+    private static Node createNode(Entry firstEntry, Entry secondEntry,
+            int shift) {
+        int firstIndex = (firstEntry.key >>> shift) & INDEX_MASK;
+        int secondIndex = (secondEntry.key >>> shift) & INDEX_MASK;
+        if (firstIndex == secondIndex)
+            return new Node(1 << firstIndex, new Object[] {createNode(
+                    firstEntry, secondEntry, shift + BITS_PER_LEVEL)});
+        int bitmap = (1 << firstIndex) | (1 << secondIndex);
+        if (firstIndex < secondIndex)
+            return new Node(bitmap, new Object[] {firstEntry, secondEntry});
+        return new Node(bitmap, new Object[] {secondEntry, firstEntry});
+    }
+
+    /**
+     * Perform the specified action for every value, in no particular order.
+     *
+     * @param action The action to perform on each value.
+     */
+    public void forEachValue(Consumer<? super V> action) {
+        forEachValueBelow(root, action);
+    }
+
+    /**
+     * Perform the specified action for every value below a node.
+     *
+     * @param node The node.
+     * @param action The action to perform on each value.
+     */
+    @SuppressWarnings("unchecked")
+    private static <V> void forEachValueBelow(Node node,
+            Consumer<? super V> action) {
+        for (Object child : node.children) {
+            if (child instanceof Entry)
+                action.accept((V) ((Entry) child).value);
+            else
+                forEachValueBelow((Node) child, action);
+        }
+    }
+
+    /**
+     * A node of the tree, holding only the children that exist. Bit
+     * <code>i</code> of the bitmap is set if there is a child for key bits
+     * <code>i</code>, and the children are stored in the order of their
+     * bits.
+     */
+    private static final class Node {
+        private final int bitmap;
+        private final Object[] children;
+
+        private Node(int bitmap, Object[] children) {
+            this.bitmap = bitmap;
+            this.children = children;
+        }
+
+        private int positionOf(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+    }
+
+    /**
+     * A key and its value.
+     */
+    private static final class Entry {
+        private final int key;
+        private final Object value;
+
+        private Entry(int key, Object value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+}
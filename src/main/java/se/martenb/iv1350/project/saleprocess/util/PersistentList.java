@@ -0,0 +1,187 @@
+package se.martenb.iv1350.project.saleprocess.util;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * An immutable list where adding or replacing an element creates a new list
+ * sharing almost all of its structure with the old list. Instances can
+ * therefore be handed out as snapshots that never change, without copying
+ * the elements.
+ *
+ * The elements are kept in a tree where every node has up to 32 children,
+ * so getting, adding or replacing an element only visits a few nodes even
+ * for very long lists. Methods that would change the list, such as
+ * <code>add</code> and <code>set</code>, throw
+ * {@link UnsupportedOperationException}.
+ *
+ * @param <E> The type of the elements.
+ */
+public final class PersistentList<E> extends AbstractList<E>
+        implements RandomAccess {
+    private static final int BITS_PER_LEVEL = 5;
+    private static final int INDEX_MASK = (1 << BITS_PER_LEVEL) - 1;
+    private static final PersistentList<?> EMPTY =
+            new PersistentList<>(new Object[0], 0, 0);
+    private final Object[] root;
+    private final int rootShift;
+    private final int size;
+
+    /**
+     * Creates a new instance with the specified tree of elements.
+     *
+     * @param root The root node of the tree.
+     * @param rootShift The number of index bits below the root node,
+     *                  <code>0</code> if the root node holds the elements.
+     * @param size The number of elements.
+     */
+    private PersistentList(Object[] root, int rootShift, int size) {
+        this.root = root;
+        this.rootShift = rootShift;
+        this.size = size;
+    }
+
+    /**
+     * Get an empty list.
+     *
+     * @param <E> The type of the elements.
+     * @return The empty list.
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentList<E> empty() {
+        return (PersistentList<E>) EMPTY;
+    }
+
+    /**
+     * Get the element at the specified position.
+     *
+     * @param index The position of the element.
+     * @return The element.
+     * @throws IndexOutOfBoundsException If there is no such position.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        checkIndex(index);
+        Object[] node = root;
+        for (int level = rootShift; level > 0; level -= BITS_PER_LEVEL)
+            node = (Object[]) node[(index >>> level) & INDEX_MASK];
+        return (E) node[index & INDEX_MASK];
+    }
+
+    /**
+     * Get the number of elements.
+     *
+     * @return The number of elements.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Create a list with the specified element added last. This list is not
+     * changed.
+     *
+     * @param element The element to add.
+     * @return The list with the element added.
+     */
+    public PersistentList<E> plus(E element) {
+        long rootCapacity = 1L << (rootShift + BITS_PER_LEVEL);
+        if (size == rootCapacity) {
+            int grownShift = rootShift + BITS_PER_LEVEL;
+            Object[] grownRoot =
+                    {root, createPath(rootShift, element)};
+            return new PersistentList<>(grownRoot, grownShift, size + 1);
+        }
+        return new PersistentList<>(appendTo(root, rootShift, element),
+                rootShift, size + 1);
+    }
+
+    /**
+     * Create a list with the element at the specified position replaced.
+     * This list is not changed.
+     *
+     * @param index The position of the element to replace.
+     * @param element The new element.
+     * @return The list with the element replaced.
+     * @throws IndexOutOfBoundsException If there is no such position.
+     */
+    public PersistentList<E> with(int index, E element) {
+        checkIndex(index);
+        return new PersistentList<>(replaceIn(root, rootShift, index,
+                element), rootShift, size);
+    }
+
+    /**
+     * Copy the nodes on the path to the first free position, adding the
+     * element at that position.
+     *
+     * @param node The node to add the element below.
+     * @param level The number of index bits below the node.
+     * @param element The element to add.
+     * @return The copied node.
+     */
+    private Object[] appendTo(Object[] node, int level, E element) {
+        int childIndex = (size >>> level) & INDEX_MASK;
+        Object[] copiedNode = Arrays.copyOf(node, childIndex + 1);
+        if (level == 0)
+            copiedNode[childIndex] = element;
+        else if (childIndex < node.length)
+            copiedNode[childIndex] = appendTo((Object[]) node[childIndex],
+                    level - BITS_PER_LEVEL, element);
+        else
+            copiedNode[childIndex] =
+                    createPath(level - BITS_PER_LEVEL, element);
+        return copiedNode;
+    }
+
+    /**
+     * Create new nodes down to the element.
+     *
+     * @param level The number of index bits below the created node.
+     * @param element The element to hold.
+     * @return The created node.
+     */
+    private static Object[] createPath(int level, Object element) {
+        if (level == 0)
+            return new Object[] {element};
+        return new Object[] {createPath(level - BITS_PER_LEVEL, element)};
+    }
+
+    /**
+     * Copy the nodes on the path to the specified position, replacing the
+     * element at that position.
+     *
+     * @param node The node to replace the element below.
+     * @param level The number of index bits below the node.
+     * @param index The position of the element to replace.
+     * @param element The new element.
+     * @return The copied node.
+     */
+    private static Object[] replaceIn(Object[] node, int level, int index,
+            Object element) {
+        Object[] copiedNode = node.clone();
+        int childIndex = (index >>> level) & INDEX_MASK;
+        if (level == 0)
+            copiedNode[childIndex] = element;
+        else
+            copiedNode[childIndex] = replaceIn((Object[]) node[childIndex],
+                    level - BITS_PER_LEVEL, index, element);
+        return copiedNode;
+    }
+
+    /**
+     * Check that the specified position is in the list.
+     *
+     * @param index The position to check.
+     * @throws IndexOutOfBoundsException If there is no such position.
+     */
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index " + index +
+                    " out of bounds for length " + size);
+    }
+
+}
@@ -4,11 +4,10 @@ package se.martenb.iv1350.project.saleprocess.util;
  * Represents a price. All instances are immutable.
  */
 public class Price {
-    private static final double PERCENT_MULTIPLIER = 0.01;
     private final Amount priceBeforeTaxes;
     private final Amount priceAfterTaxes;
     private final Amount taxesAmount;
-    private final double vatTaxRate;
+    private final VATRate vatRate;
     
     /**
      * Creates a new instance, representing the specified price.
@@ -18,22 +17,33 @@ public class Price {
      * 
     */
     public Price(Amount priceBeforeTaxes, double vatTaxRate) {
+        this(priceBeforeTaxes, VATRate.of(vatTaxRate));
+    }
+    
+    /**
+     * Creates a new instance, representing the specified price.
+     * 
+     * @param priceBeforeTaxes The price before any added tax.
+     * @param vatRate The VAT tax rate applied to the price.
+     */
+    Price(Amount priceBeforeTaxes, VATRate vatRate) {
         this.priceBeforeTaxes = priceBeforeTaxes;
-        this.vatTaxRate = vatTaxRate;
-        this.taxesAmount = calculateAmountOfTaxes();
+        this.vatRate = vatRate;
+        this.taxesAmount = vatRate.calculateTaxes(priceBeforeTaxes);
         this.priceAfterTaxes = priceBeforeTaxes.plus(this.taxesAmount);
     }
     
     /**
-     * Calculate the amount of taxes for the specified price.
+     * Get a price with the specified price before taxes and VAT tax rate. 
+     * Prices with the registered VAT tax rates are reused if they were 
+     * recently created, see {@link VATRate#priceOf(Amount)}.
      * 
-     * @return The amount of taxes.
+     * @param priceBeforeTaxes The price before any added tax.
+     * @param vatTaxRate The VAT tax rate in percent applied to the price.
+     * @return The price.
      */
-    private Amount calculateAmountOfTaxes() {
-        double taxRatePercentMultiplier = PERCENT_MULTIPLIER * vatTaxRate;
-        Amount amountOfTaxes = 
-                priceBeforeTaxes.multiply(taxRatePercentMultiplier);
-        return amountOfTaxes;
+    public static Price of(Amount priceBeforeTaxes, double vatTaxRate) {
+        return VATRate.of(vatTaxRate).priceOf(priceBeforeTaxes);
     }
     
     /**
@@ -69,7 +79,16 @@ public class Price {
      * @return The VAT tax rate in percent.
      */
     public double getVATTaxRate() {
-        return this.vatTaxRate;
+        return this.vatRate.getPercent();
+    }
+    
+    /**
+     * Get the VAT tax rate for this object.
+     * 
+     * @return The VAT tax rate.
+     */
+    public VATRate getVATRate() {
+        return this.vatRate;
     }
     
 }
@@ -0,0 +1,205 @@
+package se.martenb.iv1350.project.saleprocess.util;
+
+/**
+ * Represents a VAT tax rate in percent. All instances are immutable.
+ *
+ * The multiplier used to calculate the taxes of a price is precomputed as
+ * an exact fixed-point number, so calculating taxes is plain
+ * <code>long</code> arithmetic. The taxes are exactly the same as when
+ * multiplying the price with the <code>double</code> multiplier.
+ *
+ * The Swedish VAT rates are registered once and shared. Each of them keeps a
+ * table of recently created prices, so that creating a {@link Price} that
+ * was recently created with the same rate is a table lookup.
+ */
+public final class VATRate {
+    private static final double PERCENT_MULTIPLIER = 0.01;
+    private static final int INTERNED_PRICE_TABLE_BITS = 12;
+    private static final long SLOT_HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+    private static final int NOT_FIXED_POINT = 0;
+
+    /**
+     * The standard VAT tax rate of 25 percent.
+     */
+    public static final VATRate STANDARD = new VATRate(25, true);
+
+    /**
+     * The reduced VAT tax rate of 12 percent, for example for food.
+     */
+    public static final VATRate REDUCED = new VATRate(12, true);
+
+    /**
+     * The lowest reduced VAT tax rate of 6 percent, for example for books.
+     */
+    public static final VATRate LOW = new VATRate(6, true);
+
+    private static final VATRate[] REGISTERED_RATES =
+            {STANDARD, REDUCED, LOW};
+
+    private final double percent;
+    private final double multiplier;
+    private final long multiplierSignificand;
+    private final int multiplierShift;
+    private final Price[] internedPrices;
+
+    /**
+     * Creates a new instance, representing the specified VAT tax rate.
+     *
+     * @param percent The VAT tax rate in percent.
+     * @param isInterningPrices <code>true</code> if recently created prices
+     *                          are kept for reuse.
+     */
+    private VATRate(double percent, boolean isInterningPrices) {
+        this.percent = percent;
+        this.multiplier = PERCENT_MULTIPLIER * percent;
+        long[] fixedPointMultiplier = toFixedPoint(multiplier);
+        this.multiplierSignificand = fixedPointMultiplier[0];
+        this.multiplierShift = (int) fixedPointMultiplier[1];
+        this.internedPrices = isInterningPrices ?
+                new Price[1 << INTERNED_PRICE_TABLE_BITS] : null;
+    }
+
+    /**
+     * Get the VAT tax rate with the specified percent. The registered rates
+     * are returned for their percentages, other rates are created.
+     *
+     * @param percent The VAT tax rate in percent.
+     * @return The VAT tax rate.
+     */
+    public static VATRate of(double percent) {
+        for (VATRate registeredRate : REGISTERED_RATES)
+            if (registeredRate.percent == percent)
+                return registeredRate;
+        return new VATRate(percent, false);
+    }
+
+    /**
+     * Convert a multiplier to an exact fixed-point number, the significand
+     * divided by two to the power of the shift.
+     *
+     * @param multiplierToConvert The multiplier to convert.
+     * @return The significand and the shift, where the shift is
+     * <code>NOT_FIXED_POINT</code> if the multiplier is negative, too small
+     * or too large to be converted.
+     */
+    private static long[] toFixedPoint(double multiplierToConvert) {
+        if (multiplierToConvert == 0)
+            return new long[] {0, 1};
+        boolean isConvertible = multiplierToConvert > 0 &&
+                multiplierToConvert >= Double.MIN_NORMAL &&
+                !Double.isInfinite(multiplierToConvert);
+        if (!isConvertible)
+            return new long[] {0, NOT_FIXED_POINT};
+        long bits = Double.doubleToLongBits(multiplierToConvert);
+        int biasedExponent = (int) (bits >>> 52);
+        long significand = (bits & 0xFFFFFFFFFFFFFL) | (1L << 52);
+        int shift = 1075 - biasedExponent;
+        int trailingZeros = Long.numberOfTrailingZeros(significand);
+        significand >>>= trailingZeros;
+        shift -= trailingZeros;
+        if (shift <= 0 || shift >= 64)
+            return new long[] {0, NOT_FIXED_POINT};
+        return new long[] {significand, shift};
+    }
+
+    /**
+     * Get a price with the specified price before taxes and this VAT tax
+     * rate. A recently created equal price is returned if there is one.
+     * Prices are immutable, so the table of recently created prices is read
+     * and written by any number of threads without locking. If two threads
+     * replace the same price at the same time, one of the new prices is
+     * simply created again later.
+     *
+     * @param priceBeforeTaxes The price before any added tax.
+     * @return The price.
+     */
+    public Price priceOf(Amount priceBeforeTaxes) {
+        if (internedPrices == null)
+            return new Price(priceBeforeTaxes, this);
+        int slot = (int) ((priceBeforeTaxes.getMinorUnits() *
+                SLOT_HASH_MULTIPLIER) >>> (64 - INTERNED_PRICE_TABLE_BITS));
+        Price internedPrice = internedPrices[slot];
+        if (internedPrice != null &&
+                internedPrice.getPriceBeforeTax().equals(priceBeforeTaxes))
+            return internedPrice;
+        Price createdPrice = new Price(priceBeforeTaxes, this);
+        internedPrices[slot] = createdPrice;
+        return createdPrice;
+    }
+
+    /**
+     * Calculate the amount of taxes for the specified price. Uses the
+     * precomputed fixed-point multiplier, unless the price is too large
+     * for it.
+     *
+     * @param priceBeforeTaxes The price before any added tax.
+     * @return The amount of taxes.
+     */
+    Amount calculateTaxes(Amount priceBeforeTaxes) {
+        if (multiplierShift == NOT_FIXED_POINT)
+            return priceBeforeTaxes.multiply(multiplier);
+        long minorUnits = priceBeforeTaxes.getMinorUnits();
+        long magnitude = Math.abs(minorUnits);
+        long productHigh = Math.multiplyHigh(magnitude, multiplierSignificand);
+        long productLow = magnitude * multiplierSignificand;
+        boolean isProductTooLarge = magnitude < 0 ||
+                (productHigh >>> multiplierShift) != 0;
+        if (isProductTooLarge)
+            return priceBeforeTaxes.multiply(multiplier);
+        long truncatedTaxes = (productHigh << (64 - multiplierShift)) |
+                (productLow >>> multiplierShift);
+        if (truncatedTaxes < 0)
+            return priceBeforeTaxes.multiply(multiplier);
+        return Amount.ofMinorUnits(minorUnits < 0 ?
+                -truncatedTaxes : truncatedTaxes);
+    }
+
+    /**
+     * Get the VAT tax rate in percent.
+     *
+     * @return The VAT tax rate in percent.
+     */
+    public double getPercent() {
+        return percent;
+    }
+
+    /**
+     * Compares the specified <code>Object</code> to this object and
+     * returns <code>true</code> if both are VAT tax rates with the same
+     * percent.
+     *
+     * @param objectToCompare The object to compare this object with.
+     * @return The result of the comparison.
+     */
+    @Override
+    public boolean equals(Object objectToCompare) {
+        if (objectToCompare == this)
+            return true;
+        if (!(objectToCompare instanceof VATRate))
+            return false;
+        VATRate rateToCompare = (VATRate) objectToCompare;
+        return Double.compare(percent, rateToCompare.percent) == 0;
+    }
+
+    /**
+     * Creates a hash code from the percent, so that equal rates have equal
+     * hash codes.
+     *
+     * @return The hash code.
+     */
+    @Override
+    public int hashCode() {
+        return Double.hashCode(percent);
+    }
+
+    /**
+     * Creates a string of the VAT tax rate in percent.
+     *
+     * @return The string representing the rate.
+     */
+    @Override
+    public String toString() {
+        return percent + " %";
+    }
+
+}
@@ -5,7 +5,6 @@ import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.GregorianCalendar;
-import java.util.List;
 import se.martenb.iv1350.project.saleprocess.controller.Controller;
 import se.martenb.iv1350.project.saleprocess.controller.OperationFailedException;
 import se.martenb.iv1350.project.saleprocess.model.ItemRegistrationException;
@@ -56,16 +55,21 @@ public class View {
     
     /**
      * Get item information from the current sale about the specified item,
-     * a <code>null</code> value is returned if item is not in the sale.
+     * a <code>null</code> value is returned if item is not in the sale. The
+     * item that was changed last is used if it is the specified item, 
+     * otherwise all items in the sale are searched.
      * 
-     * @param itemInSaleList List with items in the sale.
+     * @param stateOfSale The sale state.
      * @param itemID The item ID to look for.
      * @return The found item or <code>null</code>.
      */
-    private ItemInSaleDTO getItemInSale(List<ItemInSaleDTO> itemInSaleList, 
-            int itemID) {
+    private ItemInSaleDTO getItemInSale(SaleDTO stateOfSale, int itemID) {
+        ItemInSaleDTO lastChangedItem = stateOfSale.getLastChangedItem();
+        if (lastChangedItem != null && 
+                lastChangedItem.getItemInfo().getItemID() == itemID)
+            return lastChangedItem;
         ItemInSaleDTO foundItemInSale = null;
-        for (ItemInSaleDTO itemInSale : itemInSaleList)
+        for (ItemInSaleDTO itemInSale : stateOfSale.getItemsInSale())
             if (itemInSale.getItemInfo().getItemID() == itemID)
                 foundItemInSale = itemInSale;
         return foundItemInSale;
@@ -81,7 +85,7 @@ public class View {
     private void fakeExecutionItemRegistrationOutput(SaleDTO stateOfSale, 
             int itemID, Quantity quantity) {
         ItemInSaleDTO registeredItemInSale = 
-                getItemInSale(stateOfSale.getItemsInSale(), itemID);
+                getItemInSale(stateOfSale, itemID);
         String itemDesciption = 
                 registeredItemInSale.getItemInfo().getItemName();
         Price itemPrice = registeredItemInSale.getItemInfo().getItemPrice();
@@ -194,6 +198,7 @@ public class View {
         System.out.println("\n\n[PRINTING RECEIPT]");
         System.out.println("[NOTIFYING PURCHASE OBSERVERS]\n\n");
         PurchaseDTO purchaseInfo = contr.registerPayment(saleState, payment);
+        contr.awaitPostPaymentStages();
         System.out.println("\n\n[PURCHASE OBSERVERS HAVE BEEN NOTIFIED]");
         System.out.println("[PRINTING HAS FINISHED]\n\n");
         Amount amountChange = purchaseInfo.getAmountChange();
@@ -4,7 +4,15 @@ import se.martenb.iv1350.project.saleprocess.model.UnknownItemException;
 import se.martenb.iv1350.project.saleprocess.model.ItemRegistrationException;
 import se.martenb.iv1350.project.saleprocess.model.IllegalItemQuantityException;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -13,6 +21,8 @@ import se.martenb.iv1350.project.saleprocess.util.Amount;
 import se.martenb.iv1350.project.saleprocess.integration.Printer;
 import se.martenb.iv1350.project.saleprocess.integration.dto.CustomerDTO;
 import se.martenb.iv1350.project.saleprocess.integration.dto.PurchaseDTO;
+import se.martenb.iv1350.project.saleprocess.integration.dto.ReceiptDTO;
+import se.martenb.iv1350.project.saleprocess.integration.dto.RegisterBalanceDTO;
 import se.martenb.iv1350.project.saleprocess.integration.dto.SaleDTO;
 import se.martenb.iv1350.project.saleprocess.testing.TestingEnvironment;
 import se.martenb.iv1350.project.saleprocess.testing.TestingObjectCreator;
@@ -38,6 +48,7 @@ public class ControllerTest {
     
     @AfterEach
     public void tearDown() {
+        controllerInitial.shutdown();
         testObjCr = null;
         printerInitial = null;
         controllerInitial = null;
@@ -54,7 +65,7 @@ public class ControllerTest {
                     "Sale");
         } catch (Exception awaitedException) {
             boolean correctExceptionThrown = 
-                    awaitedException instanceof NullPointerException;
+                    awaitedException instanceof IllegalStateException;
             if (correctExceptionThrown) {
                 controllerInitial.startSale();
                 try {
@@ -181,6 +192,25 @@ public class ControllerTest {
         }
     }
     
+    @Test
+    public void testRegistryFailureDuringAddItemToSaleException() 
+            throws ItemRegistrationException, IOException {
+        TestingEnvironment testEnv = new TestingEnvironment();
+        testEnv.backupErrorLog();
+        int mustBeHardcodedErrorID = 999999999;
+        try {
+            startSaleAndRegisterItem(mustBeHardcodedErrorID, 
+                    VALID_ITEM_QUANT);
+            fail("Added item to sale without a registry connection.");
+        } catch (OperationFailedException exc) {
+            assertTrue(testEnv.findTextInErrorLog(
+                    "Database connection failed."), 
+                    "Registry failure was not logged.");
+        } finally {
+            testEnv.restoreErrorLog();
+        }
+    }
+    
     @Test
     public void testAddZeroQuantityItemToSaleException() 
             throws ItemRegistrationException, OperationFailedException {
@@ -328,18 +358,19 @@ public class ControllerTest {
         controllerInitial.addPurchaseObserver(new TestingPurchaseObserver());
         PurchaseDTO purchaseInfo = controllerInitial.registerPayment(
                 saleState, paidAmount);
+        controllerInitial.awaitPostPaymentStages();
         String outputAfterActiveTestingPurchaseObserver = 
                 testEnv.getRedirectedSystemOut();
         testEnv.restoreSystemOut();
-        StringBuilder expectedObserverOutput = new StringBuilder();
-        expectedObserverOutput.
-                append(purchaseInfo.getFinalPrice().getTotalPriceAfterTaxes()).
-                append("\n");
+        String expectedObserverOutput = 
+                purchaseInfo.getFinalPrice().getTotalPriceAfterTaxes().
+                        toString();
         assertNotEquals(outputBeforeActiveTestingPurchaseObserver, 
                 outputAfterActiveTestingPurchaseObserver,
                 "TestingPurchaseObserver was not notified.");
-        assertTrue(outputAfterActiveTestingPurchaseObserver.
-                startsWith(expectedObserverOutput.toString()), 
+        assertEquals(1, countOutputLines(
+                outputAfterActiveTestingPurchaseObserver, 
+                expectedObserverOutput), 
                 "TestingPurchaseObserver did not get correct data.");
     }
 
@@ -360,26 +391,23 @@ public class ControllerTest {
         controllerInitial.addPurchaseObserver(new TestingPurchaseObserver());
         PurchaseDTO purchaseInfo = controllerInitial.registerPayment(
                 saleState, paidAmount);
+        controllerInitial.awaitPostPaymentStages();
         String outputAfterActiveTestingPurchaseObserver = 
                 testEnv.getRedirectedSystemOut();
         testEnv.restoreSystemOut();
-        StringBuilder expectedObserverOutput = new StringBuilder();
-        expectedObserverOutput.
-                append(purchaseInfo.getFinalPrice().getTotalPriceAfterTaxes()).
-                append("\n").
-                append(purchaseInfo.getFinalPrice().getTotalPriceAfterTaxes()).
-                append("\n").
-                append(purchaseInfo.getFinalPrice().getTotalPriceAfterTaxes()).
-                append("\n").
-                append(purchaseInfo.getFinalPrice().getTotalPriceAfterTaxes()).
-                append("\n").
-                append(purchaseInfo.getFinalPrice().getTotalPriceAfterTaxes()).
-                append("\n");
+        String expectedObserverOutput = 
+                purchaseInfo.getFinalPrice().getTotalPriceAfterTaxes().
+                        toString();
         
-        assertTrue(outputAfterActiveTestingPurchaseObserver.
-                startsWith(expectedObserverOutput.toString()), 
+        assertEquals(5, countOutputLines(
+                outputAfterActiveTestingPurchaseObserver, 
+                expectedObserverOutput), 
                 "TestingPurchaseObserver did not get correct data.");
     }
+    
+    private long countOutputLines(String output, String line) {
+        return output.lines().filter(line::equals).count();
+    }
 
     @Test
     public void testTryDiscountOnSale() {
@@ -393,4 +421,301 @@ public class ControllerTest {
         }
     }
     
+    @Test
+    public void testRegisterBasket() 
+            throws ItemRegistrationException, OperationFailedException {
+        controllerInitial.startSale();
+        int[] basketItemIDs = new int[] {VALID_ITEM_ID_B, VALID_ITEM_ID_A, 
+            VALID_ITEM_ID_B};
+        Quantity[] basketQuantities = new Quantity[] {VALID_ITEM_QUANT, 
+            VALID_ITEM_QUANT, new Quantity(2)};
+        SaleDTO saleDTO = controllerInitial.registerItems(basketItemIDs, 
+                basketQuantities);
+        assertEquals(1, testObjCr.quantityOfItemAddedToSale(saleDTO, 
+                VALID_ITEM_ID_A), "Wrong quantity of first item.");
+        assertEquals(3, testObjCr.quantityOfItemAddedToSale(saleDTO, 
+                VALID_ITEM_ID_B), "Wrong quantity of repeated item.");
+        assertEquals(4, saleDTO.getTotalItems(), "Wrong number of items.");
+    }
+    
+    @Test
+    public void testRegisterBasketWithUnknownItemException() 
+            throws ItemRegistrationException, OperationFailedException {
+        SaleDTO saleBeforeBasket = startSaleAndRegisterItem(VALID_ITEM_ID_A, 
+                VALID_ITEM_QUANT);
+        int mustBeInvalidID = 0;
+        try {
+            controllerInitial.registerItems(
+                    new int[] {VALID_ITEM_ID_B, mustBeInvalidID}, 
+                    new Quantity[] {VALID_ITEM_QUANT, VALID_ITEM_QUANT});
+            fail("Registered basket with an unknown item.");
+        } catch (UnknownItemException exc) {
+            assertEquals(mustBeInvalidID, exc.getItemThatCannotBeRegistered(), 
+                    "Wrong unknown item reported.");
+        }
+        SaleDTO saleAfterBasket = 
+                registerItemToSale(VALID_ITEM_ID_A, VALID_ITEM_QUANT);
+        assertFalse(testObjCr.wasItemAddedToSale(saleAfterBasket, 
+                VALID_ITEM_ID_B), "Part of failed basket was registered.");
+        assertEquals(saleBeforeBasket.getTotalItems() + 1, 
+                saleAfterBasket.getTotalItems(), 
+                "Part of failed basket was registered.");
+    }
+    
+    @Test
+    public void testRegisterBasketWithIllegalQuantityException() 
+            throws ItemRegistrationException, OperationFailedException {
+        controllerInitial.startSale();
+        Quantity mustBeInvalidItemQuantity = new Quantity(-1);
+        try {
+            controllerInitial.registerItems(
+                    new int[] {VALID_ITEM_ID_A, VALID_ITEM_ID_B}, 
+                    new Quantity[] {VALID_ITEM_QUANT, 
+                        mustBeInvalidItemQuantity});
+            fail("Registered basket with an invalid quantity.");
+        } catch (IllegalItemQuantityException exc) {
+            assertEquals(VALID_ITEM_ID_B, exc.getItemThatCannotBeRegistered(), 
+                    "Wrong item reported.");
+        }
+        SaleDTO saleDTO = registerItemToSale(VALID_ITEM_ID_B, 
+                VALID_ITEM_QUANT);
+        assertFalse(testObjCr.wasItemAddedToSale(saleDTO, VALID_ITEM_ID_A), 
+                "Part of failed basket was registered.");
+    }
+    
+    @Test
+    public void testRegistryFailureDuringRegisterBasketException() 
+            throws ItemRegistrationException, IOException {
+        TestingEnvironment testEnv = new TestingEnvironment();
+        testEnv.backupErrorLog();
+        int mustBeHardcodedErrorID = 999999999;
+        controllerInitial.startSale();
+        try {
+            controllerInitial.registerItems(
+                    new int[] {VALID_ITEM_ID_A, mustBeHardcodedErrorID}, 
+                    new Quantity[] {VALID_ITEM_QUANT, VALID_ITEM_QUANT});
+            fail("Registered basket without a registry connection.");
+        } catch (OperationFailedException exc) {
+            assertTrue(testEnv.findTextInErrorLog(
+                    "Database connection failed."), 
+                    "Registry failure was not logged.");
+        } finally {
+            testEnv.restoreErrorLog();
+        }
+    }
+    
+    @Test
+    public void testRegisterItemAsync() throws InterruptedException, 
+            ExecutionException {
+        controllerInitial.startSale();
+        SaleDTO saleDTO = controllerInitial.registerItemAsync(
+                VALID_ITEM_ID_A, VALID_ITEM_QUANT).get();
+        boolean isItemInSale = testObjCr.wasItemAddedToSale(saleDTO, 
+                VALID_ITEM_ID_A);
+        assertTrue(isItemInSale, "Item is not added to sale.");
+    }
+    
+    @Test
+    public void testRegisterItemAsyncUnknownItemException() 
+            throws InterruptedException {
+        controllerInitial.startSale();
+        int mustBeInvalidID = 0;
+        try {
+            controllerInitial.registerItemAsync(mustBeInvalidID, 
+                    VALID_ITEM_QUANT).get();
+            fail("Added unknown item to sale.");
+        } catch (ExecutionException exc) {
+            boolean correctExceptionThrown = 
+                    exc.getCause() instanceof UnknownItemException;
+            assertTrue(correctExceptionThrown, "Wrong exception thrown.");
+        }
+    }
+    
+    @Test
+    public void testRegistryFailureDuringRegisterItemAsyncException() 
+            throws InterruptedException, IOException {
+        TestingEnvironment testEnv = new TestingEnvironment();
+        testEnv.backupErrorLog();
+        int mustBeHardcodedErrorID = 999999999;
+        controllerInitial.startSale();
+        try {
+            controllerInitial.registerItemAsync(mustBeHardcodedErrorID, 
+                    VALID_ITEM_QUANT).get();
+            fail("Added item to sale without a registry connection.");
+        } catch (ExecutionException exc) {
+            boolean correctExceptionThrown = 
+                    exc.getCause() instanceof OperationFailedException;
+            assertTrue(correctExceptionThrown, "Wrong exception thrown.");
+            assertTrue(testEnv.findTextInErrorLog(
+                    "Database connection failed."), 
+                    "Registry failure was not logged.");
+        } finally {
+            testEnv.restoreErrorLog();
+        }
+    }
+    
+    @Test
+    public void testLanesHaveSeparateSales() 
+            throws ItemRegistrationException, OperationFailedException {
+        int firstLaneID = 1;
+        int secondLaneID = 2;
+        controllerInitial.startSale(firstLaneID);
+        controllerInitial.startSale(secondLaneID);
+        SaleDTO firstSaleDTO = controllerInitial.registerItem(firstLaneID, 
+                VALID_ITEM_ID_A, VALID_ITEM_QUANT);
+        SaleDTO secondSaleDTO = controllerInitial.registerItem(secondLaneID, 
+                VALID_ITEM_ID_B, VALID_ITEM_QUANT);
+        assertTrue(testObjCr.wasItemAddedToSale(firstSaleDTO, 
+                VALID_ITEM_ID_A), "Item is not added to first lane.");
+        assertFalse(testObjCr.wasItemAddedToSale(firstSaleDTO, 
+                VALID_ITEM_ID_B), "Item of second lane added to first lane.");
+        assertTrue(testObjCr.wasItemAddedToSale(secondSaleDTO, 
+                VALID_ITEM_ID_B), "Item is not added to second lane.");
+        assertFalse(testObjCr.wasItemAddedToSale(secondSaleDTO, 
+                VALID_ITEM_ID_A), "Item of first lane added to second lane.");
+    }
+    
+    @Test
+    public void testRegisterBalancePerLane() 
+            throws ItemRegistrationException, OperationFailedException {
+        int firstLaneID = 1;
+        int secondLaneID = 2;
+        TestingEnvironment testEnv = new TestingEnvironment();
+        testEnv.redirectSystemOut();
+        RegisterBalanceDTO balanceBefore = 
+                controllerInitial.getRegisterBalance();
+        controllerInitial.startSale(firstLaneID);
+        controllerInitial.startSale(secondLaneID);
+        SaleDTO firstSaleDTO = controllerInitial.registerItem(firstLaneID, 
+                VALID_ITEM_ID_A, VALID_ITEM_QUANT);
+        SaleDTO secondSaleDTO = controllerInitial.registerItem(secondLaneID, 
+                VALID_ITEM_ID_B, VALID_ITEM_QUANT);
+        controllerInitial.registerPayment(firstLaneID, firstSaleDTO, 
+                new Amount(5000));
+        controllerInitial.registerPayment(secondLaneID, secondSaleDTO, 
+                new Amount(5000));
+        controllerInitial.awaitPostPaymentStages();
+        testEnv.restoreSystemOut();
+        RegisterBalanceDTO balanceAfter = 
+                controllerInitial.getRegisterBalance();
+        assertEquals(firstSaleDTO.getRunningTotal(), 
+                balanceAfter.getLaneDrawerAmount(firstLaneID), 
+                "Wrong amount in drawer of first lane.");
+        assertEquals(secondSaleDTO.getRunningTotal(), 
+                balanceAfter.getLaneDrawerAmount(secondLaneID), 
+                "Wrong amount in drawer of second lane.");
+        assertEquals(balanceBefore.getTotalAmount().
+                plus(firstSaleDTO.getRunningTotal()).
+                plus(secondSaleDTO.getRunningTotal()), 
+                balanceAfter.getTotalAmount(), 
+                "Lane drawers did not roll up to the register total.");
+    }
+    
+    @Test
+    public void testShutdownWaitsForPaidSales() 
+            throws ItemRegistrationException, OperationFailedException {
+        AtomicInteger printedReceipts = new AtomicInteger();
+        Controller controller = new Controller(new Printer() {
+            @Override
+            public void print(ReceiptDTO receiptDTO) {
+                printedReceipts.incrementAndGet();
+            }
+        });
+        int numberOfLanes = 4;
+        int numberOfSales = 200;
+        SaleDTO saleDTO = null;
+        for (int i = 0; i < numberOfSales; i++) {
+            controller.startSale(i % numberOfLanes);
+            saleDTO = controller.registerItem(i % numberOfLanes, 
+                    VALID_ITEM_ID_A, VALID_ITEM_QUANT);
+            controller.registerPayment(i % numberOfLanes, saleDTO, 
+                    new Amount(5000));
+        }
+        controller.shutdown();
+        assertEquals(numberOfSales, printedReceipts.get(), 
+                "Shutdown did not wait for every paid sale.");
+        try {
+            controller.registerPayment(0, saleDTO, new Amount(5000));
+            fail("Payment was registered after shutdown.");
+        } catch (IllegalStateException exc) {
+            assertTrue(exc.getMessage().contains("shut down"), 
+                    "Wrong exception message.");
+        }
+    }
+    
+    @Test
+    public void testRegisterItemOnUnopenedLaneException() 
+            throws ItemRegistrationException, OperationFailedException {
+        int mustBeUnopenedLaneID = 42;
+        try {
+            controllerInitial.registerItem(mustBeUnopenedLaneID, 
+                    VALID_ITEM_ID_A, VALID_ITEM_QUANT);
+            fail("Registered item on a lane that is not open.");
+        } catch (IllegalStateException exc) {
+            assertTrue(exc.getMessage().contains("" + mustBeUnopenedLaneID), 
+                    "Wrong exception message, does not contain lane ID: " + 
+                            exc.getMessage());
+        }
+    }
+    
+    @Test
+    public void testCloseLane() 
+            throws ItemRegistrationException, OperationFailedException {
+        int laneID = 1;
+        controllerInitial.startSale(laneID);
+        controllerInitial.closeLane(laneID);
+        try {
+            controllerInitial.registerItem(laneID, VALID_ITEM_ID_A, 
+                    VALID_ITEM_QUANT);
+            fail("Registered item on a closed lane.");
+        } catch (IllegalStateException exc) {
+        }
+    }
+    
+    @Test
+    public void testConcurrentLanes() throws InterruptedException, 
+            ExecutionException {
+        int numberOfLanes = 200;
+        int itemsPerSale = 20;
+        TestingEnvironment testEnv = new TestingEnvironment();
+        testEnv.redirectSystemOut();
+        AtomicInteger registeredPurchases = new AtomicInteger();
+        controllerInitial.addPurchaseObserver(
+                purchaseInfo -> registeredPurchases.incrementAndGet());
+        ExecutorService lanePool = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<SaleDTO>> finalSales = new ArrayList<>();
+            for (int laneID = 1; laneID <= numberOfLanes; laneID++) {
+                int lane = laneID;
+                finalSales.add(lanePool.submit(() -> {
+                    controllerInitial.startSale(lane);
+                    SaleDTO saleDTO = null;
+                    for (int i = 0; i < itemsPerSale; i++)
+                        saleDTO = controllerInitial.registerItem(lane, 
+                                i % 2 == 0 ? VALID_ITEM_ID_A : VALID_ITEM_ID_B, 
+                                VALID_ITEM_QUANT);
+                    controllerInitial.tryDiscountOnSale(lane, saleDTO, 
+                            testObjCr.makeCustomerDTOSimple(1950, 1, 1));
+                    controllerInitial.registerPayment(lane, saleDTO, 
+                            new Amount(5000));
+                    return saleDTO;
+                }));
+            }
+            for (Future<SaleDTO> finalSale : finalSales) {
+                SaleDTO saleDTO = finalSale.get();
+                assertEquals(itemsPerSale / 2, testObjCr.
+                        quantityOfItemAddedToSale(saleDTO, VALID_ITEM_ID_A), 
+                        "Wrong quantity of item in lane.");
+                assertEquals(itemsPerSale, saleDTO.getTotalItems(), 
+                        "Items of other lanes were added to sale.");
+            }
+            controllerInitial.awaitPostPaymentStages();
+        } finally {
+            lanePool.shutdown();
+            testEnv.restoreSystemOut();
+        }
+        assertEquals(numberOfLanes, registeredPurchases.get(), 
+                "Not every purchase was observed.");
+    }
+    
 }
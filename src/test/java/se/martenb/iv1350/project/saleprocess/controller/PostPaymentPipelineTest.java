@@ -0,0 +1,254 @@
+package se.martenb.iv1350.project.saleprocess.controller;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import se.martenb.iv1350.project.saleprocess.integration.AccountingRegistry;
+import se.martenb.iv1350.project.saleprocess.integration.ItemRegistry;
+import se.martenb.iv1350.project.saleprocess.integration.Printer;
+import se.martenb.iv1350.project.saleprocess.integration.catalog.HashedItemCatalog;
+import se.martenb.iv1350.project.saleprocess.integration.dto.PurchaseDTO;
+import se.martenb.iv1350.project.saleprocess.integration.dto.ReceiptDTO;
+import se.martenb.iv1350.project.saleprocess.integration.dto.SaleDTO;
+import se.martenb.iv1350.project.saleprocess.testing.TestingEnvironment;
+import se.martenb.iv1350.project.saleprocess.testing.TestingErrorLogger;
+import se.martenb.iv1350.project.saleprocess.testing.TestingObjectCreator;
+import se.martenb.iv1350.project.saleprocess.util.Amount;
+import se.martenb.iv1350.project.saleprocess.util.ErrorLogger;
+
+public class PostPaymentPipelineTest {
+    private TestingObjectCreator testObjCr;
+    private ExecutorService stageExecutor;
+    private ItemRegistry itemRegistry;
+    private SaleDTO saleInfo;
+    
+    private static class RecordingPrinter extends Printer {
+        private final List<Amount> printedAmountsPaid = new ArrayList<>();
+        
+        @Override
+        public synchronized void print(ReceiptDTO receiptDTO) {
+            printedAmountsPaid.add(
+                    receiptDTO.getPurchaseInfo().getAmountPaid());
+        }
+        
+        synchronized List<Amount> getPrintedAmountsPaid() {
+            return new ArrayList<>(printedAmountsPaid);
+        }
+    }
+    
+    private static class FailingAccountingRegistry 
+            extends AccountingRegistry {
+        private final int failingAttempts;
+        private final AtomicInteger attempts = new AtomicInteger();
+        
+        FailingAccountingRegistry(int failingAttempts) {
+            this.failingAttempts = failingAttempts;
+        }
+        
+        @Override
+        public void bookkeep(SaleDTO saleInformation, 
+                Amount totalDiscount) {
+            if (attempts.incrementAndGet() <= failingAttempts)
+                throw new IllegalStateException("Accounting system is down.");
+        }
+    }
+    
+    @BeforeEach
+    public void setUp() {
+        testObjCr = new TestingObjectCreator();
+        stageExecutor = Executors.newFixedThreadPool(4);
+        itemRegistry = new ItemRegistry(new HashedItemCatalog());
+        saleInfo = testObjCr.generateSaleDTOAndFinalPrice(3);
+    }
+    
+    @AfterEach
+    public void tearDown() {
+        stageExecutor.shutdown();
+        saleInfo = null;
+        itemRegistry = null;
+        testObjCr = null;
+    }
+    
+    private ReceiptDTO makeReceipt(Amount amountPaid) {
+        PurchaseDTO purchaseInfo = testObjCr.generateLastPurchaseDTO(
+                testObjCr.getLastFinalPrice(), amountPaid);
+        return new ReceiptDTO(testObjCr.getStoreDTO(), purchaseInfo, 
+                new Amount(0), saleInfo);
+    }
+
+    @Test
+    public void testReceiptsPrintedInPaymentOrderPerLane() {
+        RecordingPrinter printer = new RecordingPrinter();
+        PostPaymentPipeline pipeline = new PostPaymentPipeline(
+                new AccountingRegistry(), itemRegistry, printer, 
+                new ErrorLogger(), stageExecutor);
+        int lanes = 4;
+        int receiptsPerLane = 200;
+        for (int i = 0; i < receiptsPerLane; i++)
+            for (int laneID = 0; laneID < lanes; laneID++)
+                pipeline.submit(laneID, makeReceipt(
+                        new Amount(laneID * 1000 + i)));
+        pipeline.awaitSubmittedStages();
+        List<Amount> printedAmountsPaid = printer.getPrintedAmountsPaid();
+        assertEquals(lanes * receiptsPerLane, printedAmountsPaid.size(), 
+                "Not every receipt was printed.");
+        int[] lastPrinted = new int[lanes];
+        Arrays.fill(lastPrinted, -1);
+        for (Amount amountPaid : printedAmountsPaid) {
+            int sequenceNumber = amountPaid.getAmount().intValue();
+            int laneID = sequenceNumber / 1000;
+            int receiptOfLane = sequenceNumber % 1000;
+            assertEquals(lastPrinted[laneID] + 1, receiptOfLane, 
+                    "Receipt of lane " + laneID + " printed out of order.");
+            lastPrinted[laneID] = receiptOfLane;
+        }
+    }
+
+    @Test
+    public void testFailedStageIsNotRetried() {
+        FailingAccountingRegistry accountingRegistry = 
+                new FailingAccountingRegistry(1);
+        RecordingPrinter printer = new RecordingPrinter();
+        TestingErrorLogger errorLogger = new TestingErrorLogger();
+        PostPaymentPipeline pipeline = new PostPaymentPipeline(
+                accountingRegistry, itemRegistry, printer, errorLogger, 
+                stageExecutor);
+        pipeline.submit(0, makeReceipt(new Amount(100)));
+        pipeline.awaitSubmittedStages();
+        assertEquals(1, accountingRegistry.attempts.get(), 
+                "Failed bookkeeping was retried.");
+        assertEquals(1, printer.getPrintedAmountsPaid().size(), 
+                "Failed bookkeeping stopped printing.");
+        assertEquals(1, errorLogger.getLoggedExceptions().size(), 
+                "Failed bookkeeping was not logged once.");
+    }
+
+    @Test
+    public void testFailedStageIsLogged() throws IOException {
+        TestingEnvironment testEnv = new TestingEnvironment();
+        testEnv.backupErrorLog();
+        try {
+            FailingAccountingRegistry accountingRegistry = 
+                    new FailingAccountingRegistry(1);
+            PostPaymentPipeline pipeline = new PostPaymentPipeline(
+                    accountingRegistry, itemRegistry, new RecordingPrinter(), 
+                    new ErrorLogger(), stageExecutor);
+            pipeline.submit(0, makeReceipt(new Amount(100)));
+            pipeline.submit(0, makeReceipt(new Amount(200)));
+            pipeline.awaitSubmittedStages();
+            assertEquals(2, accountingRegistry.attempts.get(), 
+                    "Later receipt was not bookkept after a failure.");
+            assertTrue(testEnv.findTextInErrorLog(
+                    "Accounting system is down."), 
+                    "Failed bookkeeping was not logged.");
+        } finally {
+            testEnv.restoreErrorLog();
+        }
+    }
+
+    @Test
+    public void testStageThrowingErrorIsLogged() throws IOException {
+        TestingEnvironment testEnv = new TestingEnvironment();
+        testEnv.backupErrorLog();
+        try {
+            Printer jammedPrinter = new Printer() {
+                @Override
+                public void print(ReceiptDTO receiptDTO) {
+                    throw new AssertionError("Printer is jammed.");
+                }
+            };
+            PostPaymentPipeline pipeline = new PostPaymentPipeline(
+                    new AccountingRegistry(), itemRegistry, jammedPrinter, 
+                    new ErrorLogger(), stageExecutor);
+            pipeline.submit(0, makeReceipt(new Amount(100)));
+            pipeline.awaitSubmittedStages();
+            assertTrue(testEnv.findTextInErrorLog("Printer is jammed."), 
+                    "Error thrown by a stage was not logged.");
+        } finally {
+            testEnv.restoreErrorLog();
+        }
+    }
+
+    @Test
+    public void testCloseWaitsForSubmittedStages() {
+        RecordingPrinter printer = new RecordingPrinter();
+        PostPaymentPipeline pipeline = new PostPaymentPipeline(
+                new AccountingRegistry(), itemRegistry, printer, 
+                new ErrorLogger());
+        int receipts = 500;
+        for (int i = 0; i < receipts; i++)
+            pipeline.submit(i % 4, makeReceipt(new Amount(i)));
+        pipeline.close();
+        assertEquals(receipts, printer.getPrintedAmountsPaid().size(), 
+                "Close did not wait for every submitted receipt.");
+        try {
+            pipeline.submit(0, makeReceipt(new Amount(1)));
+            fail("Receipt was submitted to a closed pipeline.");
+        } catch (IllegalStateException exc) {
+            assertTrue(exc.getMessage().contains("closed"), 
+                    "Wrong exception message.");
+        }
+    }
+    
+    @Test
+    public void testCloseWaitsForPaymentInProgress() 
+            throws InterruptedException {
+        RecordingPrinter printer = new RecordingPrinter();
+        PostPaymentPipeline pipeline = new PostPaymentPipeline(
+                new AccountingRegistry(), itemRegistry, printer, 
+                new ErrorLogger(), stageExecutor);
+        ReceiptDTO receipt = makeReceipt(new Amount(100));
+        CountDownLatch paymentStarted = new CountDownLatch(1);
+        CountDownLatch paymentMayFinish = new CountDownLatch(1);
+        Thread payer = new Thread(() -> pipeline.payAndSubmit(0, () -> {
+            paymentStarted.countDown();
+            try {
+                paymentMayFinish.await();
+            } catch (InterruptedException exc) {
+                Thread.currentThread().interrupt();
+            }
+            return receipt;
+        }));
+        payer.start();
+        paymentStarted.await();
+        Thread closer = new Thread(pipeline::close);
+        closer.start();
+        closer.join(100);
+        assertTrue(closer.isAlive(), 
+                "Close did not wait for the payment in progress.");
+        paymentMayFinish.countDown();
+        payer.join();
+        closer.join();
+        assertEquals(1, printer.getPrintedAmountsPaid().size(), 
+                "Payment made while closing was not printed.");
+    }
+    
+    @Test
+    public void testNoPaymentIsMadeAfterClose() {
+        PostPaymentPipeline pipeline = new PostPaymentPipeline(
+                new AccountingRegistry(), itemRegistry, 
+                new RecordingPrinter(), new ErrorLogger(), stageExecutor);
+        pipeline.close();
+        AtomicBoolean isPaid = new AtomicBoolean();
+        try {
+            pipeline.payAndSubmit(0, () -> {
+                isPaid.set(true);
+                return makeReceipt(new Amount(100));
+            });
+            fail("Payment was made on a closed pipeline.");
+        } catch (IllegalStateException exc) {
+            assertFalse(isPaid.get(), "Payment was made before failing.");
+        }
+    }
+    
+}
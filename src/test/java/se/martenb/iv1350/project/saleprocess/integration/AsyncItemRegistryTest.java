@@ -0,0 +1,271 @@
+package se.martenb.iv1350.project.saleprocess.integration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import se.martenb.iv1350.project.saleprocess.integration.catalog.HashedItemCatalog;
+import se.martenb.iv1350.project.saleprocess.integration.catalog.ItemCatalog;
+import se.martenb.iv1350.project.saleprocess.integration.dto.ItemDTO;
+import se.martenb.iv1350.project.saleprocess.testing.TestingLatencyItemCatalog;
+import se.martenb.iv1350.project.saleprocess.testing.TestingObjectCreator;
+
+public class AsyncItemRegistryTest {
+    private static final Duration SEARCH_LATENCY = Duration.ofMillis(200);
+    private static final Duration LONG_TIMEOUT = Duration.ofSeconds(10);
+    private TestingLatencyItemCatalog latencyItemCatalog;
+    private ItemRegistry itemRegistry;
+    
+    @BeforeEach
+    public void setUp() {
+        TestingObjectCreator testObjCr = new TestingObjectCreator();
+        HashedItemCatalog itemCatalog = new HashedItemCatalog();
+        for (int itemID = 1; itemID <= 10; itemID++)
+            itemCatalog.addItem(testObjCr.generateItemDTO(itemID));
+        latencyItemCatalog = 
+                new TestingLatencyItemCatalog(itemCatalog, SEARCH_LATENCY);
+        itemRegistry = new ItemRegistry(latencyItemCatalog);
+    }
+    
+    @AfterEach
+    public void tearDown() {
+        itemRegistry = null;
+        latencyItemCatalog = null;
+    }
+    
+    private Executor createRecordingExecutor(List<Thread> searchThreads) {
+        return searchTask -> {
+            Thread searchThread = new Thread(searchTask);
+            searchThreads.add(searchThread);
+            searchThread.start();
+        };
+    }
+    
+    private void joinAll(List<Thread> searchThreads) {
+        for (Thread searchThread : searchThreads) {
+            try {
+                searchThread.join();
+            } catch (InterruptedException exc) {
+                fail("Interrupted while waiting for searches.");
+            }
+        }
+    }
+    
+    private Throwable waitForFailure(CompletableFuture<?> result) {
+        try {
+            result.join();
+            fail("Search did not fail.");
+            return null;
+        } catch (CompletionException exc) {
+            return exc.getCause();
+        }
+    }
+    
+    @Test
+    public void testFindItemInfo() {
+        AsyncItemRegistry asyncItemRegistry = 
+                new AsyncItemRegistry(itemRegistry, 4, LONG_TIMEOUT);
+        Optional<ItemDTO> result = asyncItemRegistry.findItemInfo(3).join();
+        assertTrue(result.isPresent(), "Valid item was not found.");
+        assertEquals(3, result.get().getItemID(), "Found the wrong item.");
+    }
+    
+    @Test
+    public void testFindItemInfoUnknownItem() {
+        AsyncItemRegistry asyncItemRegistry = 
+                new AsyncItemRegistry(itemRegistry, 4, LONG_TIMEOUT);
+        Optional<ItemDTO> result = asyncItemRegistry.findItemInfo(0).join();
+        assertTrue(result.isEmpty(), "Unknown item was found.");
+    }
+    
+    @Test
+    public void testGetItemInfoUnknownItemException() {
+        AsyncItemRegistry asyncItemRegistry = 
+                new AsyncItemRegistry(itemRegistry, 4, LONG_TIMEOUT);
+        Throwable failure = 
+                waitForFailure(asyncItemRegistry.getItemInfo(0));
+        boolean correctExceptionThrown = 
+                failure instanceof ItemRegistryException;
+        assertTrue(correctExceptionThrown, "Wrong exception thrown.");
+    }
+    
+    @Test
+    public void testHardcodedDBConnectionFailureException() {
+        AsyncItemRegistry asyncItemRegistry = 
+                new AsyncItemRegistry(itemRegistry, 4, LONG_TIMEOUT);
+        Throwable failure = 
+                waitForFailure(asyncItemRegistry.findItemInfo(999999999));
+        boolean correctExceptionThrown = 
+                failure instanceof ItemRegistryException;
+        assertTrue(correctExceptionThrown, "Wrong exception thrown.");
+        assertEquals("Database connection failed.", failure.getMessage(), 
+                "Registry failure was not passed on.");
+    }
+    
+    @Test
+    public void testConcurrentSearchesForSameItemAreShared() {
+        AsyncItemRegistry asyncItemRegistry = 
+                new AsyncItemRegistry(itemRegistry, 4, LONG_TIMEOUT);
+        List<CompletableFuture<Optional<ItemDTO>>> results = 
+                new ArrayList<>();
+        for (int i = 0; i < 20; i++)
+            results.add(asyncItemRegistry.findItemInfo(5));
+        for (CompletableFuture<Optional<ItemDTO>> result : results)
+            assertEquals(5, result.join().get().getItemID(), 
+                    "Found the wrong item.");
+        assertEquals(1, latencyItemCatalog.getSearchCount(), 
+                "Concurrent searches for the same item were not shared.");
+        asyncItemRegistry.findItemInfo(5).join();
+        assertEquals(2, latencyItemCatalog.getSearchCount(), 
+                "Completed search was reused.");
+    }
+    
+    @Test
+    public void testTooManySearchesInProgressException() {
+        AsyncItemRegistry asyncItemRegistry = 
+                new AsyncItemRegistry(itemRegistry, 2, LONG_TIMEOUT);
+        CompletableFuture<Optional<ItemDTO>> firstResult = 
+                asyncItemRegistry.findItemInfo(1);
+        CompletableFuture<Optional<ItemDTO>> secondResult = 
+                asyncItemRegistry.findItemInfo(2);
+        Throwable failure = 
+                waitForFailure(asyncItemRegistry.findItemInfo(3));
+        boolean correctExceptionThrown = 
+                failure instanceof ItemRegistryException;
+        assertTrue(correctExceptionThrown, "Wrong exception thrown.");
+        assertTrue(firstResult.join().isPresent() && 
+                secondResult.join().isPresent(), 
+                "Searches within the limit failed.");
+        assertTrue(asyncItemRegistry.findItemInfo(3).join().isPresent(), 
+                "Search failed after earlier searches completed.");
+    }
+    
+    @Test
+    public void testSearchTimeoutException() {
+        AsyncItemRegistry asyncItemRegistry = new AsyncItemRegistry(
+                itemRegistry, 4, Duration.ofMillis(20));
+        Throwable failure = waitForFailure(asyncItemRegistry.findItemInfo(1));
+        boolean correctExceptionThrown = 
+                failure instanceof ItemRegistryException;
+        assertTrue(correctExceptionThrown, "Wrong exception thrown.");
+        assertTrue(failure.getMessage().contains("timed out"), 
+                "Wrong exception message: " + failure.getMessage());
+    }
+    
+    @Test
+    public void testTimedOutSearchIsCancelled() {
+        List<Thread> searchThreads = new ArrayList<>();
+        AsyncItemRegistry asyncItemRegistry = new AsyncItemRegistry(
+                itemRegistry, createRecordingExecutor(searchThreads), 1, 
+                Duration.ofMillis(20));
+        Throwable firstFailure = 
+                waitForFailure(asyncItemRegistry.findItemInfo(1));
+        assertTrue(firstFailure.getMessage().contains("timed out"), 
+                "Wrong exception message: " + firstFailure.getMessage());
+        joinAll(searchThreads);
+        Throwable secondFailure = 
+                waitForFailure(asyncItemRegistry.findItemInfo(1));
+        assertTrue(secondFailure.getMessage().contains("timed out"), 
+                "Timed out search kept its permit: " + 
+                        secondFailure.getMessage());
+        assertEquals(2, latencyItemCatalog.getSearchCount(), 
+                "Timed out search was joined instead of searched again.");
+    }
+    
+    @Test
+    public void testTimedOutSearchKeepsPermitUntilRegistryReturns() {
+        HashedItemCatalog itemCatalog = new HashedItemCatalog();
+        itemCatalog.addItem(new TestingObjectCreator().generateItemDTO(1));
+        CountDownLatch registryAnswers = new CountDownLatch(1);
+        ItemCatalog stuckItemCatalog = new ItemCatalog() {
+            @Override
+            public ItemDTO findItem(int itemID) {
+                boolean isInterrupted = false;
+                while (registryAnswers.getCount() > 0) {
+                    try {
+                        registryAnswers.await();
+                    } catch (InterruptedException exc) {
+                        isInterrupted = true;
+                    }
+                }
+                if (isInterrupted)
+                    Thread.currentThread().interrupt();
+                return itemCatalog.findItem(itemID);
+            }
+            
+            @Override
+            public int size() {
+                return itemCatalog.size();
+            }
+            
+            @Override
+            public void forEachItem(Consumer<ItemDTO> action) {
+                itemCatalog.forEachItem(action);
+            }
+        };
+        List<Thread> searchThreads = new ArrayList<>();
+        AsyncItemRegistry asyncItemRegistry = new AsyncItemRegistry(
+                new ItemRegistry(stuckItemCatalog), 
+                createRecordingExecutor(searchThreads), 1, 
+                Duration.ofMillis(20));
+        Throwable firstFailure = 
+                waitForFailure(asyncItemRegistry.findItemInfo(1));
+        assertTrue(firstFailure.getMessage().contains("timed out"), 
+                "Wrong exception message: " + firstFailure.getMessage());
+        Throwable secondFailure = 
+                waitForFailure(asyncItemRegistry.findItemInfo(1));
+        assertTrue(secondFailure.getMessage().contains("Too many"), 
+                "Timed out search released its permit while still " + 
+                        "searching: " + secondFailure.getMessage());
+        assertEquals(1, searchThreads.size(), 
+                "Started a thread for a search without a permit.");
+        registryAnswers.countDown();
+        joinAll(searchThreads);
+        assertTrue(asyncItemRegistry.findItemInfo(1).join().isPresent(), 
+                "Permit was not released when the search returned.");
+    }
+    
+    @Test
+    public void testErrorInRegistryEndsSearch() {
+        HashedItemCatalog itemCatalog = new HashedItemCatalog();
+        itemCatalog.addItem(new TestingObjectCreator().generateItemDTO(1));
+        AtomicBoolean isFailing = new AtomicBoolean(true);
+        ItemCatalog failingItemCatalog = new ItemCatalog() {
+            @Override
+            public ItemDTO findItem(int itemID) {
+                if (isFailing.getAndSet(false))
+                    throw new Error("Registry crashed.");
+                return itemCatalog.findItem(itemID);
+            }
+            
+            @Override
+            public int size() {
+                return itemCatalog.size();
+            }
+            
+            @Override
+            public void forEachItem(Consumer<ItemDTO> action) {
+                itemCatalog.forEachItem(action);
+            }
+        };
+        AsyncItemRegistry asyncItemRegistry = new AsyncItemRegistry(
+                new ItemRegistry(failingItemCatalog), 1, LONG_TIMEOUT);
+        Throwable failure = waitForFailure(asyncItemRegistry.findItemInfo(1));
+        boolean correctExceptionThrown = 
+                failure instanceof ItemRegistryException;
+        assertTrue(correctExceptionThrown, "Wrong exception thrown.");
+        assertTrue(asyncItemRegistry.findItemInfo(1).join().isPresent(), 
+                "Search failed after an error in the registry.");
+    }
+    
+}
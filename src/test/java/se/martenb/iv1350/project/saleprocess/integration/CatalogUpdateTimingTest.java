@@ -0,0 +1,142 @@
+package se.martenb.iv1350.project.saleprocess.integration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.AfterEach;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se.martenb.iv1350.project.saleprocess.integration.catalog.HashedItemCatalog;
+import se.martenb.iv1350.project.saleprocess.integration.dto.PriceUpdateDTO;
+import se.martenb.iv1350.project.saleprocess.testing.TestingObjectCreator;
+import se.martenb.iv1350.project.saleprocess.testing.TestingTimer;
+import se.martenb.iv1350.project.saleprocess.util.Price;
+
+public class CatalogUpdateTimingTest {
+    private static final int NUMBER_OF_ITEMS = 100_000;
+    private static final int LOOKUPS_PER_RUN = 100_000;
+    private static final int UPDATES_PER_BATCH = 10;
+    private TestingObjectCreator testObjCr;
+    private TestingTimer timer;
+    private ItemRegistry itemRegistry;
+    private Price newPrice;
+    
+    @BeforeEach
+    public void setUp() {
+        testObjCr = new TestingObjectCreator();
+        timer = new TestingTimer();
+        Price price = testObjCr.makePrice(10, 25);
+        HashedItemCatalog itemCatalog = new HashedItemCatalog();
+        for (int itemID = 1; itemID <= NUMBER_OF_ITEMS; itemID++)
+            itemCatalog.addItem(testObjCr.makeItemDTO(itemID, 
+                    "Item #" + itemID, price));
+        itemRegistry = new ItemRegistry(itemCatalog);
+        newPrice = testObjCr.makePrice(12, 25);
+    }
+    
+    @AfterEach
+    public void tearDown() {
+        newPrice = null;
+        itemRegistry = null;
+        timer = null;
+        testObjCr = null;
+    }
+    
+    private List<PriceUpdateDTO> makePriceUpdates(int firstItemID) {
+        List<PriceUpdateDTO> priceUpdates = new ArrayList<>();
+        for (int i = 0; i < UPDATES_PER_BATCH; i++) {
+            int itemID = 1 + (firstItemID + i - 1) % NUMBER_OF_ITEMS;
+            priceUpdates.add(new PriceUpdateDTO(itemID, newPrice));
+        }
+        return priceUpdates;
+    }
+    
+    private void applyPriceUpdatesToEveryItem() {
+        for (int firstItemID = 1; firstItemID <= NUMBER_OF_ITEMS; 
+                firstItemID += UPDATES_PER_BATCH)
+            itemRegistry.applyPriceUpdates(makePriceUpdates(firstItemID));
+    }
+    
+    private double timeLookups() {
+        Random random = new Random(1350);
+        int[] lookedUpIDs = new int[LOOKUPS_PER_RUN];
+        for (int i = 0; i < LOOKUPS_PER_RUN; i++)
+            lookedUpIDs[i] = 1 + random.nextInt(NUMBER_OF_ITEMS);
+        return timer.nanosPerOperation(LOOKUPS_PER_RUN, () -> {
+            long foundItems = 0;
+            for (int itemID : lookedUpIDs)
+                if (itemRegistry.findItemInfo(itemID).isPresent())
+                    foundItems++;
+            return foundItems;
+        });
+    }
+    
+    private double timePriceUpdates(int firstItemID, int numberOfBatches) {
+        List<List<PriceUpdateDTO>> priceUpdateBatches = new ArrayList<>();
+        for (int i = 0; i < numberOfBatches; i++)
+            priceUpdateBatches.add(
+                    makePriceUpdates(firstItemID + i * UPDATES_PER_BATCH));
+        return timer.nanosPerOperation(numberOfBatches, () -> {
+            long catalogVersion = 0;
+            for (List<PriceUpdateDTO> priceUpdates : priceUpdateBatches)
+                catalogVersion = 
+                        itemRegistry.applyPriceUpdates(priceUpdates);
+            return catalogVersion;
+        });
+    }
+    
+    @Test
+    public void testLookupsUnderConcurrentWriterAsFastAsReadOnly() 
+            throws InterruptedException {
+        applyPriceUpdatesToEveryItem();
+        double readOnlyTime = timeLookups();
+        timer.report("Lookup without writer", readOnlyTime);
+        long versionBeforeWriter = 
+                itemRegistry.getCatalogSnapshot().getVersion();
+        AtomicBoolean isReadingDone = new AtomicBoolean();
+        Thread writer = new Thread(() -> {
+            int firstItemID = 1;
+            while (!isReadingDone.get()) {
+                itemRegistry.applyPriceUpdates(makePriceUpdates(firstItemID));
+                firstItemID += UPDATES_PER_BATCH;
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException exc) {
+                    return;
+                }
+            }
+        });
+        writer.start();
+        double concurrentWriterTime;
+        try {
+            concurrentWriterTime = timeLookups();
+        } finally {
+            isReadingDone.set(true);
+            writer.join();
+        }
+        timer.report("Lookup with concurrent writer", concurrentWriterTime);
+        assertTrue(itemRegistry.getCatalogSnapshot().getVersion() > 
+                versionBeforeWriter, "The writer did not update any prices.");
+        assertTrue(concurrentWriterTime < readOnlyTime * 2, 
+                "Lookups took " + concurrentWriterTime + " ns with a " + 
+                "concurrent writer and " + readOnlyTime + " ns without.");
+    }
+    
+    @Test
+    public void testPriceUpdateTimeDoesNotGrowWithEarlierUpdates() {
+        double fewEarlierUpdatesTime = timePriceUpdates(1, 100);
+        timer.report("Price update batch after few updates", 
+                fewEarlierUpdatesTime);
+        applyPriceUpdatesToEveryItem();
+        double manyEarlierUpdatesTime = timePriceUpdates(1, 100);
+        timer.report("Price update batch after " + NUMBER_OF_ITEMS + 
+                " updated items", manyEarlierUpdatesTime);
+        assertTrue(manyEarlierUpdatesTime < fewEarlierUpdatesTime * 10, 
+                "Updating prices took " + manyEarlierUpdatesTime + " ns " + 
+                "after updating every item and " + fewEarlierUpdatesTime + 
+                " ns before.");
+    }
+    
+}
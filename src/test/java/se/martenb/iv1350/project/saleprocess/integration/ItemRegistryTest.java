@@ -1,11 +1,25 @@
 package se.martenb.iv1350.project.saleprocess.integration;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import org.junit.jupiter.api.AfterEach;
 import static org.junit.jupiter.api.Assertions.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import se.martenb.iv1350.project.saleprocess.integration.dto.ItemDTO;
+import se.martenb.iv1350.project.saleprocess.integration.dto.PriceUpdateDTO;
+import se.martenb.iv1350.project.saleprocess.integration.dto.SaleDTO;
+import se.martenb.iv1350.project.saleprocess.integration.catalog.CatalogSnapshot;
+import se.martenb.iv1350.project.saleprocess.integration.catalog.HashedItemCatalog;
+import se.martenb.iv1350.project.saleprocess.integration.inventory.Inventory;
 import se.martenb.iv1350.project.saleprocess.testing.TestingEnvironment;
+import se.martenb.iv1350.project.saleprocess.testing.TestingObjectCreator;
+import se.martenb.iv1350.project.saleprocess.util.Amount;
+import se.martenb.iv1350.project.saleprocess.util.Price;
 
 public class ItemRegistryTest {
     private ItemRegistry itemRegistry;
@@ -37,7 +51,68 @@ public class ItemRegistryTest {
     }
 
     @Test
-    public void testHardcodedDBConnectionFailureDuringIsItemInDBException() 
+    public void testGetItemInfoAllDummyItems() {
+        int numberOfDummyItems = 100;
+        for (int itemID = 1; itemID <= numberOfDummyItems; itemID++) {
+            assertTrue(itemRegistry.isItemInDB(itemID),
+                    "Dummy item missing from database: " + itemID);
+            ItemDTO result = itemRegistry.getItemInfo(itemID);
+            assertEquals(itemID, result.getItemID(),
+                    "Fetched info for the wrong item.");
+        }
+    }
+
+    @Test
+    public void testIsItemInDBUnknownItem() {
+        int mustBeInvalidID = 101;
+        assertFalse(itemRegistry.isItemInDB(mustBeInvalidID),
+                "Unknown item was found in database.");
+    }
+
+    @Test
+    public void testFindItemInfo() {
+        int mustBeValidID = 53;
+        Optional<ItemDTO> result = itemRegistry.findItemInfo(mustBeValidID);
+        assertTrue(result.isPresent(), "Valid item was not found.");
+        assertEquals(mustBeValidID, result.get().getItemID(),
+                "Found the wrong item.");
+    }
+
+    @Test
+    public void testFindItemInfoUnknownItem() {
+        int mustBeInvalidID = 0;
+        Optional<ItemDTO> result = itemRegistry.findItemInfo(mustBeInvalidID);
+        assertTrue(result.isEmpty(), "Unknown item was found.");
+    }
+
+    @Test
+    public void testFindItemInfoInSpecifiedCatalog() {
+        HashedItemCatalog itemCatalog = new HashedItemCatalog();
+        ItemDTO catalogItem = new TestingObjectCreator().generateItemDTO(500);
+        itemCatalog.addItem(catalogItem);
+        ItemRegistry catalogItemRegistry = new ItemRegistry(itemCatalog);
+        assertSame(catalogItem, 
+                catalogItemRegistry.findItemInfo(500).orElse(null), 
+                "Item was not fetched from the specified catalog.");
+        assertTrue(catalogItemRegistry.findItemInfo(1).isEmpty(), 
+                "Found item that is not in the specified catalog.");
+    }
+
+    @Test
+    public void testHardcodedDBConnectionFailureDuringFindItemInfoException() {
+        int mustBeHardcodedErrorID = 999999999;
+        try {
+            itemRegistry.findItemInfo(mustBeHardcodedErrorID);
+            fail("Searched in database without a connection.");
+        } catch (Exception awaitedException) {
+            boolean correctExceptionThrown =
+                    awaitedException instanceof ItemRegistryException;
+            assertTrue(correctExceptionThrown, "Wrong exception thrown.");
+        }
+    }
+
+    @Test
+    public void testHardcodedDBConnectionFailureDuringIsItemInDBException()
             throws IOException {
         int mustBeHardcodedErrorID = 999999999;
         try {
@@ -63,5 +138,181 @@ public class ItemRegistryTest {
             assertTrue(correctExceptionThrown, "Wrong exception thrown.");
         }
     }
-    
+
+    @Test
+    public void testApplyPriceUpdates() {
+        Price newPrice = new Price(new Amount(123.45), 12);
+        long catalogVersion = itemRegistry.applyPriceUpdates(
+                List.of(new PriceUpdateDTO(7, newPrice)));
+        assertEquals(1, catalogVersion, "Wrong catalog version.");
+        ItemDTO result = itemRegistry.getItemInfo(7);
+        assertSame(newPrice, result.getItemPrice(), "Price was not updated.");
+        assertEquals(7, result.getItemID(), "Updated the wrong item.");
+    }
+
+    @Test
+    public void testApplyPriceUpdatesUnknownItemException() {
+        ItemDTO itemBeforeUpdates = itemRegistry.getItemInfo(7);
+        Price newPrice = new Price(new Amount(123.45), 12);
+        List<PriceUpdateDTO> priceUpdates = List.of(
+                new PriceUpdateDTO(7, newPrice), 
+                new PriceUpdateDTO(0, newPrice));
+        try {
+            itemRegistry.applyPriceUpdates(priceUpdates);
+            fail("Updated the price of an unknown item.");
+        } catch (Exception awaitedException) {
+            boolean correctExceptionThrown = 
+                    awaitedException instanceof ItemRegistryException;
+            assertTrue(correctExceptionThrown, "Wrong exception thrown.");
+        }
+        assertSame(itemBeforeUpdates, itemRegistry.getItemInfo(7), 
+                "Part of failed updates was applied.");
+        assertEquals(0, itemRegistry.getCatalogSnapshot().getVersion(), 
+                "Failed updates changed the catalog version.");
+    }
+
+    @Test
+    public void testApplyPriceUpdatesNeverSeenHalfApplied() 
+            throws InterruptedException {
+        int numberOfUpdates = 2000;
+        int numberOfReaders = 4;
+        List<List<PriceUpdateDTO>> priceUpdateBatches = new ArrayList<>();
+        for (int i = 0; i < numberOfUpdates; i++) {
+            Price batchPrice = new Price(new Amount(i), 25);
+            List<PriceUpdateDTO> priceUpdates = new ArrayList<>();
+            for (int itemID = 1; itemID <= 100; itemID++)
+                priceUpdates.add(new PriceUpdateDTO(itemID, batchPrice));
+            priceUpdateBatches.add(priceUpdates);
+        }
+        AtomicBoolean writerDone = new AtomicBoolean();
+        AtomicReference<String> readerFailure = new AtomicReference<>();
+        List<Thread> readers = new ArrayList<>();
+        for (int i = 0; i < numberOfReaders; i++) {
+            Thread reader = new Thread(() -> {
+                while (!writerDone.get() && readerFailure.get() == null) {
+                    CatalogSnapshot catalogSnapshot = 
+                            itemRegistry.getCatalogSnapshot();
+                    Price firstPrice = 
+                            catalogSnapshot.findItem(1).getItemPrice();
+                    Price lastPrice = 
+                            catalogSnapshot.findItem(100).getItemPrice();
+                    boolean isHalfApplied = catalogSnapshot.getVersion() > 0 
+                            && firstPrice != lastPrice;
+                    if (isHalfApplied)
+                        readerFailure.set("Version " + 
+                                catalogSnapshot.getVersion() + 
+                                " was half applied.");
+                }
+            });
+            readers.add(reader);
+            reader.start();
+        }
+        for (List<PriceUpdateDTO> priceUpdates : priceUpdateBatches)
+            itemRegistry.applyPriceUpdates(priceUpdates);
+        writerDone.set(true);
+        for (Thread reader : readers)
+            reader.join();
+        assertNull(readerFailure.get(), "Reader saw a half applied update.");
+        assertEquals(numberOfUpdates, 
+                itemRegistry.getCatalogSnapshot().getVersion(), 
+                "Wrong catalog version after all updates.");
+    }
+
+    @Test
+    public void testDummyItemsAreStocked() {
+        Inventory inventory = itemRegistry.getInventory();
+        assertEquals(100, inventory.getUnitsInStock(1), 
+                "Wrong dummy stock level.");
+        assertEquals(100, inventory.getUnitsInStock(100), 
+                "Wrong dummy stock level.");
+    }
+
+    @Test
+    public void testStocktackeRemovesSoldItems() {
+        TestingObjectCreator testObjCr = new TestingObjectCreator();
+        SaleDTO finishedSale = testObjCr.generateSaleDTOAndFinalPrice(3);
+        itemRegistry.stocktacke(finishedSale);
+        Inventory inventory = itemRegistry.getInventory();
+        assertEquals(98, inventory.getUnitsInStock(1), 
+                "Wrong stock level after selling 2 units.");
+        assertEquals(97, inventory.getUnitsInStock(2), 
+                "Wrong stock level after selling 3 units.");
+        assertEquals(96, inventory.getUnitsInStock(3), 
+                "Wrong stock level after selling 4 units.");
+        assertEquals(100, inventory.getUnitsInStock(4), 
+                "Stock level changed for item not sold.");
+    }
+
+    @Test
+    public void testFindItemsByNamePrefix() {
+        List<ItemDTO> result = 
+                itemRegistry.findItemsByNamePrefix("tasty banana", 10);
+        assertEquals(4, result.size(), "Wrong number of items found.");
+        for (ItemDTO foundItem : result)
+            assertTrue(foundItem.getItemName().startsWith("Tasty Banana"), 
+                    "Found item with the wrong name.");
+    }
+
+    @Test
+    public void testFindItemsByNameContainingAfterPriceUpdate() {
+        Price newPrice = new Price(new Amount(1), 6);
+        int itemIDToUpdate = 
+                itemRegistry.findItemsByNameContaining("cookies", 1).get(0)
+                        .getItemID();
+        itemRegistry.applyPriceUpdates(
+                List.of(new PriceUpdateDTO(itemIDToUpdate, newPrice)));
+        ItemDTO result = 
+                itemRegistry.findItemsByNameContaining("cookies", 1).get(0);
+        assertEquals(itemIDToUpdate, result.getItemID(), 
+                "Price update changed the search result.");
+        assertSame(newPrice, result.getItemPrice(), 
+                "Search returned an outdated item.");
+    }
+
+    @Test
+    public void testFindItemInfos() {
+        int[] itemIDs = new int[] {42, 7, 0, 42, 100};
+        ItemDTO[] result = itemRegistry.findItemInfos(itemIDs);
+        assertEquals(itemIDs.length, result.length, "Wrong number of results.");
+        assertEquals(42, result[0].getItemID(), "Found the wrong item.");
+        assertEquals(7, result[1].getItemID(), "Found the wrong item.");
+        assertNull(result[2], "Found an unknown item.");
+        assertSame(result[0], result[3], "Repeated item was not shared.");
+        assertEquals(100, result[4].getItemID(), "Found the wrong item.");
+    }
+
+    @Test
+    public void testFindItemInfosNegativeIDs() {
+        int[] itemIDs = new int[] {-1, 3, Integer.MIN_VALUE};
+        ItemDTO[] result = itemRegistry.findItemInfos(itemIDs);
+        assertNull(result[0], "Found an unknown item.");
+        assertEquals(3, result[1].getItemID(), "Found the wrong item.");
+        assertNull(result[2], "Found an unknown item.");
+    }
+
+    @Test
+    public void testGetItemInfosUnknownItemException() {
+        try {
+            itemRegistry.getItemInfos(new int[] {1, 0, 2});
+            fail("Fetched info for an unknown item.");
+        } catch (Exception awaitedException) {
+            boolean correctExceptionThrown = 
+                    awaitedException instanceof ItemRegistryException;
+            assertTrue(correctExceptionThrown, "Wrong exception thrown.");
+        }
+    }
+
+    @Test
+    public void testHardcodedDBConnectionFailureDuringGetItemInfosException() {
+        int mustBeHardcodedErrorID = 999999999;
+        try {
+            itemRegistry.getItemInfos(new int[] {1, mustBeHardcodedErrorID});
+            fail("Searched in database without a connection.");
+        } catch (Exception awaitedException) {
+            boolean correctExceptionThrown = 
+                    awaitedException instanceof ItemRegistryException;
+            assertTrue(correctExceptionThrown, "Wrong exception thrown.");
+        }
+    }
+
 }
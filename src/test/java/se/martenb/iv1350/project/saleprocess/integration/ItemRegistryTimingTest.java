@@ -0,0 +1,108 @@
+package se.martenb.iv1350.project.saleprocess.integration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.AfterEach;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se.martenb.iv1350.project.saleprocess.integration.catalog.HashedItemCatalog;
+import se.martenb.iv1350.project.saleprocess.integration.dto.ItemDTO;
+import se.martenb.iv1350.project.saleprocess.testing.TestingObjectCreator;
+import se.martenb.iv1350.project.saleprocess.testing.TestingTimer;
+import se.martenb.iv1350.project.saleprocess.util.Price;
+
+public class ItemRegistryTimingTest {
+    private static final int LOOKUPS_PER_RUN = 100_000;
+    private TestingObjectCreator testObjCr;
+    private TestingTimer timer;
+    private Price sharedPrice;
+    
+    @BeforeEach
+    public void setUp() {
+        testObjCr = new TestingObjectCreator();
+        timer = new TestingTimer();
+        sharedPrice = testObjCr.makePrice(10, 25);
+    }
+    
+    @AfterEach
+    public void tearDown() {
+        sharedPrice = null;
+        timer = null;
+        testObjCr = null;
+    }
+    
+    private List<ItemDTO> makeItems(int numberOfItems) {
+        List<ItemDTO> items = new ArrayList<>(numberOfItems);
+        for (int itemID = 1; itemID <= numberOfItems; itemID++)
+            items.add(testObjCr.makeItemDTO(itemID, "Item #" + itemID, 
+                    sharedPrice));
+        return items;
+    }
+    
+    private int[] makeLookedUpIDs(int numberOfItems, int numberOfLookups) {
+        Random random = new Random(1350);
+        int[] lookedUpIDs = new int[numberOfLookups];
+        for (int i = 0; i < numberOfLookups; i++)
+            lookedUpIDs[i] = 1 + random.nextInt(numberOfItems);
+        return lookedUpIDs;
+    }
+    
+    private double timeIndexedLookups(int numberOfItems) {
+        HashedItemCatalog itemCatalog = new HashedItemCatalog();
+        makeItems(numberOfItems).forEach(itemCatalog::addItem);
+        ItemRegistry itemRegistry = new ItemRegistry(itemCatalog);
+        int[] lookedUpIDs = makeLookedUpIDs(numberOfItems, LOOKUPS_PER_RUN);
+        double nanosPerLookup = timer.nanosPerOperation(LOOKUPS_PER_RUN, 
+                () -> {
+                    long foundItems = 0;
+                    for (int itemID : lookedUpIDs)
+                        if (itemRegistry.isItemInDB(itemID))
+                            foundItems++;
+                    return foundItems;
+                });
+        timer.report("Indexed lookup among " + numberOfItems + " items", 
+                nanosPerLookup);
+        return nanosPerLookup;
+    }
+    
+    private double timeSequentialLookups(int numberOfItems, 
+            int numberOfLookups) {
+        List<ItemDTO> items = makeItems(numberOfItems);
+        int[] lookedUpIDs = makeLookedUpIDs(numberOfItems, numberOfLookups);
+        double nanosPerLookup = timer.nanosPerOperation(numberOfLookups, 
+                () -> {
+                    long foundItems = 0;
+                    for (int itemID : lookedUpIDs)
+                        for (ItemDTO item : items)
+                            if (item.getItemID() == itemID)
+                                foundItems++;
+                    return foundItems;
+                });
+        timer.report("Sequential scan among " + numberOfItems + " items", 
+                nanosPerLookup);
+        return nanosPerLookup;
+    }
+    
+    @Test
+    public void testLookupTimeIsFlatAsCatalogGrows() {
+        double smallCatalogTime = timeIndexedLookups(1_000);
+        timeIndexedLookups(100_000);
+        double largeCatalogTime = timeIndexedLookups(1_000_000);
+        assertTrue(largeCatalogTime < smallCatalogTime * 25, 
+                "Lookup time grew with the catalog, from " + 
+                smallCatalogTime + " to " + largeCatalogTime + " ns.");
+    }
+    
+    @Test
+    public void testIndexedLookupFasterThanSequentialScan() {
+        int numberOfItems = 100_000;
+        double sequentialTime = timeSequentialLookups(numberOfItems, 200);
+        double indexedTime = timeIndexedLookups(numberOfItems);
+        assertTrue(indexedTime * 100 < sequentialTime, 
+                "Indexed lookup took " + indexedTime + " ns, a sequential " + 
+                "scan " + sequentialTime + " ns.");
+    }
+    
+}
@@ -0,0 +1,45 @@
+package se.martenb.iv1350.project.saleprocess.integration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import se.martenb.iv1350.project.saleprocess.integration.catalog.ItemCatalogWriter;
+import se.martenb.iv1350.project.saleprocess.integration.dto.CacheStatisticsDTO;
+import se.martenb.iv1350.project.saleprocess.testing.TestingObjectCreator;
+
+public class RegistryCreatorTest {
+    @TempDir
+    Path tempDirectory;
+    
+    @Test
+    public void testItemCatalogFileIsCached() throws IOException {
+        TestingObjectCreator testObjCr = new TestingObjectCreator();
+        Path catalogFile = tempDirectory.resolve("catalog.bin");
+        new ItemCatalogWriter().writeCatalog(List.of(
+                testObjCr.generateItemDTO(1), testObjCr.generateItemDTO(2)), 
+                catalogFile);
+        RegistryCreator registryCreator = new RegistryCreator(catalogFile);
+        ItemRegistry itemRegistry = registryCreator.getItemRegistry();
+        assertEquals(2, itemRegistry.getItemInfo(2).getItemID(), 
+                "Wrong item found.");
+        assertEquals(2, itemRegistry.getItemInfo(2).getItemID(), 
+                "Wrong item found.");
+        CacheStatisticsDTO statistics = 
+                registryCreator.getItemCatalogCache().getStatistics();
+        assertEquals(1, statistics.getMissCount(), 
+                "Item was not searched for through the cache.");
+        assertEquals(1, statistics.getHitCount(), 
+                "Repeated search was not served by the cache.");
+    }
+    
+    @Test
+    public void testDummyItemRegistryHasNoCache() {
+        RegistryCreator registryCreator = new RegistryCreator();
+        assertNull(registryCreator.getItemCatalogCache(), 
+                "Dummy item registry was given a catalog cache.");
+    }
+    
+}
@@ -0,0 +1,192 @@
+package se.martenb.iv1350.project.saleprocess.integration.catalog;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import se.martenb.iv1350.project.saleprocess.integration.dto.CacheStatisticsDTO;
+import se.martenb.iv1350.project.saleprocess.integration.dto.ItemDTO;
+import se.martenb.iv1350.project.saleprocess.testing.TestingObjectCreator;
+
+public class CachingItemCatalogTest {
+    private static final int ITEMS_IN_CATALOG = 100;
+    private static final Duration TIME_TO_LIVE = Duration.ofMinutes(5);
+    private CountingItemCatalog backingCatalog;
+    private AtomicLong fakeNanoClock;
+    
+    @BeforeEach
+    public void setUp() {
+        TestingObjectCreator testObjCr = new TestingObjectCreator();
+        HashedItemCatalog hashedItemCatalog = new HashedItemCatalog();
+        for (int i = 1; i <= ITEMS_IN_CATALOG; i++)
+            hashedItemCatalog.addItem(testObjCr.generateItemDTO(i));
+        backingCatalog = new CountingItemCatalog(hashedItemCatalog);
+        fakeNanoClock = new AtomicLong();
+    }
+    
+    @AfterEach
+    public void tearDown() {
+        backingCatalog = null;
+        fakeNanoClock = null;
+    }
+    
+    private CachingItemCatalog createCache(int maximumSize, 
+            EvictionPolicy evictionPolicy) {
+        return new CachingItemCatalog(backingCatalog, maximumSize, 
+                evictionPolicy, TIME_TO_LIVE, fakeNanoClock::get);
+    }
+
+    @Test
+    public void testRepeatedLookupIsCached() {
+        CachingItemCatalog cache = createCache(10, EvictionPolicy.LRU);
+        ItemDTO firstResult = cache.findItem(1);
+        ItemDTO secondResult = cache.findItem(1);
+        assertSame(firstResult, secondResult, "Wrong item returned.");
+        assertEquals(1, backingCatalog.lookups, 
+                "Cached item was searched for again.");
+        CacheStatisticsDTO statistics = cache.getStatistics();
+        assertEquals(1, statistics.getHitCount(), "Wrong hit count.");
+        assertEquals(1, statistics.getMissCount(), "Wrong miss count.");
+        assertEquals(0.5, statistics.getHitRate(), "Wrong hit rate.");
+    }
+
+    @Test
+    public void testUnknownItemIsCached() {
+        CachingItemCatalog cache = createCache(10, EvictionPolicy.LRU);
+        assertNull(cache.findItem(-1), "Found unknown item.");
+        assertNull(cache.findItem(-1), "Found unknown item.");
+        assertEquals(1, backingCatalog.lookups, 
+                "Cached unknown item was searched for again.");
+        assertEquals(1, cache.getStatistics().getNegativeHitCount(), 
+                "Wrong negative hit count.");
+    }
+
+    @Test
+    public void testExpiredItemIsSearchedAgain() {
+        CachingItemCatalog cache = createCache(10, EvictionPolicy.LRU);
+        cache.findItem(1);
+        fakeNanoClock.addAndGet(TIME_TO_LIVE.toNanos());
+        cache.findItem(1);
+        assertEquals(2, backingCatalog.lookups, 
+                "Expired item was not searched for again.");
+    }
+
+    @Test
+    public void testInvalidatedItemIsSearchedAgain() {
+        CachingItemCatalog cache = createCache(10, EvictionPolicy.LRU);
+        cache.findItem(1);
+        cache.invalidate(1);
+        cache.findItem(1);
+        cache.invalidateAll();
+        cache.findItem(1);
+        assertEquals(3, backingCatalog.lookups, 
+                "Invalidated item was not searched for again.");
+    }
+
+    @Test
+    public void testInvalidationDuringSearchIsNotUndone() {
+        CachingItemCatalog cache = createCache(10, EvictionPolicy.LRU);
+        backingCatalog.duringLookup = () -> {
+            backingCatalog.duringLookup = null;
+            cache.invalidate(1);
+        };
+        cache.findItem(1);
+        cache.findItem(1);
+        assertEquals(2, backingCatalog.lookups, 
+                "Item invalidated while searched for was cached.");
+        cache.findItem(1);
+        assertEquals(2, backingCatalog.lookups, 
+                "Item searched for after the invalidation was not cached.");
+    }
+
+    @Test
+    public void testLRUEvictsLeastRecentlyUsed() {
+        CachingItemCatalog cache = createCache(2, EvictionPolicy.LRU);
+        cache.findItem(1);
+        cache.findItem(2);
+        cache.findItem(1);
+        cache.findItem(3);
+        int lookupsBefore = backingCatalog.lookups;
+        cache.findItem(1);
+        assertEquals(lookupsBefore, backingCatalog.lookups, 
+                "Recently used item was evicted.");
+        cache.findItem(2);
+        assertEquals(lookupsBefore + 1, backingCatalog.lookups, 
+                "Least recently used item was not evicted.");
+        assertEquals(2, cache.getStatistics().getEvictionCount(), 
+                "Wrong eviction count.");
+        assertEquals(2, cache.getStatistics().getCachedEntries(), 
+                "Cache grew beyond its maximum size.");
+    }
+
+    @Test
+    public void testTinyLFUKeepsFrequentItems() {
+        int cacheSize = 10;
+        CachingItemCatalog cache = createCache(cacheSize, 
+                EvictionPolicy.TINY_LFU);
+        int[] frequentItemIDs = new int[] {1, 2, 3, 4, 5};
+        for (int round = 0; round < 5; round++)
+            for (int frequentItemID : frequentItemIDs)
+                cache.findItem(frequentItemID);
+        for (int onceScannedID = 11; onceScannedID <= 90; onceScannedID++)
+            cache.findItem(onceScannedID);
+        int lookupsBefore = backingCatalog.lookups;
+        for (int frequentItemID : frequentItemIDs)
+            cache.findItem(frequentItemID);
+        assertEquals(lookupsBefore, backingCatalog.lookups, 
+                "Frequent items were evicted by items scanned once.");
+        assertTrue(cache.getStatistics().getCachedEntries() <= cacheSize, 
+                "Cache grew beyond its maximum size.");
+    }
+
+    @Test
+    public void testTinyLFUSizeOne() {
+        CachingItemCatalog cache = createCache(1, EvictionPolicy.TINY_LFU);
+        for (int itemID = 1; itemID <= 10; itemID++)
+            assertEquals(itemID, cache.findItem(itemID).getItemID(), 
+                    "Wrong item returned.");
+        assertTrue(cache.getStatistics().getCachedEntries() <= 1, 
+                "Cache grew beyond its maximum size.");
+    }
+
+    @Test
+    public void testInvalidMaximumSizeException() {
+        try {
+            createCache(0, EvictionPolicy.LRU);
+            fail("Created a cache unable to hold any items.");
+        } catch (IllegalArgumentException awaitedException) {
+        }
+    }
+    
+    private static class CountingItemCatalog implements ItemCatalog {
+        private final ItemCatalog itemCatalog;
+        private int lookups;
+        private Runnable duringLookup;
+        
+        CountingItemCatalog(ItemCatalog itemCatalog) {
+            this.itemCatalog = itemCatalog;
+        }
+        
+        @Override
+        public ItemDTO findItem(int itemID) {
+            lookups++;
+            if (duringLookup != null)
+                duringLookup.run();
+            return itemCatalog.findItem(itemID);
+        }
+        
+        @Override
+        public int size() {
+            return itemCatalog.size();
+        }
+        
+        @Override
+        public void forEachItem(Consumer<ItemDTO> action) {
+            itemCatalog.forEachItem(action);
+        }
+    }
+    
+}
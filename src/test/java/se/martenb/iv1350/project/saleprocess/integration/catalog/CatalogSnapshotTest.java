@@ -0,0 +1,231 @@
+package se.martenb.iv1350.project.saleprocess.integration.catalog;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import se.martenb.iv1350.project.saleprocess.integration.dto.ItemDTO;
+import se.martenb.iv1350.project.saleprocess.testing.TestingObjectCreator;
+
+public class CatalogSnapshotTest {
+    private static final int ITEMS_IN_CATALOG = 10;
+    private TestingObjectCreator testObjCr;
+    private CatalogSnapshot catalogSnapshot;
+    
+    @BeforeEach
+    public void setUp() {
+        testObjCr = new TestingObjectCreator();
+        HashedItemCatalog baseCatalog = new HashedItemCatalog();
+        for (int i = 1; i <= ITEMS_IN_CATALOG; i++)
+            baseCatalog.addItem(testObjCr.generateItemDTO(i));
+        catalogSnapshot = new CatalogSnapshot(baseCatalog);
+    }
+    
+    @AfterEach
+    public void tearDown() {
+        catalogSnapshot = null;
+        testObjCr = null;
+    }
+    
+    private ItemDTO makeRenamedItem(int itemID, String itemName) {
+        return testObjCr.makeItemDTO(itemID, itemName, 
+                testObjCr.makePrice(99, 25));
+    }
+    
+    @Test
+    public void testFirstSnapshot() {
+        assertEquals(0, catalogSnapshot.getVersion(), "Wrong first version.");
+        assertEquals(ITEMS_IN_CATALOG, catalogSnapshot.size(), 
+                "Wrong number of items.");
+        assertEquals(4, catalogSnapshot.findItem(4).getItemID(), 
+                "Found the wrong item.");
+        assertNull(catalogSnapshot.findItem(ITEMS_IN_CATALOG + 1), 
+                "Found item not in catalog.");
+    }
+    
+    @Test
+    public void testWithUpdatedItems() {
+        ItemDTO updatedItem = makeRenamedItem(3, "Updated");
+        CatalogSnapshot updatedSnapshot = 
+                catalogSnapshot.withUpdatedItems(List.of(updatedItem));
+        assertEquals(1, updatedSnapshot.getVersion(), "Wrong version.");
+        assertSame(updatedItem, updatedSnapshot.findItem(3), 
+                "Item was not updated.");
+        assertEquals(ITEMS_IN_CATALOG, updatedSnapshot.size(), 
+                "Updating an item changed the number of items.");
+    }
+    
+    @Test
+    public void testWithUpdatedItemsDoesNotChangeOldSnapshot() {
+        ItemDTO originalItem = catalogSnapshot.findItem(3);
+        catalogSnapshot.withUpdatedItems(List.of(makeRenamedItem(3, "New")));
+        assertSame(originalItem, catalogSnapshot.findItem(3), 
+                "Old snapshot was changed.");
+        assertEquals(0, catalogSnapshot.getVersion(), 
+                "Old snapshot changed version.");
+    }
+    
+    @Test
+    public void testWithUpdatedItemsAddsNewItem() {
+        int newItemID = ITEMS_IN_CATALOG + 1;
+        CatalogSnapshot updatedSnapshot = catalogSnapshot.withUpdatedItems(
+                List.of(makeRenamedItem(newItemID, "First"), 
+                        makeRenamedItem(newItemID, "Second")));
+        assertEquals(ITEMS_IN_CATALOG + 1, updatedSnapshot.size(), 
+                "Wrong number of items after adding an item.");
+        assertEquals("Second", 
+                updatedSnapshot.findItem(newItemID).getItemName(), 
+                "Last update of an item was not kept.");
+    }
+    
+    @Test
+    public void testItemNamesVersion() {
+        ItemDTO originalItem = catalogSnapshot.findItem(3);
+        CatalogSnapshot repricedSnapshot = catalogSnapshot.withUpdatedItems(
+                List.of(makeRenamedItem(3, originalItem.getItemName())));
+        assertEquals(catalogSnapshot.getItemNamesVersion(), 
+                repricedSnapshot.getItemNamesVersion(), 
+                "Price update changed the version of the item names.");
+        CatalogSnapshot renamedSnapshot = repricedSnapshot.withUpdatedItems(
+                List.of(makeRenamedItem(3, "Renamed")));
+        assertNotEquals(repricedSnapshot.getItemNamesVersion(), 
+                renamedSnapshot.getItemNamesVersion(), 
+                "Renaming an item did not change the version of the names.");
+        CatalogSnapshot extendedSnapshot = repricedSnapshot.withUpdatedItems(
+                List.of(makeRenamedItem(ITEMS_IN_CATALOG + 1, "Added")));
+        assertNotEquals(repricedSnapshot.getItemNamesVersion(), 
+                extendedSnapshot.getItemNamesVersion(), 
+                "Adding an item did not change the version of the names.");
+        assertNotEquals(renamedSnapshot.getItemNamesVersion(), 
+                extendedSnapshot.getItemNamesVersion(), 
+                "Different updates got the same version of the names.");
+    }
+    
+    @Test
+    public void testForEachItemSeesUpdatedAndAddedItems() {
+        int newItemID = ITEMS_IN_CATALOG + 1;
+        CatalogSnapshot updatedSnapshot = catalogSnapshot.withUpdatedItems(
+                List.of(makeRenamedItem(1, "Updated"), 
+                        makeRenamedItem(newItemID, "Added")));
+        List<ItemDTO> visitedItems = new ArrayList<>();
+        updatedSnapshot.forEachItem(visitedItems::add);
+        assertEquals(updatedSnapshot.size(), visitedItems.size(), 
+                "Wrong number of visited items.");
+        for (ItemDTO visitedItem : visitedItems)
+            assertSame(updatedSnapshot.findItem(visitedItem.getItemID()), 
+                    visitedItem, "Visited an outdated item.");
+    }
+    
+    @Test
+    public void testFindItemsByNameAfterUpdate() {
+        CatalogSnapshot updatedSnapshot = catalogSnapshot.withUpdatedItems(
+                List.of(makeRenamedItem(3, "Sourdough Loaf")));
+        List<ItemDTO> result = 
+                updatedSnapshot.findItemsByNameContaining("dough", 5);
+        assertEquals(1, result.size(), "Wrong number of items found.");
+        assertEquals(3, result.get(0).getItemID(), "Found the wrong item.");
+        assertTrue(catalogSnapshot.findItemsByNameContaining("dough", 5)
+                .isEmpty(), "Old snapshot found updated name.");
+    }
+    
+    @Test
+    public void testFindItemsByNamePrefix() {
+        List<ItemDTO> result = 
+                catalogSnapshot.findItemsByNamePrefix("test item #00", 3);
+        assertEquals(3, result.size(), "Wrong number of items found.");
+        assertEquals(1, result.get(0).getItemID(), "Items not sorted by name.");
+    }
+    
+    @Test
+    public void testNameIndexIsBuiltWhenFirstSearched() {
+        HashedItemCatalog hashedItemCatalog = new HashedItemCatalog();
+        for (int i = 1; i <= ITEMS_IN_CATALOG; i++)
+            hashedItemCatalog.addItem(testObjCr.generateItemDTO(i));
+        AtomicInteger catalogScans = new AtomicInteger();
+        ItemCatalog countingCatalog = new ItemCatalog() {
+            @Override
+            public ItemDTO findItem(int itemID) {
+                return hashedItemCatalog.findItem(itemID);
+            }
+            
+            @Override
+            public int size() {
+                return hashedItemCatalog.size();
+            }
+            
+            @Override
+            public void forEachItem(Consumer<ItemDTO> action) {
+                catalogScans.incrementAndGet();
+                hashedItemCatalog.forEachItem(action);
+            }
+        };
+        CatalogSnapshot lazySnapshot = new CatalogSnapshot(countingCatalog);
+        CatalogSnapshot updatedSnapshot = lazySnapshot;
+        for (int i = 0; i < 1000; i++)
+            updatedSnapshot = updatedSnapshot.withUpdatedItems(
+                    List.of(makeRenamedItem(3, "Sourdough Loaf " + i)));
+        assertEquals(0, catalogScans.get(), 
+                "Name index was built before items were searched by name.");
+        List<ItemDTO> result = 
+                updatedSnapshot.findItemsByNameContaining("loaf 999", 5);
+        assertEquals(1, result.size(), "Wrong number of items found.");
+        assertEquals(3, result.get(0).getItemID(), "Found the wrong item.");
+        assertTrue(lazySnapshot.findItemsByNameContaining("dough", 5)
+                .isEmpty(), "Old snapshot found updated name.");
+        assertEquals(1, catalogScans.get(), 
+                "Name index was built more than once.");
+    }
+    
+    @Test
+    public void testEverySnapshotKeepsItsNamesBeforeFirstSearch() {
+        List<CatalogSnapshot> updatedSnapshots = new ArrayList<>();
+        CatalogSnapshot updatedSnapshot = catalogSnapshot;
+        for (int i = 0; i < 100; i++) {
+            updatedSnapshot = updatedSnapshot.withUpdatedItems(
+                    List.of(makeRenamedItem(3, "Sourdough Loaf " + i)));
+            updatedSnapshots.add(updatedSnapshot);
+        }
+        List<ItemDTO> middleResult = updatedSnapshots.get(50)
+                .findItemsByNameContaining("loaf 50", 5);
+        assertEquals(1, middleResult.size(), "Wrong number of items found.");
+        assertTrue(updatedSnapshots.get(50)
+                .findItemsByNameContaining("loaf 99", 5).isEmpty(), 
+                "Snapshot found a name from a later update.");
+        List<ItemDTO> lastResult = updatedSnapshots.get(99)
+                .findItemsByNameContaining("loaf 99", 5);
+        assertEquals(1, lastResult.size(), "Wrong number of items found.");
+        assertTrue(updatedSnapshots.get(99)
+                .findItemsByNameContaining("loaf 50", 5).isEmpty(), 
+                "Snapshot found a name from an earlier update.");
+    }
+    
+    @Test
+    public void testSearchAfterPriceUpdateFindsNewPrice() {
+        ItemDTO originalItem = catalogSnapshot.findItem(3);
+        ItemDTO repricedItem = testObjCr.makeItemDTO(3, 
+                originalItem.getItemName(), testObjCr.makePrice(99, 25));
+        CatalogSnapshot updatedSnapshot = 
+                catalogSnapshot.withUpdatedItems(List.of(repricedItem));
+        List<ItemDTO> result = updatedSnapshot.findItemsByNameContaining(
+                originalItem.getItemName(), 1);
+        assertEquals(1, result.size(), "Wrong number of items found.");
+        assertSame(repricedItem, result.get(0), "Found the old price.");
+    }
+    
+    @Test
+    public void testFindItemsZeroMaximumResultsException() {
+        try {
+            catalogSnapshot.findItemsByNamePrefix("test", 0);
+            fail("Searched for items without allowing any results.");
+        } catch (Exception awaitedException) {
+            boolean correctExceptionThrown = 
+                    awaitedException instanceof IllegalArgumentException;
+            assertTrue(correctExceptionThrown, "Wrong exception thrown.");
+        }
+    }
+    
+}
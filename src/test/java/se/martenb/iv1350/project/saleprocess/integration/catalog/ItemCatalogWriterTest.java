@@ -0,0 +1,90 @@
+package se.martenb.iv1350.project.saleprocess.integration.catalog;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import se.martenb.iv1350.project.saleprocess.integration.dto.ItemDTO;
+import se.martenb.iv1350.project.saleprocess.testing.TestingObjectCreator;
+import se.martenb.iv1350.project.saleprocess.util.Amount;
+
+public class ItemCatalogWriterTest {
+    @TempDir
+    Path tempDirectory;
+    private ItemCatalogWriter itemCatalogWriter;
+    private Path csvFile;
+    private Path catalogFile;
+    
+    @BeforeEach
+    public void setUp() {
+        itemCatalogWriter = new ItemCatalogWriter();
+        csvFile = tempDirectory.resolve("catalog.csv");
+        catalogFile = tempDirectory.resolve("catalog.bin");
+    }
+    
+    @AfterEach
+    public void tearDown() {
+        itemCatalogWriter = null;
+    }
+
+    @Test
+    public void testConvertCSVCatalog() throws IOException {
+        Files.write(csvFile, List.of(
+                "itemID,itemName,priceBeforeTaxes,vatTaxRate",
+                "53,Amazing Fruit Cereal,56.71,12",
+                "",
+                "22,\"Bread, whole grain\",24.95,6"), 
+                StandardCharsets.UTF_8);
+        int result = itemCatalogWriter.convertCSVCatalog(csvFile, catalogFile);
+        assertEquals(2, result, "Wrong number of converted items.");
+        MappedItemCatalog convertedCatalog = 
+                new MappedItemCatalog(catalogFile);
+        ItemDTO cereal = convertedCatalog.findItem(53);
+        assertEquals("Amazing Fruit Cereal", cereal.getItemName(), 
+                "Wrong item name.");
+        assertEquals(new Amount(56.71), 
+                cereal.getItemPrice().getPriceBeforeTax(), 
+                "Wrong item price.");
+        assertEquals(12, cereal.getItemPrice().getVATTaxRate(), 
+                "Wrong VAT tax rate.");
+        ItemDTO bread = convertedCatalog.findItem(22);
+        assertEquals("\"Bread, whole grain\"", bread.getItemName(), 
+                "Item name containing a comma was not kept.");
+    }
+
+    @Test
+    public void testConvertMalformedCSVCatalogException() throws IOException {
+        Files.write(csvFile, List.of(
+                "itemID,itemName,priceBeforeTaxes,vatTaxRate",
+                "fifty-three,Amazing Fruit Cereal,56.71,12"), 
+                StandardCharsets.UTF_8);
+        try {
+            itemCatalogWriter.convertCSVCatalog(csvFile, catalogFile);
+            fail("Converted a malformed CSV catalog.");
+        } catch (IOException awaitedException) {
+            assertTrue(awaitedException.getMessage().contains("line 2"), 
+                    "Wrong exception message.");
+        }
+    }
+
+    @Test
+    public void testWriteDuplicateItemIDsException() throws IOException {
+        TestingObjectCreator testObjCr = new TestingObjectCreator();
+        List<ItemDTO> duplicateItems = List.of(
+                testObjCr.generateItemDTO(1), testObjCr.generateItemDTO(1));
+        try {
+            itemCatalogWriter.writeCatalog(duplicateItems, catalogFile);
+            fail("Wrote a catalog with duplicate item IDs.");
+        } catch (IllegalArgumentException awaitedException) {
+            assertTrue(awaitedException.getMessage().contains("Duplicate"), 
+                    "Wrong exception message.");
+        }
+    }
+    
+}
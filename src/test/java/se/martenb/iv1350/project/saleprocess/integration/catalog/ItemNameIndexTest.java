@@ -0,0 +1,144 @@
+package se.martenb.iv1350.project.saleprocess.integration.catalog;
+
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import se.martenb.iv1350.project.saleprocess.integration.dto.ItemDTO;
+import se.martenb.iv1350.project.saleprocess.testing.TestingObjectCreator;
+
+public class ItemNameIndexTest {
+    private TestingObjectCreator testObjCr;
+    private HashedItemCatalog itemCatalog;
+    private ItemNameIndex itemNameIndex;
+    
+    @BeforeEach
+    public void setUp() {
+        testObjCr = new TestingObjectCreator();
+        itemCatalog = new HashedItemCatalog();
+        addItem(1, "Banana");
+        addItem(2, "Organic Banana");
+        addItem(3, "Bananas in Pyjamas Cookies");
+        addItem(4, "Blueberry Muffin");
+        addItem(5, "Apple");
+        addItem(6, "Cinnamon Bun");
+        itemNameIndex = ItemNameIndex.build(itemCatalog);
+    }
+    
+    @AfterEach
+    public void tearDown() {
+        itemNameIndex = null;
+        itemCatalog = null;
+        testObjCr = null;
+    }
+    
+    private ItemDTO makeItem(int itemID, String itemName) {
+        return testObjCr.makeItemDTO(itemID, itemName, 
+                testObjCr.generatePrice(itemID));
+    }
+    
+    private void addItem(int itemID, String itemName) {
+        itemCatalog.addItem(makeItem(itemID, itemName));
+    }
+    
+    @Test
+    public void testFindByNamePrefix() {
+        int[] result = itemNameIndex.findItemIDsByNamePrefix("bAnA", 10);
+        assertArrayEquals(new int[] {1, 3}, result, 
+                "Wrong items found by prefix.");
+    }
+    
+    @Test
+    public void testFindByNamePrefixLimitsResults() {
+        int[] result = itemNameIndex.findItemIDsByNamePrefix("b", 2);
+        assertArrayEquals(new int[] {1, 3}, result, 
+                "Wrong items found by limited prefix search.");
+    }
+    
+    @Test
+    public void testFindByNamePrefixNoMatch() {
+        int[] result = itemNameIndex.findItemIDsByNamePrefix("zucchini", 10);
+        assertEquals(0, result.length, "Found items by unknown prefix.");
+    }
+    
+    @Test
+    public void testFindByNameContainingRanksMatches() {
+        int[] result = itemNameIndex.findItemIDsByNameContaining("BANANA", 10);
+        assertArrayEquals(new int[] {1, 3, 2}, result, 
+                "Wrong items or order found by substring.");
+    }
+    
+    @Test
+    public void testFindByNameContainingMiddleOfWord() {
+        int[] result = itemNameIndex.findItemIDsByNameContaining("amon", 10);
+        assertArrayEquals(new int[] {6}, result, 
+                "Did not find substring in the middle of a word.");
+    }
+    
+    @Test
+    public void testFindByNameContainingRequiresWholeText() {
+        int[] result = 
+                itemNameIndex.findItemIDsByNameContaining("banana muffin", 10);
+        assertEquals(0, result.length, 
+                "Found item containing the trigrams but not the text.");
+    }
+    
+    @Test
+    public void testFindByNameContainingShortText() {
+        int[] result = itemNameIndex.findItemIDsByNameContaining("pp", 10);
+        assertArrayEquals(new int[] {5}, result, 
+                "Wrong items found by text shorter than a trigram.");
+    }
+    
+    @Test
+    public void testFindByNameContainingLimitsResults() {
+        int[] result = itemNameIndex.findItemIDsByNameContaining("an", 2);
+        assertArrayEquals(new int[] {1, 2}, result, 
+                "Did not keep the best matches.");
+    }
+    
+    @Test
+    public void testWithUpdatedItemsRenamesItem() {
+        ItemNameIndex updatedIndex = itemNameIndex.withUpdatedItems(
+                List.of(makeItem(5, "Green Apple")));
+        assertArrayEquals(new int[] {5}, 
+                updatedIndex.findItemIDsByNamePrefix("green", 10), 
+                "Renamed item not found by new name.");
+        assertEquals(0, updatedIndex.findItemIDsByNamePrefix("apple", 10)
+                .length, "Renamed item found by old prefix.");
+        assertArrayEquals(new int[] {5}, 
+                itemNameIndex.findItemIDsByNamePrefix("apple", 10), 
+                "Old index was changed.");
+    }
+    
+    @Test
+    public void testWithUpdatedItemsRemovesOldTrigrams() {
+        ItemNameIndex updatedIndex = itemNameIndex.withUpdatedItems(
+                List.of(makeItem(6, "Rye Bread")));
+        assertEquals(0, updatedIndex.findItemIDsByNameContaining("cinnamon", 
+                10).length, "Renamed item found by old name.");
+        assertArrayEquals(new int[] {6}, 
+                updatedIndex.findItemIDsByNameContaining("bread", 10), 
+                "Renamed item not found by new name.");
+    }
+    
+    @Test
+    public void testWithUpdatedItemsAddsItem() {
+        ItemNameIndex updatedIndex = itemNameIndex.withUpdatedItems(
+                List.of(makeItem(7, "Banana Bread")));
+        assertEquals(7, updatedIndex.size(), "Added item was not indexed.");
+        assertArrayEquals(new int[] {1, 7, 3}, 
+                updatedIndex.findItemIDsByNamePrefix("banana", 10), 
+                "Added item not merged into sorted names.");
+    }
+    
+    @Test
+    public void testWithUpdatedItemsSameNameKeepsIndex() {
+        ItemNameIndex updatedIndex = itemNameIndex.withUpdatedItems(
+                List.of(makeItem(1, "Banana")));
+        assertSame(itemNameIndex, updatedIndex, 
+                "Index was rebuilt although no name changed.");
+    }
+    
+}
@@ -0,0 +1,110 @@
+package se.martenb.iv1350.project.saleprocess.integration.catalog;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import se.martenb.iv1350.project.saleprocess.integration.dto.ItemDTO;
+import se.martenb.iv1350.project.saleprocess.testing.TestingObjectCreator;
+
+public class MappedItemCatalogTest {
+    private static final int ITEMS_IN_CATALOG = 500;
+    @TempDir
+    Path tempDirectory;
+    private TestingObjectCreator testObjCr;
+    private List<ItemDTO> writtenItems;
+    private MappedItemCatalog mappedItemCatalog;
+    
+    @BeforeEach
+    public void setUp() throws IOException {
+        testObjCr = new TestingObjectCreator();
+        writtenItems = new ArrayList<>();
+        for (int i = ITEMS_IN_CATALOG; i > 0; i--)
+            writtenItems.add(testObjCr.generateItemDTO(i * 3));
+        writtenItems.add(testObjCr.makeItemDTOSimple(
+                7, "Räksmörgås, stor", 59.90, 12));
+        Path catalogFile = tempDirectory.resolve("catalog.bin");
+        new ItemCatalogWriter().writeCatalog(writtenItems, catalogFile);
+        mappedItemCatalog = new MappedItemCatalog(catalogFile);
+    }
+    
+    @AfterEach
+    public void tearDown() {
+        mappedItemCatalog = null;
+        writtenItems = null;
+        testObjCr = null;
+    }
+    
+    private void assertSameItem(ItemDTO expected, ItemDTO result) {
+        assertEquals(expected.getItemID(), result.getItemID(), 
+                "Wrong item ID.");
+        assertEquals(expected.getItemName(), result.getItemName(), 
+                "Wrong item name.");
+        assertEquals(expected.getItemPrice().getPriceBeforeTax(), 
+                result.getItemPrice().getPriceBeforeTax(), 
+                "Wrong price before taxes.");
+        assertEquals(expected.getItemPrice().getPriceAfterTax(), 
+                result.getItemPrice().getPriceAfterTax(), 
+                "Wrong price after taxes.");
+        assertEquals(expected.getItemPrice().getVATTaxRate(), 
+                result.getItemPrice().getVATTaxRate(), 
+                "Wrong VAT tax rate.");
+    }
+
+    @Test
+    public void testFindAllWrittenItems() {
+        for (ItemDTO writtenItem : writtenItems) {
+            ItemDTO result = mappedItemCatalog.findItem(
+                    writtenItem.getItemID());
+            assertNotNull(result, "Written item was not found.");
+            assertSameItem(writtenItem, result);
+        }
+    }
+
+    @Test
+    public void testFindUnknownItem() {
+        assertNull(mappedItemCatalog.findItem(1), "Found unknown item.");
+        assertNull(mappedItemCatalog.findItem(-1), "Found unknown item.");
+        assertNull(mappedItemCatalog.findItem(ITEMS_IN_CATALOG * 3 + 1), 
+                "Found unknown item.");
+    }
+
+    @Test
+    public void testSize() {
+        assertEquals(writtenItems.size(), mappedItemCatalog.size(), 
+                "Wrong catalog size.");
+    }
+
+    @Test
+    public void testForEachItemInIDOrder() {
+        List<ItemDTO> visitedItems = new ArrayList<>();
+        mappedItemCatalog.forEachItem(visitedItems::add);
+        assertEquals(writtenItems.size(), visitedItems.size(), 
+                "Wrong number of visited items.");
+        for (int i = 1; i < visitedItems.size(); i++)
+            assertTrue(visitedItems.get(i - 1).getItemID() < 
+                    visitedItems.get(i).getItemID(), 
+                    "Items were not visited in ID order.");
+    }
+
+    @Test
+    public void testOpenInvalidFileException() throws IOException {
+        Path invalidFile = tempDirectory.resolve("invalid.bin");
+        Files.write(invalidFile, new byte[64]);
+        try {
+            new MappedItemCatalog(invalidFile);
+            fail("Opened a file that is not an item catalog.");
+        } catch (IOException awaitedException) {
+            assertTrue(awaitedException.getMessage().
+                    contains("Not an item catalog file"), 
+                    "Wrong exception message.");
+        }
+    }
+    
+}
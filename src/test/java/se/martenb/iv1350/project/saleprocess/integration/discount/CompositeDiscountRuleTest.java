@@ -1,13 +1,22 @@
 package se.martenb.iv1350.project.saleprocess.integration.discount;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 import se.martenb.iv1350.project.saleprocess.integration.dto.CustomerDTO;
+import se.martenb.iv1350.project.saleprocess.integration.dto.ItemInSaleDTO;
 import se.martenb.iv1350.project.saleprocess.integration.dto.SaleDTO;
 import se.martenb.iv1350.project.saleprocess.testing.TestingObjectCreator;
 import se.martenb.iv1350.project.saleprocess.util.Amount;
+import se.martenb.iv1350.project.saleprocess.util.Quantity;
 
 public class CompositeDiscountRuleTest {
     private TestingObjectCreator testObjCr;
@@ -47,8 +56,8 @@ public class CompositeDiscountRuleTest {
     //@Test
     public void testAddRule() {
         try {
-            compositeDiscountRule.isRuleApplicable(
-                    saleInfoWithApplicapleItems, customerInfo);
+            compositeDiscountRule.isRuleApplicable(new DiscountContext(
+                    saleInfoWithApplicapleItems, customerInfo));
             fail("Illegal state reached, tested if nonexistent discount " + 
                     "rules are applicable.");
         } catch (Exception awaitedException) {
@@ -58,7 +67,8 @@ public class CompositeDiscountRuleTest {
                 compositeDiscountRule.addRule(testingDiscountRule);
                 try {
                     compositeDiscountRule.isRuleApplicable(
-                            saleInfoWithApplicapleItems, customerInfo);
+                            new DiscountContext(saleInfoWithApplicapleItems, 
+                                    customerInfo));
                 } catch (Exception unwantedException) {
                     fail("Adding discount rule dailed.");
                 }
@@ -72,8 +82,8 @@ public class CompositeDiscountRuleTest {
     public void testIsRuleApplicable() {
         compositeDiscountRule.addRule(testingDiscountRule);
         boolean result = 
-                compositeDiscountRule.isRuleApplicable(
-                        saleInfoWithApplicapleItems, customerInfo);
+                compositeDiscountRule.isRuleApplicable(new DiscountContext(
+                        saleInfoWithApplicapleItems, customerInfo));
         assertTrue(result, "Wrong result for if a customer is eligible for a " + 
                 "discount.");
     }
@@ -82,8 +92,8 @@ public class CompositeDiscountRuleTest {
     public void testRuleNotApplicable() {
         compositeDiscountRule.addRule(testingDiscountRule);
         boolean result = 
-                compositeDiscountRule.isRuleApplicable(
-                        saleInfoWithoutApplicapleItems, customerInfo);
+                compositeDiscountRule.isRuleApplicable(new DiscountContext(
+                        saleInfoWithoutApplicapleItems, customerInfo));
         assertFalse(result, "Wrong result for if a customer is eligible for a " + 
                 "discount.");
     }
@@ -91,9 +101,10 @@ public class CompositeDiscountRuleTest {
     @Test
     public void testApplyRule() {
         compositeDiscountRule.addRule(testingDiscountRule);
-        compositeDiscountRule.isRuleApplicable(
-                saleInfoWithApplicapleItems, customerInfo);
-        SaleDTO updatedSale = compositeDiscountRule.applyRule();
+        DiscountContext context = 
+                new DiscountContext(saleInfoWithApplicapleItems, customerInfo);
+        compositeDiscountRule.isRuleApplicable(context);
+        SaleDTO updatedSale = compositeDiscountRule.applyRule(context);
         Amount originalTotal = saleInfoWithApplicapleItems.getRunningTotal();
         Amount discountedTotal = updatedSale.getRunningTotal();
         boolean expectedResult = originalTotal.getAmount().
@@ -106,9 +117,10 @@ public class CompositeDiscountRuleTest {
     public void testApplyNoApplicableRules() {
         try {
             compositeDiscountRule.addRule(testingDiscountRule);
-            compositeDiscountRule.isRuleApplicable(
+            DiscountContext context = new DiscountContext(
                     saleInfoWithoutApplicapleItems, customerInfo);
-            compositeDiscountRule.applyRule();
+            compositeDiscountRule.isRuleApplicable(context);
+            compositeDiscountRule.applyRule(context);
             fail("Allowed to apply rules that are not applicable.");
         } catch (Exception awaitedException) {
             boolean correctExceptionThrown = 
@@ -135,4 +147,154 @@ public class CompositeDiscountRuleTest {
                 "Wrong string representation for the composite discount.");
     }
     
+    @Test
+    public void testApplicableRulesNotSharedBetweenContexts() {
+        compositeDiscountRule.addRule(testingDiscountRule);
+        compositeDiscountRule.isRuleApplicable(new DiscountContext(
+                saleInfoWithApplicapleItems, customerInfo));
+        DiscountContext context = new DiscountContext(
+                saleInfoWithoutApplicapleItems, customerInfo);
+        compositeDiscountRule.isRuleApplicable(context);
+        try {
+            compositeDiscountRule.applyRule(context);
+            fail("Applied rules found applicable for another sale.");
+        } catch (IllegalStateException exc) {
+        }
+    }
+
+    @Test
+    public void testConcurrentEvaluationsDoNotInterfere() 
+            throws InterruptedException, ExecutionException {
+        DiscountRule sharedRule = DiscountRegistry.getDiscountRegistry().
+                getCompositeDiscountRule();
+        CustomerDTO seniorCustomer = testObjCr.makeCustomerDTOSimple(1930,1,1);
+        CustomerDTO youngCustomer = testObjCr.makeCustomerDTOSimple(2000,1,1);
+        Amount expSeniorTotal = tryRule(sharedRule, 
+                saleInfoWithApplicapleItems, seniorCustomer).getRunningTotal();
+        Amount expYoungTotal = tryRule(sharedRule, 
+                saleInfoWithApplicapleItems, youngCustomer).getRunningTotal();
+        assertNotEquals(expSeniorTotal, expYoungTotal, "Customers must " + 
+                "get different discounts for the test to be meaningful.");
+        int evaluations = 2000;
+        ExecutorService evaluatorPool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<SaleDTO>> discountedSales = new ArrayList<>();
+            for (int i = 0; i < evaluations; i++) {
+                CustomerDTO customer = 
+                        i % 2 == 0 ? seniorCustomer : youngCustomer;
+                discountedSales.add(evaluatorPool.submit(() -> tryRule(
+                        sharedRule, saleInfoWithApplicapleItems, customer)));
+            }
+            for (int i = 0; i < evaluations; i++) {
+                Amount expResult = i % 2 == 0 ? expSeniorTotal : expYoungTotal;
+                assertEquals(expResult, 
+                        discountedSales.get(i).get().getRunningTotal(), 
+                        "Discount of another evaluation was applied.");
+            }
+        } finally {
+            evaluatorPool.shutdown();
+        }
+    }
+    
+    private SaleDTO tryRule(DiscountRule discountRule, SaleDTO saleInfo, 
+            CustomerDTO customer) {
+        DiscountContext context = new DiscountContext(saleInfo, customer);
+        if (!discountRule.isRuleApplicable(context))
+            return saleInfo;
+        return discountRule.applyRule(context);
+    }
+    
+    private SaleDTO generateBasket(int linesInBasket) {
+        List<ItemInSaleDTO> itemsInSale = new ArrayList<>();
+        int totalItems = 0;
+        for (int itemID = 1; itemID <= linesInBasket; itemID++) {
+            String itemName = "Test Item #" + String.format("%03d", itemID);
+            int numericalQuantity = 1 + itemID % 5;
+            itemsInSale.add(new ItemInSaleDTO(testObjCr.makeItemDTO(itemID, 
+                    itemName, testObjCr.makePrice(10 + itemID % 50, 25)), 
+                    new Quantity(numericalQuantity)));
+            totalItems += numericalQuantity;
+        }
+        return new SaleDTO(LocalDateTime.now(), new Amount(0), 
+                itemsInSale, totalItems);
+    }
+    
+    private List<DiscountRule> makeStackedRules(int numberOfRules) {
+        List<DiscountRule> stackedRules = new ArrayList<>();
+        for (int i = 0; i < numberOfRules; i++) {
+            if (i % 5 == 4)
+                stackedRules.add(testingDiscountRule);
+            else if (i % 5 == 2)
+                stackedRules.add(SeniorDiscount.getSeniorDiscount());
+            else
+                stackedRules.add(new TestingLineItemDiscountRule("#" + 
+                        (i % 10), i + 1));
+        }
+        return stackedRules;
+    }
+    
+    private SaleDTO applyOneAtATime(List<DiscountRule> discountRules, 
+            SaleDTO saleInfo, CustomerDTO customer) {
+        DiscountContext context = new DiscountContext(saleInfo, customer);
+        List<DiscountRule> applicableRules = new ArrayList<>();
+        for (DiscountRule discountRule : discountRules)
+            if (discountRule.isRuleApplicable(context))
+                applicableRules.add(discountRule);
+        for (DiscountRule discountRule : applicableRules)
+            discountRule.applyRule(context);
+        return context.getSaleInfo();
+    }
+    
+    private void assertSameSale(SaleDTO expSale, SaleDTO sale) {
+        assertEquals(expSale.getRunningTotal(), sale.getRunningTotal(), 
+                "Wrong running total.");
+        assertEquals(expSale.getTotalItems(), sale.getTotalItems(), 
+                "Wrong number of items.");
+        List<ItemInSaleDTO> expItems = expSale.getItemsInSale();
+        List<ItemInSaleDTO> items = sale.getItemsInSale();
+        assertEquals(expItems.size(), items.size(), "Wrong number of lines.");
+        for (int i = 0; i < expItems.size(); i++)
+            assertEquals(expItems.get(i).getItemInfo().getItemPrice().
+                    getPriceAfterTax(), items.get(i).getItemInfo().
+                    getItemPrice().getPriceAfterTax(), 
+                    "Wrong discounted price of line " + i);
+    }
+
+    @Test
+    public void testStackedRulesSameAsAppliedOneAtATime() {
+        int numberOfRules = 20;
+        int linesInBasket = 500;
+        SaleDTO basket = generateBasket(linesInBasket);
+        CustomerDTO seniorCustomer = testObjCr.makeCustomerDTOSimple(1930,1,1);
+        List<DiscountRule> stackedRules = makeStackedRules(numberOfRules);
+        for (DiscountRule discountRule : stackedRules)
+            compositeDiscountRule.addRule(discountRule);
+        SaleDTO expResult = 
+                applyOneAtATime(stackedRules, basket, seniorCustomer);
+        DiscountContext context = new DiscountContext(basket, seniorCustomer);
+        assertTrue(compositeDiscountRule.isRuleApplicable(context), 
+                "Stacked rules were not applicable.");
+        SaleDTO result = compositeDiscountRule.applyRule(context);
+        assertSameSale(expResult, result);
+        assertSame(result, context.getSaleInfo(), 
+                "Context was not updated with the discounted sale.");
+    }
+
+    @Test
+    public void testOnlyLineItemRulesSameAsAppliedOneAtATime() {
+        SaleDTO basket = generateBasket(500);
+        CustomerDTO seniorCustomer = testObjCr.makeCustomerDTOSimple(1930,1,1);
+        List<DiscountRule> stackedRules = new ArrayList<>();
+        for (int i = 0; i < 20; i++)
+            stackedRules.add(i % 2 == 0 ? SeniorDiscount.getSeniorDiscount() : 
+                    new TestingLineItemDiscountRule("item #" + (i % 5), 7.5));
+        for (DiscountRule discountRule : stackedRules)
+            compositeDiscountRule.addRule(discountRule);
+        SaleDTO expResult = 
+                applyOneAtATime(stackedRules, basket, seniorCustomer);
+        DiscountContext context = new DiscountContext(basket, seniorCustomer);
+        compositeDiscountRule.isRuleApplicable(context);
+        assertSameSale(expResult, compositeDiscountRule.applyRule(context));
+    }
+    
 }
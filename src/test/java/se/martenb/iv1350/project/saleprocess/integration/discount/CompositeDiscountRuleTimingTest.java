@@ -0,0 +1,117 @@
+package se.martenb.iv1350.project.saleprocess.integration.discount;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import se.martenb.iv1350.project.saleprocess.integration.dto.CustomerDTO;
+import se.martenb.iv1350.project.saleprocess.integration.dto.ItemInSaleDTO;
+import se.martenb.iv1350.project.saleprocess.integration.dto.SaleDTO;
+import se.martenb.iv1350.project.saleprocess.testing.TestingObjectCreator;
+import se.martenb.iv1350.project.saleprocess.testing.TestingTimer;
+import se.martenb.iv1350.project.saleprocess.util.Amount;
+import se.martenb.iv1350.project.saleprocess.util.Quantity;
+
+public class CompositeDiscountRuleTimingTest {
+    private static final int NUMBER_OF_RULES = 20;
+    private static final int LINES_IN_BASKET = 500;
+    private static final int EVALUATIONS_PER_RUN = 50;
+    private TestingObjectCreator testObjCr;
+    private TestingTimer timer;
+    private List<DiscountRule> stackedRules;
+    private CompositeDiscountRule compositeDiscountRule;
+    private SaleDTO basket;
+    private CustomerDTO seniorCustomer;
+    
+    @BeforeEach
+    public void setUp() {
+        testObjCr = new TestingObjectCreator();
+        timer = new TestingTimer();
+        stackedRules = new ArrayList<>();
+        compositeDiscountRule = new CompositeDiscountRule();
+        for (int i = 0; i < NUMBER_OF_RULES; i++) {
+            DiscountRule discountRule = i % 5 == 2 ? 
+                    SeniorDiscount.getSeniorDiscount() : 
+                    new TestingItemIDDiscountRule(7, i % 7, i + 1);
+            stackedRules.add(discountRule);
+            compositeDiscountRule.addRule(discountRule);
+        }
+        basket = generateBasket();
+        seniorCustomer = testObjCr.makeCustomerDTOSimple(1930,1,1);
+    }
+    
+    @AfterEach
+    public void tearDown() {
+        seniorCustomer = null;
+        basket = null;
+        compositeDiscountRule = null;
+        stackedRules = null;
+        timer = null;
+        testObjCr = null;
+    }
+    
+    private SaleDTO generateBasket() {
+        List<ItemInSaleDTO> itemsInSale = new ArrayList<>();
+        int totalItems = 0;
+        for (int itemID = 1; itemID <= LINES_IN_BASKET; itemID++) {
+            String itemName = "Test Item #" + String.format("%03d", itemID);
+            int numericalQuantity = 1 + itemID % 5;
+            itemsInSale.add(new ItemInSaleDTO(testObjCr.makeItemDTO(itemID, 
+                    itemName, testObjCr.makePrice(10 + itemID % 50, 25)), 
+                    new Quantity(numericalQuantity)));
+            totalItems += numericalQuantity;
+        }
+        return new SaleDTO(LocalDateTime.now(), new Amount(0), 
+                itemsInSale, totalItems);
+    }
+    
+    private SaleDTO applyOneAtATime() {
+        DiscountContext context = new DiscountContext(basket, seniorCustomer);
+        List<DiscountRule> applicableRules = new ArrayList<>();
+        for (DiscountRule discountRule : stackedRules)
+            if (discountRule.isRuleApplicable(context))
+                applicableRules.add(discountRule);
+        for (DiscountRule discountRule : applicableRules)
+            discountRule.applyRule(context);
+        return context.getSaleInfo();
+    }
+    
+    private SaleDTO applyStacked() {
+        DiscountContext context = new DiscountContext(basket, seniorCustomer);
+        compositeDiscountRule.isRuleApplicable(context);
+        return compositeDiscountRule.applyRule(context);
+    }
+    
+    @Test
+    public void testStackedRulesFasterThanAppliedOneAtATime() {
+        assertEquals(applyOneAtATime().getRunningTotal(), 
+                applyStacked().getRunningTotal(), "Running totals differ.");
+        double oneAtATimeTime = timer.nanosPerOperation(EVALUATIONS_PER_RUN, 
+                () -> {
+                    long sumOfTotals = 0;
+                    for (int i = 0; i < EVALUATIONS_PER_RUN; i++)
+                        sumOfTotals += applyOneAtATime().getRunningTotal().
+                                getMinorUnits();
+                    return sumOfTotals;
+                });
+        timer.report("20 rules on 500 lines applied one at a time", 
+                oneAtATimeTime);
+        double stackedTime = timer.nanosPerOperation(EVALUATIONS_PER_RUN, 
+                () -> {
+                    long sumOfTotals = 0;
+                    for (int i = 0; i < EVALUATIONS_PER_RUN; i++)
+                        sumOfTotals += applyStacked().getRunningTotal().
+                                getMinorUnits();
+                    return sumOfTotals;
+                });
+        timer.report("20 rules on 500 lines applied in a single pass", 
+                stackedTime);
+        assertTrue(stackedTime * 1.5 < oneAtATimeTime, "Stacked rules took " + 
+                stackedTime + " ns and rules applied one at a time " + 
+                oneAtATimeTime + " ns.");
+    }
+    
+}
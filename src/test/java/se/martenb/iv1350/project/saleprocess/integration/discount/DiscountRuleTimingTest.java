@@ -0,0 +1,96 @@
+package se.martenb.iv1350.project.saleprocess.integration.discount;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import se.martenb.iv1350.project.saleprocess.integration.dto.CustomerDTO;
+import se.martenb.iv1350.project.saleprocess.integration.dto.SaleDTO;
+import se.martenb.iv1350.project.saleprocess.testing.TestingObjectCreator;
+import se.martenb.iv1350.project.saleprocess.testing.TestingTimer;
+import se.martenb.iv1350.project.saleprocess.util.Amount;
+
+public class DiscountRuleTimingTest {
+    private static final int EVALUATIONS_PER_THREAD = 200;
+    private TestingObjectCreator testObjCr;
+    private TestingTimer timer;
+    private DiscountRule sharedRule;
+    private SaleDTO saleInfo;
+    private CustomerDTO[] customers;
+    private Amount[] expTotals;
+    private AtomicInteger wrongTotals;
+    
+    @BeforeEach
+    public void setUp() {
+        testObjCr = new TestingObjectCreator();
+        timer = new TestingTimer();
+        sharedRule = DiscountRegistry.getDiscountRegistry().
+                getCompositeDiscountRule();
+        saleInfo = testObjCr.generateSaleDTOAndFinalPrice(50);
+        customers = new CustomerDTO[] {
+            testObjCr.makeCustomerDTOSimple(1930,1,1), 
+            testObjCr.makeCustomerDTOSimple(2000,1,1)
+        };
+        expTotals = new Amount[customers.length];
+        for (int i = 0; i < customers.length; i++)
+            expTotals[i] = evaluate(customers[i]).getRunningTotal();
+        wrongTotals = new AtomicInteger();
+    }
+    
+    @AfterEach
+    public void tearDown() {
+        wrongTotals = null;
+        expTotals = null;
+        customers = null;
+        saleInfo = null;
+        sharedRule = null;
+        timer = null;
+        testObjCr = null;
+    }
+    
+    private SaleDTO evaluate(CustomerDTO customer) {
+        DiscountContext context = new DiscountContext(saleInfo, customer);
+        if (!sharedRule.isRuleApplicable(context))
+            return saleInfo;
+        return sharedRule.applyRule(context);
+    }
+    
+    private double timeEvaluations(int numberOfThreads) {
+        double nanosPerEvaluation = timer.nanosPerOperation(numberOfThreads, 
+                EVALUATIONS_PER_THREAD, threadIndex -> {
+                    long sumOfTotals = 0;
+                    for (int i = 0; i < EVALUATIONS_PER_THREAD; i++) {
+                        int customerIndex = (threadIndex + i) % 2;
+                        Amount runningTotal = 
+                                evaluate(customers[customerIndex]).
+                                        getRunningTotal();
+                        if (!runningTotal.equals(expTotals[customerIndex]))
+                            wrongTotals.incrementAndGet();
+                        sumOfTotals += runningTotal.getMinorUnits();
+                    }
+                    return sumOfTotals;
+                });
+        timer.report("Discount evaluation with " + numberOfThreads + 
+                " threads", nanosPerEvaluation);
+        return nanosPerEvaluation;
+    }
+    
+    @Test
+    public void testConcurrentEvaluationsOfSharedRules() {
+        assertNotEquals(expTotals[0], expTotals[1], "Customers must get " + 
+                "different discounts for the test to be meaningful.");
+        double singleThreadTime = timeEvaluations(1);
+        double eightThreadsTime = timeEvaluations(8);
+        double manyThreadsTime = timeEvaluations(64);
+        assertEquals(0, wrongTotals.get(), 
+                "Discount of another evaluation was applied.");
+        assertTrue(eightThreadsTime < singleThreadTime * 3, 
+                "Evaluations took " + eightThreadsTime + " ns with 8 " + 
+                "threads and " + singleThreadTime + " ns with one thread.");
+        assertTrue(manyThreadsTime < singleThreadTime * 3, 
+                "Evaluations took " + manyThreadsTime + " ns with 64 " + 
+                "threads and " + singleThreadTime + " ns with one thread.");
+    }
+    
+}
@@ -0,0 +1,112 @@
+package se.martenb.iv1350.project.saleprocess.integration.discount;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import se.martenb.iv1350.project.saleprocess.integration.catalog.CatalogSnapshot;
+import se.martenb.iv1350.project.saleprocess.integration.catalog.HashedItemCatalog;
+import se.martenb.iv1350.project.saleprocess.integration.dto.ItemDTO;
+import se.martenb.iv1350.project.saleprocess.testing.TestingObjectCreator;
+import se.martenb.iv1350.project.saleprocess.util.Price;
+
+public class ItemDiscountTableTest {
+    private static final int ITEMS_IN_CATALOG = 5000;
+    private TestingObjectCreator testObjCr;
+    private NameKeywordMatcher matcher;
+    private CatalogSnapshot catalogSnapshot;
+    private Price itemPrice;
+    
+    @BeforeEach
+    public void setUp() {
+        testObjCr = new TestingObjectCreator();
+        itemPrice = testObjCr.makePrice(10, 25);
+        Map<String,Double> itemNameContains = new HashMap<>();
+        itemNameContains.put("drink", 10.0);
+        itemNameContains.put("7", 5.0);
+        itemNameContains.put("77", 15.0);
+        matcher = new NameKeywordMatcher(itemNameContains);
+        HashedItemCatalog itemCatalog = new HashedItemCatalog();
+        for (int itemID = 1; itemID <= ITEMS_IN_CATALOG; itemID++) {
+            String itemName = (itemID % 3 == 0 ? "Drink #" : "Snack #") + 
+                    itemID;
+            itemCatalog.addItem(testObjCr.makeItemDTO(itemID, itemName, 
+                    itemPrice));
+        }
+        catalogSnapshot = new CatalogSnapshot(itemCatalog);
+    }
+
+    @Test
+    public void testSameAsMatcher() {
+        ItemDiscountTable itemDiscountTable = 
+                ItemDiscountTable.build(matcher, catalogSnapshot);
+        catalogSnapshot.forEachItem(item -> assertEquals(
+                matcher.findBestDiscount(item.getItemName()), 
+                itemDiscountTable.findBestDiscount(item), 
+                "Wrong discount for " + item.getItemName()));
+    }
+
+    @Test
+    public void testRenamedItemIsMatched() {
+        ItemDiscountTable itemDiscountTable = 
+                ItemDiscountTable.build(matcher, catalogSnapshot);
+        ItemDTO renamedItem = testObjCr.makeItemDTO(3, "Strawberry Drink", 
+                itemPrice);
+        assertEquals(10.0, itemDiscountTable.findBestDiscount(renamedItem), 
+                "Discount of the old name was used.");
+        ItemDTO renamedDiscountedItem = testObjCr.makeItemDTO(3, "Cookies", 
+                itemPrice);
+        assertNull(itemDiscountTable.findBestDiscount(renamedDiscountedItem), 
+                "Discount of the old name was used.");
+    }
+
+    @Test
+    public void testItemNotInCatalogIsMatched() {
+        ItemDiscountTable itemDiscountTable = 
+                ItemDiscountTable.build(matcher, catalogSnapshot);
+        ItemDTO newItem = testObjCr.makeItemDTO(ITEMS_IN_CATALOG + 1, 
+                "Berry Drink 77", itemPrice);
+        assertEquals(15.0, itemDiscountTable.findBestDiscount(newItem), 
+                "Wrong discount for item not in catalog.");
+    }
+
+    @Test
+    public void testHasItemNamesOf() {
+        ItemDiscountTable itemDiscountTable = 
+                ItemDiscountTable.build(matcher, catalogSnapshot);
+        assertTrue(itemDiscountTable.hasItemNamesOf(catalogSnapshot), 
+                "Table does not have the names of its snapshot.");
+        ItemDTO item = catalogSnapshot.findItem(3);
+        CatalogSnapshot repricedSnapshot = catalogSnapshot.withUpdatedItems(
+                List.of(testObjCr.makeItemDTO(3, item.getItemName(), 
+                        testObjCr.makePrice(20, 25))));
+        assertTrue(itemDiscountTable.hasItemNamesOf(repricedSnapshot), 
+                "Price update made the table out of date.");
+        CatalogSnapshot renamedSnapshot = catalogSnapshot.withUpdatedItems(
+                List.of(testObjCr.makeItemDTO(3, "Cookies", itemPrice)));
+        assertFalse(itemDiscountTable.hasItemNamesOf(renamedSnapshot), 
+                "Renaming an item did not make the table out of date.");
+        assertFalse(ItemDiscountTable.empty(matcher).
+                hasItemNamesOf(catalogSnapshot), 
+                "Empty table has the names of a snapshot.");
+    }
+
+    @Test
+    public void testLargerThanOneChunk() {
+        HashedItemCatalog largeCatalog = new HashedItemCatalog();
+        int itemsInLargeCatalog = 200000;
+        for (int itemID = 1; itemID <= itemsInLargeCatalog; itemID++)
+            largeCatalog.addItem(testObjCr.makeItemDTO(itemID, 
+                    "Item " + itemID, itemPrice));
+        CatalogSnapshot largeSnapshot = new CatalogSnapshot(largeCatalog);
+        ItemDiscountTable itemDiscountTable = 
+                ItemDiscountTable.build(matcher, largeSnapshot);
+        largeSnapshot.forEachItem(item -> assertEquals(
+                matcher.findBestDiscount(item.getItemName()), 
+                itemDiscountTable.findBestDiscount(item), 
+                "Wrong discount for " + item.getItemName()));
+    }
+    
+}
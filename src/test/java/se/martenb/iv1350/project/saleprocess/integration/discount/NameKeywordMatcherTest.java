@@ -0,0 +1,101 @@
+package se.martenb.iv1350.project.saleprocess.integration.discount;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NameKeywordMatcherTest {
+    
+    private Double findBestDiscountByContains(
+            Map<String,Double> itemNameContains, String itemName) {
+        Double bestDiscount = null;
+        String lowerCaseItemName = itemName.toLowerCase();
+        for (Map.Entry<String,Double> keywordDiscount : 
+                itemNameContains.entrySet()) {
+            boolean isKeywordFound = 
+                    lowerCaseItemName.contains(keywordDiscount.getKey());
+            if (isKeywordFound && (bestDiscount == null || 
+                    keywordDiscount.getValue() > bestDiscount))
+                bestDiscount = keywordDiscount.getValue();
+        }
+        return bestDiscount;
+    }
+    
+    private String randomText(Random random, String alphabet, int length) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < length; i++)
+            text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        return text.toString();
+    }
+
+    @Test
+    public void testNoKeywordFound() {
+        Map<String,Double> itemNameContains = new HashMap<>();
+        itemNameContains.put("drink", 10.0);
+        NameKeywordMatcher matcher = new NameKeywordMatcher(itemNameContains);
+        assertNull(matcher.findBestDiscount("Healthy Chocolate Snack"), 
+                "Found discount for name without keyword.");
+    }
+
+    @Test
+    public void testBestOfOverlappingKeywords() {
+        Map<String,Double> itemNameContains = new HashMap<>();
+        itemNameContains.put("he", 5.0);
+        itemNameContains.put("she", 10.0);
+        itemNameContains.put("hers", 20.0);
+        itemNameContains.put("his", 1.0);
+        NameKeywordMatcher matcher = new NameKeywordMatcher(itemNameContains);
+        assertEquals(10.0, matcher.findBestDiscount("Ushe"), 
+                "Wrong discount for keyword ending in another keyword.");
+        assertEquals(20.0, matcher.findBestDiscount("USHERS"), 
+                "Wrong discount for keywords overlapping in uppercase name.");
+        assertEquals(5.0, matcher.findBestDiscount("hhe"), 
+                "Wrong discount after a failed partial match.");
+    }
+
+    @Test
+    public void testKeywordsAreNotLowercased() {
+        Map<String,Double> itemNameContains = new HashMap<>();
+        itemNameContains.put("ImPoSsIbLe", 10.0);
+        NameKeywordMatcher matcher = new NameKeywordMatcher(itemNameContains);
+        assertNull(matcher.findBestDiscount("ImPoSsIbLe"), 
+                "Keyword with uppercase letters matched lowercase name.");
+    }
+
+    @Test
+    public void testEmptyKeywordMatchesEveryName() {
+        Map<String,Double> itemNameContains = new HashMap<>();
+        itemNameContains.put("", 3.0);
+        NameKeywordMatcher matcher = new NameKeywordMatcher(itemNameContains);
+        assertEquals(3.0, matcher.findBestDiscount(""), 
+                "Empty keyword did not match empty name.");
+        assertEquals(3.0, matcher.findBestDiscount("Any Item"), 
+                "Empty keyword did not match name.");
+    }
+
+    @Test
+    public void testSameAsStringContains() {
+        Random random = new Random(1350);
+        String alphabet = "abcAB #0";
+        for (int ruleSet = 0; ruleSet < 200; ruleSet++) {
+            Map<String,Double> itemNameContains = new HashMap<>();
+            int keywords = random.nextInt(30) + 1;
+            for (int i = 0; i < keywords; i++)
+                itemNameContains.put(randomText(random, alphabet, 
+                        random.nextInt(5) + 1), (double) random.nextInt(50));
+            NameKeywordMatcher matcher = 
+                    new NameKeywordMatcher(itemNameContains);
+            for (int i = 0; i < 100; i++) {
+                String itemName = randomText(random, alphabet, 
+                        random.nextInt(25));
+                assertEquals(findBestDiscountByContains(itemNameContains, 
+                        itemName), matcher.findBestDiscount(itemName), 
+                        "Wrong discount for " + itemName + " with " + 
+                                itemNameContains);
+            }
+        }
+    }
+    
+}
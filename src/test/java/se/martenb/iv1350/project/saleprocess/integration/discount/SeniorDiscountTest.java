@@ -37,7 +37,8 @@ public class SeniorDiscountTest {
         GregorianCalendar birthDate = new GregorianCalendar();
         birthDate.add(Calendar.YEAR, ageOldEnoughCustomer * -1);
         CustomerDTO customerInfo = new CustomerDTO(birthDate.getTime());
-        boolean result = discountRule.isRuleApplicable(saleInfo, customerInfo);
+        DiscountContext context = new DiscountContext(saleInfo, customerInfo);
+        boolean result = discountRule.isRuleApplicable(context);
         assertTrue(result, "Wrong result for if a customer is eligible for a " + 
                 "discount.");
     }
@@ -48,7 +49,8 @@ public class SeniorDiscountTest {
         GregorianCalendar birthDate = new GregorianCalendar();
         birthDate.add(Calendar.YEAR, ageNotOldEnoughCustomer * -1);
         CustomerDTO customerInfo = new CustomerDTO(birthDate.getTime());
-        boolean result = discountRule.isRuleApplicable(saleInfo, customerInfo);
+        DiscountContext context = new DiscountContext(saleInfo, customerInfo);
+        boolean result = discountRule.isRuleApplicable(context);
         assertFalse(result, "Wrong result for if a customer is eligible for a " + 
                 "discount.");
     }
@@ -59,8 +61,9 @@ public class SeniorDiscountTest {
         GregorianCalendar birthDate = new GregorianCalendar();
         birthDate.add(Calendar.YEAR, ageOldEnoughCustomer * -1);
         CustomerDTO customerInfo = new CustomerDTO(birthDate.getTime());
-        discountRule.isRuleApplicable(saleInfo, customerInfo);
-        SaleDTO updatedSale = discountRule.applyRule();
+        DiscountContext context = new DiscountContext(saleInfo, customerInfo);
+        discountRule.isRuleApplicable(context);
+        SaleDTO updatedSale = discountRule.applyRule(context);
         Amount originalTotal = saleInfo.getRunningTotal();
         Amount discountedTotal = updatedSale.getRunningTotal();
         boolean expectedResult = originalTotal.getAmount().
@@ -75,8 +78,9 @@ public class SeniorDiscountTest {
         GregorianCalendar birthDate = new GregorianCalendar();
         birthDate.add(Calendar.YEAR, ageNotOldEnoughCustomer * -1);
         CustomerDTO customerInfo = new CustomerDTO(birthDate.getTime());
-        discountRule.isRuleApplicable(saleInfo, customerInfo);
-        SaleDTO updatedSale = discountRule.applyRule();
+        DiscountContext context = new DiscountContext(saleInfo, customerInfo);
+        discountRule.isRuleApplicable(context);
+        SaleDTO updatedSale = discountRule.applyRule(context);
         Amount originalTotal = saleInfo.getRunningTotal();
         Amount discountedTotal = updatedSale.getRunningTotal();
         boolean expectedResult = originalTotal.getAmount().
@@ -209,8 +209,9 @@ public class SummerDiscountTest {
     @Test
     public void testIsRuleApplicableItems() {
         CustomerDTO customerInfo = testObjCr.makeCustomerDTOSimple(1950,1,1);
-        boolean result = discountRule.isRuleApplicable(
+        DiscountContext context = new DiscountContext(
                 saleWithApplicableItemsForDiscounts(), customerInfo);
+        boolean result = discountRule.isRuleApplicable(context);
         if(!isItTheRightPeriodForTestingSummerDiscounts())
             assertFalse(result, "Wrong result for if an item is applicable " + 
                     "for a discount.");
@@ -221,8 +222,9 @@ public class SummerDiscountTest {
     @Test
     public void testIsRuleNotApplicableItems() {
         CustomerDTO customerInfo = testObjCr.makeCustomerDTOSimple(1950,1,1);
-        boolean result = discountRule.isRuleApplicable(
+        DiscountContext context = new DiscountContext(
                 saleWithoutApplicableItemsForDiscounts(), customerInfo);
+        boolean result = discountRule.isRuleApplicable(context);
         assertFalse(result, "Wrong result for if an item is applicable for a " + 
                 "discount.");
     }
@@ -231,8 +233,10 @@ public class SummerDiscountTest {
     public void testApplyRuleToApplicableItems() {
         CustomerDTO customerInfo = testObjCr.makeCustomerDTOSimple(1950,1,1);
         SaleDTO originalSale = saleWithApplicableItemsForDiscounts();
-        discountRule.isRuleApplicable(originalSale, customerInfo);
-        SaleDTO updatedSale = discountRule.applyRule();
+        DiscountContext context = 
+                new DiscountContext(originalSale, customerInfo);
+        discountRule.isRuleApplicable(context);
+        SaleDTO updatedSale = discountRule.applyRule(context);
         Amount originalTotal = originalSale.getRunningTotal();
         Amount discountedTotal = updatedSale.getRunningTotal();
         boolean expectedResult = originalTotal.getAmount().
@@ -248,8 +252,10 @@ public class SummerDiscountTest {
     public void testApplyRuleToNotApplicableItems() {
         CustomerDTO customerInfo = testObjCr.makeCustomerDTOSimple(1950,1,1);
         SaleDTO originalSale = saleWithoutApplicableItemsForDiscounts();
-        discountRule.isRuleApplicable(originalSale, customerInfo);
-        SaleDTO updatedSale = discountRule.applyRule();
+        DiscountContext context = 
+                new DiscountContext(originalSale, customerInfo);
+        discountRule.isRuleApplicable(context);
+        SaleDTO updatedSale = discountRule.applyRule(context);
         Amount originalTotal = originalSale.getRunningTotal();
         Amount discountedTotal = updatedSale.getRunningTotal();
         boolean expectedResult = originalTotal.getAmount().
@@ -2,18 +2,18 @@ package se.martenb.iv1350.project.saleprocess.integration.discount;
 
 import java.util.HashMap;
 import java.util.Map;
-import se.martenb.iv1350.project.saleprocess.integration.dto.CustomerDTO;
 import se.martenb.iv1350.project.saleprocess.integration.dto.SaleDTO;
 
 public class TestingDiscountRule implements DiscountRule {
     private static final TestingDiscountRule TESTING_DISCOUNT_RULE = 
             new TestingDiscountRule();
     private final String name = "Testing Discount!";
-    private Map<String,Double> itemNameContains = new HashMap<>();
-    private DiscountApplier discountApplier;
+    private final Map<String,Double> itemNameContains = new HashMap<>();
+    private final NameKeywordMatcher itemNameContainsMatcher;
     
     private TestingDiscountRule() {
         initializeDiscountRules();
+        itemNameContainsMatcher = new NameKeywordMatcher(itemNameContains);
     }
     
     public static TestingDiscountRule getTestingDiscountRule() {
@@ -39,10 +39,8 @@ public class TestingDiscountRule implements DiscountRule {
     }
     
     @Override
-    public boolean isRuleApplicable(SaleDTO saleInfo, CustomerDTO customerInfo) {
-        discountApplier = 
-                new DiscountApplier(saleInfo, customerInfo);
-        discountApplier.setItemNameContains(itemNameContains);
+    public boolean isRuleApplicable(DiscountContext context) {
+        DiscountApplier discountApplier = createDiscountApplier(context);
         boolean isApplicableItemInSale = 
                 discountApplier.isApplicableItemInSale();
         boolean isRuleApplicable = isApplicableItemInSale;
@@ -50,16 +48,22 @@ public class TestingDiscountRule implements DiscountRule {
     }
 
     @Override
-    public SaleDTO applyRule() {
-        if(discountApplier == null)
-            throw new IllegalStateException("isRuleApplicable(SaleDTO " + 
-                    "saleInfo, CustomerDTO customerInfo) must be called " + 
-                    "before applyRule()");
+    public SaleDTO applyRule(DiscountContext context) {
+        DiscountApplier discountApplier = createDiscountApplier(context);
         discountApplier.applyPerItemRules();
         SaleDTO saleAfterDiscounts = discountApplier.getSaleInfo();
+        context.updateSaleInfo(saleAfterDiscounts);
         return saleAfterDiscounts;
     }
     
+    private DiscountApplier createDiscountApplier(DiscountContext context) {
+        DiscountApplier discountApplier = new DiscountApplier(
+                context.getSaleInfo(), context.getCustomerInfo());
+        discountApplier.setItemDiscountTable(
+                ItemDiscountTable.empty(itemNameContainsMatcher));
+        return discountApplier;
+    }
+    
     @Override
     public String toString() {
         StringBuilder stringRule = new StringBuilder();
@@ -0,0 +1,23 @@
+package se.martenb.iv1350.project.saleprocess.integration.discount;
+
+import se.martenb.iv1350.project.saleprocess.integration.dto.ItemInSaleDTO;
+
+public class TestingItemIDDiscountRule extends TestingLineItemDiscountRule {
+    private final int itemIDDivisor;
+    private final int itemIDRemainder;
+    
+    public TestingItemIDDiscountRule(int itemIDDivisor, int itemIDRemainder, 
+            double discountPercent) {
+        super("item ID " + itemIDRemainder + " mod " + itemIDDivisor, 
+                discountPercent);
+        this.itemIDDivisor = itemIDDivisor;
+        this.itemIDRemainder = itemIDRemainder;
+    }
+    
+    @Override
+    protected boolean isItemDiscounted(ItemInSaleDTO itemInSale) {
+        return itemInSale.getItemInfo().getItemID() % itemIDDivisor == 
+                itemIDRemainder;
+    }
+    
+}
@@ -0,0 +1,68 @@
+package se.martenb.iv1350.project.saleprocess.integration.discount;
+
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import se.martenb.iv1350.project.saleprocess.integration.dto.ItemInSaleDTO;
+import se.martenb.iv1350.project.saleprocess.integration.dto.SaleDTO;
+import se.martenb.iv1350.project.saleprocess.util.Amount;
+
+public class TestingLineItemDiscountRule implements LineItemDiscountRule {
+    private final String itemNameContains;
+    private final double discountPercent;
+    
+    public TestingLineItemDiscountRule(String itemNameContains, 
+            double discountPercent) {
+        this.itemNameContains = itemNameContains;
+        this.discountPercent = discountPercent;
+    }
+    
+    protected boolean isItemDiscounted(ItemInSaleDTO itemInSale) {
+        return itemInSale.getItemInfo().getItemName().toLowerCase().
+                contains(itemNameContains);
+    }
+    
+    @Override
+    public boolean isRuleApplicable(DiscountContext context) {
+        for (ItemInSaleDTO itemInSale : context.getSaleInfo().getItemsInSale())
+            if (isItemDiscounted(itemInSale))
+                return true;
+        return false;
+    }
+
+    @Override
+    public SaleDTO applyRule(DiscountContext context) {
+        SaleDTO saleInfo = context.getSaleInfo();
+        List<ItemInSaleDTO> itemsInSaleWithDiscounted = new ArrayList<>();
+        Amount runningTotal = new Amount(0);
+        for (ItemInSaleDTO itemInSale : saleInfo.getItemsInSale()) {
+            ItemInSaleDTO itemInSaleDiscounted = applyRuleToItem(itemInSale);
+            itemsInSaleWithDiscounted.add(itemInSaleDiscounted);
+            Amount priceAfterTax = 
+                    itemInSaleDiscounted.getItemInfo().getItemPrice().
+                            getPriceAfterTax();
+            runningTotal = runningTotal.plus(priceAfterTax.multiply(
+                    itemInSaleDiscounted.getItemQuantity().
+                            getNumericalValue(), RoundingMode.DOWN));
+        }
+        SaleDTO saleInfoDiscounted = new SaleDTO(saleInfo.getSaleDateTime(), 
+                runningTotal, itemsInSaleWithDiscounted, 
+                saleInfo.getTotalItems());
+        context.updateSaleInfo(saleInfoDiscounted);
+        return saleInfoDiscounted;
+    }
+    
+    @Override
+    public ItemInSaleDTO applyRuleToItem(ItemInSaleDTO itemInSale) {
+        if (!isItemDiscounted(itemInSale))
+            return itemInSale;
+        return itemInSale.applyDiscount(discountPercent);
+    }
+    
+    @Override
+    public String toString() {
+        return discountPercent + "% off all " + itemNameContains + 
+                " products!\n";
+    }
+    
+}
@@ -104,24 +104,11 @@ public class ItemInSaleDTOTest {
         int itemID = 50;
         double discountPercent = Double.MAX_VALUE;
         ItemInSaleDTO itemInSale = testObjCr.generatePieceOfItemInSaleDTO(itemID);
-        ItemInSaleDTO itemInSaleDiscounted = itemInSale.applyDiscount(discountPercent);
-        Amount itemInSalePriceBeforeTaxes = 
-                itemInSale.
-                        getItemInfo().
-                        getItemPrice().
-                        getPriceBeforeTax();
-        Amount discountAmount = itemInSalePriceBeforeTaxes.
-                multiply(PERCENT_MULTIPLIER * discountPercent);
-        Amount discountedPriceBeforeTaxes = itemInSalePriceBeforeTaxes.
-                minus(discountAmount);
-        Amount itemInSaleDiscountedPriceBeforeTaxes = 
-                itemInSaleDiscounted.
-                        getItemInfo().
-                        getItemPrice().
-                        getPriceBeforeTax();
-        Amount expectedResult = discountedPriceBeforeTaxes;
-        Amount result = itemInSaleDiscountedPriceBeforeTaxes;
-        assertEquals(expectedResult, result, "Wrong price after discount.");
+        try {
+            itemInSale.applyDiscount(discountPercent);
+            fail("Discount too large for an amount was applied.");
+        } catch (ArithmeticException exc) {
+        }
     }
 
     @Test
@@ -0,0 +1,269 @@
+package se.martenb.iv1350.project.saleprocess.integration.inventory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import se.martenb.iv1350.project.saleprocess.testing.TestingEnvironment;
+
+public class InventoryJournalTest {
+    private static final int MAXIMUM_BATCH_RECORDS = 64;
+    private static final Duration MAXIMUM_BATCH_DELAY = Duration.ofMillis(5);
+    private static final long NO_AUTOMATIC_SNAPSHOTS = Long.MAX_VALUE;
+    private static final int HEADER_BYTES = 12;
+    private static final int RECORD_BYTES = 21;
+    @TempDir
+    Path journalDirectory;
+    private InventoryJournal journal;
+    
+    @BeforeEach
+    public void setUp() {
+        journal = null;
+    }
+    
+    @AfterEach
+    public void tearDown() throws IOException {
+        if (journal != null)
+            journal.close();
+        journal = null;
+    }
+    
+    private Inventory openInventory(long snapshotEveryRecords) 
+            throws IOException {
+        journal = new InventoryJournal(journalDirectory, 
+                MAXIMUM_BATCH_RECORDS, MAXIMUM_BATCH_DELAY, 
+                snapshotEveryRecords);
+        Inventory inventory = new Inventory();
+        inventory.attachJournal(journal);
+        return inventory;
+    }
+    
+    private Inventory reopenInventory(long snapshotEveryRecords) 
+            throws IOException {
+        journal.close();
+        return openInventory(snapshotEveryRecords);
+    }
+    
+    @Test
+    public void testAdjustmentsAreRecovered() throws IOException {
+        Inventory inventory = openInventory(NO_AUTOMATIC_SNAPSHOTS);
+        for (int i = 0; i < 1000; i++)
+            inventory.adjustStockLevel(1 + i % 3, -1);
+        Inventory recoveredInventory = reopenInventory(NO_AUTOMATIC_SNAPSHOTS);
+        assertEquals(-334, recoveredInventory.getUnitsInStock(1), 
+                "Wrong recovered stock level.");
+        assertEquals(-333, recoveredInventory.getUnitsInStock(3), 
+                "Wrong recovered stock level.");
+    }
+    
+    @Test
+    public void testSnapshotAndLaterAdjustmentsAreRecovered() 
+            throws IOException {
+        Inventory inventory = openInventory(NO_AUTOMATIC_SNAPSHOTS);
+        inventory.setStockLevel(1, 100, 10);
+        inventory.adjustStockLevel(1, -5);
+        inventory.writeSnapshot();
+        inventory.adjustStockLevel(1, -7);
+        journal.flush();
+        Path journalFile = journalDirectory.resolve("inventory.journal");
+        assertEquals(HEADER_BYTES + RECORD_BYTES, Files.size(journalFile), 
+                "Journal was not emptied by the snapshot.");
+        Inventory recoveredInventory = reopenInventory(NO_AUTOMATIC_SNAPSHOTS);
+        assertEquals(88, recoveredInventory.getUnitsInStock(1), 
+                "Wrong recovered stock level.");
+    }
+    
+    @Test
+    public void testAutomaticSnapshotBoundsJournal() throws IOException {
+        long snapshotEveryRecords = 100;
+        Inventory inventory = openInventory(snapshotEveryRecords);
+        for (int i = 0; i < 1050; i++)
+            inventory.adjustStockLevel(1, 1);
+        journal.flush();
+        inventory.adjustStockLevel(1, 1);
+        journal.flush();
+        Path journalFile = journalDirectory.resolve("inventory.journal");
+        long maximumJournalSize = HEADER_BYTES + 
+                (snapshotEveryRecords + MAXIMUM_BATCH_RECORDS) * RECORD_BYTES;
+        assertTrue(Files.size(journalFile) <= maximumJournalSize, 
+                "Journal grew beyond the snapshot interval.");
+        Inventory recoveredInventory = reopenInventory(snapshotEveryRecords);
+        assertEquals(1051, recoveredInventory.getUnitsInStock(1), 
+                "Wrong recovered stock level.");
+    }
+    
+    @Test
+    public void testSetStockLevelIsJournaledWithoutSnapshot() 
+            throws IOException {
+        Inventory inventory = openInventory(NO_AUTOMATIC_SNAPSHOTS);
+        inventory.adjustStockLevel(1, -3);
+        inventory.setStockLevel(1, 100, 10);
+        inventory.adjustStockLevel(1, -5);
+        journal.flush();
+        Path journalFile = journalDirectory.resolve("inventory.journal");
+        assertEquals(HEADER_BYTES + 3 * RECORD_BYTES, Files.size(journalFile), 
+                "Setting a stock level did not add a single record.");
+        assertFalse(Files.exists(
+                journalDirectory.resolve("inventory.snapshot")), 
+                "Setting a stock level wrote a snapshot.");
+        Inventory recoveredInventory = reopenInventory(NO_AUTOMATIC_SNAPSHOTS);
+        assertEquals(95, recoveredInventory.getUnitsInStock(1), 
+                "Wrong recovered stock level.");
+    }
+    
+    @Test
+    public void testRecoveryDoesNotNotifyLowStockObservers() 
+            throws IOException {
+        Inventory inventory = openInventory(NO_AUTOMATIC_SNAPSHOTS);
+        inventory.setStockLevel(1, 10, 5);
+        inventory.adjustStockLevel(1, -6);
+        journal.close();
+        journal = new InventoryJournal(journalDirectory, 
+                MAXIMUM_BATCH_RECORDS, MAXIMUM_BATCH_DELAY, 
+                NO_AUTOMATIC_SNAPSHOTS);
+        Inventory recoveredInventory = new Inventory();
+        AtomicInteger notifications = new AtomicInteger();
+        recoveredInventory.addLowStockObserver((itemID, unitsInStock) -> 
+                notifications.incrementAndGet());
+        recoveredInventory.attachJournal(journal);
+        assertEquals(0, notifications.get(), 
+                "Observers were notified while recovering.");
+        recoveredInventory.adjustStockLevel(1, -1);
+        assertEquals(0, notifications.get(), 
+                "Recovered item was reported as newly low in stock.");
+    }
+    
+    @Test
+    public void testClosedJournal() throws IOException {
+        Inventory inventory = openInventory(NO_AUTOMATIC_SNAPSHOTS);
+        inventory.adjustStockLevel(1, 2);
+        journal.close();
+        journal.flush();
+        try {
+            inventory.adjustStockLevel(1, 1);
+            fail("Changed a stock level after the journal was closed.");
+        } catch (Exception awaitedException) {
+            boolean correctExceptionThrown = 
+                    awaitedException instanceof IllegalStateException;
+            assertTrue(correctExceptionThrown, "Wrong exception thrown.");
+        }
+        Inventory recoveredInventory = openInventory(NO_AUTOMATIC_SNAPSHOTS);
+        assertEquals(2, recoveredInventory.getUnitsInStock(1), 
+                "Wrong recovered stock level.");
+    }
+    
+    @Test
+    public void testWriteFailureRejectsLaterChanges() throws IOException {
+        TestingEnvironment testEnv = new TestingEnvironment();
+        testEnv.backupErrorLog();
+        try {
+            Inventory inventory = openInventory(NO_AUTOMATIC_SNAPSHOTS);
+            inventory.setStockLevel(1, 10, 2);
+            Files.createDirectory(
+                    journalDirectory.resolve("inventory.snapshot.new"));
+            inventory.writeSnapshot();
+            try {
+                journal.flush();
+                fail("Failed snapshot was not reported.");
+            } catch (IOException awaitedException) {
+            }
+            try {
+                inventory.adjustStockLevel(1, 1);
+                fail("Change was accepted after a failed write.");
+            } catch (Exception awaitedException) {
+                boolean correctExceptionThrown = 
+                        awaitedException instanceof UncheckedIOException;
+                assertTrue(correctExceptionThrown, "Wrong exception thrown.");
+            }
+            try {
+                inventory.setStockLevel(1, 50, 2);
+                fail("Stock level was accepted after a failed write.");
+            } catch (UncheckedIOException awaitedException) {
+            }
+            assertEquals(10, inventory.getUnitsInStock(1), 
+                    "Rejected change was applied to the stock level.");
+            InventoryJournal failedJournal = journal;
+            journal = null;
+            try {
+                failedJournal.close();
+                fail("Failed snapshot was not reported when closing.");
+            } catch (IOException awaitedException) {
+            }
+        } finally {
+            testEnv.restoreErrorLog();
+        }
+    }
+    
+    @Test
+    public void testPartlyWrittenAdjustmentIsIgnored() throws IOException {
+        Inventory inventory = openInventory(NO_AUTOMATIC_SNAPSHOTS);
+        inventory.adjustStockLevel(1, 4);
+        journal.close();
+        Path journalFile = journalDirectory.resolve("inventory.journal");
+        Files.write(journalFile, new byte[] {1, 2, 3, 4, 5}, 
+                StandardOpenOption.APPEND);
+        Inventory recoveredInventory = openInventory(NO_AUTOMATIC_SNAPSHOTS);
+        assertEquals(4, recoveredInventory.getUnitsInStock(1), 
+                "Partly written change was not ignored.");
+        recoveredInventory.adjustStockLevel(1, 1);
+        Inventory againRecoveredInventory = 
+                reopenInventory(NO_AUTOMATIC_SNAPSHOTS);
+        assertEquals(5, againRecoveredInventory.getUnitsInStock(1), 
+                "Change after partly written change was lost.");
+    }
+    
+    @Test
+    public void testJournalOlderThanSnapshotIsNotReplayed() 
+            throws IOException {
+        Inventory inventory = openInventory(NO_AUTOMATIC_SNAPSHOTS);
+        inventory.adjustStockLevel(1, 10);
+        journal.flush();
+        Path journalFile = journalDirectory.resolve("inventory.journal");
+        Path oldJournalFile = journalDirectory.resolve("old.journal");
+        Files.copy(journalFile, oldJournalFile);
+        inventory.writeSnapshot();
+        journal.close();
+        Files.copy(oldJournalFile, journalFile, 
+                StandardCopyOption.REPLACE_EXISTING);
+        Inventory recoveredInventory = openInventory(NO_AUTOMATIC_SNAPSHOTS);
+        assertEquals(10, recoveredInventory.getUnitsInStock(1), 
+                "Changes included in the snapshot were replayed again.");
+    }
+    
+    @Test
+    public void testNotAJournalException() throws IOException {
+        Path journalFile = journalDirectory.resolve("inventory.journal");
+        Files.write(journalFile, new byte[64]);
+        try {
+            openInventory(NO_AUTOMATIC_SNAPSHOTS);
+            fail("Opened a file that is not a journal.");
+        } catch (Exception awaitedException) {
+            boolean correctExceptionThrown = 
+                    awaitedException instanceof IOException;
+            assertTrue(correctExceptionThrown, "Wrong exception thrown.");
+        }
+    }
+    
+    @Test
+    public void testAttachSecondJournalException() throws IOException {
+        Inventory inventory = openInventory(NO_AUTOMATIC_SNAPSHOTS);
+        try {
+            inventory.attachJournal(journal);
+            fail("Attached a second journal.");
+        } catch (Exception awaitedException) {
+            boolean correctExceptionThrown = 
+                    awaitedException instanceof IllegalStateException;
+            assertTrue(correctExceptionThrown, "Wrong exception thrown.");
+        }
+    }
+    
+}
@@ -0,0 +1,145 @@
+package se.martenb.iv1350.project.saleprocess.integration.inventory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InventoryTest {
+    private Inventory inventory;
+    private List<Integer> lowStockItems;
+    
+    @BeforeEach
+    public void setUp() {
+        inventory = new Inventory();
+        lowStockItems = new ArrayList<>();
+        inventory.addLowStockObserver((itemID, unitsInStock) -> {
+            synchronized (lowStockItems) {
+                lowStockItems.add(itemID);
+            }
+        });
+    }
+    
+    @AfterEach
+    public void tearDown() {
+        inventory = null;
+        lowStockItems = null;
+    }
+    
+    @Test
+    public void testSetStockLevel() {
+        inventory.setStockLevel(1, 50, 5);
+        assertTrue(inventory.isItemStocked(1), "Item was not stocked.");
+        assertEquals(50, inventory.getUnitsInStock(1), 
+                "Wrong number of units in stock.");
+    }
+    
+    @Test
+    public void testSetStockLevelAgain() {
+        inventory.setStockLevel(1, 50, 5);
+        inventory.adjustStockLevel(1, -8);
+        inventory.setStockLevel(1, 20, 15);
+        assertEquals(20, inventory.getUnitsInStock(1), 
+                "Stock level was not replaced.");
+        inventory.adjustStockLevel(1, -5);
+        assertEquals(List.of(1), lowStockItems, 
+                "Replaced low stock threshold was not used.");
+    }
+    
+    @Test
+    public void testUnitsInStockOfUnknownItem() {
+        assertFalse(inventory.isItemStocked(1), "Unknown item was stocked.");
+        assertEquals(0, inventory.getUnitsInStock(1), 
+                "Unknown item had units in stock.");
+    }
+    
+    @Test
+    public void testAdjustStockLevel() {
+        inventory.setStockLevel(1, 50, 5);
+        inventory.adjustStockLevel(1, -8);
+        inventory.adjustStockLevel(1, 3);
+        assertEquals(45, inventory.getUnitsInStock(1), 
+                "Wrong number of units after adjusting stock level.");
+    }
+    
+    @Test
+    public void testAdjustStockLevelOfUnknownItem() {
+        inventory.adjustStockLevel(1, -2);
+        assertTrue(inventory.isItemStocked(1), 
+                "Sold item without stock level was not added.");
+        assertEquals(-2, inventory.getUnitsInStock(1), 
+                "Wrong number of units of item sold without being in stock.");
+    }
+    
+    @Test
+    public void testLowStockLevelReachedOnce() {
+        inventory.setStockLevel(1, 12, 10);
+        inventory.adjustStockLevel(1, -1);
+        assertTrue(lowStockItems.isEmpty(), 
+                "Low stock was reported above the threshold.");
+        inventory.adjustStockLevel(1, -1);
+        inventory.adjustStockLevel(1, -1);
+        assertEquals(List.of(1), lowStockItems, 
+                "Low stock was not reported exactly once.");
+    }
+    
+    @Test
+    public void testLowStockLevelReachedAgainAfterRestocking() {
+        inventory.setStockLevel(1, 11, 10);
+        inventory.adjustStockLevel(1, -1);
+        inventory.adjustStockLevel(1, 20);
+        inventory.adjustStockLevel(1, -20);
+        assertEquals(List.of(1, 1), lowStockItems, 
+                "Low stock was not reported again after restocking.");
+    }
+    
+    @Test
+    public void testConcurrentSalesOfHotItems() throws InterruptedException {
+        int numberOfLanes = 64;
+        int numberOfHotItems = 10;
+        int salesPerLane = 10000;
+        long initialUnits = 100000;
+        long lowStockThreshold = 50000;
+        for (int itemID = 1; itemID <= numberOfHotItems; itemID++)
+            inventory.setStockLevel(itemID, initialUnits, lowStockThreshold);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        AtomicInteger finishedLanes = new AtomicInteger();
+        List<Thread> lanes = new ArrayList<>();
+        for (int lane = 0; lane < numberOfLanes; lane++) {
+            int firstItemOfLane = lane % numberOfHotItems;
+            Thread laneThread = new Thread(() -> {
+                try {
+                    startSignal.await();
+                } catch (InterruptedException exc) {
+                    return;
+                }
+                for (int sale = 0; sale < salesPerLane; sale++) {
+                    int itemID = 1 + (firstItemOfLane + sale) % 
+                            numberOfHotItems;
+                    inventory.adjustStockLevel(itemID, -1);
+                }
+                finishedLanes.incrementAndGet();
+            });
+            lanes.add(laneThread);
+            laneThread.start();
+        }
+        startSignal.countDown();
+        for (Thread laneThread : lanes)
+            laneThread.join();
+        assertEquals(numberOfLanes, finishedLanes.get(), 
+                "Not all lanes finished.");
+        long expectedUnitsSoldPerItem = 
+                (long) numberOfLanes * salesPerLane / numberOfHotItems;
+        for (int itemID = 1; itemID <= numberOfHotItems; itemID++)
+            assertEquals(initialUnits - expectedUnitsSoldPerItem, 
+                    inventory.getUnitsInStock(itemID), 
+                    "Lost stock updates for item " + itemID);
+        assertEquals(numberOfHotItems, lowStockItems.size(), 
+                "Low stock was not reported exactly once per item.");
+    }
+    
+}
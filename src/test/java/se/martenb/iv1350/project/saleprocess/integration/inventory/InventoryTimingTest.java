@@ -0,0 +1,144 @@
+package se.martenb.iv1350.project.saleprocess.integration.inventory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import se.martenb.iv1350.project.saleprocess.testing.TestingTimer;
+
+public class InventoryTimingTest {
+    private static final int HOT_ITEMS = 10;
+    private static final int ADJUSTMENTS_PER_THREAD = 20_000;
+    private static final long UNITS_IN_STOCK = 1_000_000_000L;
+    private static final int FEW_ITEMS = 5_000;
+    private static final int MANY_ITEMS = 80_000;
+    @TempDir
+    Path journalDirectory;
+    private Inventory inventory;
+    private TestingTimer timer;
+    
+    @BeforeEach
+    public void setUp() {
+        inventory = new Inventory();
+        for (int itemID = 1; itemID <= HOT_ITEMS; itemID++)
+            inventory.setStockLevel(itemID, UNITS_IN_STOCK, 0);
+        timer = new TestingTimer();
+    }
+    
+    @AfterEach
+    public void tearDown() {
+        timer = null;
+        inventory = null;
+    }
+    
+    private double timeSales(int numberOfThreads) {
+        double nanosPerSale = timer.nanosPerOperation(numberOfThreads, 
+                ADJUSTMENTS_PER_THREAD, threadIndex -> {
+                    for (int i = 0; i < ADJUSTMENTS_PER_THREAD; i++)
+                        inventory.adjustStockLevel(
+                                1 + (threadIndex + i) % HOT_ITEMS, -1);
+                    return threadIndex;
+                });
+        timer.report("Sale of hot item with " + numberOfThreads + 
+                " threads", nanosPerSale);
+        return nanosPerSale;
+    }
+    
+    private double timeLockedCounterSales(int numberOfThreads) {
+        long[] lockedCounters = new long[HOT_ITEMS];
+        double nanosPerSale = timer.nanosPerOperation(numberOfThreads, 
+                ADJUSTMENTS_PER_THREAD, threadIndex -> {
+                    for (int i = 0; i < ADJUSTMENTS_PER_THREAD; i++) {
+                        int counterIndex = (threadIndex + i) % HOT_ITEMS;
+                        synchronized (lockedCounters) {
+                            lockedCounters[counterIndex]--;
+                        }
+                    }
+                    return threadIndex;
+                });
+        timer.report("Sale of hot item with one lock and " + 
+                numberOfThreads + " threads", nanosPerSale);
+        return nanosPerSale;
+    }
+    
+    @Test
+    public void testContendedSalesOfHotItems() {
+        double singleThreadTime = timeSales(1);
+        double contendedTime = timeSales(64);
+        timeLockedCounterSales(64);
+        assertTrue(contendedTime < singleThreadTime * 4, 
+                "Sales took " + contendedTime + " ns with 64 threads and " + 
+                singleThreadTime + " ns with one thread.");
+        long soldUnits = 0;
+        for (int itemID = 1; itemID <= HOT_ITEMS; itemID++)
+            soldUnits += UNITS_IN_STOCK - inventory.getUnitsInStock(itemID);
+        long expSoldUnits = (1L + 64) * ADJUSTMENTS_PER_THREAD * 
+                timer.getRunsPerMeasurement();
+        assertEquals(expSoldUnits, soldUnits, "Sales were lost.");
+    }
+    
+    private double timeLoading(int numberOfItems) {
+        double nanosPerItem = timer.nanosPerOperation(numberOfItems, () -> {
+            Inventory loadedInventory = new Inventory();
+            for (int itemID = 1; itemID <= numberOfItems; itemID++)
+                loadedInventory.setStockLevel(itemID, UNITS_IN_STOCK, 0);
+            return loadedInventory.getUnitsInStock(numberOfItems);
+        });
+        timer.report("Loading of " + numberOfItems + " items", nanosPerItem);
+        return nanosPerItem;
+    }
+    
+    private InventoryJournal openJournal(Path directory) throws IOException {
+        return new InventoryJournal(directory, 1024, Duration.ofMillis(5), 
+                Long.MAX_VALUE);
+    }
+    
+    private double timeRecovery(int numberOfItems) throws IOException {
+        Path directory = Files.createDirectory(
+                journalDirectory.resolve("items-" + numberOfItems));
+        try (InventoryJournal journal = openJournal(directory)) {
+            Inventory journaledInventory = new Inventory();
+            journaledInventory.attachJournal(journal);
+            for (int itemID = 1; itemID <= numberOfItems; itemID++)
+                journaledInventory.setStockLevel(itemID, UNITS_IN_STOCK, 0);
+        }
+        double nanosPerItem = timer.nanosPerOperation(numberOfItems, () -> {
+            try (InventoryJournal journal = openJournal(directory)) {
+                Inventory recoveredInventory = new Inventory();
+                recoveredInventory.attachJournal(journal);
+                return recoveredInventory.getUnitsInStock(numberOfItems);
+            } catch (IOException exc) {
+                throw new UncheckedIOException(exc);
+            }
+        });
+        timer.report("Recovery of " + numberOfItems + " items", nanosPerItem);
+        return nanosPerItem;
+    }
+    
+    @Test
+    public void testLoadingTimeGrowsLinearly() {
+        double fewItemsTime = timeLoading(FEW_ITEMS);
+        double manyItemsTime = timeLoading(MANY_ITEMS);
+        assertTrue(manyItemsTime < fewItemsTime * 3, 
+                "Loading took " + manyItemsTime + " ns per item with " + 
+                MANY_ITEMS + " items and " + fewItemsTime + " ns with " + 
+                FEW_ITEMS + ".");
+    }
+    
+    @Test
+    public void testRecoveryTimeGrowsLinearly() throws IOException {
+        double fewItemsTime = timeRecovery(FEW_ITEMS);
+        double manyItemsTime = timeRecovery(MANY_ITEMS);
+        assertTrue(manyItemsTime < fewItemsTime * 3, 
+                "Recovery took " + manyItemsTime + " ns per item with " + 
+                MANY_ITEMS + " items and " + fewItemsTime + " ns with " + 
+                FEW_ITEMS + ".");
+    }
+    
+}
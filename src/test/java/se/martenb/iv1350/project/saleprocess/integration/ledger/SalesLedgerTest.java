@@ -0,0 +1,306 @@
+package se.martenb.iv1350.project.saleprocess.integration.ledger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import se.martenb.iv1350.project.saleprocess.integration.AccountingRegistry;
+import se.martenb.iv1350.project.saleprocess.integration.dto.ItemInSaleDTO;
+import se.martenb.iv1350.project.saleprocess.integration.dto.SaleDTO;
+import se.martenb.iv1350.project.saleprocess.testing.TestingErrorLogger;
+import se.martenb.iv1350.project.saleprocess.testing.TestingObjectCreator;
+import se.martenb.iv1350.project.saleprocess.util.Amount;
+import se.martenb.iv1350.project.saleprocess.util.PriceTotal;
+
+public class SalesLedgerTest {
+    private static final int MAXIMUM_BATCH_RECORDS = 64;
+    private static final Duration MAXIMUM_BATCH_DELAY = Duration.ofMillis(5);
+    private static final int SEGMENT_SIZE = 1 << 20;
+    private static final int SMALL_SEGMENT_SIZE = 4096;
+    @TempDir
+    Path ledgerDirectory;
+    private SalesLedger ledger;
+    private TestingErrorLogger errorLogger;
+    private TestingObjectCreator testingObjectCreator;
+    
+    @BeforeEach
+    public void setUp() {
+        ledger = null;
+        errorLogger = new TestingErrorLogger();
+        testingObjectCreator = new TestingObjectCreator();
+    }
+    
+    @AfterEach
+    public void tearDown() throws IOException {
+        if (ledger != null)
+            ledger.close();
+        ledger = null;
+        errorLogger = null;
+        testingObjectCreator = null;
+    }
+    
+    private SalesLedger openLedger(int segmentSize) throws IOException {
+        ledger = new SalesLedger(ledgerDirectory, MAXIMUM_BATCH_RECORDS, 
+                MAXIMUM_BATCH_DELAY, segmentSize, errorLogger);
+        return ledger;
+    }
+    
+    private SalesLedger reopenLedger(int segmentSize) throws IOException {
+        ledger.close();
+        return openLedger(segmentSize);
+    }
+    
+    private List<Long> readDiscounts(SalesLedger ledgerToRead) 
+            throws IOException {
+        List<Long> discounts = new ArrayList<>();
+        ledgerToRead.forEachSale(sale -> 
+                discounts.add(sale.getTotalDiscount()));
+        return discounts;
+    }
+    
+    private void appendNumberedSales(SalesLedger ledgerToAppendTo, 
+            int firstSaleNumber, int numberOfSales) {
+        for (int i = firstSaleNumber; i < firstSaleNumber + numberOfSales; 
+                i++) {
+            SaleDTO sale = 
+                    testingObjectCreator.generateSaleDTOAndFinalPrice(3);
+            ledgerToAppendTo.append(sale, Amount.ofMinorUnits(i));
+        }
+    }
+    
+    private List<Long> numbers(int numberOfSales) {
+        List<Long> expectedNumbers = new ArrayList<>();
+        for (long i = 0; i < numberOfSales; i++)
+            expectedNumbers.add(i);
+        return expectedNumbers;
+    }
+    
+    @Test
+    public void testSaleIsReadBack() throws IOException {
+        SalesLedger salesLedger = openLedger(SEGMENT_SIZE);
+        SaleDTO sale = testingObjectCreator.generateSaleDTOAndFinalPrice(5);
+        PriceTotal finalPrice = testingObjectCreator.getLastFinalPrice();
+        salesLedger.append(sale, new Amount(12.5));
+        salesLedger.flush();
+        List<SaleDTO> readSales = new ArrayList<>();
+        long readSaleCount = salesLedger.forEachSale(ledgerSale -> {
+            assertEquals(finalPrice.getTotalPriceBeforeTaxes().getMinorUnits(), 
+                    ledgerSale.getTotalPriceBeforeTaxes(), 
+                    "Wrong total before taxes.");
+            assertEquals(finalPrice.getTotalPriceAfterTaxes().getMinorUnits(), 
+                    ledgerSale.getTotalPriceAfterTaxes(), 
+                    "Wrong total after taxes.");
+            assertEquals(finalPrice.getTotalTaxes().getMinorUnits(), 
+                    ledgerSale.getTotalTaxes(), "Wrong total taxes.");
+            assertEquals(1250, ledgerSale.getTotalDiscount(), 
+                    "Wrong total discount.");
+            readSales.add(ledgerSale.toSaleDTO());
+        });
+        assertEquals(1, readSaleCount, "Wrong number of sales read.");
+        SaleDTO readSale = readSales.get(0);
+        assertEquals(sale.getSaleDateTime(), readSale.getSaleDateTime(), 
+                "Wrong sale date and time.");
+        assertEquals(sale.getItemsInSale().size(), 
+                readSale.getItemsInSale().size(), "Wrong number of lines.");
+        for (int i = 0; i < sale.getItemsInSale().size(); i++) {
+            ItemInSaleDTO expectedItem = sale.getItemsInSale().get(i);
+            ItemInSaleDTO readItem = readSale.getItemsInSale().get(i);
+            assertEquals(expectedItem.getItemInfo().getItemID(), 
+                    readItem.getItemInfo().getItemID(), "Wrong item ID.");
+            assertEquals(expectedItem.getItemInfo().getItemName(), 
+                    readItem.getItemInfo().getItemName(), "Wrong item name.");
+            assertEquals(expectedItem.getItemInfo().getItemPrice().
+                    getPriceAfterTax(), readItem.getItemInfo().getItemPrice().
+                    getPriceAfterTax(), "Wrong item price.");
+            assertEquals(expectedItem.getItemQuantity().getNumericalValue(), 
+                    readItem.getItemQuantity().getNumericalValue(), 
+                    "Wrong item quantity.");
+        }
+    }
+    
+    @Test
+    public void testSalesSurviveReopen() throws IOException {
+        SalesLedger salesLedger = openLedger(SEGMENT_SIZE);
+        appendNumberedSales(salesLedger, 0, 100);
+        salesLedger = reopenLedger(SEGMENT_SIZE);
+        appendNumberedSales(salesLedger, 100, 100);
+        salesLedger.flush();
+        assertEquals(numbers(200), readDiscounts(salesLedger), 
+                "Sales were lost or reordered when the ledger was reopened.");
+    }
+    
+    @Test
+    public void testSegmentsRollAtSizeLimit() throws IOException {
+        SalesLedger salesLedger = openLedger(SMALL_SEGMENT_SIZE);
+        appendNumberedSales(salesLedger, 0, 500);
+        salesLedger.flush();
+        List<Path> segmentFiles = salesLedger.getSegmentFiles();
+        assertTrue(segmentFiles.size() > 1, "Ledger did not roll over to " +
+                "new segments.");
+        for (Path segmentFile : segmentFiles)
+            assertEquals(SMALL_SEGMENT_SIZE, Files.size(segmentFile), 
+                    "Segment grew beyond its size.");
+        assertEquals(numbers(500), readDiscounts(salesLedger), 
+                "Sales were lost or reordered across segments.");
+        long salesInSegments = 0;
+        for (Path segmentFile : segmentFiles)
+            salesInSegments += new LedgerSegmentReader(segmentFile).
+                    forEachSale(sale -> {});
+        assertEquals(500, salesInSegments, 
+                "Segment readers did not read every sale.");
+    }
+    
+    @Test
+    public void testPartlyWrittenSaleIsRemoved() throws IOException {
+        SalesLedger salesLedger = openLedger(SEGMENT_SIZE);
+        appendNumberedSales(salesLedger, 0, 10);
+        salesLedger.close();
+        ledger = null;
+        Path segmentFile = salesLedger.getSegmentFiles().get(0);
+        int lastRecordPosition = findLastRecordPosition(segmentFile);
+        try (FileChannel segmentChannel = FileChannel.open(segmentFile, 
+                StandardOpenOption.WRITE)) {
+            segmentChannel.write(ByteBuffer.wrap(new byte[] {0x7f}), 
+                    lastRecordPosition + SalesLedgerFormat.RECORD_HEADER_SIZE);
+        }
+        salesLedger = openLedger(SEGMENT_SIZE);
+        assertEquals(numbers(9), readDiscounts(salesLedger), 
+                "Partly written sale was not removed.");
+        appendNumberedSales(salesLedger, 9, 1);
+        salesLedger.flush();
+        assertEquals(numbers(10), readDiscounts(salesLedger), 
+                "Sale after a removed sale was not written.");
+    }
+    
+    private int findLastRecordPosition(Path segmentFile) throws IOException {
+        ByteBuffer segment = ByteBuffer.wrap(Files.readAllBytes(segmentFile));
+        int recordPosition = SalesLedgerFormat.HEADER_SIZE;
+        int lastRecordPosition = recordPosition;
+        int payloadLength;
+        while ((payloadLength = segment.getInt(recordPosition)) > 0) {
+            lastRecordPosition = recordPosition;
+            recordPosition += SalesLedgerFormat.RECORD_HEADER_SIZE + 
+                    payloadLength;
+        }
+        return lastRecordPosition;
+    }
+    
+    @Test
+    public void testTooLargeSale() throws IOException {
+        SalesLedger salesLedger = openLedger(SMALL_SEGMENT_SIZE);
+        SaleDTO sale = testingObjectCreator.generateSaleDTOAndFinalPrice(100);
+        try {
+            salesLedger.append(sale, Amount.ZERO);
+            fail("Sale larger than a segment was accepted.");
+        } catch (IllegalArgumentException exc) {
+            assertTrue(exc.getMessage().contains("too large"), 
+                    "Wrong exception message.");
+        }
+    }
+    
+    @Test
+    public void testAccountingRegistryAppendsToLedger() throws IOException {
+        SalesLedger salesLedger = openLedger(SEGMENT_SIZE);
+        AccountingRegistry accountingRegistry = new AccountingRegistry();
+        accountingRegistry.attachLedger(salesLedger);
+        accountingRegistry.bookkeep(
+                testingObjectCreator.generateSaleDTOAndFinalPrice(2));
+        accountingRegistry.bookkeep(
+                testingObjectCreator.generateSaleDTOAndFinalPrice(2), 
+                Amount.ofMinorUnits(1));
+        salesLedger.flush();
+        assertEquals(List.of(0L, 1L), readDiscounts(salesLedger), 
+                "Bookkept sales were not appended to the ledger.");
+        try {
+            accountingRegistry.attachLedger(salesLedger);
+            fail("A second ledger was attached.");
+        } catch (IllegalStateException exc) {
+        }
+    }
+    
+    @Test
+    public void testClosedLedger() throws IOException {
+        SalesLedger salesLedger = openLedger(SEGMENT_SIZE);
+        appendNumberedSales(salesLedger, 0, 3);
+        salesLedger.close();
+        salesLedger.flush();
+        assertEquals(numbers(3), readDiscounts(salesLedger), 
+                "Sales appended before closing were not written.");
+        try {
+            appendNumberedSales(salesLedger, 3, 1);
+            fail("A sale was appended to a closed ledger.");
+        } catch (IllegalStateException exc) {
+        }
+    }
+    
+    @Test
+    public void testWriteFailureIsReportedToBookkeeping() throws IOException {
+        SalesLedger salesLedger = openLedger(SMALL_SEGMENT_SIZE);
+        Files.createFile(ledgerDirectory.resolve(
+                SalesLedgerFormat.segmentFileName(1)));
+        AccountingRegistry accountingRegistry = new AccountingRegistry();
+        accountingRegistry.attachLedger(salesLedger);
+        int bookkeptSales = 0;
+        try {
+            while (bookkeptSales < 1000) {
+                accountingRegistry.bookkeep(
+                        testingObjectCreator.generateSaleDTOAndFinalPrice(3));
+                bookkeptSales++;
+            }
+            fail("Sales that could not be written were bookkept.");
+        } catch (UncheckedIOException exc) {
+        }
+        assertTrue(bookkeptSales > 0, "The first segment was not used.");
+        assertFalse(errorLogger.getLoggedExceptions().isEmpty(), 
+                "The failed write was not logged.");
+        salesLedger.flush();
+        ledger = null;
+        salesLedger.close();
+    }
+    
+    @Test
+    public void testWriteFailureIsReportedByClose() throws IOException {
+        SalesLedger salesLedger = openLedger(SMALL_SEGMENT_SIZE);
+        Files.createFile(ledgerDirectory.resolve(
+                SalesLedgerFormat.segmentFileName(1)));
+        appendNumberedSales(salesLedger, 0, 1000);
+        ledger = null;
+        try {
+            salesLedger.close();
+            fail("Closing did not report the failed write.");
+        } catch (IOException exc) {
+        }
+    }
+    
+    @Test
+    public void testFlushSucceedsOnceWritesSucceedAgain() throws IOException {
+        SalesLedger salesLedger = openLedger(SMALL_SEGMENT_SIZE);
+        Path blockingSegmentFile = ledgerDirectory.resolve(
+                SalesLedgerFormat.segmentFileName(1));
+        Files.createFile(blockingSegmentFile);
+        appendNumberedSales(salesLedger, 0, 1000);
+        try {
+            salesLedger.flush();
+            fail("Flushing did not report the failed write.");
+        } catch (IOException exc) {
+        }
+        Files.delete(blockingSegmentFile);
+        appendNumberedSales(salesLedger, 1000, 3);
+        salesLedger.flush();
+        List<Long> discounts = readDiscounts(salesLedger);
+        assertEquals(List.of(1000L, 1001L, 1002L), 
+                discounts.subList(discounts.size() - 3, discounts.size()), 
+                "Sales appended after the failure were not written.");
+    }
+}
@@ -0,0 +1,349 @@
+package se.martenb.iv1350.project.saleprocess.integration.ledger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import se.martenb.iv1350.project.saleprocess.integration.AccountingRegistry;
+import se.martenb.iv1350.project.saleprocess.integration.dto.ItemDTO;
+import se.martenb.iv1350.project.saleprocess.integration.dto.ItemInSaleDTO;
+import se.martenb.iv1350.project.saleprocess.integration.dto.ItemSalesDTO;
+import se.martenb.iv1350.project.saleprocess.integration.dto.SaleDTO;
+import se.martenb.iv1350.project.saleprocess.integration.dto.VATRateTotalDTO;
+import se.martenb.iv1350.project.saleprocess.integration.dto.ZReportDTO;
+import se.martenb.iv1350.project.saleprocess.testing.TestingErrorLogger;
+import se.martenb.iv1350.project.saleprocess.testing.TestingObjectCreator;
+import se.martenb.iv1350.project.saleprocess.util.Amount;
+import se.martenb.iv1350.project.saleprocess.util.Price;
+import se.martenb.iv1350.project.saleprocess.util.Quantity;
+import se.martenb.iv1350.project.saleprocess.util.Unit;
+
+public class SalesReportEngineTest {
+    private static final int MAXIMUM_BATCH_RECORDS = 64;
+    private static final Duration MAXIMUM_BATCH_DELAY = Duration.ofMillis(5);
+    private static final int SEGMENT_SIZE = 1 << 20;
+    private static final int SMALL_SEGMENT_SIZE = 4096;
+    private static final LocalDate BUSINESS_DAY = LocalDate.of(2024, 3, 14);
+    private static final ItemDTO BREAD = new ItemDTO(1, "Bread", 
+            new Price(new Amount(100), 25));
+    private static final ItemDTO MILK = new ItemDTO(2, "Milk", 
+            new Price(new Amount(50), 12));
+    private static final ItemDTO CHEESE = new ItemDTO(3, "Cheese", 
+            new Price(new Amount(80), 6));
+    @TempDir
+    Path ledgerDirectory;
+    private SalesLedger ledger;
+    private TestingErrorLogger errorLogger;
+    private ForkJoinPool scanPool;
+    
+    @BeforeEach
+    public void setUp() {
+        ledger = null;
+        errorLogger = new TestingErrorLogger();
+        scanPool = new ForkJoinPool(4);
+    }
+    
+    @AfterEach
+    public void tearDown() throws IOException {
+        if (ledger != null)
+            ledger.close();
+        ledger = null;
+        errorLogger = null;
+        scanPool.shutdown();
+        scanPool = null;
+    }
+    
+    private SalesLedger openLedger(int segmentSize) throws IOException {
+        ledger = new SalesLedger(ledgerDirectory, MAXIMUM_BATCH_RECORDS, 
+                MAXIMUM_BATCH_DELAY, segmentSize, errorLogger);
+        return ledger;
+    }
+    
+    private SaleDTO createSale(LocalDateTime saleDateTime, 
+            ItemInSaleDTO... itemsInSale) {
+        return new SaleDTO(saleDateTime, Amount.ZERO, List.of(itemsInSale), 
+                itemsInSale.length);
+    }
+    
+    private ItemInSaleDTO createItemInSale(ItemDTO item, double quantity, 
+            Unit unit) {
+        return new ItemInSaleDTO(item, new Quantity(quantity, unit));
+    }
+    
+    private void appendBusinessDaySales(SalesLedger salesLedger) {
+        salesLedger.append(createSale(BUSINESS_DAY.atTime(9, 15), 
+                createItemInSale(BREAD, 2, Unit.PIECE), 
+                createItemInSale(MILK, 1, Unit.PIECE)), Amount.ZERO);
+        salesLedger.append(createSale(BUSINESS_DAY.atTime(9, 45), 
+                createItemInSale(BREAD, 1, Unit.PIECE)), Amount.ZERO);
+        salesLedger.append(createSale(BUSINESS_DAY.atTime(14, 0), 
+                createItemInSale(CHEESE, 0.5, Unit.KILOGRAM)), 
+                new Amount(5));
+        salesLedger.append(createSale(BUSINESS_DAY.plusDays(1).atTime(10, 0), 
+                createItemInSale(BREAD, 7, Unit.PIECE)), Amount.ZERO);
+        salesLedger.append(createSale(BUSINESS_DAY.atStartOfDay().minusNanos(1), 
+                createItemInSale(MILK, 3, Unit.PIECE)), Amount.ZERO);
+    }
+    
+    @Test
+    public void testZReportTotals() throws IOException {
+        SalesLedger salesLedger = openLedger(SEGMENT_SIZE);
+        appendBusinessDaySales(salesLedger);
+        SalesReportEngine reportEngine = 
+                new SalesReportEngine(salesLedger, scanPool);
+        ZReportDTO zReport = reportEngine.createZReport(BUSINESS_DAY);
+        assertEquals(BUSINESS_DAY.atStartOfDay(), zReport.getPeriodStart(), 
+                "Wrong period start.");
+        assertEquals(3, zReport.getNumberOfSales(), 
+                "Wrong number of sales.");
+        assertEquals(5, zReport.getItemsSold(), "Wrong items sold.");
+        assertEquals(new Amount(390), zReport.getTotalPriceBeforeTaxes(), 
+                "Wrong total before taxes.");
+        Amount sumOfVATRateTaxes = Amount.ZERO;
+        for (VATRateTotalDTO vatRateTotal : zReport.getVATRateTotals())
+            sumOfVATRateTaxes = 
+                    sumOfVATRateTaxes.plus(vatRateTotal.getTotalTaxes());
+        assertEquals(sumOfVATRateTaxes, zReport.getTotalTaxes(), 
+                "Wrong total taxes.");
+        assertEquals(new Amount(390).plus(zReport.getTotalTaxes()), 
+                zReport.getTotalPriceAfterTaxes(), 
+                "Wrong total after taxes.");
+        assertEquals(new Amount(5), zReport.getTotalDiscount(), 
+                "Wrong total discount.");
+    }
+    
+    @Test
+    public void testZReportVATRateTotals() throws IOException {
+        SalesLedger salesLedger = openLedger(SEGMENT_SIZE);
+        appendBusinessDaySales(salesLedger);
+        ZReportDTO zReport = new SalesReportEngine(salesLedger, scanPool).
+                createZReport(BUSINESS_DAY);
+        List<VATRateTotalDTO> vatRateTotals = zReport.getVATRateTotals();
+        assertEquals(3, vatRateTotals.size(), "Wrong number of VAT rates.");
+        assertEquals(6, vatRateTotals.get(0).getVATTaxRate(), 
+                "VAT rates are not ordered.");
+        assertEquals(new Amount(40), 
+                vatRateTotals.get(0).getTotalPriceBeforeTaxes(), 
+                "Wrong total before taxes of rate.");
+        assertEquals(new Amount(40), vatRateTotals.get(0).
+                getTotalPriceAfterTaxes().minus(vatRateTotals.get(0).
+                        getTotalTaxes()), "Wrong taxes of rate.");
+        assertEquals(12, vatRateTotals.get(1).getVATTaxRate(), 
+                "VAT rates are not ordered.");
+        assertEquals(MILK.getItemPrice().getPriceAfterTax(), 
+                vatRateTotals.get(1).getTotalPriceAfterTaxes(), 
+                "Wrong total after taxes of rate.");
+        assertEquals(25, vatRateTotals.get(2).getVATTaxRate(), 
+                "VAT rates are not ordered.");
+        assertEquals(new Amount(75), vatRateTotals.get(2).getTotalTaxes(), 
+                "Wrong taxes of rate.");
+    }
+    
+    @Test
+    public void testZReportItemSalesAndHourlyRevenue() throws IOException {
+        SalesLedger salesLedger = openLedger(SEGMENT_SIZE);
+        appendBusinessDaySales(salesLedger);
+        ZReportDTO zReport = new SalesReportEngine(salesLedger, scanPool).
+                createZReport(BUSINESS_DAY);
+        List<ItemSalesDTO> itemSales = zReport.getItemSales();
+        assertEquals(3, itemSales.size(), "Wrong number of items.");
+        assertEquals("Bread", itemSales.get(0).getItemName(), 
+                "Items are not ordered by ID.");
+        assertEquals(3, itemSales.get(0).getQuantitySold(), 
+                "Wrong quantity sold.");
+        assertEquals(new Amount(375), 
+                itemSales.get(0).getTotalPriceAfterTaxes(), 
+                "Wrong total of item.");
+        assertEquals(0.5, itemSales.get(2).getQuantitySold(), 
+                "Wrong quantity sold.");
+        assertEquals(2, zReport.getHourlyRevenue().size(), 
+                "Wrong number of hours.");
+        Amount morningRevenue = 
+                new Amount(375).plus(MILK.getItemPrice().getPriceAfterTax());
+        assertEquals(morningRevenue, zReport.getHourlyRevenue().get(
+                BUSINESS_DAY.atTime(9, 0)), "Wrong revenue of hour.");
+        assertEquals(zReport.getTotalPriceAfterTaxes().minus(morningRevenue), 
+                zReport.getHourlyRevenue().get(BUSINESS_DAY.atTime(14, 0)), 
+                "Wrong revenue of hour.");
+    }
+    
+    @Test
+    public void testParallelScanMatchesSequentialRead() throws IOException {
+        SalesLedger salesLedger = openLedger(SMALL_SEGMENT_SIZE);
+        TestingObjectCreator testingObjectCreator = new TestingObjectCreator();
+        for (int i = 0; i < 500; i++)
+            salesLedger.append(
+                    testingObjectCreator.generateSaleDTOAndFinalPrice(1 + i % 4), 
+                    Amount.ofMinorUnits(i));
+        salesLedger.flush();
+        assertTrue(salesLedger.getSegmentFiles().size() > 4, 
+                "Sales were not spread over several segments.");
+        AtomicLong expectedTotalAfterTaxes = new AtomicLong();
+        AtomicLong expectedTotalDiscount = new AtomicLong();
+        long expectedNumberOfSales = salesLedger.forEachSale(sale -> {
+            expectedTotalAfterTaxes.addAndGet(sale.getTotalPriceAfterTaxes());
+            expectedTotalDiscount.addAndGet(sale.getTotalDiscount());
+        });
+        ZReportDTO report = new SalesReportEngine(salesLedger, scanPool).
+                createReport(LocalDateTime.MIN, LocalDateTime.MAX);
+        assertEquals(expectedNumberOfSales, report.getNumberOfSales(), 
+                "Wrong number of sales.");
+        assertEquals(Amount.ofMinorUnits(expectedTotalAfterTaxes.get()), 
+                report.getTotalPriceAfterTaxes(), "Wrong total after taxes.");
+        assertEquals(Amount.ofMinorUnits(expectedTotalDiscount.get()), 
+                report.getTotalDiscount(), "Wrong total discount.");
+        long sumOfHours = report.getHourlyRevenue().values().stream().
+                mapToLong(Amount::getMinorUnits).sum();
+        assertEquals(expectedTotalAfterTaxes.get(), sumOfHours, 
+                "Hourly revenue does not add up to the total.");
+        long sumOfItems = report.getItemSales().stream().mapToLong(
+                itemSales -> itemSales.getTotalPriceAfterTaxes().
+                        getMinorUnits()).sum();
+        assertEquals(expectedTotalAfterTaxes.get(), sumOfItems, 
+                "Item sales do not add up to the total.");
+    }
+    
+    @Test
+    public void testSegmentsOutsidePeriodAreSkipped() throws IOException {
+        SalesLedger salesLedger = openLedger(SMALL_SEGMENT_SIZE);
+        for (int i = 0; i < 100; i++)
+            salesLedger.append(createSale(BUSINESS_DAY.minusDays(1).
+                    atTime(8, 0).plusMinutes(i), 
+                    createItemInSale(MILK, 1, Unit.PIECE)), Amount.ZERO);
+        for (int i = 0; i < 10; i++)
+            salesLedger.append(createSale(BUSINESS_DAY.atTime(8, 0), 
+                    createItemInSale(BREAD, 1, Unit.PIECE)), Amount.ZERO);
+        salesLedger.flush();
+        long dayStartSecond = 
+                BUSINESS_DAY.atStartOfDay().toEpochSecond(ZoneOffset.UTC);
+        long dayEndSecond = BUSINESS_DAY.plusDays(1).atStartOfDay().
+                toEpochSecond(ZoneOffset.UTC);
+        int spanningSegments = 0;
+        for (Path segmentFile : salesLedger.getSegmentFiles())
+            if (new LedgerSegmentReader(segmentFile).maySpanPeriod(
+                    dayStartSecond, dayEndSecond))
+                spanningSegments++;
+        assertTrue(salesLedger.getSegmentFiles().size() > 3, 
+                "Sales were not spread over several segments.");
+        assertTrue(spanningSegments <= 2, 
+                "Segments of the day before were not skipped.");
+        ZReportDTO zReport = new SalesReportEngine(salesLedger, scanPool).
+                createZReport(BUSINESS_DAY);
+        assertEquals(10, zReport.getNumberOfSales(), 
+                "Wrong number of sales.");
+    }
+    
+    @Test
+    public void testReopenedLedgerRestoresSaleTimeRange() throws IOException {
+        SalesLedger salesLedger = openLedger(SEGMENT_SIZE);
+        appendBusinessDaySales(salesLedger);
+        salesLedger.close();
+        ledger = null;
+        Path segmentFile = salesLedger.getSegmentFiles().get(0);
+        try (FileChannel segmentChannel = FileChannel.open(segmentFile, 
+                StandardOpenOption.WRITE)) {
+            ByteBuffer emptyRange = ByteBuffer.allocate(16).
+                    putLong(Long.MAX_VALUE).putLong(Long.MIN_VALUE).flip();
+            segmentChannel.write(emptyRange, 
+                    SalesLedgerFormat.EARLIEST_SALE_POSITION);
+        }
+        SalesLedger reopenedLedger = openLedger(SEGMENT_SIZE);
+        ZReportDTO zReport = new SalesReportEngine(reopenedLedger, scanPool).
+                createZReport(BUSINESS_DAY);
+        assertEquals(3, zReport.getNumberOfSales(), 
+                "Sales time range was not restored when reopened.");
+    }
+    
+    @Test
+    public void testReportAfterFailedWrite() throws IOException {
+        SalesLedger salesLedger = openLedger(SMALL_SEGMENT_SIZE);
+        Path blockingSegmentFile = ledgerDirectory.resolve(
+                SalesLedgerFormat.segmentFileName(1));
+        Files.createFile(blockingSegmentFile);
+        AccountingRegistry accountingRegistry = new AccountingRegistry();
+        accountingRegistry.attachLedger(salesLedger);
+        int bookkeptSales = 0;
+        try {
+            while (bookkeptSales < 1000) {
+                accountingRegistry.bookkeep(createSale(
+                        BUSINESS_DAY.atTime(10, 0), 
+                        createItemInSale(MILK, 1, Unit.PIECE)));
+                bookkeptSales++;
+            }
+            fail("A sale that could not be written was bookkept.");
+        } catch (UncheckedIOException exc) {
+        }
+        Files.delete(blockingSegmentFile);
+        accountingRegistry.bookkeep(createSale(BUSINESS_DAY.atTime(11, 0), 
+                createItemInSale(BREAD, 1, Unit.PIECE)));
+        accountingRegistry.bookkeep(createSale(BUSINESS_DAY.atTime(12, 0), 
+                createItemInSale(BREAD, 1, Unit.PIECE)));
+        ZReportDTO zReport = accountingRegistry.createZReport(BUSINESS_DAY);
+        assertEquals(bookkeptSales + 2, zReport.getNumberOfSales(), 
+                "Wrong number of sales after a failed write.");
+        ZReportDTO laterZReport = 
+                accountingRegistry.createZReport(BUSINESS_DAY);
+        assertEquals(bookkeptSales + 2, laterZReport.getNumberOfSales(), 
+                "Wrong number of sales in a later report.");
+    }
+    
+    @Test
+    public void testEmptyLedger() throws IOException {
+        SalesLedger salesLedger = openLedger(SEGMENT_SIZE);
+        ZReportDTO zReport = new SalesReportEngine(salesLedger, scanPool).
+                createZReport(BUSINESS_DAY);
+        assertEquals(0, zReport.getNumberOfSales(), "Wrong number of sales.");
+        assertEquals(Amount.ZERO, zReport.getTotalPriceAfterTaxes(), 
+                "Wrong total after taxes.");
+        assertTrue(zReport.getItemSales().isEmpty(), "Found item sales.");
+        assertTrue(zReport.getHourlyRevenue().isEmpty(), 
+                "Found hourly revenue.");
+    }
+    
+    @Test
+    public void testPeriodEndingBeforeStartException() throws IOException {
+        SalesLedger salesLedger = openLedger(SEGMENT_SIZE);
+        SalesReportEngine reportEngine = 
+                new SalesReportEngine(salesLedger, scanPool);
+        try {
+            reportEngine.createReport(BUSINESS_DAY.atTime(12, 0), 
+                    BUSINESS_DAY.atTime(11, 0));
+            fail("Report period ending before it starts was accepted.");
+        } catch (IllegalArgumentException exc) {
+            assertTrue(exc.getMessage().contains("ends before"), 
+                    "Wrong exception message.");
+        }
+    }
+    
+    @Test
+    public void testAccountingRegistryCreatesZReport() throws IOException {
+        AccountingRegistry accountingRegistry = new AccountingRegistry();
+        try {
+            accountingRegistry.createZReport(BUSINESS_DAY);
+            fail("Z-report was created without a ledger.");
+        } catch (IllegalStateException exc) {
+        }
+        SalesLedger salesLedger = openLedger(SEGMENT_SIZE);
+        accountingRegistry.attachLedger(salesLedger);
+        accountingRegistry.bookkeep(createSale(BUSINESS_DAY.atTime(12, 0), 
+                createItemInSale(BREAD, 1, Unit.PIECE)));
+        ZReportDTO zReport = accountingRegistry.createZReport(BUSINESS_DAY);
+        assertEquals(new Amount(125), zReport.getTotalPriceAfterTaxes(), 
+                "Bookkept sale is missing from the Z-report.");
+    }
+}
@@ -0,0 +1,118 @@
+package se.martenb.iv1350.project.saleprocess.integration.ledger;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import se.martenb.iv1350.project.saleprocess.integration.dto.ItemDTO;
+import se.martenb.iv1350.project.saleprocess.integration.dto.ItemInSaleDTO;
+import se.martenb.iv1350.project.saleprocess.integration.dto.SaleDTO;
+import se.martenb.iv1350.project.saleprocess.testing.TestingTimer;
+import se.martenb.iv1350.project.saleprocess.util.Amount;
+import se.martenb.iv1350.project.saleprocess.util.Price;
+import se.martenb.iv1350.project.saleprocess.util.Quantity;
+
+public class SalesReportEngineTimingTest {
+    private static final int MAXIMUM_BATCH_RECORDS = 256;
+    private static final Duration MAXIMUM_BATCH_DELAY = Duration.ofMillis(5);
+    private static final int SEGMENT_SIZE = 1 << 20;
+    private static final LocalDate FIRST_DAY = LocalDate.of(2024, 1, 1);
+    private static final int DAYS_IN_YEAR = 366;
+    private static final int SALES_PER_DAY = 300;
+    private static final int LINES_PER_SALE = 5;
+    private static final int DISTINCT_ITEMS = 1_000;
+    @TempDir
+    Path ledgerDirectory;
+    private SalesLedger ledger;
+    private SalesReportEngine reportEngine;
+    private TestingTimer timer;
+    
+    @BeforeEach
+    public void setUp() throws IOException {
+        ledger = new SalesLedger(ledgerDirectory, MAXIMUM_BATCH_RECORDS, 
+                MAXIMUM_BATCH_DELAY, SEGMENT_SIZE);
+        reportEngine = new SalesReportEngine(ledger);
+        timer = new TestingTimer();
+    }
+    
+    @AfterEach
+    public void tearDown() throws IOException {
+        timer = null;
+        reportEngine.close();
+        reportEngine = null;
+        ledger.close();
+        ledger = null;
+    }
+    
+    private void appendYearOfSales() throws IOException {
+        Random random = new Random(1350);
+        double[] vatRates = {25, 12, 6};
+        ItemDTO[] items = new ItemDTO[DISTINCT_ITEMS];
+        for (int i = 0; i < DISTINCT_ITEMS; i++)
+            items[i] = new ItemDTO(i + 1, "Item #" + (i + 1), Price.of(
+                    Amount.ofMinorUnits(100 + random.nextInt(50_000)), 
+                    vatRates[i % vatRates.length]));
+        long secondsBetweenSales = 12 * 60 * 60 / SALES_PER_DAY;
+        for (int day = 0; day < DAYS_IN_YEAR; day++) {
+            LocalDateTime openingTime = FIRST_DAY.plusDays(day).atTime(8, 0);
+            for (int i = 0; i < SALES_PER_DAY; i++) {
+                List<ItemInSaleDTO> itemsInSale = new ArrayList<>();
+                for (int line = 0; line < LINES_PER_SALE; line++)
+                    itemsInSale.add(new ItemInSaleDTO(
+                            items[random.nextInt(DISTINCT_ITEMS)], 
+                            new Quantity(1 + random.nextInt(3))));
+                ledger.append(new SaleDTO(
+                        openingTime.plusSeconds(i * secondsBetweenSales), 
+                        Amount.ZERO, itemsInSale, itemsInSale.size()), 
+                        Amount.ZERO);
+            }
+        }
+        ledger.flush();
+    }
+    
+    private double timeReport(String measurement, LocalDateTime periodStart, 
+            LocalDateTime periodEnd, long expNumberOfSales) {
+        double nanosPerReport = timer.nanosPerOperation(1, () -> {
+            long numberOfSales;
+            try {
+                numberOfSales = reportEngine.createReport(periodStart, 
+                        periodEnd).getNumberOfSales();
+            } catch (IOException exc) {
+                throw new AssertionError("Ledger could not be read.", exc);
+            }
+            assertEquals(expNumberOfSales, numberOfSales, 
+                    "Wrong number of sales in " + measurement + ".");
+            return numberOfSales;
+        });
+        timer.report(measurement, nanosPerReport);
+        return nanosPerReport;
+    }
+    
+    @Test
+    public void testReportOfYearAndOfDay() throws IOException {
+        appendYearOfSales();
+        LocalDateTime yearStart = FIRST_DAY.atStartOfDay();
+        LocalDateTime yearEnd = FIRST_DAY.plusDays(DAYS_IN_YEAR).atStartOfDay();
+        double yearReportTime = timeReport("Report of a year of sales", 
+                yearStart, yearEnd, (long) DAYS_IN_YEAR * SALES_PER_DAY);
+        LocalDate lastDay = FIRST_DAY.plusDays(DAYS_IN_YEAR - 1);
+        double dayReportTime = timeReport("Z-report of the last day", 
+                lastDay.atStartOfDay(), lastDay.plusDays(1).atStartOfDay(), 
+                SALES_PER_DAY);
+        assertTrue(yearReportTime < 5e9, "A report of a year of sales " + 
+                "took " + yearReportTime + " ns.");
+        assertTrue(dayReportTime * 5 < yearReportTime, "A Z-report of one " + 
+                "day took " + dayReportTime + " ns and a report of the " + 
+                "year " + yearReportTime + " ns.");
+    }
+    
+}
@@ -11,6 +11,7 @@ import se.martenb.iv1350.project.saleprocess.integration.StoreRegistry;
 import se.martenb.iv1350.project.saleprocess.testing.TestingEnvironment;
 import se.martenb.iv1350.project.saleprocess.testing.TestingObjectCreator;
 import se.martenb.iv1350.project.saleprocess.testing.TestingPurchaseObserver;
+import se.martenb.iv1350.project.saleprocess.util.ErrorLogger;
 import se.martenb.iv1350.project.saleprocess.util.PriceTotal;
 
 
@@ -18,6 +19,7 @@ public class PaymentTest {
     TestingObjectCreator testObjCr;
     StoreRegistry storeRegistry;
     Register register;
+    PurchaseEventDispatcher purchaseEventDispatcher;
     Payment payment;
     
     @BeforeEach
@@ -25,12 +27,16 @@ public class PaymentTest {
         testObjCr = new TestingObjectCreator();
         storeRegistry = new StoreRegistry();
         register = new Register();
-        payment = new Payment(storeRegistry, register);
+        purchaseEventDispatcher = new PurchaseEventDispatcher(new ErrorLogger());
+        payment = new Payment(storeRegistry, register, 
+                purchaseEventDispatcher);
     }
     
     @AfterEach
     public void tearDown() {
+        purchaseEventDispatcher.close();
         payment = null;
+        purchaseEventDispatcher = null;
         register = null;
         storeRegistry = null;
         testObjCr = null;
@@ -70,6 +76,7 @@ public class PaymentTest {
                 testEnv.getRedirectedSystemOut();
         payment.addPurchaseObserver(new TestingPurchaseObserver());
         payment.pay(paidAmount);
+        purchaseEventDispatcher.awaitNotifiedObservers();
         String outputAfterActiveTestingPurchaseObserver = 
                 testEnv.getRedirectedSystemOut();
         testEnv.restoreSystemOut();
@@ -103,6 +110,7 @@ public class PaymentTest {
         payment.addPurchaseObserver(new TestingPurchaseObserver());
         payment.addPurchaseObserver(new TestingPurchaseObserver());
         payment.pay(paidAmount);
+        purchaseEventDispatcher.awaitNotifiedObservers();
         String outputAfterActiveTestingPurchaseObserver = 
                 testEnv.getRedirectedSystemOut();
         testEnv.restoreSystemOut();
@@ -124,4 +132,42 @@ public class PaymentTest {
                 "TestingPurchaseObservers did not all get notified.");
     }
     
+    @Test
+    public void testOwnDispatcherNotifiesUntilClosed() {
+        Amount paidAmount = new Amount(5000);
+        Payment ownDispatcherPayment = new Payment(storeRegistry, register);
+        ownDispatcherPayment.startPayment(
+                testObjCr.generateSaleDTOAndFinalPrice(10));
+        PurchaseDTO purchaseInfo = testObjCr.generateLastPurchaseDTO(
+                testObjCr.getLastFinalPrice(), paidAmount);
+        TestingEnvironment testEnv = new TestingEnvironment();
+        testEnv.redirectSystemOut();
+        ownDispatcherPayment.addPurchaseObserver(
+                new TestingPurchaseObserver());
+        ownDispatcherPayment.pay(paidAmount);
+        ownDispatcherPayment.close();
+        String outputAfterClose = testEnv.getRedirectedSystemOut();
+        testEnv.restoreSystemOut();
+        assertEquals(purchaseInfo.getFinalPrice().getTotalPriceAfterTaxes() + 
+                "\n", outputAfterClose, 
+                "Observer was not notified before the dispatcher closed.");
+        try {
+            ownDispatcherPayment.pay(paidAmount);
+            fail("Payment was made after the dispatcher was closed.");
+        } catch (IllegalStateException awaitedException) {
+        }
+    }
+    
+    @Test
+    public void testCloseLeavesPassedDispatcherOpen() {
+        payment.close();
+        payment.startPayment(testObjCr.generateSaleDTOAndFinalPrice(1));
+        Amount amountInRegisterBeforePayment = register.getAmount();
+        payment.pay(new Amount(5000));
+        Amount expResult = amountInRegisterBeforePayment.plus(
+                testObjCr.getLastFinalPrice().getTotalPriceAfterTaxes());
+        assertEquals(expResult, register.getAmount(), 
+                "Payment failed after close.");
+    }
+    
 }
@@ -0,0 +1,239 @@
+package se.martenb.iv1350.project.saleprocess.model;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import se.martenb.iv1350.project.saleprocess.integration.dto.PurchaseDTO;
+import se.martenb.iv1350.project.saleprocess.testing.TestingEnvironment;
+import se.martenb.iv1350.project.saleprocess.util.Amount;
+import se.martenb.iv1350.project.saleprocess.util.ErrorLogger;
+
+public class PurchaseEventDispatcherTest {
+    private static final int SMALL_CAPACITY = 4;
+    private PurchaseEventDispatcher purchaseEventDispatcher;
+
+    private static class RecordingPurchaseObserver
+            implements PurchaseObserver {
+        private final List<Amount> notifiedAmountsPaid = new ArrayList<>();
+        private final CountDownLatch firstNotificationRelease;
+        private final CountDownLatch notificationStarted =
+                new CountDownLatch(1);
+
+        RecordingPurchaseObserver(CountDownLatch firstNotificationRelease) {
+            this.firstNotificationRelease = firstNotificationRelease;
+        }
+
+        @Override
+        public void newRegisteredPurchase(PurchaseDTO purchaseInfo) {
+            notificationStarted.countDown();
+            try {
+                firstNotificationRelease.await();
+            } catch (InterruptedException exc) {
+                Thread.currentThread().interrupt();
+            }
+            synchronized (this) {
+                notifiedAmountsPaid.add(purchaseInfo.getAmountPaid());
+            }
+        }
+
+        void awaitNotificationStarted() throws InterruptedException {
+            notificationStarted.await();
+        }
+
+        synchronized List<Amount> getNotifiedAmountsPaid() {
+            return new ArrayList<>(notifiedAmountsPaid);
+        }
+    }
+
+    @BeforeEach
+    public void setUp() {
+        purchaseEventDispatcher =
+                new PurchaseEventDispatcher(SMALL_CAPACITY, new ErrorLogger());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        purchaseEventDispatcher.close();
+        purchaseEventDispatcher = null;
+    }
+
+    private PurchaseDTO makePurchase(int amountPaid) {
+        return new PurchaseDTO(null, new Amount(amountPaid), new Amount(0));
+    }
+
+    @Test
+    public void testBlockingObserversNotifiedInPublishOrder()
+            throws InterruptedException, ExecutionException {
+        int publishers = 4;
+        int purchasesPerPublisher = 500;
+        CountDownLatch released = new CountDownLatch(0);
+        RecordingPurchaseObserver firstObserver =
+                new RecordingPurchaseObserver(released);
+        RecordingPurchaseObserver secondObserver =
+                new RecordingPurchaseObserver(released);
+        purchaseEventDispatcher.subscribe(firstObserver,
+                BackpressurePolicy.BLOCK);
+        purchaseEventDispatcher.subscribe(secondObserver,
+                BackpressurePolicy.BLOCK);
+        ExecutorService publisherPool =
+                Executors.newFixedThreadPool(publishers);
+        try {
+            List<Future<?>> publishing = new ArrayList<>();
+            for (int publisher = 0; publisher < publishers; publisher++) {
+                int firstAmount = publisher * purchasesPerPublisher;
+                publishing.add(publisherPool.submit(() -> {
+                    for (int i = 0; i < purchasesPerPublisher; i++)
+                        purchaseEventDispatcher.publish(
+                                makePurchase(firstAmount + i));
+                }));
+            }
+            for (Future<?> published : publishing)
+                published.get();
+        } finally {
+            publisherPool.shutdown();
+        }
+        purchaseEventDispatcher.awaitNotifiedObservers();
+        for (RecordingPurchaseObserver observer :
+                List.of(firstObserver, secondObserver)) {
+            List<Amount> notifiedAmountsPaid =
+                    observer.getNotifiedAmountsPaid();
+            assertEquals(publishers * purchasesPerPublisher,
+                    notifiedAmountsPaid.size(),
+                    "Blocking observer was not notified about every purchase.");
+            int[] lastAmountOfPublisher = new int[publishers];
+            for (Amount amountPaid : notifiedAmountsPaid) {
+                int amount = amountPaid.getAmount().intValue();
+                int publisher = amount / purchasesPerPublisher;
+                assertTrue(amount >= lastAmountOfPublisher[publisher],
+                        "Purchases of a publisher were notified out of order.");
+                lastAmountOfPublisher[publisher] = amount;
+            }
+        }
+    }
+
+    @Test
+    public void testDroppingObserverDoesNotHoldUpPublisher() {
+        int purchases = 20;
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingPurchaseObserver observer =
+                new RecordingPurchaseObserver(release);
+        purchaseEventDispatcher.subscribe(observer, BackpressurePolicy.DROP);
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            for (int i = 0; i < purchases; i++)
+                purchaseEventDispatcher.publish(makePurchase(i));
+        }, "Publisher waited for a dropping observer.");
+        release.countDown();
+        purchaseEventDispatcher.awaitNotifiedObservers();
+        List<Amount> notifiedAmountsPaid = observer.getNotifiedAmountsPaid();
+        assertTrue(notifiedAmountsPaid.size() < purchases,
+                "Dropping observer was notified about overwritten purchases.");
+        assertEquals(new Amount(purchases - 1),
+                notifiedAmountsPaid.get(notifiedAmountsPaid.size() - 1),
+                "Dropping observer missed the latest purchase.");
+    }
+
+    @Test
+    public void testCoalescingObserverNotifiedAboutLatestPurchase()
+            throws InterruptedException {
+        int purchases = 3;
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingPurchaseObserver observer =
+                new RecordingPurchaseObserver(release);
+        purchaseEventDispatcher.subscribe(observer,
+                BackpressurePolicy.COALESCE);
+        purchaseEventDispatcher.publish(makePurchase(0));
+        observer.awaitNotificationStarted();
+        for (int i = 1; i < purchases; i++)
+            purchaseEventDispatcher.publish(makePurchase(i));
+        release.countDown();
+        purchaseEventDispatcher.awaitNotifiedObservers();
+        List<Amount> notifiedAmountsPaid = observer.getNotifiedAmountsPaid();
+        assertEquals(List.of(new Amount(0), new Amount(purchases - 1)),
+                notifiedAmountsPaid,
+                "Waiting purchases were not coalesced into the latest.");
+    }
+
+    @Test
+    public void testObserverExceptionIsLogged() throws IOException {
+        TestingEnvironment testEnv = new TestingEnvironment();
+        testEnv.backupErrorLog();
+        try {
+            RecordingPurchaseObserver observer =
+                    new RecordingPurchaseObserver(new CountDownLatch(0));
+            purchaseEventDispatcher.subscribe(purchaseInfo -> {
+                throw new IllegalStateException("Revenue display is broken.");
+            }, BackpressurePolicy.BLOCK);
+            purchaseEventDispatcher.subscribe(observer,
+                    BackpressurePolicy.BLOCK);
+            purchaseEventDispatcher.publish(makePurchase(1));
+            purchaseEventDispatcher.publish(makePurchase(2));
+            purchaseEventDispatcher.awaitNotifiedObservers();
+            assertEquals(2, observer.getNotifiedAmountsPaid().size(),
+                    "Failing observer stopped other observers.");
+            assertTrue(testEnv.findTextInErrorLog(
+                    "Revenue display is broken."),
+                    "Failing observer was not logged.");
+        } finally {
+            testEnv.restoreErrorLog();
+        }
+    }
+
+    @Test
+    public void testObserverErrorIsLogged() throws IOException {
+        TestingEnvironment testEnv = new TestingEnvironment();
+        testEnv.backupErrorLog();
+        try {
+            int purchases = SMALL_CAPACITY * 4;
+            purchaseEventDispatcher.subscribe(purchaseInfo -> {
+                throw new Error("Revenue display crashed.");
+            }, BackpressurePolicy.BLOCK);
+            assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+                for (int i = 0; i < purchases; i++)
+                    purchaseEventDispatcher.publish(makePurchase(i));
+                purchaseEventDispatcher.awaitNotifiedObservers();
+            }, "Observer throwing an error held up the publisher.");
+            assertTrue(testEnv.findTextInErrorLog("Revenue display crashed."),
+                    "Observer error was not logged.");
+        } finally {
+            testEnv.restoreErrorLog();
+        }
+    }
+
+    @Test
+    public void testCloseNotifiesPublishedPurchases() {
+        int purchases = 3;
+        RecordingPurchaseObserver observer =
+                new RecordingPurchaseObserver(new CountDownLatch(0));
+        purchaseEventDispatcher.subscribe(observer, BackpressurePolicy.BLOCK);
+        for (int i = 0; i < purchases; i++)
+            purchaseEventDispatcher.publish(makePurchase(i));
+        purchaseEventDispatcher.close();
+        assertEquals(purchases, observer.getNotifiedAmountsPaid().size(),
+                "Closing did not notify about the published purchases.");
+        try {
+            purchaseEventDispatcher.publish(makePurchase(purchases));
+            fail("Published a purchase after closing the dispatcher.");
+        } catch (IllegalStateException exc) {
+        }
+    }
+
+    @Test
+    public void testCapacityNotPowerOfTwo() {
+        try {
+            new PurchaseEventDispatcher(6, new ErrorLogger());
+            fail("Created a dispatcher with a capacity of six.");
+        } catch (IllegalArgumentException exc) {
+        }
+    }
+
+}
@@ -1,7 +1,16 @@
 package se.martenb.iv1350.project.saleprocess.model;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
+import se.martenb.iv1350.project.saleprocess.integration.dto.RegisterBalanceDTO;
 import se.martenb.iv1350.project.saleprocess.util.Amount;
 
 public class RegisterTest {
@@ -21,4 +30,161 @@ public class RegisterTest {
         assertEquals(expResult, result, "Wrong addition result.");
     }
     
+    @Test
+    public void testLaneDrawersRollUpToTotal() {
+        Register register = new Register();
+        Amount initialAmountInRegister = register.getAmount();
+        register.openDrawer(1).addAmount(new Amount(100));
+        register.openDrawer(2).addAmount(new Amount(250));
+        register.openDrawer(1).addAmount(new Amount(50));
+        RegisterBalanceDTO balance = register.snapshot();
+        
+        assertEquals(new Amount(150), balance.getLaneDrawerAmount(1),
+                "Wrong amount in drawer of first lane.");
+        assertEquals(new Amount(250), balance.getLaneDrawerAmount(2),
+                "Wrong amount in drawer of second lane.");
+        assertEquals(initialAmountInRegister, balance.getMainDrawerAmount(),
+                "Lane amounts were put in the main drawer.");
+        assertEquals(initialAmountInRegister.plus(400),
+                balance.getTotalAmount(),
+                "Drawers did not roll up to the register total.");
+    }
+    
+    @Test
+    public void testConcurrentPayers() throws InterruptedException,
+            ExecutionException {
+        int paymentsPerPayer = 5000;
+        Amount payment = new Amount(19.95);
+        for (int payers : new int[] {1, 8, 64}) {
+            Register register = new Register();
+            Amount initialAmountInRegister = register.getAmount();
+            ExecutorService payerPool = Executors.newFixedThreadPool(payers);
+            try {
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<?>> paying = new ArrayList<>();
+                for (int laneID = 0; laneID < payers; laneID++) {
+                    CashDrawer drawer = register.openDrawer(laneID);
+                    paying.add(payerPool.submit(() -> {
+                        start.await();
+                        for (int i = 0; i < paymentsPerPayer; i++)
+                            drawer.addAmount(payment);
+                        return null;
+                    }));
+                }
+                start.countDown();
+                for (Future<?> paid : paying)
+                    paid.get();
+            } finally {
+                payerPool.shutdown();
+            }
+            RegisterBalanceDTO balance = register.snapshot();
+            Amount paidPerPayer = payment.multiply(paymentsPerPayer);
+            for (int laneID = 0; laneID < payers; laneID++)
+                assertEquals(paidPerPayer, balance.getLaneDrawerAmount(laneID),
+                        "Wrong amount in drawer with " + payers + " payers.");
+            assertEquals(initialAmountInRegister.plus(
+                    paidPerPayer.multiply(payers)), balance.getTotalAmount(),
+                    "Wrong register total with " + payers + " payers.");
+        }
+    }
+    
+    @Test
+    public void testSnapshotIsConsistent() throws InterruptedException {
+        Register register = new Register();
+        Amount initialAmountInRegister = register.getAmount();
+        CashDrawer fromDrawer = register.openDrawer(1);
+        CashDrawer toDrawer = register.openDrawer(2);
+        Amount movedAmount = new Amount(100);
+        AtomicBoolean moving = new AtomicBoolean(true);
+        Thread mover = new Thread(() -> {
+            while (moving.get()) {
+                fromDrawer.addAmount(movedAmount.multiply(-1));
+                toDrawer.addAmount(movedAmount);
+            }
+        });
+        mover.start();
+        try {
+            for (int i = 0; i < 10000; i++) {
+                Amount total = register.snapshot().getTotalAmount();
+                assertTrue(total.equals(initialAmountInRegister) ||
+                        total.equals(initialAmountInRegister.
+                                minus(movedAmount)),
+                        "Snapshot mixed balances from different times: " +
+                                total);
+            }
+        } finally {
+            moving.set(false);
+            mover.join();
+        }
+    }
+    
+    @Test
+    public void testSnapshotIsConsistentWithSeveralWriters() 
+            throws InterruptedException {
+        Register register = new Register();
+        Amount initialAmountInRegister = register.getAmount();
+        int movers = 4;
+        int mainDrawerWriters = 2;
+        Amount movedAmount = new Amount(100);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        List<Thread> writers = new ArrayList<>();
+        for (int i = 0; i < movers; i++) {
+            CashDrawer fromDrawer = register.openDrawer(2 * i + 1);
+            CashDrawer toDrawer = register.openDrawer(2 * i + 2);
+            writers.add(new Thread(() -> {
+                while (writing.get()) {
+                    fromDrawer.addAmount(movedAmount.multiply(-1));
+                    toDrawer.addAmount(movedAmount);
+                }
+            }));
+        }
+        for (int i = 0; i < mainDrawerWriters; i++) {
+            writers.add(new Thread(() -> {
+                while (writing.get()) {
+                    register.addAmount(movedAmount);
+                    register.addAmount(movedAmount.multiply(-1));
+                }
+            }));
+        }
+        writers.forEach(Thread::start);
+        try {
+            for (int i = 0; i < 10000; i++) {
+                RegisterBalanceDTO balance = register.snapshot();
+                for (int pair = 0; pair < movers; pair++) {
+                    Amount pairAmount = balance.getLaneDrawerAmount(
+                            2 * pair + 1).plus(balance.getLaneDrawerAmount(
+                                    2 * pair + 2));
+                    assertTrue(pairAmount.equals(Amount.ZERO) || 
+                            pairAmount.equals(movedAmount.multiply(-1)), 
+                            "Snapshot mixed balances from different times: " + 
+                                    pairAmount);
+                }
+                long addedToMainDrawer = balance.getMainDrawerAmount().
+                        minus(initialAmountInRegister).getMinorUnits();
+                assertTrue(addedToMainDrawer >= 0 && addedToMainDrawer <= 
+                        movedAmount.multiply(mainDrawerWriters).getMinorUnits(), 
+                        "Snapshot saw a main drawer balance that never was: " + 
+                                balance.getMainDrawerAmount());
+            }
+        } finally {
+            writing.set(false);
+            for (Thread writer : writers)
+                writer.join();
+        }
+        assertEquals(initialAmountInRegister, register.getAmount(), 
+                "Amounts added at the same time were lost.");
+    }
+    
+    @Test
+    public void testOverflowLeavesDrawerUnchanged() {
+        CashDrawer drawer = new CashDrawer(Amount.ofMinorUnits(Long.MAX_VALUE));
+        try {
+            drawer.addAmount(Amount.ofMinorUnits(1));
+            fail("Overflowing the drawer was possible.");
+        } catch (ArithmeticException ex) {
+            assertEquals(Amount.ofMinorUnits(Long.MAX_VALUE), 
+                    drawer.getAmount(), "Overflow changed the drawer.");
+        }
+    }
+    
 }
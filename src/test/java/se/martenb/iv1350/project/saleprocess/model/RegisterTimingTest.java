@@ -0,0 +1,121 @@
+package se.martenb.iv1350.project.saleprocess.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import se.martenb.iv1350.project.saleprocess.testing.TestingTimer;
+import se.martenb.iv1350.project.saleprocess.util.Amount;
+
+public class RegisterTimingTest {
+    private static final int PAYMENTS_PER_PAYER = 20_000;
+    private static final int SNAPSHOTS_PER_RUN = 1_000;
+    private static final Amount PAYMENT = new Amount(19.95);
+    private TestingTimer timer;
+    
+    @BeforeEach
+    public void setUp() {
+        timer = new TestingTimer();
+    }
+    
+    @AfterEach
+    public void tearDown() {
+        timer = null;
+    }
+    
+    private double timePayments(int payers) {
+        Register register = new Register();
+        Amount initialAmountInRegister = register.getAmount();
+        double nanosPerPayment = timer.nanosPerOperation(payers, 
+                PAYMENTS_PER_PAYER, laneID -> {
+                    CashDrawer laneDrawer = register.openDrawer(laneID);
+                    for (int i = 0; i < PAYMENTS_PER_PAYER; i++)
+                        laneDrawer.addAmount(PAYMENT);
+                    return laneID;
+                });
+        timer.report("Payment with " + payers + " payers", nanosPerPayment);
+        long payments = (long) payers * PAYMENTS_PER_PAYER * 
+                timer.getRunsPerMeasurement();
+        assertEquals(initialAmountInRegister.plus(PAYMENT.multiply(payments)),
+                register.getAmount(), "Payments were lost.");
+        return nanosPerPayment;
+    }
+    
+    @Test
+    public void testPaymentsOfConcurrentPayers() {
+        double singlePayerTime = timePayments(1);
+        double eightPayersTime = timePayments(8);
+        double manyPayersTime = timePayments(64);
+        assertTrue(eightPayersTime < singlePayerTime * 3, 
+                "Payments took " + eightPayersTime + " ns with 8 payers " + 
+                "and " + singlePayerTime + " ns with one payer.");
+        assertTrue(manyPayersTime < singlePayerTime * 3, 
+                "Payments took " + manyPayersTime + " ns with 64 payers " + 
+                "and " + singlePayerTime + " ns with one payer.");
+    }
+    
+    @Test
+    public void testSnapshotOfManyLanes() {
+        Register register = new Register();
+        for (int laneID = 1; laneID <= 64; laneID++)
+            register.openDrawer(laneID).addAmount(PAYMENT);
+        double nanosPerSnapshot = timer.nanosPerOperation(SNAPSHOTS_PER_RUN, 
+                () -> {
+                    long sumOfTotals = 0;
+                    for (int i = 0; i < SNAPSHOTS_PER_RUN; i++)
+                        sumOfTotals += register.snapshot().getTotalAmount().
+                                getMinorUnits();
+                    return sumOfTotals;
+                });
+        timer.report("Snapshot of 64 lane drawers", nanosPerSnapshot);
+        assertTrue(nanosPerSnapshot < 250_000, "A snapshot of 64 lane " + 
+                "drawers took " + nanosPerSnapshot + " ns.");
+    }
+    
+    private List<Thread> startPayers(Register register, int payers, 
+            AtomicBoolean isPaying) {
+        List<Thread> payerThreads = new ArrayList<>();
+        for (int laneID = 1; laneID <= payers; laneID++) {
+            CashDrawer laneDrawer = register.openDrawer(laneID);
+            Thread payerThread = new Thread(() -> {
+                while (isPaying.get())
+                    laneDrawer.addAmount(PAYMENT);
+            });
+            payerThreads.add(payerThread);
+            payerThread.start();
+        }
+        return payerThreads;
+    }
+    
+    @Test
+    public void testSnapshotUnderConcurrentPayments() 
+            throws InterruptedException {
+        int payers = 8;
+        Register register = new Register();
+        AtomicBoolean isPaying = new AtomicBoolean(true);
+        List<Thread> payerThreads = startPayers(register, payers, isPaying);
+        double nanosPerSnapshot;
+        try {
+            nanosPerSnapshot = timer.nanosPerOperation(SNAPSHOTS_PER_RUN, 
+                    () -> {
+                        long sumOfTotals = 0;
+                        for (int i = 0; i < SNAPSHOTS_PER_RUN; i++)
+                            sumOfTotals += register.snapshot().
+                                    getTotalAmount().getMinorUnits();
+                        return sumOfTotals;
+                    });
+        } finally {
+            isPaying.set(false);
+            for (Thread payerThread : payerThreads)
+                payerThread.join();
+        }
+        timer.report("Snapshot with " + payers + " paying lanes", 
+                nanosPerSnapshot);
+        assertTrue(nanosPerSnapshot < 250_000, "A snapshot with " + payers + 
+                " paying lanes took " + nanosPerSnapshot + " ns.");
+    }
+    
+}
@@ -293,4 +293,102 @@ public class SaleInformationTest {
         
     }
     
+    @Test
+    public void testEarlierSaleDTOUnchangedByLaterItems() 
+            throws IllegalItemQuantityException {
+        SaleDTO firstSaleDTO = makeItemAndAddToSale(ITEM_ID_A, ITEM_NAME_A, 
+                ITEM_PRICE_A, ITEM_VAT_A, ITEM_QUANT_A);
+        makeItemAndAddToSale(ITEM_ID_A, ITEM_NAME_A, 
+                ITEM_PRICE_A, ITEM_VAT_A, ITEM_QUANT_A);
+        makeItemAndAddToSale(ITEM_ID_B, ITEM_NAME_B, 
+                ITEM_PRICE_B, ITEM_VAT_B, ITEM_QUANT_B);
+        
+        assertEquals(1, firstSaleDTO.getItemsInSale().size(), 
+                "Earlier snapshot got more items.");
+        assertEquals(ITEM_QUANT_A.getNumericalValue(), 
+                testObjCr.quantityOfItemAddedToSale(firstSaleDTO, ITEM_ID_A), 
+                "Earlier snapshot got a changed quantity.");
+    }
+    
+    @Test
+    public void testSaleDTOItemsCanNotBeChanged() 
+            throws IllegalItemQuantityException {
+        SaleDTO saleDTO = makeItemAndAddToSale(ITEM_ID_A, ITEM_NAME_A, 
+                ITEM_PRICE_A, ITEM_VAT_A, ITEM_QUANT_A);
+        try {
+            saleDTO.getItemsInSale().clear();
+            fail("Items in sale snapshot were changed.");
+        } catch (UnsupportedOperationException exc) {
+        }
+    }
+    
+    @Test
+    public void testManyItemsKeepOrder() 
+            throws IllegalItemQuantityException {
+        int numberOfItems = 1500;
+        for (int itemID = 0; itemID < numberOfItems; itemID++)
+            makeItemAndAddToSale(itemID, ITEM_NAME_A, ITEM_PRICE_A, 
+                    ITEM_VAT_A, ITEM_QUANT_A);
+        SaleDTO saleDTO = makeItemAndAddToSale(7, ITEM_NAME_A, 
+                ITEM_PRICE_A, ITEM_VAT_A, ITEM_QUANT_A);
+        
+        assertEquals(numberOfItems, saleDTO.getItemsInSale().size(), 
+                "Wrong number of items in sale.");
+        for (int itemID = 0; itemID < numberOfItems; itemID++)
+            assertEquals(itemID, saleDTO.getItemsInSale().get(itemID).
+                    getItemInfo().getItemID(), "Items in wrong order.");
+        assertEquals(ITEM_QUANT_A.getNumericalValue() * 2, 
+                testObjCr.quantityOfItemAddedToSale(saleDTO, 7), 
+                "Quantity of item in large sale not increased.");
+    }
+    
+    @Test
+    public void testLastChangedItemIsAddedItem() 
+            throws IllegalItemQuantityException {
+        makeItemAndAddToSale(ITEM_ID_A, ITEM_NAME_A, 
+                ITEM_PRICE_A, ITEM_VAT_A, ITEM_QUANT_A);
+        SaleDTO saleDTO = makeItemAndAddToSale(ITEM_ID_B, ITEM_NAME_B, 
+                ITEM_PRICE_B, ITEM_VAT_B, ITEM_QUANT_B);
+        int expResult = ITEM_ID_B;
+        int result = saleDTO.getLastChangedItem().getItemInfo().getItemID();
+        assertEquals(expResult, result, "Wrong last changed item.");
+    }
+    
+    @Test
+    public void testLastChangedItemHasIncreasedQuantity() 
+            throws IllegalItemQuantityException {
+        makeItemAndAddToSale(ITEM_ID_A, ITEM_NAME_A, 
+                ITEM_PRICE_A, ITEM_VAT_A, ITEM_QUANT_A);
+        makeItemAndAddToSale(ITEM_ID_B, ITEM_NAME_B, 
+                ITEM_PRICE_B, ITEM_VAT_B, ITEM_QUANT_B);
+        SaleDTO saleDTO = makeItemAndAddToSale(ITEM_ID_A, ITEM_NAME_A, 
+                ITEM_PRICE_A, ITEM_VAT_A, ITEM_QUANT_A);
+        
+        assertSame(saleDTO.getItemsInSale().get(0), 
+                saleDTO.getLastChangedItem(), 
+                "Last changed item is not the item in the sale.");
+        assertEquals(ITEM_QUANT_A.getNumericalValue() * 2, 
+                saleDTO.getLastChangedItem().getItemQuantity().
+                        getNumericalValue(), 
+                "Wrong quantity of last changed item.");
+    }
+    
+    @Test
+    public void testRepeatedItemsKeepFirstScanOrder() 
+            throws IllegalItemQuantityException {
+        makeItemAndAddToSale(ITEM_ID_B, ITEM_NAME_B, 
+                ITEM_PRICE_B, ITEM_VAT_B, ITEM_QUANT_B);
+        makeItemAndAddToSale(ITEM_ID_A, ITEM_NAME_A, 
+                ITEM_PRICE_A, ITEM_VAT_A, ITEM_QUANT_A);
+        SaleDTO saleDTO = makeItemAndAddToSale(ITEM_ID_B, ITEM_NAME_B, 
+                ITEM_PRICE_B, ITEM_VAT_B, ITEM_QUANT_B);
+        
+        assertEquals(2, saleDTO.getItemsInSale().size(), 
+                "Repeated item was added as a new line.");
+        assertEquals(ITEM_ID_B, saleDTO.getItemsInSale().get(0).
+                getItemInfo().getItemID(), "Wrong order of lines.");
+        assertEquals(ITEM_ID_A, saleDTO.getItemsInSale().get(1).
+                getItemInfo().getItemID(), "Wrong order of lines.");
+    }
+    
 }
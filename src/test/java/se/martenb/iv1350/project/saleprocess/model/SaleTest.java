@@ -255,4 +255,43 @@ public class SaleTest {
         
     }
     
+    @Test
+    public void testAddItemsToSale() throws IllegalItemQuantityException {
+        ItemDTO itemA = testObjCr.makeItemDTOSimple(
+                ITEM_ID_A, ITEM_NAME_A, ITEM_PRICE_A, ITEM_VAT_A);
+        ItemDTO itemB = testObjCr.makeItemDTOSimple(
+                ITEM_ID_B, ITEM_NAME_B, ITEM_PRICE_B, ITEM_VAT_B);
+        SaleDTO saleDTO = saleInitial.addItemsToSale(
+                new ItemDTO[] {itemA, itemB}, 
+                new Quantity[] {ITEM_QUANT_A, ITEM_QUANT_B});
+        assertTrue(testObjCr.wasItemAddedToSale(saleDTO, ITEM_ID_A) && 
+                testObjCr.wasItemAddedToSale(saleDTO, ITEM_ID_B), 
+                "Items not added to sale.");
+        assertEquals(2, saleDTO.getTotalItems(), "Wrong number of items.");
+    }
+    
+    @Test
+    public void testAddItemsToSaleIllegalQuantityAddsNothing() {
+        ItemDTO itemA = testObjCr.makeItemDTOSimple(
+                ITEM_ID_A, ITEM_NAME_A, ITEM_PRICE_A, ITEM_VAT_A);
+        ItemDTO itemB = testObjCr.makeItemDTOSimple(
+                ITEM_ID_B, ITEM_NAME_B, ITEM_PRICE_B, ITEM_VAT_B);
+        try {
+            saleInitial.addItemsToSale(new ItemDTO[] {itemA, itemB}, 
+                    new Quantity[] {ITEM_QUANT_A, new Quantity(0)});
+            fail("Added items with an invalid quantity.");
+        } catch (IllegalItemQuantityException exc) {
+            assertEquals(ITEM_ID_B, exc.getItemThatCannotBeRegistered(), 
+                    "Wrong item reported.");
+        }
+        try {
+            SaleDTO saleDTO = saleInitial.addItemsToSale(new ItemDTO[0], 
+                    new Quantity[0]);
+            assertEquals(0, saleDTO.getTotalItems(), 
+                    "Items were added before all quantities were checked.");
+        } catch (IllegalItemQuantityException exc) {
+            fail("Adding no items failed.");
+        }
+    }
+    
 }
@@ -3,13 +3,17 @@ package se.martenb.iv1350.project.saleprocess.startup;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.file.Path;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import static org.junit.jupiter.api.Assertions.*;
 import se.martenb.iv1350.project.saleprocess.testing.TestingEnvironment;
 
 public class MainTest {
+    @TempDir
+    Path salesLedgerDirectory;
     private ByteArrayOutputStream printoutBuffer;
     private PrintStream originalSysOut;
     private TestingEnvironment testEnv;
@@ -33,8 +37,8 @@ public class MainTest {
     }
 
     @Test
-    public void testMain() {
-        String[] args = null;
+    public void testMain() throws IOException {
+        String[] args = {salesLedgerDirectory.toString()};
         Main.main(args);
         String printout = printoutBuffer.toString();
         String responseFromFakeExecutionFirst = "A new sale has started";
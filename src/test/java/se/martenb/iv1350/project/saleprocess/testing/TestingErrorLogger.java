@@ -0,0 +1,23 @@
+package se.martenb.iv1350.project.saleprocess.testing;
+
+import java.util.ArrayList;
+import java.util.List;
+import se.martenb.iv1350.project.saleprocess.util.ErrorLogger;
+
+/**
+ * An error logger for tests, keeping logged exceptions in memory instead of
+ * writing them to the log file.
+ */
+public class TestingErrorLogger extends ErrorLogger {
+    private final List<Throwable> loggedExceptions = new ArrayList<>();
+
+    @Override
+    public synchronized void logException(Throwable exception) {
+        loggedExceptions.add(exception);
+    }
+
+    public synchronized List<Throwable> getLoggedExceptions() {
+        return new ArrayList<>(loggedExceptions);
+    }
+
+}
@@ -0,0 +1,45 @@
+package se.martenb.iv1350.project.saleprocess.testing;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import se.martenb.iv1350.project.saleprocess.integration.catalog.ItemCatalog;
+import se.martenb.iv1350.project.saleprocess.integration.dto.ItemDTO;
+
+public class TestingLatencyItemCatalog implements ItemCatalog {
+    private final ItemCatalog backingCatalog;
+    private final Duration latency;
+    private final AtomicInteger searchCount = new AtomicInteger();
+    
+    public TestingLatencyItemCatalog(ItemCatalog backingCatalog, 
+            Duration latency) {
+        this.backingCatalog = backingCatalog;
+        this.latency = latency;
+    }
+    
+    public int getSearchCount() {
+        return searchCount.get();
+    }
+    
+    @Override
+    public ItemDTO findItem(int itemID) {
+        searchCount.incrementAndGet();
+        try {
+            Thread.sleep(latency.toMillis());
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+        }
+        return backingCatalog.findItem(itemID);
+    }
+    
+    @Override
+    public int size() {
+        return backingCatalog.size();
+    }
+    
+    @Override
+    public void forEachItem(Consumer<ItemDTO> action) {
+        backingCatalog.forEachItem(action);
+    }
+    
+}
@@ -0,0 +1,163 @@
+package se.martenb.iv1350.project.saleprocess.testing;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.IntToLongFunction;
+import java.util.function.LongSupplier;
+
+/**
+ * A timer for timing tests, measuring how long an operation takes without 
+ * a benchmark harness. Each measurement first runs the timed code a few 
+ * times to let the JIT compiler warm it up, and then keeps the fastest of 
+ * several runs, which is the run least disturbed by garbage collection 
+ * and other processes. The timed code returns a value that is kept, so the 
+ * compiler can not remove the work as unused.
+ * 
+ * Timing tests are named <code>*TimingTest</code> and only run with 
+ * <code>mvn test -Ptiming</code>.
+ */
+public class TestingTimer {
+    private static final int WARMUP_RUNS = 5;
+    private static final int MEASURED_RUNS = 7;
+    private static volatile long resultSink;
+    
+    /**
+     * Measure the time per operation of code run by one thread.
+     * 
+     * @param operationsPerRun The number of operations performed by each 
+     *                         run of the timed code.
+     * @param timedRun The timed code.
+     * @return The fastest time per operation in nanoseconds.
+     */
+    public double nanosPerOperation(int operationsPerRun, 
+            LongSupplier timedRun) {
+        for (int i = 0; i < WARMUP_RUNS; i++)
+            resultSink += timedRun.getAsLong();
+        long fastestRun = Long.MAX_VALUE;
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            long startTime = System.nanoTime();
+            resultSink += timedRun.getAsLong();
+            fastestRun = Math.min(fastestRun, System.nanoTime() - startTime);
+        }
+        return (double) fastestRun / operationsPerRun;
+    }
+    
+    /**
+     * Measure the time per operation of code run by several threads at 
+     * once. The time of a run is the wall-clock time from when all threads 
+     * are started until the last of them is done, so the result is the 
+     * inverse of the throughput of all threads together.
+     * 
+     * @param numberOfThreads The number of threads running the timed code.
+     * @param operationsPerThread The number of operations performed by each 
+     *                            thread in each run of the timed code.
+     * @param timedRun The timed code, given the index of the thread.
+     * @return The fastest time per operation in nanoseconds.
+     */
+    public double nanosPerOperation(int numberOfThreads, 
+            int operationsPerThread, IntToLongFunction timedRun) {
+        for (int i = 0; i < WARMUP_RUNS; i++)
+            runConcurrently(numberOfThreads, timedRun);
+        long fastestRun = Long.MAX_VALUE;
+        for (int i = 0; i < MEASURED_RUNS; i++)
+            fastestRun = Math.min(fastestRun, 
+                    runConcurrently(numberOfThreads, timedRun));
+        return (double) fastestRun / 
+                ((long) numberOfThreads * operationsPerThread);
+    }
+    
+    private long runConcurrently(int numberOfThreads, 
+            IntToLongFunction timedRun) {
+        CountDownLatch startSignal = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < numberOfThreads; i++) {
+            int threadIndex = i;
+            Thread thread = new Thread(() -> {
+                try {
+                    startSignal.await();
+                } catch (InterruptedException exc) {
+                    return;
+                }
+                long result = timedRun.applyAsLong(threadIndex);
+                synchronized (TestingTimer.class) {
+                    resultSink += result;
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        long startTime = System.nanoTime();
+        startSignal.countDown();
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException exc) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while timing.");
+            }
+        }
+        return System.nanoTime() - startTime;
+    }
+    
+    /**
+     * Measure the number of bytes allocated on the heap per operation by 
+     * code run by the current thread, after the code has been warmed up.
+     * 
+     * @param operationsPerRun The number of operations performed by each 
+     *                         run of the measured code.
+     * @param measuredRun The measured code.
+     * @return The allocated bytes per operation.
+     */
+    public double bytesPerOperation(int operationsPerRun, 
+            LongSupplier measuredRun) {
+        com.sun.management.ThreadMXBean threadBean = 
+                (com.sun.management.ThreadMXBean) 
+                        ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < WARMUP_RUNS; i++)
+            resultSink += measuredRun.getAsLong();
+        long threadID = Thread.currentThread().getId();
+        long allocatedBefore = threadBean.getThreadAllocatedBytes(threadID);
+        for (int i = 0; i < MEASURED_RUNS; i++)
+            resultSink += measuredRun.getAsLong();
+        long allocatedBytes = 
+                threadBean.getThreadAllocatedBytes(threadID) - allocatedBefore;
+        return (double) allocatedBytes / 
+                ((long) MEASURED_RUNS * operationsPerRun);
+    }
+    
+    /**
+     * Get the number of times the timed code is run by each measurement, 
+     * including the warmup runs.
+     * 
+     * @return The number of runs.
+     */
+    public int getRunsPerMeasurement() {
+        return WARMUP_RUNS + MEASURED_RUNS;
+    }
+    
+    /**
+     * Print a measured time, so that the numbers behind a timing test are 
+     * shown in the test output.
+     * 
+     * @param measurement What was measured.
+     * @param nanosPerOperation The measured time per operation.
+     */
+    public void report(String measurement, double nanosPerOperation) {
+        System.out.printf("%s: %.1f ns/op%n", measurement, nanosPerOperation);
+    }
+    
+    /**
+     * Print a measured number of allocated bytes, so that the numbers 
+     * behind a timing test are shown in the test output.
+     * 
+     * @param measurement What was measured.
+     * @param bytesPerOperation The measured bytes per operation.
+     */
+    public void reportAllocation(String measurement, 
+            double bytesPerOperation) {
+        System.out.printf("%s: %.1f B/op%n", measurement, bytesPerOperation);
+    }
+    
+}
@@ -0,0 +1,95 @@
+package se.martenb.iv1350.project.saleprocess.util;
+
+import java.util.Random;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AmountAccumulatorTest {
+    private AmountAccumulator accumulator;
+
+    @BeforeEach
+    public void setUp() {
+        accumulator = new AmountAccumulator();
+    }
+
+    @Test
+    public void testEmptyTotals() {
+        PriceTotal result = accumulator.toPriceTotal();
+        assertEquals(Amount.ZERO, result.getTotalPriceBeforeTaxes(),
+                "Wrong total price before taxes of no prices.");
+        assertEquals(Amount.ZERO, result.getTotalPriceAfterTaxes(),
+                "Wrong total price after taxes of no prices.");
+        assertEquals(Amount.ZERO, result.getTotalTaxes(),
+                "Wrong total taxes of no prices.");
+    }
+
+    @Test
+    public void testAddPriceSameAsChainedAmounts() {
+        Random random = new Random(1350);
+        Amount expTotalPriceBeforeTaxes = Amount.ZERO;
+        Amount expTotalPriceAfterTaxes = Amount.ZERO;
+        Amount expTotalTaxes = Amount.ZERO;
+        for (int i = 0; i < 10_000; i++) {
+            Price price = new Price(Amount.ofMinorUnits(random.nextInt(100_000)),
+                    random.nextInt(4) * 6);
+            double quantity = random.nextBoolean() ?
+                    random.nextInt(10) + 1 : random.nextInt(5000) / 1000.0;
+            expTotalPriceBeforeTaxes = expTotalPriceBeforeTaxes.plus(
+                    price.getPriceBeforeTax().multiply(quantity));
+            expTotalPriceAfterTaxes = expTotalPriceAfterTaxes.plus(
+                    price.getPriceAfterTax().multiply(quantity));
+            expTotalTaxes = expTotalTaxes.plus(
+                    price.getTaxesAmount().multiply(quantity));
+            accumulator.addPrice(price, quantity);
+        }
+        PriceTotal result = accumulator.toPriceTotal();
+        assertEquals(expTotalPriceBeforeTaxes,
+                result.getTotalPriceBeforeTaxes(),
+                "Wrong total price before taxes.");
+        assertEquals(expTotalPriceAfterTaxes,
+                result.getTotalPriceAfterTaxes(),
+                "Wrong total price after taxes.");
+        assertEquals(expTotalTaxes, result.getTotalTaxes(),
+                "Wrong total taxes.");
+    }
+
+    @Test
+    public void testAddPriceAfterTaxes() {
+        Price price = new Price(new Amount(10), 25);
+        accumulator.addPriceAfterTaxes(price, 3);
+        assertEquals(new Amount(37.5), accumulator.getTotalPriceAfterTaxes(),
+                "Wrong total price after taxes.");
+        assertEquals(Amount.ZERO, accumulator.getTotalPriceBeforeTaxes(),
+                "Total price before taxes was changed.");
+        assertEquals(Amount.ZERO, accumulator.getTotalTaxes(),
+                "Total taxes were changed.");
+    }
+
+    @Test
+    public void testReset() {
+        Price price = new Price(new Amount(10), 25);
+        accumulator.addPrice(price, 2);
+        accumulator.reset();
+        accumulator.addPrice(price, 1);
+        assertEquals(new Amount(12.5), accumulator.getTotalPriceAfterTaxes(),
+                "Totals were not reset.");
+    }
+
+    @Test
+    public void testOverflowLeavesTotalsUnchanged() {
+        Price smallPrice = new Price(new Amount(1), 0);
+        Price largePrice = new Price(Amount.ofMinorUnits(Long.MAX_VALUE), 0);
+        accumulator.addPrice(smallPrice, 1);
+        try {
+            accumulator.addPrice(largePrice, 1);
+            fail("Overflowing total did not fail.");
+        } catch (ArithmeticException exc) {
+        }
+        assertEquals(new Amount(1), accumulator.getTotalPriceAfterTaxes(),
+                "Total was changed by a failed addition.");
+        assertEquals(new Amount(1), accumulator.getTotalPriceBeforeTaxes(),
+                "Total was changed by a failed addition.");
+    }
+
+}
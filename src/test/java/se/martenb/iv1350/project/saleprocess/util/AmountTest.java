@@ -1,5 +1,8 @@
 package se.martenb.iv1350.project.saleprocess.util;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -170,4 +173,261 @@ public class AmountTest {
         assertTrue(expectedResult.equals(result));
     }
     
+
+    @Test
+    public void testHashCodeOfEqualAmounts() {
+        Amount firstOperand = new Amount(new BigDecimal("19.95"));
+        Amount secondOperand = Amount.ofMinorUnits(1995);
+        assertEquals(firstOperand, secondOperand, "Amount instances with " +
+                "same states are not equal.");
+        assertEquals(firstOperand.hashCode(), secondOperand.hashCode(),
+                "Equal amounts have different hash codes.");
+    }
+
+    @Test
+    public void testMinorUnits() {
+        Amount amountToTest = new Amount(new BigDecimal("-12.349"));
+        long expResult = -1234;
+        long result = amountToTest.getMinorUnits();
+        assertEquals(expResult, result, "Wrong number of minor units.");
+        assertEquals(new BigDecimal("-12.34"), amountToTest.getAmount(),
+                "Wrong amount from minor units.");
+    }
+
+    @Test
+    public void testToStringOfMinorUnits() {
+        assertEquals("0.00 SEK", Amount.ZERO.toString(),
+                "Wrong string of zero.");
+        assertEquals("-0.05 SEK", Amount.ofMinorUnits(-5).toString(),
+                "Wrong string of negative amount.");
+        assertEquals("1234.50 SEK", Amount.ofMinorUnits(123450).toString(),
+                "Wrong string of amount.");
+    }
+
+    @Test
+    public void testDoubleOperationsTruncateLikeExactDecimals() {
+        Random random = new Random(1350);
+        for (int i = 0; i < 100_000; i++) {
+            double firstValue = randomValue(random);
+            double secondValue = randomValue(random);
+            Amount firstOperand = new Amount(firstValue);
+            BigDecimal exactFirstOperand = legacyAmount(
+                    new BigDecimal(firstValue));
+            assertEquals(exactFirstOperand, firstOperand.getAmount(),
+                    "Wrong amount created from " + firstValue);
+            assertEquals(legacyAmount(exactFirstOperand.add(
+                    new BigDecimal(secondValue))),
+                    firstOperand.plus(secondValue).getAmount(),
+                    "Wrong addition result for " + firstValue + " + " +
+                    secondValue);
+            assertEquals(legacyAmount(exactFirstOperand.subtract(
+                    new BigDecimal(secondValue))),
+                    firstOperand.minus(secondValue).getAmount(),
+                    "Wrong subtraction result for " + firstValue + " - " +
+                    secondValue);
+            assertEquals(legacyAmount(exactFirstOperand.multiply(
+                    new BigDecimal(secondValue))),
+                    firstOperand.multiply(secondValue).getAmount(),
+                    "Wrong multiplication result for " + firstValue +
+                    " * " + secondValue);
+        }
+    }
+
+    @Test
+    public void testMultiplyTaxRateNotRepresentableAsDouble() {
+        Amount priceBeforeTaxes = new Amount(new BigDecimal("0.10"));
+        double taxRateMultiplier = 0.01 * 12;
+        BigDecimal expResult = legacyAmount(priceBeforeTaxes.getAmount().
+                multiply(new BigDecimal(taxRateMultiplier)));
+        Amount result = priceBeforeTaxes.multiply(taxRateMultiplier);
+        assertEquals(expResult, result.getAmount(),
+                "Wrong multiplication result.");
+    }
+
+    @Test
+    public void testMultiplyWithRoundingModes() {
+        Random random = new Random(1350);
+        for (RoundingMode roundingMode : RoundingMode.values()) {
+            if (roundingMode == RoundingMode.UNNECESSARY)
+                continue;
+            for (int i = 0; i < 10_000; i++) {
+                Amount amountToTest = Amount.ofMinorUnits(
+                        random.nextInt(2_000_001) - 1_000_000);
+                double multiplier = randomValue(random);
+                BigDecimal expResult = amountToTest.getAmount().
+                        multiply(new BigDecimal(multiplier)).
+                        setScale(2, roundingMode);
+                Amount result = amountToTest.multiply(multiplier,
+                        roundingMode);
+                assertEquals(expResult, result.getAmount(), "Wrong " +
+                        roundingMode + " rounding of " + amountToTest +
+                        " * " + multiplier);
+            }
+        }
+    }
+
+    @Test
+    public void testRoundingHalfwayValues() {
+        Amount amountToTest = Amount.ofMinorUnits(5);
+        assertEquals(Amount.ofMinorUnits(3),
+                amountToTest.multiply(0.5, RoundingMode.HALF_UP),
+                "Wrong HALF_UP rounding.");
+        assertEquals(Amount.ofMinorUnits(2),
+                amountToTest.multiply(0.5, RoundingMode.HALF_DOWN),
+                "Wrong HALF_DOWN rounding.");
+        assertEquals(Amount.ofMinorUnits(2),
+                amountToTest.multiply(0.5, RoundingMode.HALF_EVEN),
+                "Wrong HALF_EVEN rounding.");
+        assertEquals(Amount.ofMinorUnits(-3),
+                amountToTest.multiply(-0.5, RoundingMode.HALF_UP),
+                "Wrong HALF_UP rounding of negative amount.");
+        assertEquals(Amount.ofMinorUnits(1998),
+                Amount.of(19.985, RoundingMode.HALF_UP),
+                "Wrong rounding of value just below half.");
+    }
+
+    @Test
+    public void testMultiplyAmountsWithRoundingMode() {
+        Amount firstOperand = Amount.ofMinorUnits(333);
+        Amount secondOperand = Amount.ofMinorUnits(-150);
+        assertEquals(Amount.ofMinorUnits(-499),
+                firstOperand.multiply(secondOperand),
+                "Wrong multiplication result.");
+        assertEquals(Amount.ofMinorUnits(-500),
+                firstOperand.multiply(secondOperand, RoundingMode.FLOOR),
+                "Wrong multiplication result rounded down.");
+    }
+
+    @Test
+    public void testDivideWithRoundingMode() {
+        Amount dividend = Amount.ofMinorUnits(1000);
+        Amount divisor = Amount.ofMinorUnits(-300);
+        assertEquals(Amount.ofMinorUnits(-333),
+                dividend.divide(divisor, RoundingMode.DOWN),
+                "Wrong division result.");
+        assertEquals(Amount.ofMinorUnits(-334),
+                dividend.divide(divisor, RoundingMode.FLOOR),
+                "Wrong division result rounded down.");
+        assertEquals(Amount.ofMinorUnits(333),
+                dividend.divide(3, RoundingMode.HALF_EVEN),
+                "Wrong division result with double divisor.");
+    }
+
+    @Test
+    public void testRoundingUnnecessary() {
+        Amount amountToTest = Amount.ofMinorUnits(5);
+        assertEquals(Amount.ofMinorUnits(10),
+                amountToTest.multiply(2, RoundingMode.UNNECESSARY),
+                "Wrong exact multiplication result.");
+        try {
+            amountToTest.multiply(0.5, RoundingMode.UNNECESSARY);
+            fail("Rounding was made although it was not allowed.");
+        } catch (ArithmeticException exc) {
+        }
+    }
+
+    @Test
+    public void testPlusOverflow() {
+        Amount largestAmount = Amount.ofMinorUnits(Long.MAX_VALUE);
+        try {
+            largestAmount.plus(Amount.ofMinorUnits(1));
+            fail("Overflowing addition did not fail.");
+        } catch (ArithmeticException exc) {
+        }
+    }
+
+    @Test
+    public void testMultiplyOverflow() {
+        Amount largeAmount = Amount.ofMinorUnits(Long.MAX_VALUE / 10);
+        try {
+            largeAmount.multiply(1000.0);
+            fail("Overflowing multiplication did not fail.");
+        } catch (ArithmeticException exc) {
+        }
+    }
+
+    @Test
+    public void testLargeMultiplicationOfAmounts() {
+        Amount largeAmount = Amount.ofMinorUnits(Long.MAX_VALUE / 10);
+        Amount multiplier = new Amount(2);
+        assertEquals(Amount.ofMinorUnits(Long.MAX_VALUE / 10 * 2),
+                largeAmount.multiply(multiplier), "Wrong multiplication " +
+                "result of large amount.");
+    }
+
+    @Test
+    public void testMultiplyLargeAmountWithDouble() {
+        long largeMinorUnits = -452_205_363_110_438_776L;
+        Amount largeAmount = Amount.ofMinorUnits(largeMinorUnits);
+        Amount expResult = Amount.ofMinorUnits(largeMinorUnits / 4);
+        Amount result = largeAmount.multiply(0.25);
+        assertEquals(expResult, result, "Wrong multiplication result of " +
+                "large amount.");
+    }
+
+    @Test
+    public void testRoundLargeProductWithDouble() {
+        long largeMinorUnits = (1L << 53) + 1;
+        Amount largeAmount = Amount.ofMinorUnits(largeMinorUnits);
+        assertEquals(Amount.ofMinorUnits((1L << 52) + 1),
+                largeAmount.multiply(0.5, RoundingMode.HALF_UP),
+                "Wrong rounding half up of large product.");
+        assertEquals(Amount.ofMinorUnits(1L << 52),
+                largeAmount.multiply(0.5, RoundingMode.HALF_EVEN),
+                "Wrong rounding half even of large product.");
+        assertEquals(Amount.ofMinorUnits(-(1L << 52) - 1),
+                largeAmount.multiply(-0.5, RoundingMode.FLOOR),
+                "Wrong rounding down of negative large product.");
+    }
+
+    @Test
+    public void testMultiplyLargeAmountWithNotANumber() {
+        Amount largeAmount = Amount.ofMinorUnits(Long.MAX_VALUE / 2);
+        try {
+            largeAmount.multiply(Double.NaN);
+            fail("Large amount was multiplied with NaN.");
+        } catch (NumberFormatException exc) {
+        }
+    }
+
+    @Test
+    public void testMultiplyLargeAmountWithDoubleOverflow() {
+        Amount largeAmount = Amount.ofMinorUnits(Long.MAX_VALUE / 2);
+        try {
+            largeAmount.multiply(2.5);
+            fail("Overflowing multiplication of large amount did not " +
+                    "fail.");
+        } catch (ArithmeticException exc) {
+        }
+    }
+
+    @Test
+    public void testNotANumber() {
+        try {
+            new Amount(Double.NaN);
+            fail("Amount was created from NaN.");
+        } catch (NumberFormatException exc) {
+        }
+    }
+
+    /**
+     * Generate a value with up to four decimals, sometimes with binary
+     * noise, so that both exact and inexact decimal values are tested.
+     */
+    private double randomValue(Random random) {
+        double value = (random.nextInt(2_000_001) - 1_000_000) / 10_000.0;
+        if (random.nextBoolean())
+            value = Math.nextAfter(value, random.nextBoolean() ?
+                    Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY);
+        return value;
+    }
+
+    /**
+     * Round an exact value the way amounts were rounded when they were
+     * stored as <code>BigDecimal</code>.
+     */
+    private BigDecimal legacyAmount(BigDecimal exactValue) {
+        return exactValue.setScale(2, RoundingMode.DOWN);
+    }
+    
 }
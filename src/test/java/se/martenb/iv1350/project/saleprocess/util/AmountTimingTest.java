@@ -0,0 +1,97 @@
+package se.martenb.iv1350.project.saleprocess.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.function.LongSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import se.martenb.iv1350.project.saleprocess.testing.TestingTimer;
+
+public class AmountTimingTest {
+    private static final int LINES_PER_RUN = 10_000;
+    private TestingTimer timer;
+    private Amount[] prices;
+    private BigDecimal[] bigDecimalPrices;
+    private double[] quantities;
+    
+    @BeforeEach
+    public void setUp() {
+        timer = new TestingTimer();
+        Random random = new Random(1350);
+        prices = new Amount[LINES_PER_RUN];
+        bigDecimalPrices = new BigDecimal[LINES_PER_RUN];
+        quantities = new double[LINES_PER_RUN];
+        for (int i = 0; i < LINES_PER_RUN; i++) {
+            prices[i] = Amount.ofMinorUnits(random.nextInt(100_000));
+            bigDecimalPrices[i] = prices[i].getAmount();
+            quantities[i] = 1 + random.nextInt(8) * 0.25;
+        }
+    }
+    
+    @AfterEach
+    public void tearDown() {
+        quantities = null;
+        bigDecimalPrices = null;
+        prices = null;
+        timer = null;
+    }
+    
+    private long sumRunningTotal() {
+        Amount runningTotal = new Amount(0);
+        for (int i = 0; i < LINES_PER_RUN; i++)
+            runningTotal = runningTotal.plus(prices[i].multiply(quantities[i]));
+        return runningTotal.getMinorUnits();
+    }
+    
+    private long sumBigDecimalRunningTotal() {
+        BigDecimal runningTotal = BigDecimal.ZERO.setScale(2);
+        for (int i = 0; i < LINES_PER_RUN; i++) {
+            BigDecimal lineTotal = bigDecimalPrices[i].
+                    multiply(new BigDecimal(quantities[i])).
+                    setScale(2, RoundingMode.DOWN);
+            runningTotal = runningTotal.add(lineTotal).
+                    setScale(2, RoundingMode.DOWN);
+        }
+        return runningTotal.unscaledValue().longValueExact();
+    }
+    
+    private double timeAndReport(String measurement, 
+            LongSupplier runningTotalSum) {
+        double nanosPerLine = 
+                timer.nanosPerOperation(LINES_PER_RUN, runningTotalSum);
+        timer.report(measurement, nanosPerLine);
+        timer.reportAllocation(measurement, 
+                timer.bytesPerOperation(LINES_PER_RUN, runningTotalSum));
+        return nanosPerLine;
+    }
+    
+    @Test
+    public void testRunningTotalFasterThanBigDecimal() {
+        assertEquals(sumBigDecimalRunningTotal(), sumRunningTotal(), 
+                "Running totals differ.");
+        double bigDecimalTime = timeAndReport("BigDecimal running total", 
+                this::sumBigDecimalRunningTotal);
+        double minorUnitsTime = timeAndReport("Minor units running total", 
+                this::sumRunningTotal);
+        assertTrue(minorUnitsTime * 2 < bigDecimalTime, 
+                "Running total took " + minorUnitsTime + " ns per line " + 
+                "with minor units and " + bigDecimalTime + 
+                " ns with BigDecimal.");
+    }
+    
+    @Test
+    public void testRunningTotalAllocatesLessThanBigDecimal() {
+        double bigDecimalBytes = timer.bytesPerOperation(LINES_PER_RUN, 
+                this::sumBigDecimalRunningTotal);
+        double minorUnitsBytes = timer.bytesPerOperation(LINES_PER_RUN, 
+                this::sumRunningTotal);
+        assertTrue(minorUnitsBytes * 2 < bigDecimalBytes, 
+                "Running total allocated " + minorUnitsBytes + " bytes per " + 
+                "line with minor units and " + bigDecimalBytes + 
+                " bytes with BigDecimal.");
+    }
+    
+}
@@ -0,0 +1,139 @@
+package se.martenb.iv1350.project.saleprocess.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrentIntKeyMapTest {
+    private ConcurrentIntKeyMap<String> concurrentMap;
+
+    @BeforeEach
+    public void setUp() {
+        concurrentMap = new ConcurrentIntKeyMap<>();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        concurrentMap = null;
+    }
+
+    @Test
+    public void testGetMissingKey() {
+        String result = concurrentMap.get(1);
+        assertNull(result, "Found a value for a key that was never added.");
+    }
+
+    @Test
+    public void testPutAndGet() {
+        concurrentMap.put(42, "forty-two");
+        concurrentMap.put(Integer.MIN_VALUE, "min");
+        assertEquals("forty-two", concurrentMap.get(42),
+                "Wrong value for added key.");
+        assertEquals("min", concurrentMap.get(Integer.MIN_VALUE),
+                "Wrong value for smallest key.");
+    }
+
+    @Test
+    public void testPutReplacesValue() {
+        concurrentMap.put(7, "first");
+        String previousValue = concurrentMap.put(7, "second");
+        assertEquals("first", previousValue, "Wrong previous value.");
+        assertEquals("second", concurrentMap.get(7),
+                "Value was not replaced.");
+        assertEquals(1, concurrentMap.size(),
+                "Replacing a value changed size.");
+    }
+
+    @Test
+    public void testPutNullValueException() {
+        try {
+            concurrentMap.put(1, null);
+            fail("Added a null value to the map.");
+        } catch (Exception awaitedException) {
+            boolean correctExceptionThrown =
+                    awaitedException instanceof IllegalArgumentException;
+            assertTrue(correctExceptionThrown, "Wrong exception thrown.");
+        }
+    }
+
+    @Test
+    public void testManyKeysSurviveGrowing() {
+        int numberOfKeys = 100000;
+        for (int i = 0; i < numberOfKeys; i++)
+            concurrentMap.put(i * 31, "value " + i);
+        assertEquals(numberOfKeys, concurrentMap.size(), "Wrong map size.");
+        for (int i = 0; i < numberOfKeys; i++)
+            assertEquals("value " + i, concurrentMap.get(i * 31),
+                    "Lost a value while growing the map.");
+        assertNull(concurrentMap.get(1), "Found a key never added.");
+    }
+
+    @Test
+    public void testEnsureCapacityKeepsEntries() {
+        concurrentMap.put(1, "one");
+        concurrentMap.ensureCapacity(100000);
+        assertEquals("one", concurrentMap.get(1),
+                "Lost a value while making room.");
+        assertEquals(1, concurrentMap.size(), "Wrong map size.");
+    }
+
+    @Test
+    public void testComputeIfAbsent() {
+        concurrentMap.put(1, "one");
+        assertEquals("one", concurrentMap.computeIfAbsent(1, key -> "new"),
+                "Existing value was replaced.");
+        assertEquals("2", concurrentMap.computeIfAbsent(2, Integer::toString),
+                "Missing value was not created.");
+        assertEquals("2", concurrentMap.get(2),
+                "Created value was not added.");
+    }
+
+    @Test
+    public void testConcurrentComputeIfAbsentCreatesOneValue()
+            throws InterruptedException {
+        int numberOfThreads = 8;
+        int numberOfKeys = 10000;
+        CountDownLatch startSignal = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < numberOfThreads; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    startSignal.await();
+                } catch (InterruptedException exc) {
+                    return;
+                }
+                for (int key = 0; key < numberOfKeys; key++)
+                    concurrentMap.computeIfAbsent(key, k -> new String("v"));
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        startSignal.countDown();
+        List<String> createdValues = new ArrayList<>();
+        for (int key = 0; key < numberOfKeys; key++)
+            createdValues.add(concurrentMap.computeIfAbsent(key,
+                    k -> new String("v")));
+        for (Thread thread : threads)
+            thread.join();
+        assertEquals(numberOfKeys, concurrentMap.size(), "Wrong map size.");
+        for (int key = 0; key < numberOfKeys; key++)
+            assertSame(createdValues.get(key), concurrentMap.get(key),
+                    "More than one value was created for a key.");
+    }
+
+    @Test
+    public void testForEachValue() {
+        concurrentMap.put(1, "one");
+        concurrentMap.put(2, "two");
+        List<String> visitedValues = new ArrayList<>();
+        concurrentMap.forEachValue(visitedValues::add);
+        assertEquals(2, visitedValues.size(), "Wrong number of values.");
+        assertTrue(visitedValues.contains("one") &&
+                visitedValues.contains("two"), "Missing visited values.");
+    }
+
+}
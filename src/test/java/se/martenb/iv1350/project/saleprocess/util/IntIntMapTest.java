@@ -0,0 +1,80 @@
+package se.martenb.iv1350.project.saleprocess.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IntIntMapTest {
+    private IntIntMap intIntMap;
+
+    @BeforeEach
+    public void setUp() {
+        intIntMap = new IntIntMap();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        intIntMap = null;
+    }
+
+    @Test
+    public void testGetMissingKey() {
+        assertEquals(-1, intIntMap.getOrDefault(1, -1),
+                "Found a value for a key that was never put.");
+        assertFalse(intIntMap.containsKey(1),
+                "Found a key that was never put.");
+    }
+
+    @Test
+    public void testPutReplacesValue() {
+        intIntMap.put(42, 10);
+        intIntMap.put(42, 3);
+        assertEquals(3, intIntMap.getOrDefault(42, -1),
+                "Wrong value for replaced key.");
+        assertEquals(1, intIntMap.size(), "Replacing a value changed size.");
+    }
+
+    @Test
+    public void testPutZeroIsNotDefault() {
+        intIntMap.put(7, 0);
+        assertEquals(0, intIntMap.getOrDefault(7, -1),
+                "Value zero was taken for a missing key.");
+        assertTrue(intIntMap.containsKey(7), "Key with value zero missing.");
+    }
+
+    @Test
+    public void testZeroAndNegativeKeys() {
+        intIntMap.put(0, 1);
+        intIntMap.put(-1, 2);
+        intIntMap.put(Integer.MIN_VALUE, 3);
+        assertEquals(1, intIntMap.getOrDefault(0, -1),
+                "Wrong value for key 0.");
+        assertEquals(2, intIntMap.getOrDefault(-1, -1),
+                "Wrong value for key -1.");
+        assertEquals(3, intIntMap.getOrDefault(Integer.MIN_VALUE, -1),
+                "Wrong value for smallest key.");
+    }
+
+    @Test
+    public void testManyKeysAfterGrowing() {
+        int numberOfKeys = 10000;
+        for (int i = 0; i < numberOfKeys; i++)
+            intIntMap.put(i * 31, i);
+        assertEquals(numberOfKeys, intIntMap.size(), "Wrong size.");
+        for (int i = 0; i < numberOfKeys; i++)
+            assertEquals(i, intIntMap.getOrDefault(i * 31, -1),
+                    "Value lost when the map grew.");
+    }
+
+    @Test
+    public void testNegativeExpectedEntriesException() {
+        try {
+            new IntIntMap(-1);
+            fail("Negative expected number of entries was accepted.");
+        } catch (IllegalArgumentException exc) {
+            assertTrue(exc.getMessage().contains("negative"),
+                    "Wrong exception message.");
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package se.martenb.iv1350.project.saleprocess.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IntKeyMapTest {
+    private IntKeyMap<String> intKeyMap;
+
+    @BeforeEach
+    public void setUp() {
+        intKeyMap = new IntKeyMap<>();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        intKeyMap = null;
+    }
+
+    @Test
+    public void testGetMissingKey() {
+        String result = intKeyMap.get(1);
+        assertNull(result, "Found a value for a key that was never added.");
+    }
+
+    @Test
+    public void testPutAndGet() {
+        intKeyMap.put(42, "forty-two");
+        String result = intKeyMap.get(42);
+        assertEquals("forty-two", result, "Wrong value for added key.");
+    }
+
+    @Test
+    public void testPutAndGetZeroAndNegativeKeys() {
+        intKeyMap.put(0, "zero");
+        intKeyMap.put(-1, "minus one");
+        intKeyMap.put(Integer.MIN_VALUE, "min");
+        assertEquals("zero", intKeyMap.get(0), "Wrong value for key 0.");
+        assertEquals("minus one", intKeyMap.get(-1),
+                "Wrong value for key -1.");
+        assertEquals("min", intKeyMap.get(Integer.MIN_VALUE),
+                "Wrong value for smallest key.");
+    }
+
+    @Test
+    public void testPutReplacesValue() {
+        intKeyMap.put(7, "first");
+        String previousValue = intKeyMap.put(7, "second");
+        assertEquals("first", previousValue, "Wrong previous value.");
+        assertEquals("second", intKeyMap.get(7), "Value was not replaced.");
+        assertEquals(1, intKeyMap.size(), "Replacing a value changed size.");
+    }
+
+    @Test
+    public void testPutNullValueException() {
+        try {
+            intKeyMap.put(1, null);
+            fail("Added a null value to the map.");
+        } catch (Exception awaitedException) {
+            boolean correctExceptionThrown =
+                    awaitedException instanceof IllegalArgumentException;
+            assertTrue(correctExceptionThrown, "Wrong exception thrown.");
+        }
+    }
+
+    @Test
+    public void testManyKeysSurviveGrowing() {
+        int numberOfKeys = 100000;
+        for (int i = 0; i < numberOfKeys; i++)
+            intKeyMap.put(i * 31, "value " + i);
+        assertEquals(numberOfKeys, intKeyMap.size(), "Wrong map size.");
+        for (int i = 0; i < numberOfKeys; i++)
+            assertEquals("value " + i, intKeyMap.get(i * 31),
+                    "Lost a value while growing the map.");
+        assertFalse(intKeyMap.containsKey(1), "Found a key never added.");
+    }
+
+    @Test
+    public void testRemove() {
+        int numberOfKeys = 1000;
+        for (int i = 0; i < numberOfKeys; i++)
+            intKeyMap.put(i, "value " + i);
+        for (int i = 0; i < numberOfKeys; i += 2)
+            assertEquals("value " + i, intKeyMap.remove(i),
+                    "Wrong value removed.");
+        assertEquals(numberOfKeys / 2, intKeyMap.size(), "Wrong map size.");
+        for (int i = 0; i < numberOfKeys; i++) {
+            boolean shouldBeInMap = i % 2 == 1;
+            assertEquals(shouldBeInMap, intKeyMap.containsKey(i),
+                    "Wrong entries left after removal.");
+        }
+    }
+
+    @Test
+    public void testRemoveMissingKey() {
+        intKeyMap.put(1, "one");
+        assertNull(intKeyMap.remove(2), "Removed a key never added.");
+        assertEquals(1, intKeyMap.size(), "Wrong map size.");
+    }
+
+    @Test
+    public void testCopyIsIndependent() {
+        intKeyMap.put(1, "one");
+        IntKeyMap<String> copiedMap = new IntKeyMap<>(intKeyMap);
+        copiedMap.put(2, "two");
+        copiedMap.remove(1);
+        assertEquals("one", intKeyMap.get(1), "Copy modified original map.");
+        assertFalse(intKeyMap.containsKey(2), "Copy modified original map.");
+    }
+
+    @Test
+    public void testForEachValue() {
+        intKeyMap.put(1, "one");
+        intKeyMap.put(2, "two");
+        List<String> visitedValues = new ArrayList<>();
+        intKeyMap.forEachValue(visitedValues::add);
+        assertEquals(2, visitedValues.size(), "Wrong number of values.");
+        assertTrue(visitedValues.contains("one") &&
+                visitedValues.contains("two"), "Missing visited values.");
+    }
+
+    @Test
+    public void testForEachKeyAndValue() {
+        intKeyMap.put(1, "one");
+        intKeyMap.put(-2, "minus two");
+        List<String> visitedEntries = new ArrayList<>();
+        intKeyMap.forEachKeyAndValue((key, value) ->
+                visitedEntries.add(key + "=" + value));
+        assertEquals(2, visitedEntries.size(), "Wrong number of entries.");
+        assertTrue(visitedEntries.contains("1=one") &&
+                visitedEntries.contains("-2=minus two"),
+                "Missing visited entries.");
+    }
+
+    @Test
+    public void testClear() {
+        intKeyMap.put(1, "one");
+        intKeyMap.clear();
+        assertTrue(intKeyMap.isEmpty(), "Map was not cleared.");
+        assertNull(intKeyMap.get(1), "Value left after clearing.");
+    }
+
+}
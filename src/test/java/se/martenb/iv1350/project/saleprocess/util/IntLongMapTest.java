@@ -0,0 +1,103 @@
+package se.martenb.iv1350.project.saleprocess.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IntLongMapTest {
+    private IntLongMap intLongMap;
+
+    @BeforeEach
+    public void setUp() {
+        intLongMap = new IntLongMap();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        intLongMap = null;
+    }
+
+    @Test
+    public void testGetMissingKey() {
+        assertEquals(0, intLongMap.get(1),
+                "Found a value for a key that was never added.");
+        assertFalse(intLongMap.containsKey(1),
+                "Found a key that was never added.");
+    }
+
+    @Test
+    public void testAddSumsValues() {
+        intLongMap.add(42, 10);
+        long result = intLongMap.add(42, -3);
+        assertEquals(7, result, "Wrong value returned by add.");
+        assertEquals(7, intLongMap.get(42), "Wrong value for added key.");
+        assertEquals(1, intLongMap.size(), "Adding to a key changed size.");
+    }
+
+    @Test
+    public void testAddZeroAddsKey() {
+        intLongMap.add(0, 0);
+        assertTrue(intLongMap.containsKey(0), "Key with value zero missing.");
+        assertEquals(1, intLongMap.size(), "Wrong size.");
+    }
+
+    @Test
+    public void testZeroAndNegativeKeys() {
+        intLongMap.add(0, 1);
+        intLongMap.add(-1, 2);
+        intLongMap.add(Integer.MIN_VALUE, 3);
+        assertEquals(1, intLongMap.get(0), "Wrong value for key 0.");
+        assertEquals(2, intLongMap.get(-1), "Wrong value for key -1.");
+        assertEquals(3, intLongMap.get(Integer.MIN_VALUE),
+                "Wrong value for smallest key.");
+    }
+
+    @Test
+    public void testManyKeysAfterGrowing() {
+        int numberOfKeys = 10000;
+        for (int i = 0; i < numberOfKeys; i++)
+            intLongMap.add(i * 31, i);
+        assertEquals(numberOfKeys, intLongMap.size(), "Wrong size.");
+        for (int i = 0; i < numberOfKeys; i++)
+            assertEquals(i, intLongMap.get(i * 31),
+                    "Value lost when the map grew.");
+    }
+
+    @Test
+    public void testAddAll() {
+        intLongMap.add(1, 10);
+        intLongMap.add(2, 20);
+        IntLongMap mapToAdd = new IntLongMap();
+        mapToAdd.add(2, 5);
+        mapToAdd.add(3, 7);
+        intLongMap.addAll(mapToAdd);
+        assertEquals(10, intLongMap.get(1), "Wrong value for key 1.");
+        assertEquals(25, intLongMap.get(2), "Wrong value for key 2.");
+        assertEquals(7, intLongMap.get(3), "Wrong value for key 3.");
+        assertEquals(3, intLongMap.size(), "Wrong size.");
+    }
+
+    @Test
+    public void testForEachKeyAndValue() {
+        intLongMap.add(5, 50);
+        intLongMap.add(6, 60);
+        Map<Integer, Long> visitedEntries = new HashMap<>();
+        intLongMap.forEachKeyAndValue(visitedEntries::put);
+        assertEquals(Map.of(5, 50L, 6, 60L), visitedEntries,
+                "Wrong entries visited.");
+    }
+
+    @Test
+    public void testNegativeExpectedEntriesException() {
+        try {
+            new IntLongMap(-1);
+            fail("Negative expected number of entries was accepted.");
+        } catch (IllegalArgumentException exc) {
+            assertTrue(exc.getMessage().contains("negative"),
+                    "Wrong exception message.");
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package se.martenb.iv1350.project.saleprocess.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PersistentIntMapTest {
+
+    @Test
+    public void testEmpty() {
+        PersistentIntMap<String> emptyMap = PersistentIntMap.empty();
+        assertTrue(emptyMap.isEmpty(), "Empty map has entries.");
+        assertNull(emptyMap.get(0), "Found key in empty map.");
+    }
+
+    @Test
+    public void testPlusSameAsHashMap() {
+        Random random = new Random(7);
+        Map<Integer, Integer> expResult = new HashMap<>();
+        PersistentIntMap<Integer> result = PersistentIntMap.empty();
+        for (int i = 0; i < 40_000; i++) {
+            int key = i % 2 == 0 ? random.nextInt() : random.nextInt(1000);
+            expResult.put(key, i);
+            result = result.plus(key, i);
+        }
+        assertEquals(expResult.size(), result.size(), "Wrong size.");
+        for (Map.Entry<Integer, Integer> entry : expResult.entrySet())
+            assertEquals(entry.getValue(), result.get(entry.getKey()),
+                    "Wrong value of key " + entry.getKey() + ".");
+        assertNull(result.get(1000), "Found key that was never added.");
+    }
+
+    @Test
+    public void testKeysDifferingOnlyInHighestBits() {
+        PersistentIntMap<String> result = PersistentIntMap.<String>empty()
+                .plus(0, "zero").plus(Integer.MIN_VALUE, "minimum")
+                .plus(1 << 30, "high").plus(-1, "minus one");
+        assertEquals(4, result.size(), "Wrong size.");
+        assertEquals("zero", result.get(0), "Wrong value.");
+        assertEquals("minimum", result.get(Integer.MIN_VALUE),
+                "Wrong value.");
+        assertEquals("high", result.get(1 << 30), "Wrong value.");
+        assertEquals("minus one", result.get(-1), "Wrong value.");
+    }
+
+    @Test
+    public void testPlusDoesNotChangeOriginal() {
+        PersistentIntMap<Integer> original = PersistentIntMap.empty();
+        for (int i = 0; i < 100; i++)
+            original = original.plus(i, i);
+        PersistentIntMap<Integer> replaced = original.plus(5, -5);
+        PersistentIntMap<Integer> extended = original.plus(100, 100);
+        assertEquals(5, original.get(5), "Original map was changed.");
+        assertNull(original.get(100), "Original map was changed.");
+        assertEquals(-5, replaced.get(5), "Value was not replaced.");
+        assertEquals(100, replaced.size(), "Replacing changed the size.");
+        assertEquals(101, extended.size(), "Entry was not added.");
+    }
+
+    @Test
+    public void testForEachValue() {
+        PersistentIntMap<Integer> map = PersistentIntMap.empty();
+        for (int i = -50; i < 50; i++)
+            map = map.plus(i * 977, i);
+        long[] sum = new long[1];
+        int[] count = new int[1];
+        map.forEachValue(value -> {
+            sum[0] += value;
+            count[0]++;
+        });
+        assertEquals(100, count[0], "Wrong number of values visited.");
+        assertEquals(-50, sum[0], "Wrong values visited.");
+    }
+
+    @Test
+    public void testNullValueException() {
+        try {
+            PersistentIntMap.empty().plus(1, null);
+            fail("Added a null value.");
+        } catch (NullPointerException awaitedException) {
+        }
+    }
+
+}
@@ -0,0 +1,94 @@
+package se.martenb.iv1350.project.saleprocess.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PersistentListTest {
+
+    @Test
+    public void testEmpty() {
+        PersistentList<String> emptyList = PersistentList.empty();
+        assertTrue(emptyList.isEmpty(), "Empty list has elements.");
+        try {
+            emptyList.get(0);
+            fail("Got element from empty list.");
+        } catch (IndexOutOfBoundsException exc) {
+        }
+    }
+
+    @Test
+    public void testPlusSameAsArrayList() {
+        List<Integer> expResult = new ArrayList<>();
+        PersistentList<Integer> result = PersistentList.empty();
+        for (int i = 0; i < 40_000; i++) {
+            expResult.add(i);
+            result = result.plus(i);
+        }
+        assertEquals(expResult, result, "Wrong elements after adding.");
+    }
+
+    @Test
+    public void testPlusDoesNotChangeOriginal() {
+        PersistentList<Integer> original = PersistentList.empty();
+        for (int i = 0; i < 32; i++)
+            original = original.plus(i);
+        PersistentList<Integer> extended = original.plus(32);
+        assertEquals(32, original.size(), "Original list was changed.");
+        assertEquals(33, extended.size(), "Element was not added.");
+        assertEquals(Integer.valueOf(32), extended.get(32),
+                "Wrong added element.");
+    }
+
+    @Test
+    public void testWithSameAsArrayList() {
+        Random random = new Random(1350);
+        List<Integer> expResult = new ArrayList<>();
+        PersistentList<Integer> result = PersistentList.empty();
+        for (int i = 0; i < 5000; i++) {
+            expResult.add(i);
+            result = result.plus(i);
+        }
+        for (int i = 0; i < 5000; i++) {
+            int index = random.nextInt(expResult.size());
+            int element = random.nextInt();
+            expResult.set(index, element);
+            result = result.with(index, element);
+        }
+        assertEquals(expResult, result, "Wrong elements after replacing.");
+    }
+
+    @Test
+    public void testWithDoesNotChangeOriginal() {
+        PersistentList<String> original = PersistentList.<String>empty().
+                plus("a").plus("b").plus("c");
+        PersistentList<String> changed = original.with(1, "x");
+        assertEquals(List.of("a", "b", "c"), original,
+                "Original list was changed.");
+        assertEquals(List.of("a", "x", "c"), changed,
+                "Element was not replaced.");
+    }
+
+    @Test
+    public void testWithOutOfBounds() {
+        PersistentList<String> list = PersistentList.<String>empty().plus("a");
+        try {
+            list.with(1, "b");
+            fail("Replaced element outside of list.");
+        } catch (IndexOutOfBoundsException exc) {
+        }
+    }
+
+    @Test
+    public void testCanNotBeChanged() {
+        PersistentList<String> list = PersistentList.<String>empty().plus("a");
+        try {
+            list.add("b");
+            fail("Persistent list was changed.");
+        } catch (UnsupportedOperationException exc) {
+        }
+    }
+
+}
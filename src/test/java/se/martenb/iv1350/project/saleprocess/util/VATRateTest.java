@@ -0,0 +1,138 @@
+package se.martenb.iv1350.project.saleprocess.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VATRateTest {
+    private static final double PERCENT_MULTIPLIER = 0.01;
+
+    @Test
+    public void testRegisteredRates() {
+        assertSame(VATRate.STANDARD, VATRate.of(25), "Standard rate was " +
+                "not shared.");
+        assertSame(VATRate.REDUCED, VATRate.of(12), "Reduced rate was not " +
+                "shared.");
+        assertSame(VATRate.LOW, VATRate.of(6), "Low rate was not shared.");
+    }
+
+    @Test
+    public void testUnregisteredRate() {
+        double percent = 7.5;
+        VATRate result = VATRate.of(percent);
+        assertEquals(percent, result.getPercent(), "Wrong percent of " +
+                "unregistered rate.");
+        assertEquals(VATRate.of(percent), result, "Equal rates are not " +
+                "equal.");
+    }
+
+    @Test
+    public void testTaxesSameAsDoubleMultiplication() {
+        Random random = new Random(1350);
+        double[] percentages = {25, 12, 6, 0, 7.5, 100, 150, 33.3};
+        for (double percent : percentages) {
+            VATRate vatRate = VATRate.of(percent);
+            for (int i = 0; i < 20_000; i++) {
+                long minorUnits = i < 10_000 ?
+                        random.nextInt(2_000_001) - 1_000_000 :
+                        random.nextLong() >> random.nextInt(64);
+                Amount priceBeforeTaxes = Amount.ofMinorUnits(minorUnits);
+                Amount expResult;
+                try {
+                    expResult = priceBeforeTaxes.multiply(
+                            PERCENT_MULTIPLIER * percent);
+                } catch (ArithmeticException exc) {
+                    assertThrows(ArithmeticException.class,
+                            () -> vatRate.calculateTaxes(priceBeforeTaxes),
+                            "Too large taxes did not fail.");
+                    continue;
+                }
+                Amount result = vatRate.calculateTaxes(priceBeforeTaxes);
+                assertEquals(expResult, result, "Wrong taxes of " +
+                        priceBeforeTaxes + " at " + vatRate);
+            }
+        }
+    }
+
+    @Test
+    public void testTaxesOfExactMultiple() {
+        Amount priceBeforeTaxes = new Amount(100);
+        Amount expResult = priceBeforeTaxes.multiply(PERCENT_MULTIPLIER * 6);
+        Amount result = VATRate.LOW.calculateTaxes(priceBeforeTaxes);
+        assertEquals(expResult, result, "Taxes differ from multiplying " +
+                "with the double multiplier.");
+    }
+
+    @Test
+    public void testPriceOfIsInterned() {
+        Amount priceBeforeTaxes = new Amount(19);
+        Price firstPrice = VATRate.STANDARD.priceOf(priceBeforeTaxes);
+        Price secondPrice = Price.of(new Amount(19), 25);
+        assertSame(firstPrice, secondPrice, "Recently created price was " +
+                "not reused.");
+    }
+
+    private Amount taxesOfDoubleComputation(Amount priceBeforeTaxes,
+            double percent) {
+        BigDecimal taxes = priceBeforeTaxes.getAmount().multiply(
+                new BigDecimal(PERCENT_MULTIPLIER * percent));
+        return new Amount(taxes.setScale(2, RoundingMode.DOWN));
+    }
+
+    @Test
+    public void testPriceOfSameAsDoubleComputation() {
+        Random random = new Random(1350);
+        for (int i = 0; i < 10_000; i++) {
+            Amount priceBeforeTaxes = Amount.ofMinorUnits(
+                    random.nextInt(1_000_000));
+            double percent = new double[] {25, 12, 6}[random.nextInt(3)];
+            Amount expTaxes =
+                    taxesOfDoubleComputation(priceBeforeTaxes, percent);
+            Price result = Price.of(priceBeforeTaxes, percent);
+            assertEquals(priceBeforeTaxes, result.getPriceBeforeTax(),
+                    "Wrong price before taxes.");
+            assertEquals(expTaxes, result.getTaxesAmount(), "Wrong taxes " +
+                    "of " + priceBeforeTaxes + " at " + percent + "%.");
+            assertEquals(priceBeforeTaxes.plus(expTaxes),
+                    result.getPriceAfterTax(), "Wrong price after taxes.");
+            assertEquals(percent, result.getVATTaxRate(), "Wrong VAT rate.");
+        }
+    }
+
+    @Test
+    public void testPriceOfHandComputedPrices() {
+        String[][] prices = {
+            {"100.00", "6", "5.99", "105.99"},
+            {"19.00", "25", "4.75", "23.75"},
+            {"10.00", "12", "1.19", "11.19"},
+            {"0.99", "25", "0.24", "1.23"},
+            {"12.50", "12", "1.49", "13.99"}
+        };
+        for (String[] price : prices) {
+            Amount priceBeforeTaxes = new Amount(new BigDecimal(price[0]));
+            Price result = Price.of(priceBeforeTaxes,
+                    Double.parseDouble(price[1]));
+            assertEquals(new Amount(new BigDecimal(price[2])),
+                    result.getTaxesAmount(), "Wrong taxes of " + price[0] +
+                    " at " + price[1] + "%.");
+            assertEquals(new Amount(new BigDecimal(price[3])),
+                    result.getPriceAfterTax(), "Wrong price after taxes " +
+                    "of " + price[0] + " at " + price[1] + "%.");
+        }
+    }
+
+    @Test
+    public void testPriceOfUnregisteredRateIsNotInterned() {
+        Amount priceBeforeTaxes = new Amount(19);
+        Price firstPrice = Price.of(priceBeforeTaxes, 7.5);
+        Price secondPrice = Price.of(priceBeforeTaxes, 7.5);
+        assertNotSame(firstPrice, secondPrice, "Price with unregistered " +
+                "rate was reused.");
+        assertEquals(firstPrice.getPriceAfterTax(),
+                secondPrice.getPriceAfterTax(), "Prices with same rate " +
+                "differ.");
+    }
+
+}
@@ -0,0 +1,101 @@
+package se.martenb.iv1350.project.saleprocess.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import se.martenb.iv1350.project.saleprocess.testing.TestingTimer;
+
+public class VATRateTimingTest {
+    private static final int PRICES_PER_RUN = 100_000;
+    private static final int DISTINCT_PRICES = 2_000;
+    private static final double PERCENT_MULTIPLIER = 0.01;
+    private static final double DISCOUNT_PERCENT = 10;
+    private TestingTimer timer;
+    private Amount[] pricesBeforeTaxes;
+    private double[] vatRates;
+    
+    @BeforeEach
+    public void setUp() {
+        timer = new TestingTimer();
+        Random random = new Random(1350);
+        double[] registeredRates = {25, 12, 6};
+        pricesBeforeTaxes = new Amount[PRICES_PER_RUN];
+        vatRates = new double[PRICES_PER_RUN];
+        for (int i = 0; i < PRICES_PER_RUN; i++) {
+            pricesBeforeTaxes[i] = Amount.ofMinorUnits(
+                    100 * (1 + random.nextInt(DISTINCT_PRICES)));
+            vatRates[i] = registeredRates[random.nextInt(3)];
+        }
+    }
+    
+    @AfterEach
+    public void tearDown() {
+        vatRates = null;
+        pricesBeforeTaxes = null;
+        timer = null;
+    }
+    
+    private long createPrices(double discountPercent) {
+        long sumOfPrices = 0;
+        for (int i = 0; i < PRICES_PER_RUN; i++) {
+            Amount priceBeforeTaxes = pricesBeforeTaxes[i];
+            if (discountPercent > 0)
+                priceBeforeTaxes = priceBeforeTaxes.minus(priceBeforeTaxes.
+                        multiply(PERCENT_MULTIPLIER * discountPercent));
+            Price price = Price.of(priceBeforeTaxes, vatRates[i]);
+            sumOfPrices += price.getPriceAfterTax().getMinorUnits();
+        }
+        return sumOfPrices;
+    }
+    
+    private long createBigDecimalPrices(double discountPercent) {
+        long sumOfPrices = 0;
+        for (int i = 0; i < PRICES_PER_RUN; i++) {
+            BigDecimal priceBeforeTaxes = pricesBeforeTaxes[i].getAmount();
+            if (discountPercent > 0)
+                priceBeforeTaxes = priceBeforeTaxes.subtract(
+                        priceBeforeTaxes.multiply(new BigDecimal(
+                                PERCENT_MULTIPLIER * discountPercent)).
+                                setScale(2, RoundingMode.DOWN));
+            BigDecimal taxes = priceBeforeTaxes.multiply(new BigDecimal(
+                    PERCENT_MULTIPLIER * vatRates[i])).
+                    setScale(2, RoundingMode.DOWN);
+            BigDecimal priceAfterTaxes = priceBeforeTaxes.add(taxes);
+            sumOfPrices += priceAfterTaxes.unscaledValue().longValueExact();
+        }
+        return sumOfPrices;
+    }
+    
+    private void assertFasterThanBigDecimal(String measurement, 
+            double discountPercent) {
+        assertEquals(createBigDecimalPrices(discountPercent), 
+                createPrices(discountPercent), "Prices differ.");
+        double bigDecimalTime = timer.nanosPerOperation(PRICES_PER_RUN, 
+                () -> createBigDecimalPrices(discountPercent));
+        timer.report(measurement + " with BigDecimal taxes", bigDecimalTime);
+        double vatRateTime = timer.nanosPerOperation(PRICES_PER_RUN, 
+                () -> createPrices(discountPercent));
+        timer.report(measurement + " with VAT rate table", vatRateTime);
+        timer.reportAllocation(measurement + " with VAT rate table", 
+                timer.bytesPerOperation(PRICES_PER_RUN, 
+                        () -> createPrices(discountPercent)));
+        assertTrue(vatRateTime * 2 < bigDecimalTime, measurement + 
+                " took " + vatRateTime + " ns with the VAT rate table and " + 
+                bigDecimalTime + " ns with BigDecimal taxes.");
+    }
+    
+    @Test
+    public void testCatalogPricesFasterThanBigDecimalTaxes() {
+        assertFasterThanBigDecimal("Catalog price", 0);
+    }
+    
+    @Test
+    public void testDiscountedPricesFasterThanBigDecimalTaxes() {
+        assertFasterThanBigDecimal("Discounted price", DISCOUNT_PERCENT);
+    }
+    
+}